@@ -0,0 +1,64 @@
+package iscteiul.ista;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * How the adjacency graphs ({@link Graph}, {@link PropertyGraph}, {@link OwnerGraph}) find the
+ * pairs of properties that touch.
+ */
+public enum AdjacencyStrategy {
+
+    /**
+     * Tests every pair with {@link GeometryUtils#areAdjacent(PropertyRecord, PropertyRecord)}
+     * (pairs whose envelopes do not meet are ruled out cheaply). Exact for any input, but the
+     * number of tests grows with the square of the number of properties.
+     */
+    PAIRWISE {
+        @Override
+        public List<int[]> adjacentPairs(List<PropertyRecord> records) {
+            List<int[]> pairs = new ArrayList<>();
+            for (int i = 0; i < records.size(); i++) {
+                for (int j = i + 1; j < records.size(); j++) {
+                    if (GeometryUtils.areAdjacent(records.get(i), records.get(j))) {
+                        pairs.add(new int[]{i, j});
+                    }
+                }
+            }
+            return pairs;
+        }
+    },
+
+    /**
+     * Finds the pairs from shared boundary vertices and segments in one pass over all coordinates,
+     * confirming only corner contacts with JTS; see {@link SharedBoundaryAdjacency} for the
+     * assumptions on the data (a valid, noded coverage, as cadastral datasets are).
+     */
+    SHARED_BOUNDARY {
+        @Override
+        public List<int[]> adjacentPairs(List<PropertyRecord> records) {
+            return SharedBoundaryAdjacency.adjacentPairs(records);
+        }
+    },
+
+    /**
+     * Joins the envelopes with a parallel sort-and-sweep over vertical strips and tests only the
+     * pairs whose envelopes meet; see {@link PlaneSweepAdjacency}. Exact for any input, like
+     * {@link #PAIRWISE}, and suited to whole-island datasets.
+     */
+    PLANE_SWEEP {
+        @Override
+        public List<int[]> adjacentPairs(List<PropertyRecord> records) {
+            return PlaneSweepAdjacency.adjacentPairs(records);
+        }
+    };
+
+    /**
+     * Finds the touching pairs among {@code records}.
+     *
+     * @param records the properties
+     * @return the pairs as {@code {i, j}} indices into {@code records} with {@code i < j}, in
+     *         ascending order
+     */
+    public abstract List<int[]> adjacentPairs(List<PropertyRecord> records);
+}
@@ -2,16 +2,14 @@ package iscteiul.ista;
 
 import org.jgrapht.graph.DefaultEdge;
 import org.jgrapht.graph.SimpleGraph;
-import org.locationtech.jts.geom.Geometry;
-import org.locationtech.jts.geom.Point;
-import org.locationtech.jts.io.ParseException;
-import org.locationtech.jts.io.WKTReader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -49,6 +47,58 @@ public final class App {
      */
     private static PropertyRecord machicoPropertyRecord = null;
 
+    /**
+     * A value computed from the loaded records on first use, e.g. {@link #getDerivedTable()}, and
+     * kept until the records are replaced, changed or resized in place. Only used while holding
+     * the {@code App} class lock.
+     *
+     * @param <V> the type of the value
+     */
+    private static final class DatasetMemo<V> {
+        private final Function<List<PropertyRecord>, V> builder;
+        private V value;
+        private List<PropertyRecord> source;
+        private int size = -1;
+
+        DatasetMemo(Function<List<PropertyRecord>, V> builder) {
+            this.builder = builder;
+        }
+
+        V get(List<PropertyRecord> records) {
+            if (value == null || source != records || size != records.size()) {
+                value = builder.apply(records);
+                source = records;
+                size = records.size();
+            }
+            return value;
+        }
+
+        void clear() {
+            value = null;
+            source = null;
+            size = -1;
+        }
+    }
+
+    /** Centroids, envelopes, areas and perimeters of {@link #propertyRecords}. */
+    private static final DatasetMemo<GeometryDerivedTable> DERIVED_TABLE =
+            new DatasetMemo<>(GeometryDerivedTable::build);
+
+    /** Simplified geometries of {@link #propertyRecords}. */
+    private static final DatasetMemo<SimplifiedGeometryLevels> SIMPLIFIED_LEVELS =
+            new DatasetMemo<>(SimplifiedGeometryLevels::build);
+
+    /** Range queries over {@link #propertyRecords}. */
+    private static final DatasetMemo<SpatialQueries> SPATIAL_QUERIES = new DatasetMemo<>(SpatialQueries::build);
+
+    /** Nearest-neighbour queries over {@link #propertyRecords}, built with {@link #DERIVED_TABLE}. */
+    private static final DatasetMemo<NearestParcels> NEAREST_PARCELS =
+            new DatasetMemo<>(records -> NearestParcels.build(records, DERIVED_TABLE.get(records)));
+
+    /** Every value derived from {@link #propertyRecords}; {@link #invalidateDerivedData()} drops them all. */
+    private static final List<DatasetMemo<?>> DERIVED_DATA =
+            List.of(DERIVED_TABLE, SIMPLIFIED_LEVELS, SPATIAL_QUERIES, NEAREST_PARCELS);
+
     /**
      * Provides read-only access to the entire list of {@link PropertyRecord} objects
      * loaded from the CSV. If the CSV was never read or an error occurred, this might
@@ -66,6 +116,101 @@ public final class App {
      */
     public static void setPropertyRecords(List<PropertyRecord> records) {
         propertyRecords = records;
+        invalidateDerivedData();
+    }
+
+    /**
+     * Returns the {@link GeometryDerivedTable} of the loaded property records, building it (in
+     * parallel) the first time and after the records were replaced with
+     * {@link #setPropertyRecords(List)}, changed with {@link #applyDatasetDelta(DatasetDelta)} or
+     * resized in place.
+     *
+     * @return the table, with one row per record of {@link #getPropertyRecords()} (empty if none)
+     */
+    public static synchronized GeometryDerivedTable getDerivedTable() {
+        return DERIVED_TABLE.get(loadedRecords());
+    }
+
+    /**
+     * Returns the {@link SimplifiedGeometryLevels} (at the default tolerances) of the loaded property
+     * records, building them (in parallel) the first time and after the records changed, like
+     * {@link #getDerivedTable()}.
+     *
+     * @return the levels, with one row per record of {@link #getPropertyRecords()} (empty if none)
+     */
+    public static synchronized SimplifiedGeometryLevels getSimplifiedLevels() {
+        return SIMPLIFIED_LEVELS.get(loadedRecords());
+    }
+
+    /**
+     * Returns the {@link SpatialQueries} over the loaded property records, indexing them the first
+     * time and after the records changed, like {@link #getDerivedTable()}.
+     *
+     * @return the window and polygon queries over {@link #getPropertyRecords()} (empty if none)
+     */
+    public static synchronized SpatialQueries getSpatialQueries() {
+        return SPATIAL_QUERIES.get(loadedRecords());
+    }
+
+    /**
+     * Returns the {@link NearestParcels} queries over the loaded property records, indexing them
+     * (with the centroids and envelopes of {@link #getDerivedTable()}) the first time and after the
+     * records changed.
+     *
+     * @return the nearest-neighbour queries over {@link #getPropertyRecords()} (empty if none)
+     */
+    public static synchronized NearestParcels getNearestParcels() {
+        return NEAREST_PARCELS.get(loadedRecords());
+    }
+
+    private static List<PropertyRecord> loadedRecords() {
+        return propertyRecords == null ? List.of() : propertyRecords;
+    }
+
+    private static synchronized void invalidateDerivedData() {
+        for (DatasetMemo<?> memo : DERIVED_DATA) {
+            memo.clear();
+        }
+    }
+
+    /**
+     * Applies a {@link DatasetDelta} to the loaded property records in place, so a new version of
+     * the CSV can be taken in without replacing the list through {@link #setPropertyRecords(List)}.
+     * The Funchal and Machico reference properties are updated (or cleared) if the delta changed
+     * or removed them.
+     *
+     * @param delta the delta between the loaded records and the new version of the dataset
+     */
+    public static void applyDatasetDelta(DatasetDelta delta) {
+        if (propertyRecords == null) {
+            propertyRecords = new ArrayList<>();
+        }
+        delta.applyTo(propertyRecords);
+        invalidateDerivedData();
+        funchalPropertyRecord = updatedReference(funchalPropertyRecord, delta);
+        machicoPropertyRecord = updatedReference(machicoPropertyRecord, delta);
+        logger.info("Applied {}; {} records loaded", delta, propertyRecords.size());
+    }
+
+    /**
+     * Returns the record that replaces {@code reference} after the delta: its new version if it
+     * changed, {@code null} if it was removed, or the reference itself otherwise.
+     */
+    private static PropertyRecord updatedReference(PropertyRecord reference, DatasetDelta delta) {
+        if (reference == null) {
+            return null;
+        }
+        for (PropertyRecord changed : delta.getChanged()) {
+            if (changed.getObjectID() == reference.getObjectID()) {
+                return changed;
+            }
+        }
+        for (PropertyRecord removed : delta.getRemoved()) {
+            if (removed.getObjectID() == reference.getObjectID()) {
+                return null;
+            }
+        }
+        return reference;
     }
 
     /**
@@ -119,12 +264,16 @@ public final class App {
      * @param args command-line arguments (not used)
      */
     public static void main(String[] args) {
-        // 1. Read proprieties CSV
+        // 1. Read proprieties CSV (served from its binary snapshot when the CSV is unchanged)
         CSVFileReader csvFileReader = new CSVFileReader();
         propertyRecords = csvFileReader.importData("/Madeira-Moodle-1.2.csv");
         logger.info("Total records loaded: {}", propertyRecords.size());
         propertyRecords.removeIf(pr -> pr.getParish() == null || pr.getParish().isBlank());
 
+        // Validate every geometry once; invalid ones are quarantined (one summary line is logged)
+        // and skipped by the adjacency checks below.
+        GeometryQuarantine.validate(propertyRecords);
+
         // 1a. Print distinct parishes and municipalities.
         Set<String> distinctParishes = PropertyUtils.getDistinctParishes(propertyRecords);
         Set<String> distinctMunicipalities = PropertyUtils.getDistinctMunicipalities(propertyRecords);
@@ -213,31 +362,24 @@ public final class App {
 
         logger.info("Randomly chosen objectID {} from parish '{}'", testObjectID, chosenParish);
 
-        // 4a. Parse geometry and print centroid + other attributes for just this node.
-        WKTReader wktReader = new WKTReader();
-        String wkt = randomProperty.getGeometry();
-        if (wkt != null) {
-            try {
-                Geometry geom = wktReader.read(wkt);
-                Point centroid = geom.getCentroid();
-                double cx = centroid.getX();
-                double cy = centroid.getY();
-
-                logger.info("Selected node attributes:");
-                logger.info(" -> Object ID      = {}", randomProperty.getObjectID());
-                logger.info(" -> Parcel ID      = {}", randomProperty.getParcelID());
-                logger.info(" -> Perimeter [km] = {}", randomProperty.getShapeLength());
-                logger.info(" -> Area [ha]      = {}", randomProperty.getShapeArea());
-                logger.info(" -> Owner          = {}", randomProperty.getOwner());
-                logger.info(" -> Parish         = {}", randomProperty.getParish());
-                logger.info(" -> Municipality   = {}", randomProperty.getMunicipality());
-                logger.info(" -> Island         = {}", randomProperty.getIsland());
-                logger.info(" -> Centroid       = ({}, {})", cx, cy);
-
-            } catch (ParseException e) {
-                logger.warn("Failed to parse WKT for objectID={}: {}",
-                        randomProperty.getObjectID(), e.getMessage());
-            }
+        // 4a. Print centroid (from the derived table, no re-parse) + other attributes for just this node.
+        GeometryDerivedTable table = getDerivedTable();
+        int row = table.indexOf(testObjectID);
+        if (row >= 0 && table.hasGeometry(row)) {
+            double cx = table.getCentroidX(row);
+            double cy = table.getCentroidY(row);
+            logger.info("Selected node attributes:");
+            logger.info(" -> Object ID      = {}", randomProperty.getObjectID());
+            logger.info(" -> Parcel ID      = {}", randomProperty.getParcelID());
+            logger.info(" -> Perimeter [km] = {}", randomProperty.getShapeLength());
+            logger.info(" -> Area [ha]      = {}", randomProperty.getShapeArea());
+            logger.info(" -> Owner          = {}", randomProperty.getOwner());
+            logger.info(" -> Parish         = {}", randomProperty.getParish());
+            logger.info(" -> Municipality   = {}", randomProperty.getMunicipality());
+            logger.info(" -> Island         = {}", randomProperty.getIsland());
+            logger.info(" -> Centroid       = ({}, {})", cx, cy);
+        } else {
+            logger.warn("No valid geometry for objectID={}", randomProperty.getObjectID());
         }
 
         // 5. Get adjacency from the Graph.
@@ -260,7 +402,7 @@ public final class App {
                     testObjectID, graphNeighborIDs, listNeighborIDs);
         }
 
-        // 8. Build the JGraphT-based PropertyGraph (with STRtree-based adjacency).
+        // 8. Build the JGraphT-based PropertyGraph (with R-tree-based adjacency).
         PropertyGraph propertyGraphJgt = new PropertyGraph();
         propertyGraphJgt.buildGraph(parishSubset);
 
@@ -312,7 +454,7 @@ public final class App {
         double distanceMachico = PropertyUtils.distanceToMachico(1234);
         System.out.println("Distance to Machico in kilometers: " + String.format("%.1f", distanceMachico/1000));
 
-        // 13. Visualize the STRtree-based property graph in GraphStream.
+        // 13. Visualize the R-tree-based property graph in GraphStream.
         // GraphVisualization.visualizeGraph(propertyGraphJgt);
 
         // 14. Create a swing-based UI for the application
@@ -0,0 +1,136 @@
+package iscteiul.ista;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.CoordinateSequence;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.impl.CoordinateArraySequence;
+
+import java.nio.DoubleBuffer;
+
+/**
+ * A read-only, two-dimensional JTS {@link CoordinateSequence} over a range of interleaved
+ * {@code x, y} values in a {@link DoubleBuffer}, as stored by {@link PackedCoordinateStore}.
+ * <p>
+ * No {@link Coordinate} objects are kept: {@link #getX(int)} and {@link #getY(int)} read the buffer
+ * directly, and the methods that must return coordinates create them on each call. Only absolute
+ * buffer reads are used, so one buffer can back many sequences read from several threads.
+ * {@link #copy()} returns an ordinary (modifiable) {@link CoordinateArraySequence}.
+ */
+final class BufferCoordinateSequence implements CoordinateSequence {
+
+    private final DoubleBuffer buffer;
+    private final int offset;
+    private final int size;
+
+    /**
+     * @param buffer the buffer holding the coordinates
+     * @param offset the index in {@code buffer} of the first x value
+     * @param size   the number of coordinates
+     */
+    BufferCoordinateSequence(DoubleBuffer buffer, int offset, int size) {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.size = size;
+    }
+
+    @Override
+    public int getDimension() {
+        return 2;
+    }
+
+    @Override
+    public Coordinate getCoordinate(int i) {
+        return new Coordinate(getX(i), getY(i));
+    }
+
+    @Override
+    public Coordinate getCoordinateCopy(int i) {
+        return getCoordinate(i);
+    }
+
+    @Override
+    public void getCoordinate(int index, Coordinate coord) {
+        coord.setX(getX(index));
+        coord.setY(getY(index));
+    }
+
+    @Override
+    public double getX(int index) {
+        return buffer.get(offset + 2 * index);
+    }
+
+    @Override
+    public double getY(int index) {
+        return buffer.get(offset + 2 * index + 1);
+    }
+
+    @Override
+    public double getOrdinate(int index, int ordinateIndex) {
+        switch (ordinateIndex) {
+            case CoordinateSequence.X:
+                return getX(index);
+            case CoordinateSequence.Y:
+                return getY(index);
+            default:
+                return Double.NaN;
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Not supported: the packed store is shared and read-only.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void setOrdinate(int index, int ordinateIndex, double value) {
+        throw new UnsupportedOperationException("Packed coordinate sequences are read-only; copy() them first");
+    }
+
+    @Override
+    public Coordinate[] toCoordinateArray() {
+        Coordinate[] coordinates = new Coordinate[size];
+        for (int i = 0; i < size; i++) {
+            coordinates[i] = getCoordinate(i);
+        }
+        return coordinates;
+    }
+
+    @Override
+    public Envelope expandEnvelope(Envelope env) {
+        for (int i = 0; i < size; i++) {
+            env.expandToInclude(getX(i), getY(i));
+        }
+        return env;
+    }
+
+    /**
+     * @deprecated as in {@link CoordinateSequence#clone()}; use {@link #copy()}
+     */
+    @Override
+    @Deprecated
+    public Object clone() {
+        return copy();
+    }
+
+    @Override
+    public CoordinateSequence copy() {
+        return new CoordinateArraySequence(toCoordinateArray(), 2);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("(");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                text.append(", ");
+            }
+            text.append(getX(i)).append(' ').append(getY(i));
+        }
+        return text.append(')').toString();
+    }
+}
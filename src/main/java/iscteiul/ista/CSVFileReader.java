@@ -9,37 +9,163 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Utility class for reading property data from CSV files. It includes:
  * <ul>
  *   <li>{@link #importData(String)} to read from a resource on the classpath (e.g. /Madeira-Moodle-1.1.csv)</li>
  *   <li>{@link #importDataFromFile(String)} to read from a normal file path on disk</li>
+ *   <li>{@link #importDataParallel(String, int)} to read a large file on disk using several cores</li>
+ *   <li>{@link #importDataMapped(String)} to read a file on disk through a memory-mapped byte tokenizer</li>
+ *   <li>{@link #stream(String, RowFilter)} to lazily stream the rows of a file that pass a location filter</li>
+ *   <li>{@link #importDirectory(String, int)} to read and merge a directory of CSV shards concurrently</li>
+ *   <li>{@link #importDataCheckpointed(String)} to read a very large file with a resumable, checkpointed conversion</li>
  * </ul>
+ * Each import also has an overload taking a report sink, e.g.
+ * {@link #importDataFromFile(String, Consumer)}, which receives the {@link IngestReport} of that
+ * import (throughput, time per phase, rejected rows per column, peak heap). Rows that cannot be
+ * parsed are summarized in the report and in a single warning per import rather than logged one by one.
  */
 public class CSVFileReader {
 
     private static final Logger logger = LoggerFactory.getLogger(CSVFileReader.class);
 
+    /**
+     * Number of chunks created per worker thread in {@link #importDataParallel(String, int)}.
+     * Parcels vary a lot in WKT size, so a few extra chunks keep all workers busy until the end.
+     */
+    private static final int CHUNKS_PER_WORKER = 4;
+
+    /** Upper bound for a single chunk, which must fit in one memory-mapped buffer. */
+    private static final long MAX_CHUNK_BYTES = 1L << 30;
+
+    /** Size of the windows mapped while scanning the file for record boundaries. */
+    private static final long SCAN_WINDOW_BYTES = 64L << 20;
+
+    /**
+     * Whether {@link #importData(String)} may use and refresh {@link DatasetSnapshot binary snapshots}.
+     */
+    private boolean snapshotCacheEnabled = true;
+
+    /**
+     * Whether records read from memory-mapped data decode their geometry on demand.
+     */
+    private boolean lazyGeometryEnabled = false;
+
+    /**
+     * Enables or disables the binary snapshot cache used by {@link #importData(String)}.
+     * It is enabled by default.
+     *
+     * @param enabled {@code false} to always parse the CSV text
+     */
+    public void setSnapshotCacheEnabled(boolean enabled) {
+        this.snapshotCacheEnabled = enabled;
+    }
+
+    /**
+     * Enables or disables lazy geometry for the readers that work on memory-mapped data:
+     * {@link #importDataMapped(String)}, {@link #importDirectory(String, int)},
+     * {@link #stream(String, RowFilter)} and snapshot loading in
+     * {@link #importData(String)}. Lazy records keep a reference to the WKT bytes in the mapped file
+     * and only decode them when {@link PropertyRecord#getGeometry()} or
+     * {@link PropertyRecord#getParsedGeometry()} is called (see {@link LazyGeometry}), which makes
+     * attribute-only workloads (areas, owners, location filters) far lighter on the heap.
+     * <p>
+     * Disabled by default. While lazy records are alive, the CSV file must not be modified in place.
+     *
+     * @param enabled {@code true} to create records with lazy geometry
+     */
+    public void setLazyGeometryEnabled(boolean enabled) {
+        this.lazyGeometryEnabled = enabled;
+    }
+
     /**
      * Reads a CSV file from the classpath (e.g., /Madeira-Moodle-1.1.csv).
      * Uses getResourceAsStream, so the CSV must be in src/main/resources or
      * otherwise on the classpath.
+     * <p>
+     * When the resource is a plain file, a {@link DatasetSnapshot} is kept next to it: the first
+     * call parses the CSV and writes the snapshot, and later calls (as long as the CSV is unchanged)
+     * load the snapshot instead of parsing text.
      *
      * @param csvResourcePath e.g. "/Madeira-Moodle-1.1.csv"
      * @return a List of PropertyRecord, or empty if not found or parse error
      */
     public List<PropertyRecord> importData(String csvResourcePath) {
+        return importData(csvResourcePath, null);
+    }
+
+    /**
+     * Reads a CSV file from the classpath as {@link #importData(String)} does, and hands the
+     * {@link IngestReport} of the import to {@code reportSink}.
+     *
+     * @param csvResourcePath e.g. "/Madeira-Moodle-1.1.csv"
+     * @param reportSink      receives the report once the import has completed (not called if the
+     *                        resource is missing); may be {@code null}
+     * @return a List of PropertyRecord, or empty if not found or parse error
+     */
+    public List<PropertyRecord> importData(String csvResourcePath, Consumer<? super IngestReport> reportSink) {
+        String csvFile = snapshotCacheEnabled ? resolveResourceFile(csvResourcePath) : null;
+        if (csvFile != null) {
+            return importDataWithSnapshot(Path.of(csvFile), reportSink);
+        }
         InputStream csvStream = getClass().getResourceAsStream(csvResourcePath);
         if (csvStream == null) {
             logger.warn("Could not find CSV resource: {}", csvResourcePath);
             return new ArrayList<>();
         }
         logger.info("Reading CSV from resource path: {}", csvResourcePath);
-        return parseCsvInputStream(csvStream, csvResourcePath);
+        return parseCsvInputStream(csvStream, csvResourcePath, reportSink);
+    }
+
+    /**
+     * Loads the snapshot of the given CSV if it is up to date; otherwise parses the CSV and
+     * (re)writes the snapshot. Failing to write the snapshot is logged but not fatal.
+     */
+    private List<PropertyRecord> importDataWithSnapshot(Path csvFile, Consumer<? super IngestReport> reportSink) {
+        Path snapshot = DatasetSnapshot.snapshotPathFor(csvFile);
+        long start = startIngest();
+        List<PropertyRecord> cached = DatasetSnapshot.read(snapshot, csvFile, lazyGeometryEnabled);
+        if (cached != null) {
+            logger.info("Loaded {} records from snapshot {}", cached.size(), snapshot);
+            IngestReport.Recorder recorder = new IngestReport.Recorder();
+            recorder.rowsLoaded = cached.size();
+            recorder.bytesRead = snapshot.toFile().length();
+            finishIngest(recorder, snapshot.toString(), start, reportSink);
+            return cached;
+        }
+
+        List<PropertyRecord> propertyRecords = importDataFromFile(csvFile.toString(), reportSink);
+        if (!propertyRecords.isEmpty()) {
+            try {
+                DatasetSnapshot.write(snapshot, csvFile, propertyRecords);
+            } catch (IOException e) {
+                logger.warn("Could not write snapshot {}: {}", snapshot, e.getMessage());
+            }
+        }
+        return propertyRecords;
     }
 
     /**
@@ -49,6 +175,19 @@ public class CSVFileReader {
      * @return a List of PropertyRecord, or empty if file not found or parse errors
      */
     public List<PropertyRecord> importDataFromFile(String filePath) {
+        return importDataFromFile(filePath, null);
+    }
+
+    /**
+     * Reads a CSV file from disk as {@link #importDataFromFile(String)} does, and hands the
+     * {@link IngestReport} of the import to {@code reportSink}.
+     *
+     * @param filePath   the path to the CSV file
+     * @param reportSink receives the report once the import has completed (not called if the file
+     *                   is missing or cannot be opened); may be {@code null}
+     * @return a List of PropertyRecord, or empty if file not found or parse errors
+     */
+    public List<PropertyRecord> importDataFromFile(String filePath, Consumer<? super IngestReport> reportSink) {
         File csvFile = new File(filePath);
         if (!csvFile.exists()) {
             logger.warn("CSV file not found at: {}", filePath);
@@ -57,65 +196,901 @@ public class CSVFileReader {
         logger.info("Reading CSV from filesystem path: {}", filePath);
 
         try (FileInputStream fis = new FileInputStream(csvFile)) {
-            return parseCsvInputStream(fis, filePath);
+            return parseCsvInputStream(fis, filePath, reportSink);
         } catch (IOException e) {
             logger.error("Error opening CSV file: {}", filePath, e);
             return new ArrayList<>();
         }
     }
 
+    /**
+     * Reads a CSV file from disk by memory-mapping it and tokenizing the {@code ;} columns straight
+     * from the mapped bytes (see {@link CsvByteTokenizer}), instead of going through an
+     * {@code InputStreamReader} and OpenCSV.
+     * <p>
+     * {@code objectID}, {@code owner} and the comma-decimal {@code parcelID}/{@code parcelNumber}
+     * columns are parsed without creating intermediate Strings, so the only per-row allocations
+     * are the record itself and the String columns it keeps. The resulting records are identical
+     * to those of {@link #importDataFromFile(String)}.
+     *
+     * @param filePath the path to the CSV file
+     * @return a List of PropertyRecord, or empty if file not found or I/O errors
+     */
+    public List<PropertyRecord> importDataMapped(String filePath) {
+        return importDataMapped(filePath, null);
+    }
+
+    /**
+     * Reads a memory-mapped CSV file as {@link #importDataMapped(String)} does, and hands the
+     * {@link IngestReport} of the import to {@code reportSink}.
+     *
+     * @param filePath   the path to the CSV file
+     * @param reportSink receives the report once the import has completed (not called if the file
+     *                   is missing or cannot be read); may be {@code null}
+     * @return a List of PropertyRecord, or empty if file not found or I/O errors
+     */
+    public List<PropertyRecord> importDataMapped(String filePath, Consumer<? super IngestReport> reportSink) {
+        File csvFile = new File(filePath);
+        if (!csvFile.exists()) {
+            logger.warn("CSV file not found at: {}", filePath);
+            return new ArrayList<>();
+        }
+        logger.info("Reading memory-mapped CSV from filesystem path: {}", filePath);
+
+        long start = startIngest();
+        IngestReport.Recorder recorder = new IngestReport.Recorder();
+        List<PropertyRecord> propertyRecords;
+        try {
+            propertyRecords = parseMapped(csvFile, filePath, lazyGeometryEnabled, recorder);
+        } catch (IOException e) {
+            logger.error("Error reading memory-mapped CSV file: {}", filePath, e);
+            return new ArrayList<>();
+        }
+
+        logger.info("Finished reading CSV from {}. Total records loaded: {}", filePath, propertyRecords.size());
+        finishIngest(recorder, filePath, start, reportSink);
+        return propertyRecords;
+    }
+
+    /**
+     * Reads a (very large) CSV file from disk through a {@link CheckpointedIngest}: the file is
+     * converted into its {@link DatasetSnapshot} with periodic checkpoints, so if the process is killed
+     * or fails, calling this method again resumes from the last checkpoint instead of starting over.
+     * The records are then loaded from the completed snapshot, which later calls to
+     * {@link #importData(String)} reuse as well.
+     * <p>
+     * If the snapshot is already up to date, it is loaded directly.
+     *
+     * @param filePath the path to the CSV file
+     * @return a List of PropertyRecord, or empty if file not found or I/O errors
+     */
+    public List<PropertyRecord> importDataCheckpointed(String filePath) {
+        return importDataCheckpointed(filePath, null);
+    }
+
+    /**
+     * Reads a CSV file through a resumable conversion as {@link #importDataCheckpointed(String)}
+     * does, and hands an {@link IngestReport} to {@code reportSink}: the report of the conversion
+     * (see {@link CheckpointedIngest.Result#getReport()}), which only covers the rows converted by
+     * this call, or, if the snapshot was already up to date, the report of loading it.
+     *
+     * @param filePath   the path to the CSV file
+     * @param reportSink receives the report once the import has completed (not called if the file
+     *                   is missing or the conversion fails); may be {@code null}
+     * @return a List of PropertyRecord, or empty if file not found or I/O errors
+     */
+    public List<PropertyRecord> importDataCheckpointed(String filePath, Consumer<? super IngestReport> reportSink) {
+        Path csvFile = Path.of(filePath);
+        if (!Files.isRegularFile(csvFile)) {
+            logger.warn("CSV file not found at: {}", filePath);
+            return new ArrayList<>();
+        }
+        Path snapshot = DatasetSnapshot.snapshotPathFor(csvFile);
+        long start = startIngest();
+        List<PropertyRecord> cached = DatasetSnapshot.read(snapshot, csvFile, lazyGeometryEnabled);
+        if (cached != null) {
+            logger.info("Loaded {} records from snapshot {}", cached.size(), snapshot);
+            IngestReport.Recorder recorder = new IngestReport.Recorder();
+            recorder.rowsLoaded = cached.size();
+            recorder.bytesRead = snapshot.toFile().length();
+            finishIngest(recorder, snapshot.toString(), start, reportSink);
+            return cached;
+        }
+
+        IngestReport report;
+        try {
+            report = new CheckpointedIngest(csvFile, snapshot).run().getReport();
+        } catch (IOException e) {
+            logger.error("Checkpointed ingest of {} failed; run again to resume", filePath, e);
+            return new ArrayList<>();
+        }
+        List<PropertyRecord> records = DatasetSnapshot.read(snapshot, csvFile, lazyGeometryEnabled);
+        if (records == null) {
+            logger.error("Snapshot {} written by the checkpointed ingest could not be read", snapshot);
+            return new ArrayList<>();
+        }
+        logger.info("Finished reading CSV from {}. Total records loaded: {}", filePath, records.size());
+        if (reportSink != null) {
+            reportSink.accept(report);
+        }
+        return records;
+    }
+
+    /**
+     * Tokenizes a memory-mapped file and converts its rows, skipping the header; shared by
+     * {@link #importDataMapped(String)} and {@link #importDirectory(String, int)}.
+     */
+    private static List<PropertyRecord> parseMapped(File csvFile, String filePath, boolean lazyGeometry,
+                                                    IngestReport.Recorder recorder) throws IOException {
+        List<PropertyRecord> propertyRecords = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(csvFile.toPath(), StandardOpenOption.READ)) {
+            recorder.bytesRead += channel.size();
+            CsvByteTokenizer tokenizer = new CsvByteTokenizer(channel, 0, channel.size());
+            int rowIndex = 0;
+            recorder.startClock();
+            while (tokenizer.next()) {
+                recorder.lapTokenize();
+                // Skip header
+                if (rowIndex == 0) {
+                    rowIndex++;
+                    continue;
+                }
+                try {
+                    propertyRecords.add(toPropertyRecord(tokenizer, lazyGeometry, recorder));
+                } catch (RowParseException e) {
+                    rejectRow(recorder, e, rowIndex, filePath);
+                }
+                rowIndex++;
+            }
+        }
+        return propertyRecords;
+    }
+
+    /**
+     * Reads every {@code .csv} file (shard) of a directory, e.g. one export per island or
+     * municipality, and merges them into a single dataset; see {@link #importDirectory(String, int)}.
+     * At most one shard per available processor is read at a time.
+     *
+     * @param dirPath the directory holding the shards
+     * @return the merged records, or empty if the directory is missing or a shard cannot be read
+     */
+    public List<PropertyRecord> importDirectory(String dirPath) {
+        return importDirectory(dirPath, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Reads every {@code .csv} file (shard) of a directory concurrently, one worker per file with at
+     * most {@code maxConcurrent} files read at a time, and merges them into a single dataset.
+     * <p>
+     * Each shard is read as by {@link #importDataMapped(String)}. The shards are merged in file
+     * name order, and an {@code objectID} that already came from an earlier shard is dropped (parcels on
+     * a municipality border may appear in both exports); the IDs seen are kept in a primitive
+     * {@code int} hash set rather than a set of boxed {@link Integer}s. The merged records keep the
+     * order of their shard and file.
+     * <p>
+     * Use {@link #importDirectory(String, int, Consumer, Consumer)} to get the rows, duplicates and
+     * time of every shard and how skewed they are.
+     *
+     * @param dirPath       the directory holding the shards
+     * @param maxConcurrent the maximum number of shards read at the same time (must be at least 1)
+     * @return the merged records, or empty if the directory is missing or a shard cannot be read
+     * @throws IllegalArgumentException if {@code maxConcurrent} is less than 1
+     */
+    public List<PropertyRecord> importDirectory(String dirPath, int maxConcurrent) {
+        return importDirectory(dirPath, maxConcurrent, null, null);
+    }
+
+    /**
+     * Reads and merges a directory of CSV shards as {@link #importDirectory(String, int)} does, and
+     * hands its reports to the given sinks: a {@link ShardReport} with the rows, duplicates and time
+     * of every shard, and an {@link IngestReport} covering all shards together. Neither sink is
+     * called if the directory is missing or a shard cannot be read.
+     *
+     * @param dirPath         the directory holding the shards
+     * @param maxConcurrent   the maximum number of shards read at the same time (must be at least 1)
+     * @param reportSink      receives the report of the whole import; may be {@code null}
+     * @param shardReportSink receives the per-shard report; may be {@code null}
+     * @return the merged records, or empty if the directory is missing or a shard cannot be read
+     * @throws IllegalArgumentException if {@code maxConcurrent} is less than 1
+     */
+    public List<PropertyRecord> importDirectory(String dirPath, int maxConcurrent,
+                                                Consumer<? super IngestReport> reportSink,
+                                                Consumer<? super ShardReport> shardReportSink) {
+        if (maxConcurrent < 1) {
+            throw new IllegalArgumentException("maxConcurrent must be at least 1, got " + maxConcurrent);
+        }
+        File[] shardFiles = new File(dirPath).listFiles(
+                file -> file.isFile() && file.getName().toLowerCase(Locale.ROOT).endsWith(".csv"));
+        if (shardFiles == null) {
+            logger.warn("CSV directory not found at: {}", dirPath);
+            return new ArrayList<>();
+        }
+        Arrays.sort(shardFiles);
+        logger.info("Reading {} CSV shard(s) from {} with at most {} at a time", shardFiles.length, dirPath,
+                maxConcurrent);
+
+        long start = startIngest();
+        boolean lazyGeometry = lazyGeometryEnabled;
+        List<IngestReport.Recorder> recorders = new ArrayList<>();
+        List<Callable<List<PropertyRecord>>> tasks = new ArrayList<>();
+        long[] shardNanos = new long[shardFiles.length];
+        for (int i = 0; i < shardFiles.length; i++) {
+            File shardFile = shardFiles[i];
+            int shard = i;
+            IngestReport.Recorder recorder = new IngestReport.Recorder();
+            recorders.add(recorder);
+            tasks.add(() -> {
+                long shardStart = System.nanoTime();
+                List<PropertyRecord> records = parseMapped(shardFile, shardFile.getPath(), lazyGeometry, recorder);
+                shardNanos[shard] = System.nanoTime() - shardStart;
+                return records;
+            });
+        }
+
+        List<List<PropertyRecord>> shardRecords = new ArrayList<>();
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, Math.min(maxConcurrent, shardFiles.length)));
+        try {
+            for (Future<List<PropertyRecord>> result : pool.invokeAll(tasks)) {
+                shardRecords.add(result.get());
+            }
+        } catch (ExecutionException e) {
+            logger.error("Error reading CSV shards in {}", dirPath, e.getCause());
+            return new ArrayList<>();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("Interrupted while reading CSV shards in {}", dirPath, e);
+            return new ArrayList<>();
+        } finally {
+            pool.shutdown();
+        }
+
+        int total = 0;
+        for (List<PropertyRecord> records : shardRecords) {
+            total += records.size();
+        }
+        IntHashSet seenIds = new IntHashSet(total);
+        List<PropertyRecord> propertyRecords = new ArrayList<>(total);
+        List<ShardReport.Shard> shards = new ArrayList<>();
+        for (int i = 0; i < shardFiles.length; i++) {
+            long duplicates = 0;
+            for (PropertyRecord record : shardRecords.get(i)) {
+                if (seenIds.add(record.getObjectID())) {
+                    propertyRecords.add(record);
+                } else {
+                    duplicates++;
+                }
+            }
+            shards.add(new ShardReport.Shard(shardFiles[i].getPath(), shardRecords.get(i).size(), duplicates,
+                    shardFiles[i].length(), shardNanos[i]));
+        }
+
+        ShardReport shardReport = new ShardReport(shards);
+        logger.info("Finished reading {} shard(s) from {}. Total records loaded: {}; {}", shardFiles.length,
+                dirPath, propertyRecords.size(), shardReport);
+        IngestReport.Recorder recorder = new IngestReport.Recorder();
+        recorders.forEach(recorder::merge);
+        recorder.rowsLoaded = propertyRecords.size();
+        finishIngest(recorder, dirPath, start, reportSink);
+        if (shardReportSink != null) {
+            shardReportSink.accept(shardReport);
+        }
+        return propertyRecords;
+    }
+
+    /**
+     * Returns a lazily parsed {@link Stream} over the rows of a CSV file on disk that pass the given
+     * {@link RowFilter}.
+     * <p>
+     * Rows are tokenized from a memory-mapped buffer one at a time as the stream is consumed. For each
+     * row only the parish, municipality and island columns are decoded first; the numeric columns and
+     * the WKT geometry are decoded only when the filter accepts the row. Memory use is therefore
+     * proportional to the rows kept by the caller, not to the whole file.
+     * <p>
+     * The returned stream holds an open file channel and should be closed, e.g. with
+     * try-with-resources. Malformed rows are skipped; as in the other import methods, they are
+     * summarized in a single warning, which is logged when the stream is closed.
+     *
+     * @param filePath the path to the CSV file
+     * @param filter   decides which rows are decoded and emitted, e.g. {@link RowFilter#parish(String)}
+     * @return a sequential, ordered stream of the matching records; empty if the file cannot be opened
+     * @throws java.io.UncheckedIOException if an I/O error occurs while the stream is consumed
+     */
+    public Stream<PropertyRecord> stream(String filePath, RowFilter filter) {
+        return stream(filePath, filter, null);
+    }
+
+    /**
+     * Streams the rows of a CSV file that pass a filter as {@link #stream(String, RowFilter)} does,
+     * and hands an {@link IngestReport} to {@code reportSink} when the stream is closed. The report
+     * covers the part of the file read until then: the emitted rows count as loaded, and the rows
+     * the filter rejects are not counted at all.
+     *
+     * @param filePath   the path to the CSV file
+     * @param filter     decides which rows are decoded and emitted
+     * @param reportSink receives the report when the stream is closed (not called if the file
+     *                   cannot be opened); may be {@code null}
+     * @return a sequential, ordered stream of the matching records; empty if the file cannot be opened
+     * @throws java.io.UncheckedIOException if an I/O error occurs while the stream is consumed
+     */
+    public Stream<PropertyRecord> stream(String filePath, RowFilter filter,
+                                         Consumer<? super IngestReport> reportSink) {
+        Objects.requireNonNull(filter, "filter");
+        File csvFile = new File(filePath);
+        if (!csvFile.exists()) {
+            logger.warn("CSV file not found at: {}", filePath);
+            return Stream.empty();
+        }
+        logger.info("Streaming CSV from filesystem path: {}", filePath);
+
+        long start = startIngest();
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(csvFile.toPath(), StandardOpenOption.READ);
+            CsvByteTokenizer tokenizer = new CsvByteTokenizer(channel, 0, channel.size());
+            FileChannel toClose = channel;
+            RecordSpliterator records = new RecordSpliterator(tokenizer, filter, filePath, lazyGeometryEnabled);
+            return StreamSupport.stream(records, false)
+                    .onClose(() -> {
+                        closeQuietly(toClose, filePath);
+                        records.recorder.bytesRead = records.bytesRead();
+                        finishIngest(records.recorder, filePath, start, reportSink);
+                    });
+        } catch (IOException e) {
+            logger.error("Error opening CSV file for streaming: {}", filePath, e);
+            if (channel != null) {
+                closeQuietly(channel, filePath);
+            }
+            return Stream.empty();
+        }
+    }
+
+    /**
+     * Resolves a classpath resource (e.g. "/Madeira-Moodle-1.2.csv") to a file on disk, so it can be
+     * used with the path-based readers.
+     *
+     * @param csvResourcePath the classpath resource path
+     * @return the file path, or {@code null} if the resource is missing or not a plain file (e.g. inside a JAR)
+     */
+    public String resolveResourceFile(String csvResourcePath) {
+        URL url = getClass().getResource(csvResourcePath);
+        if (url == null || !"file".equals(url.getProtocol())) {
+            return null;
+        }
+        try {
+            return new File(url.toURI()).getPath();
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            logger.warn("Could not resolve CSV resource {} to a file: {}", csvResourcePath, e.getMessage());
+            return null;
+        }
+    }
+
+    private static void closeQuietly(FileChannel channel, String sourceDesc) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.warn("Error closing CSV file {}: {}", sourceDesc, e.getMessage());
+        }
+    }
+
+    /**
+     * Reads a CSV file from disk by splitting it into chunks at record boundaries and parsing
+     * the chunks concurrently on a dedicated {@link ForkJoinPool}.
+     * <p>
+     * Chunk boundaries are placed only on line breaks that are outside a quoted field, so a
+     * multi-line quoted value (e.g. a WKT geometry with embedded newlines) is never split.
+     * The returned list keeps the original file order, exactly as {@link #importDataFromFile(String)}
+     * would return it.
+     *
+     * @param filePath    the path to the CSV file
+     * @param parallelism the number of worker threads to use (must be at least 1)
+     * @return a List of PropertyRecord in file order, or empty if file not found or I/O errors
+     * @throws IllegalArgumentException if {@code parallelism} is less than 1
+     */
+    public List<PropertyRecord> importDataParallel(String filePath, int parallelism) {
+        return importDataParallel(filePath, parallelism, null);
+    }
+
+    /**
+     * Reads a CSV file from disk in parallel as {@link #importDataParallel(String, int)} does, and
+     * hands the {@link IngestReport} of the import, summed over all chunks, to {@code reportSink}.
+     *
+     * @param filePath    the path to the CSV file
+     * @param parallelism the number of worker threads to use (must be at least 1)
+     * @param reportSink  receives the report once the import has completed (not called if the file
+     *                    is missing or cannot be read); may be {@code null}
+     * @return a List of PropertyRecord in file order, or empty if file not found or I/O errors
+     * @throws IllegalArgumentException if {@code parallelism} is less than 1
+     */
+    public List<PropertyRecord> importDataParallel(String filePath, int parallelism,
+                                                   Consumer<? super IngestReport> reportSink) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1, got " + parallelism);
+        }
+        File csvFile = new File(filePath);
+        if (!csvFile.exists()) {
+            logger.warn("CSV file not found at: {}", filePath);
+            return new ArrayList<>();
+        }
+        logger.info("Reading CSV from filesystem path: {} with {} worker(s)", filePath, parallelism);
+
+        long start = startIngest();
+        List<IngestReport.Recorder> recorders = new ArrayList<>();
+        List<PropertyRecord> propertyRecords = new ArrayList<>();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try (FileChannel channel = FileChannel.open(csvFile.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            int chunkCount = (int) Math.max((long) parallelism * CHUNKS_PER_WORKER,
+                    (size + MAX_CHUNK_BYTES - 1) / MAX_CHUNK_BYTES);
+            long[] boundaries = findRecordBoundaries(channel, size, chunkCount);
+
+            List<Callable<List<PropertyRecord>>> tasks = new ArrayList<>();
+            for (int i = 0; i + 1 < boundaries.length; i++) {
+                long chunkStart = boundaries[i];
+                long length = boundaries[i + 1] - chunkStart;
+                boolean firstChunk = i == 0;
+                String chunkDesc = filePath + " (chunk " + i + ")";
+                IngestReport.Recorder recorder = new IngestReport.Recorder();
+                recorders.add(recorder);
+                tasks.add(() -> {
+                    ByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, chunkStart, length);
+                    return parseCsvInputStream(new ByteBufferInputStream(chunk), chunkDesc, firstChunk, recorder);
+                });
+            }
+
+            for (Future<List<PropertyRecord>> result : pool.invokeAll(tasks)) {
+                propertyRecords.addAll(result.get());
+            }
+        } catch (IOException | ExecutionException e) {
+            logger.error("Error reading CSV file in parallel: {}", filePath, e);
+            return new ArrayList<>();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("Interrupted while reading CSV file in parallel: {}", filePath, e);
+            return new ArrayList<>();
+        } finally {
+            pool.shutdown();
+        }
+
+        logger.info("Finished reading CSV from {}. Total records loaded: {}", filePath, propertyRecords.size());
+        IngestReport.Recorder total = new IngestReport.Recorder();
+        recorders.forEach(total::merge);
+        finishIngest(total, filePath, start, reportSink);
+        return propertyRecords;
+    }
+
+    /**
+     * Splits the file into (at most) {@code chunkCount} byte ranges of roughly equal size whose
+     * boundaries fall right after a record-terminating line break.
+     * <p>
+     * A single sequential pass tracks whether the current byte is inside a quoted field; a doubled
+     * quote ({@code ""}) toggles the state twice and therefore leaves it unchanged.
+     *
+     * @return the sorted chunk boundaries, starting with 0 and ending with {@code size}
+     */
+    private static long[] findRecordBoundaries(FileChannel channel, long size, int chunkCount) throws IOException {
+        List<Long> boundaries = new ArrayList<>();
+        boundaries.add(0L);
+        long chunkSize = Math.max(1, size / chunkCount);
+        long nextTarget = chunkSize;
+        boolean inQuotes = false;
+
+        for (long windowStart = 0; windowStart < size && nextTarget < size; windowStart += SCAN_WINDOW_BYTES) {
+            long windowLength = Math.min(SCAN_WINDOW_BYTES, size - windowStart);
+            ByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowLength);
+            for (int i = 0; i < windowLength; i++) {
+                byte b = window.get(i);
+                if (b == '"') {
+                    inQuotes = !inQuotes;
+                } else if (b == '\n' && !inQuotes && windowStart + i >= nextTarget) {
+                    long boundary = windowStart + i + 1;
+                    if (boundary < size) {
+                        boundaries.add(boundary);
+                    }
+                    nextTarget = boundary + chunkSize;
+                    if (nextTarget >= size) {
+                        break;
+                    }
+                }
+            }
+        }
+        boundaries.add(size);
+
+        long[] result = new long[boundaries.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = boundaries.get(i);
+        }
+        return result;
+    }
+
     /**
      * Shared logic to parse an InputStream using OpenCSV, converting each row into a PropertyRecord.
      */
-    private List<PropertyRecord> parseCsvInputStream(InputStream inputStream, String sourceDesc) {
+    private static List<PropertyRecord> parseCsvInputStream(InputStream inputStream, String sourceDesc,
+                                                            Consumer<? super IngestReport> reportSink) {
+        long start = startIngest();
+        IngestReport.Recorder recorder = new IngestReport.Recorder();
+        List<PropertyRecord> propertyRecords = parseCsvInputStream(inputStream, sourceDesc, true, recorder);
+        logger.info("Finished reading CSV from {}. Total records loaded: {}", sourceDesc, propertyRecords.size());
+        finishIngest(recorder, sourceDesc, start, reportSink);
+        return propertyRecords;
+    }
+
+    /**
+     * Parses the rows of an InputStream, optionally skipping the first row as the header.
+     * Used both for whole files and for the chunks of {@link #importDataParallel(String, int)},
+     * where only the first chunk carries the header. Counters and phase times go to {@code recorder}.
+     */
+    private static List<PropertyRecord> parseCsvInputStream(InputStream inputStream, String sourceDesc,
+                                                            boolean skipHeader, IngestReport.Recorder recorder) {
         List<PropertyRecord> propertyRecords = new ArrayList<>();
+        CountingInputStream counted = new CountingInputStream(inputStream);
 
-        try (Reader fileReader = new InputStreamReader(inputStream, StandardCharsets.UTF_8)) {
+        try (Reader fileReader = new InputStreamReader(counted, StandardCharsets.UTF_8)) {
             CSVParser parser = new CSVParserBuilder().withSeparator(';').build();
             try (CSVReader csvReader = new CSVReaderBuilder(fileReader).withCSVParser(parser).build()) {
 
                 String[] row;
                 int rowIndex = 0;
 
+                recorder.startClock();
                 while ((row = csvReader.readNext()) != null) {
+                    recorder.lapTokenize();
                     // Skip header
-                    if (rowIndex == 0) {
+                    if (rowIndex == 0 && skipHeader) {
                         rowIndex++;
                         continue;
                     }
                     try {
-                        int objectID = Integer.parseInt(row[0]);
+                        propertyRecords.add(toPropertyRecord(row, recorder));
+                    } catch (RowParseException e) {
+                        rejectRow(recorder, e, rowIndex, sourceDesc);
+                    }
+                    rowIndex++;
+                }
+            }
+        } catch (IOException | CsvValidationException e) {
+            logger.error("Error reading/parsing CSV from {}: {}", sourceDesc, e.getMessage(), e);
+        }
+
+        recorder.bytesRead += counted.count;
+        return propertyRecords;
+    }
+
+    /**
+     * Converts one CSV row (already split into columns) into a PropertyRecord.
+     *
+     * @throws RowParseException if the row is too short or one of the numeric columns cannot be parsed
+     */
+    private static PropertyRecord toPropertyRecord(String[] row, IngestReport.Recorder recorder) {
+        if (row.length < 10) {
+            throw new RowParseException(IngestReport.COLUMNS.length, "Expected 10 columns but found " + row.length);
+        }
+        int column = 0;
+        int objectID;
+        long parcelID;
+        long parcelNumber;
+        double shapeLength;
+        double shapeArea;
+        int owner;
+        try {
+            objectID = Integer.parseInt(row[0]);
+
+            column = 1;
+            String parcelIDString = row[1].replace(',', '.');
+            parcelID = (long) Double.parseDouble(parcelIDString);
+
+            column = 2;
+            String parcelNumberString = row[2].replace(',', '.');
+            parcelNumber = (long) Double.parseDouble(parcelNumberString);
+
+            column = 3;
+            shapeLength = Double.parseDouble(row[3]);
+            column = 4;
+            shapeArea = Double.parseDouble(row[4]);
+            column = 6;
+            owner = Integer.parseInt(row[6]);
+        } catch (NumberFormatException e) {
+            recorder.lapNumbers();
+            throw new RowParseException(column, e.getMessage());
+        }
+        recorder.lapNumbers();
+
+        String geometry = row[5];
+        String parish = "NA".equals(row[7]) ? null : row[7];
+        String municipality = "NA".equals(row[8]) ? null : row[8];
+        String island = "NA".equals(row[9]) ? null : row[9];
+
+        PropertyRecord record = new PropertyRecord(objectID, parcelID, parcelNumber,
+                shapeLength, shapeArea, geometry, owner, parish, municipality, island);
+        recorder.lapObjects();
+        recorder.rowLoaded();
+        return record;
+    }
+
+    /**
+     * Converts the current record of a {@link CsvByteTokenizer} into a PropertyRecord, recording the
+     * number parsing and object creation times; used by {@link #importDataMapped(String)} and
+     * {@link CheckpointedIngest}.
+     *
+     * @throws RowParseException if the row is too short or one of the numeric columns cannot be parsed
+     */
+    static PropertyRecord toPropertyRecord(CsvByteTokenizer row, boolean lazyGeometry,
+                                           IngestReport.Recorder recorder) {
+        if (row.fieldCount() < 10) {
+            throw new RowParseException(IngestReport.COLUMNS.length,
+                    "Expected 10 columns but found " + row.fieldCount());
+        }
+        String parish = regionField(row, 7);
+        String municipality = regionField(row, 8);
+        String island = regionField(row, 9);
+        recorder.lapObjects();
+        return toPropertyRecord(row, parish, municipality, island, lazyGeometry, recorder);
+    }
+
+    /**
+     * Converts the current record of a {@link CsvByteTokenizer} into a PropertyRecord.
+     *
+     * @throws NumberFormatException if a numeric column cannot be parsed or columns are missing
+     */
+    static PropertyRecord toPropertyRecord(CsvByteTokenizer row, boolean lazyGeometry) {
+        if (row.fieldCount() < 10) {
+            throw new RowParseException(IngestReport.COLUMNS.length,
+                    "Expected 10 columns but found " + row.fieldCount());
+        }
+        String parish = regionField(row, 7);
+        String municipality = regionField(row, 8);
+        String island = regionField(row, 9);
+        return toPropertyRecord(row, parish, municipality, island, lazyGeometry, null);
+    }
+
+    /**
+     * Decodes a location column ("NA" becomes {@code null}) as the canonical String of
+     * {@link PropertyRecord#regionDictionary()}; names already seen by the tokenizer are matched
+     * on their bytes, so no new String is created per row.
+     */
+    private static String regionField(CsvByteTokenizer row, int i) {
+        return row.isNA(i) ? null : row.internedField(i, PropertyRecord.regionDictionary());
+    }
+
+    /**
+     * Converts the current record of a {@link CsvByteTokenizer} into a PropertyRecord, using location
+     * columns that were already decoded (e.g. to evaluate a {@link RowFilter}). With
+     * {@code lazyGeometry}, the WKT column is referenced in the mapped buffer instead of decoded.
+     * If {@code recorder} is not {@code null}, the number parsing and object creation times are added to it.
+     *
+     * @throws RowParseException if a numeric column cannot be parsed
+     */
+    private static PropertyRecord toPropertyRecord(CsvByteTokenizer row, String parish, String municipality,
+                                                   String island, boolean lazyGeometry,
+                                                   IngestReport.Recorder recorder) {
+        int column = 0;
+        int objectID;
+        long parcelID;
+        long parcelNumber;
+        double shapeLength;
+        double shapeArea;
+        int owner;
+        try {
+            objectID = row.intField(0);
+            column = 1;
+            parcelID = row.commaDecimalLongField(1);
+            column = 2;
+            parcelNumber = row.commaDecimalLongField(2);
+            column = 3;
+            shapeLength = row.doubleField(3);
+            column = 4;
+            shapeArea = row.doubleField(4);
+            column = 6;
+            owner = row.intField(6);
+        } catch (NumberFormatException e) {
+            if (recorder != null) {
+                recorder.lapNumbers();
+            }
+            throw new RowParseException(column, e.getMessage());
+        }
+        if (recorder != null) {
+            recorder.lapNumbers();
+        }
+
+        PropertyRecord record;
+        if (lazyGeometry) {
+            record = PropertyRecord.withLazyGeometry(objectID, parcelID, parcelNumber,
+                    shapeLength, shapeArea, row.lazyField(5), owner, parish, municipality, island);
+        } else {
+            String geometry = row.stringField(5);
+            record = new PropertyRecord(objectID, parcelID, parcelNumber,
+                    shapeLength, shapeArea, geometry, owner, parish, municipality, island);
+        }
+        if (recorder != null) {
+            recorder.lapObjects();
+            recorder.rowLoaded();
+        }
+        return record;
+    }
+
+    /**
+     * Records a rejected row in {@code recorder}; the details are only logged at debug level, the
+     * import ends with a single summary warning (see {@link #finishIngest}).
+     */
+    static void rejectRow(IngestReport.Recorder recorder, RowParseException e, long rowIndex, String sourceDesc) {
+        String message = "row " + rowIndex + " in " + sourceDesc + ": " + e.getMessage();
+        recorder.reject(e.getColumn(), message);
+        logger.debug("Skipping {}", message);
+    }
+
+    /**
+     * Returns the start time of an import.
+     */
+    private static long startIngest() {
+        return System.nanoTime();
+    }
 
-                        String parcelIDString = row[1].replace(',', '.');
-                        long parcelID = (long) Double.parseDouble(parcelIDString);
+    /**
+     * Creates the report of a finished import, summarizes its rejected rows in one warning and hands
+     * the report to {@code reportSink}, if any.
+     */
+    private static void finishIngest(IngestReport.Recorder recorder, String sourceDesc, long startNanos,
+                                     Consumer<? super IngestReport> reportSink) {
+        recorder.sampleHeap();
+        IngestReport report = recorder.finish(sourceDesc, System.nanoTime() - startNanos);
+        if (report.getRejectedRows() > 0) {
+            logger.warn("Skipped {} malformed row(s) in {} (per column: {}); first: {}", report.getRejectedRows(),
+                    sourceDesc, report.getRejectsByColumn(), report.getRejectExamples());
+        }
+        logger.debug("{}", report);
+        if (reportSink != null) {
+            reportSink.accept(report);
+        }
+    }
 
-                        String parcelNumberString = row[2].replace(',', '.');
-                        long parcelNumber = (long) Double.parseDouble(parcelNumberString);
+    /**
+     * Spliterator behind {@link #stream(String, RowFilter)}: pulls one record at a time from the
+     * tokenizer, evaluates the filter on the location columns and only then decodes the rest.
+     */
+    private static final class RecordSpliterator extends Spliterators.AbstractSpliterator<PropertyRecord> {
 
-                        double shapeLength = Double.parseDouble(row[3]);
-                        double shapeArea = Double.parseDouble(row[4]);
-                        String geometry = row[5];
-                        int owner = Integer.parseInt(row[6]);
+        private final CsvByteTokenizer tokenizer;
+        private final RowFilter filter;
+        private final String sourceDesc;
+        private final boolean lazyGeometry;
+        /** Counts the rows and phase times of the part of the file read so far. */
+        final IngestReport.Recorder recorder = new IngestReport.Recorder();
+        private int rowIndex;
 
-                        String parish = "NA".equals(row[7]) ? null : row[7];
-                        String municipality = "NA".equals(row[8]) ? null : row[8];
-                        String island = "NA".equals(row[9]) ? null : row[9];
+        RecordSpliterator(CsvByteTokenizer tokenizer, RowFilter filter, String sourceDesc, boolean lazyGeometry) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.tokenizer = tokenizer;
+            this.filter = filter;
+            this.sourceDesc = sourceDesc;
+            this.lazyGeometry = lazyGeometry;
+        }
 
-                        PropertyRecord record = new PropertyRecord(objectID, parcelID, parcelNumber,
-                                shapeLength, shapeArea, geometry, owner, parish, municipality, island);
+        /**
+         * @return the number of bytes tokenized so far
+         */
+        long bytesRead() {
+            return rowIndex == 0 ? 0 : tokenizer.recordEnd();
+        }
 
-                        propertyRecords.add(record);
-                    } catch (NumberFormatException e) {
-                        logger.warn("Skipping row {} in {} due to parse error: {}", rowIndex, sourceDesc, e.getMessage());
+        @Override
+        public boolean tryAdvance(Consumer<? super PropertyRecord> action) {
+            try {
+                recorder.startClock();
+                while (tokenizer.next()) {
+                    recorder.lapTokenize();
+                    int currentRow = rowIndex++;
+                    // Skip header
+                    if (currentRow == 0) {
+                        continue;
                     }
-                    rowIndex++;
+                    if (tokenizer.fieldCount() < 10) {
+                        rejectRow(recorder, new RowParseException(IngestReport.COLUMNS.length,
+                                "Expected 10 columns but found " + tokenizer.fieldCount()), currentRow, sourceDesc);
+                        continue;
+                    }
+                    String parish = regionField(tokenizer, 7);
+                    String municipality = regionField(tokenizer, 8);
+                    String island = regionField(tokenizer, 9);
+                    recorder.lapObjects();
+                    if (!filter.accept(parish, municipality, island)) {
+                        continue;
+                    }
+                    PropertyRecord record;
+                    try {
+                        record = toPropertyRecord(tokenizer, parish, municipality, island, lazyGeometry, recorder);
+                    } catch (RowParseException e) {
+                        rejectRow(recorder, e, currentRow, sourceDesc);
+                        continue;
+                    }
+                    action.accept(record);
+                    return true;
                 }
+                return false;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Error reading CSV from " + sourceDesc, e);
             }
-        } catch (IOException | CsvValidationException e) {
-            logger.error("Error reading/parsing CSV from {}: {}", sourceDesc, e.getMessage(), e);
         }
+    }
 
-        logger.info("Finished reading CSV from {}. Total records loaded: {}", sourceDesc, propertyRecords.size());
-        return propertyRecords;
+    /**
+     * A {@link NumberFormatException} that also tells which column of the row could not be parsed:
+     * an index into {@link IngestReport#COLUMNS}, or {@code COLUMNS.length} if the row has too few columns.
+     */
+    static final class RowParseException extends NumberFormatException {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int column;
+
+        RowParseException(int column, String message) {
+            super((column < IngestReport.COLUMNS.length ? IngestReport.COLUMNS[column] : IngestReport.COLUMN_COUNT)
+                    + ": " + message);
+            this.column = column;
+        }
+
+        int getColumn() {
+            return column;
+        }
+    }
+
+    /**
+     * {@link FilterInputStream} that counts the bytes read through it, for {@link IngestReport#getBytesRead()}.
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] bytes, int off, int len) throws IOException {
+            int n = super.read(bytes, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+    }
+
+    /**
+     * Minimal {@link InputStream} over a (memory-mapped) {@link ByteBuffer}, so each chunk can
+     * be handed to OpenCSV without copying it to the heap first.
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(bytes, off, n);
+            return n;
+        }
     }
 }
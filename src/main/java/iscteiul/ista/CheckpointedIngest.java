@@ -0,0 +1,346 @@
+package iscteiul.ista;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * Resumable conversion of a (very large) cadastral CSV into a {@link DatasetSnapshot}, for nightly
+ * jobs where a crash near the end of a multi-gigabyte file should not mean starting over.
+ * <p>
+ * The CSV is tokenized from a memory-mapped file (see {@link CsvByteTokenizer}) and every record is
+ * appended to a partial snapshot ({@code <snapshot>.partial}). Each time another
+ * {@code checkpointBytes} of CSV have been consumed, the partial output is flushed to disk and a small
+ * checkpoint file ({@code <snapshot>.checkpoint}) records:
+ * <ul>
+ *   <li>the size and modification time of the CSV, so a changed file is never resumed;</li>
+ *   <li>the CSV byte offset where the next record starts;</li>
+ *   <li>the length of the partial output at that point, and the record and reject counts.</li>
+ * </ul>
+ * The checkpoint is written under a temporary name and moved into place, so it is always either the
+ * old or the new one. If the process dies, the next {@link #run()} truncates the partial output to
+ * the checkpointed length (dropping anything written after the checkpoint) and continues tokenizing
+ * at the checkpointed offset. At the end the trailer is written, the partial file is moved to the
+ * snapshot path and the checkpoint is deleted.
+ * <p>
+ * With the snapshot at {@link DatasetSnapshot#snapshotPathFor(Path)}, the result is exactly the
+ * snapshot that {@link CSVFileReader#importData(String)} loads instead of parsing the CSV; see
+ * {@link CSVFileReader#importDataCheckpointed(String)}.
+ *
+ * <p>Malformed rows are skipped as in {@link CSVFileReader#importDataMapped(String)}, and counted
+ * in the checkpoint and in the {@link IngestReport} of the run (see {@link Result#getReport()}).
+ * Instances are not thread-safe, and only one process may work on a given snapshot at a time.
+ */
+public final class CheckpointedIngest {
+
+    private static final Logger logger = LoggerFactory.getLogger(CheckpointedIngest.class);
+
+    /** Default amount of CSV consumed between two checkpoints. */
+    public static final long DEFAULT_CHECKPOINT_BYTES = 64L << 20;
+
+    /** "PCKP" in ASCII. */
+    private static final int MAGIC = 0x50434B50;
+    private static final int VERSION = 1;
+
+    private final Path csvFile;
+    private final Path snapshot;
+    private final long checkpointBytes;
+
+    /** Called after each checkpoint is in place, see {@link #setCheckpointListener(Runnable)}. */
+    private Runnable checkpointListener;
+
+    /**
+     * The outcome of a completed {@link #run()}.
+     */
+    public static final class Result {
+
+        private final long records;
+        private final long rejectedRows;
+        private final long resumedFromOffset;
+        private final int checkpoints;
+        private final IngestReport report;
+
+        private Result(long records, long rejectedRows, long resumedFromOffset, int checkpoints,
+                       IngestReport report) {
+            this.records = records;
+            this.rejectedRows = rejectedRows;
+            this.resumedFromOffset = resumedFromOffset;
+            this.checkpoints = checkpoints;
+            this.report = report;
+        }
+
+        /**
+         * @return the number of records in the snapshot, including those written before a resume
+         */
+        public long getRecords() {
+            return records;
+        }
+
+        /**
+         * @return the number of malformed rows skipped, including those skipped before a resume
+         */
+        public long getRejectedRows() {
+            return rejectedRows;
+        }
+
+        /**
+         * @return the CSV offset the run resumed from, or 0 if it started from the beginning
+         */
+        public long getResumedFromOffset() {
+            return resumedFromOffset;
+        }
+
+        /**
+         * @return the number of checkpoints written by this run
+         */
+        public int getCheckpoints() {
+            return checkpoints;
+        }
+
+        /**
+         * Returns the report of this run: the rows it converted and rejected (per column), the CSV
+         * bytes it consumed and its phase times. After a resume, the rows converted before the
+         * interruption are not part of it; {@link #getRecords()} and {@link #getRejectedRows()}
+         * count them.
+         *
+         * @return the report of this run
+         */
+        public IngestReport getReport() {
+            return report;
+        }
+
+        @Override
+        public String toString() {
+            return "Result{records=" + records + ", rejectedRows=" + rejectedRows
+                    + ", resumedFromOffset=" + resumedFromOffset + ", checkpoints=" + checkpoints + '}';
+        }
+    }
+
+    /**
+     * The state saved in a checkpoint.
+     */
+    private static final class State {
+        long csvOffset;
+        long rowIndex;
+        long records;
+        long rejectedRows;
+        long outputLength;
+    }
+
+    /**
+     * Creates an ingest that checkpoints every {@link #DEFAULT_CHECKPOINT_BYTES} of CSV.
+     *
+     * @param csvFile  the CSV file to convert
+     * @param snapshot the snapshot file to create
+     */
+    public CheckpointedIngest(Path csvFile, Path snapshot) {
+        this(csvFile, snapshot, DEFAULT_CHECKPOINT_BYTES);
+    }
+
+    /**
+     * @param csvFile         the CSV file to convert
+     * @param snapshot        the snapshot file to create
+     * @param checkpointBytes the amount of CSV consumed between two checkpoints (must be at least 1)
+     * @throws IllegalArgumentException if {@code checkpointBytes} is less than 1
+     */
+    public CheckpointedIngest(Path csvFile, Path snapshot, long checkpointBytes) {
+        if (checkpointBytes < 1) {
+            throw new IllegalArgumentException("checkpointBytes must be at least 1, got " + checkpointBytes);
+        }
+        this.csvFile = csvFile;
+        this.snapshot = snapshot;
+        this.checkpointBytes = checkpointBytes;
+    }
+
+    /**
+     * Sets a callback run on the ingesting thread each time a checkpoint has been written and moved
+     * into place, e.g. for tests that stop a run right after a checkpoint, as a crash would.
+     *
+     * @param listener the callback, or {@code null} for none
+     */
+    void setCheckpointListener(Runnable listener) {
+        this.checkpointListener = listener;
+    }
+
+    /**
+     * @param snapshot the snapshot being written
+     * @return the partial output file used while the snapshot is incomplete
+     */
+    public static Path partialPathFor(Path snapshot) {
+        return snapshot.resolveSibling(snapshot.getFileName() + ".partial");
+    }
+
+    /**
+     * @param snapshot the snapshot being written
+     * @return the checkpoint file used while the snapshot is incomplete
+     */
+    public static Path checkpointPathFor(Path snapshot) {
+        return snapshot.resolveSibling(snapshot.getFileName() + ".checkpoint");
+    }
+
+    /**
+     * Converts the CSV into the snapshot, resuming from the last checkpoint if a previous run was
+     * interrupted.
+     *
+     * @return the outcome of the conversion
+     * @throws IOException if the CSV cannot be read or the output cannot be written; the last
+     *                     checkpoint stays valid, so the run can simply be repeated
+     */
+    public Result run() throws IOException {
+        long start = System.nanoTime();
+        BasicFileAttributes source = Files.readAttributes(csvFile, BasicFileAttributes.class);
+        long sourceSize = source.size();
+        long sourceLastModified = source.lastModifiedTime().toMillis();
+        Path partial = partialPathFor(snapshot);
+        Path checkpoint = checkpointPathFor(snapshot);
+
+        State state = readCheckpoint(checkpoint, partial, sourceSize, sourceLastModified);
+        long resumedFrom = state == null ? 0 : state.csvOffset;
+        if (state == null) {
+            state = new State();
+        } else {
+            logger.info("Resuming ingest of {} at byte {} ({} records already written)",
+                    csvFile, state.csvOffset, state.records);
+        }
+
+        int checkpoints = 0;
+        IngestReport.Recorder recorder = new IngestReport.Recorder();
+        String sourceDesc = csvFile.toString();
+        try (FileChannel csv = FileChannel.open(csvFile, StandardOpenOption.READ);
+             FileChannel output = FileChannel.open(partial, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            output.truncate(state.outputLength);
+            output.position(state.outputLength);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(output), 1 << 16));
+            if (state.outputLength == 0) {
+                DatasetSnapshot.writeHeader(out, sourceSize, sourceLastModified);
+            }
+
+            CsvByteTokenizer tokenizer = new CsvByteTokenizer(csv, state.csvOffset, sourceSize);
+            long nextCheckpoint = state.csvOffset + checkpointBytes;
+            recorder.startClock();
+            while (tokenizer.next()) {
+                recorder.lapTokenize();
+                long rowIndex = state.rowIndex++;
+                // Skip header
+                if (rowIndex == 0) {
+                    continue;
+                }
+                try {
+                    DatasetSnapshot.writeRecord(out, CSVFileReader.toPropertyRecord(tokenizer, false, recorder));
+                    state.records++;
+                } catch (CSVFileReader.RowParseException e) {
+                    state.rejectedRows++;
+                    CSVFileReader.rejectRow(recorder, e, rowIndex, sourceDesc);
+                }
+
+                if (tokenizer.recordEnd() >= nextCheckpoint) {
+                    state.csvOffset = tokenizer.recordEnd();
+                    out.flush();
+                    output.force(false);
+                    state.outputLength = output.position();
+                    writeCheckpoint(checkpoint, state, sourceSize, sourceLastModified);
+                    checkpoints++;
+                    nextCheckpoint = state.csvOffset + checkpointBytes;
+                    if (checkpointListener != null) {
+                        checkpointListener.run();
+                    }
+                    recorder.startClock();
+                }
+            }
+
+            DatasetSnapshot.writeTrailer(out, state.records);
+            out.flush();
+            output.force(true);
+        }
+
+        try {
+            Files.move(partial, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(partial, snapshot, StandardCopyOption.REPLACE_EXISTING);
+        }
+        Files.deleteIfExists(checkpoint);
+
+        recorder.bytesRead = sourceSize - resumedFrom;
+        recorder.sampleHeap();
+        IngestReport report = recorder.finish(sourceDesc, System.nanoTime() - start);
+        if (state.rejectedRows > 0) {
+            logger.warn("Skipped {} malformed row(s) in {} (this run, per column: {}; first: {})",
+                    state.rejectedRows, csvFile, report.getRejectsByColumn(), report.getRejectExamples());
+        }
+        Result result = new Result(state.records, state.rejectedRows, resumedFrom, checkpoints, report);
+        logger.info("Finished checkpointed ingest of {} into {}: {}", csvFile, snapshot, result);
+        return result;
+    }
+
+    /**
+     * Reads the checkpoint if it belongs to the current version of the CSV and the partial output
+     * still holds everything it refers to.
+     *
+     * @return the saved state, or {@code null} to start from the beginning
+     */
+    private State readCheckpoint(Path checkpoint, Path partial, long sourceSize, long sourceLastModified) {
+        if (!Files.isRegularFile(checkpoint) || !Files.isRegularFile(partial)) {
+            return null;
+        }
+        try (InputStream in = Files.newInputStream(checkpoint);
+             DataInputStream data = new DataInputStream(in)) {
+            if (data.readInt() != MAGIC || data.readInt() != VERSION
+                    || data.readLong() != sourceSize || data.readLong() != sourceLastModified) {
+                logger.info("Checkpoint {} is for another version of {}; starting over", checkpoint, csvFile);
+                return null;
+            }
+            State state = new State();
+            state.csvOffset = data.readLong();
+            state.rowIndex = data.readLong();
+            state.records = data.readLong();
+            state.rejectedRows = data.readLong();
+            state.outputLength = data.readLong();
+            if (state.csvOffset > sourceSize || Files.size(partial) < state.outputLength) {
+                logger.warn("Checkpoint {} does not match its partial output; starting over", checkpoint);
+                return null;
+            }
+            return state;
+        } catch (IOException e) {
+            logger.warn("Could not read checkpoint {}: {}; starting over", checkpoint, e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * Writes the checkpoint under a temporary name, forces it to disk and moves it into place.
+     */
+    private static void writeCheckpoint(Path checkpoint, State state, long sourceSize, long sourceLastModified)
+            throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4 + 4 + 7 * 8);
+        buffer.putInt(MAGIC).putInt(VERSION).putLong(sourceSize).putLong(sourceLastModified)
+                .putLong(state.csvOffset).putLong(state.rowIndex).putLong(state.records)
+                .putLong(state.rejectedRows).putLong(state.outputLength).flip();
+        Path temp = checkpoint.resolveSibling(checkpoint.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        try {
+            Files.move(temp, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, checkpoint, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
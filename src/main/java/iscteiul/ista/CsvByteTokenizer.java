@@ -0,0 +1,514 @@
+package iscteiul.ista;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A semicolon-separated CSV tokenizer that works directly on the bytes of a memory-mapped file.
+ * <p>
+ * Instead of decoding the whole file into characters and splitting every row into a
+ * {@code String[]} (as OpenCSV does), this tokenizer only records where each field starts and ends
+ * inside the mapped buffer. Numeric columns can then be parsed straight from those bytes, and a
+ * {@code String} is only created for the columns that really need one.
+ *
+ * <p>The file is mapped in windows, so files larger than 2&nbsp;GB are supported. When a record
+ * crosses the end of the current window, the window is re-mapped starting at that record.
+ *
+ * <p>Supported syntax: {@code ;} separator, {@code "} quoting (with {@code ""} as an escaped quote,
+ * and line breaks allowed inside quoted fields), and {@code \n} or {@code \r\n} line endings.
+ *
+ * <p>Instances are not thread-safe; use one tokenizer per thread.
+ */
+final class CsvByteTokenizer {
+
+    /** Default size of each mapped window. */
+    static final long DEFAULT_WINDOW_BYTES = 256L << 20;
+
+    /** Largest number that survives a round trip through {@code double} without rounding (2^53). */
+    private static final long MAX_EXACT_DOUBLE_INTEGER = 1L << 53;
+
+    /** Maximum significant digits for which the fast decimal path matches {@code Double.parseDouble}. */
+    private static final int MAX_FAST_DIGITS = 15;
+
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private final FileChannel channel;
+    private final long end;
+    private long windowBytes;
+
+    /** The currently mapped window (or the whole in-memory buffer) and its absolute start offset. */
+    private ByteBuffer window;
+    private long windowStart;
+    private int windowLimit;
+
+    /** Position (relative to the window) where the next record starts. */
+    private int pos;
+
+    /** Absolute offsets of the current record, including its line terminator. */
+    private long recordStart;
+    private long recordEnd;
+
+    private int fieldCount;
+    private int[] fieldStarts = new int[16];
+    private int[] fieldEnds = new int[16];
+    private boolean[] fieldEscaped = new boolean[16];
+
+    /** Reusable buffer for the fields that are turned into Strings. */
+    private byte[] scratch = new byte[256];
+
+    /**
+     * Small open-addressing cache from raw field bytes to canonical Strings, used by
+     * {@link #internedField(int, StringDictionary)} so repeated names are not decoded again.
+     */
+    private byte[][] internKeys = new byte[64][];
+    private String[] internValues = new String[64];
+    private int internCount;
+
+    /** Past this many distinct values the column is not low-cardinality; stop caching. */
+    private static final int MAX_INTERNED = 4096;
+
+    /**
+     * Creates a tokenizer for the byte range {@code [start, end)} of the given channel.
+     *
+     * @param channel an open channel; it may be closed once tokenizing is done, mapped buffers stay valid
+     * @param start   the absolute offset of the first record
+     * @param end     the absolute offset where tokenizing stops
+     */
+    CsvByteTokenizer(FileChannel channel, long start, long end) throws IOException {
+        this(channel, start, end, DEFAULT_WINDOW_BYTES);
+    }
+
+    /**
+     * Creates a tokenizer with a custom window size (mainly useful for tests).
+     */
+    CsvByteTokenizer(FileChannel channel, long start, long end, long windowBytes) throws IOException {
+        this.channel = channel;
+        this.end = end;
+        this.windowBytes = Math.max(1, Math.min(windowBytes, Integer.MAX_VALUE));
+        map(start);
+    }
+
+    /**
+     * Creates a tokenizer over the bytes {@code [0, limit)} of an in-memory buffer, e.g. a block of
+     * rows handed over by another thread. Offsets reported by {@link #recordStart()} are buffer indices.
+     *
+     * @param buffer the buffer to tokenize; only absolute reads are used
+     */
+    CsvByteTokenizer(ByteBuffer buffer) {
+        this.channel = null;
+        this.end = buffer.limit();
+        this.windowBytes = buffer.limit();
+        this.window = buffer;
+        this.windowStart = 0;
+        this.windowLimit = buffer.limit();
+        this.pos = 0;
+    }
+
+    /**
+     * Advances to the next record.
+     *
+     * @return {@code true} if a record is available, {@code false} at the end of the range
+     * @throws IOException if re-mapping the file fails
+     */
+    boolean next() throws IOException {
+        while (windowStart + pos < end) {
+            int recordEndPos = scanRecord(pos);
+            if (recordEndPos >= 0) {
+                recordStart = windowStart + pos;
+                recordEnd = windowStart + recordEndPos;
+                pos = recordEndPos;
+                return true;
+            }
+            // The record crosses the end of the window: map again, starting at the record.
+            long newStart = windowStart + pos;
+            if (pos == 0) {
+                if (windowBytes == Integer.MAX_VALUE) {
+                    throw new IOException("CSV record at offset " + newStart + " is larger than 2 GB");
+                }
+                windowBytes = Math.min(windowBytes * 2, Integer.MAX_VALUE);
+            }
+            map(newStart);
+        }
+        return false;
+    }
+
+    /** Maps a new window starting at the given absolute offset. */
+    private void map(long start) throws IOException {
+        long length = Math.min(windowBytes, end - start);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.max(0, length));
+        windowStart = start;
+        windowLimit = (int) Math.max(0, length);
+        pos = 0;
+    }
+
+    /**
+     * Splits one record starting at {@code p} into fields.
+     *
+     * @return the position right after the record terminator, or -1 if the window ends before
+     *         the record does and more data is available
+     */
+    private int scanRecord(int p) {
+        boolean lastWindow = windowStart + windowLimit >= end;
+        fieldCount = 0;
+        while (true) {
+            ensureFieldCapacity();
+            boolean escaped = false;
+            int start;
+            int stop;
+            if (p < windowLimit && window.get(p) == '"') {
+                start = ++p;
+                while (true) {
+                    if (p >= windowLimit) {
+                        if (!lastWindow) {
+                            return -1;
+                        }
+                        stop = p;      // unterminated quote at end of file
+                        break;
+                    }
+                    if (window.get(p) == '"') {
+                        if (p + 1 < windowLimit && window.get(p + 1) == '"') {
+                            escaped = true;
+                            p += 2;
+                            continue;
+                        }
+                        if (p + 1 >= windowLimit && !lastWindow) {
+                            return -1;
+                        }
+                        stop = p++;
+                        break;
+                    }
+                    p++;
+                }
+                // Skip anything between the closing quote and the next separator.
+                while (p < windowLimit && window.get(p) != ';' && window.get(p) != '\n') {
+                    p++;
+                }
+            } else {
+                start = p;
+                while (p < windowLimit && window.get(p) != ';' && window.get(p) != '\n') {
+                    p++;
+                }
+                stop = p;
+                if (stop > start && window.get(stop - 1) == '\r' && (p >= windowLimit || window.get(p) == '\n')) {
+                    stop--;
+                }
+            }
+
+            if (p >= windowLimit && !lastWindow) {
+                return -1;
+            }
+            fieldStarts[fieldCount] = start;
+            fieldEnds[fieldCount] = stop;
+            fieldEscaped[fieldCount] = escaped;
+            fieldCount++;
+
+            if (p >= windowLimit) {
+                return p;
+            }
+            if (window.get(p) == '\n') {
+                return p + 1;
+            }
+            p++;    // skip ';'
+        }
+    }
+
+    private void ensureFieldCapacity() {
+        if (fieldCount == fieldStarts.length) {
+            int newLength = fieldStarts.length * 2;
+            fieldStarts = Arrays.copyOf(fieldStarts, newLength);
+            fieldEnds = Arrays.copyOf(fieldEnds, newLength);
+            fieldEscaped = Arrays.copyOf(fieldEscaped, newLength);
+        }
+    }
+
+    /** @return the number of fields in the current record */
+    int fieldCount() {
+        return fieldCount;
+    }
+
+    /** @return the absolute file offset where the current record starts */
+    long recordStart() {
+        return recordStart;
+    }
+
+    /** @return the absolute file offset right after the current record (including its line break) */
+    long recordEnd() {
+        return recordEnd;
+    }
+
+    /** @return the mapped window holding the current record */
+    ByteBuffer window() {
+        return window;
+    }
+
+    /** @return the start of field {@code i}, relative to {@link #window()} */
+    int fieldStart(int i) {
+        return fieldStarts[i];
+    }
+
+    /** @return the end (exclusive) of field {@code i}, relative to {@link #window()} */
+    int fieldEnd(int i) {
+        return fieldEnds[i];
+    }
+
+    /** @return {@code true} if field {@code i} contains escaped ({@code ""}) quotes */
+    boolean fieldHasEscapes(int i) {
+        return fieldEscaped[i];
+    }
+
+    /**
+     * @return {@code true} if field {@code i} is exactly the literal {@code NA}
+     */
+    boolean isNA(int i) {
+        int start = fieldStarts[i];
+        return fieldEnds[i] - start == 2 && window.get(start) == 'N' && window.get(start + 1) == 'A';
+    }
+
+    /**
+     * Decodes field {@code i} as a UTF-8 String, unescaping doubled quotes.
+     */
+    String stringField(int i) {
+        int length = copyToScratch(i);
+        String value = new String(scratch, 0, length, StandardCharsets.UTF_8);
+        return fieldEscaped[i] ? value.replace("\"\"", "\"") : value;
+    }
+
+    /**
+     * Returns a reference to the bytes of field {@code i} that decodes them only on demand. The
+     * reference keeps the current mapped window alive, but none of the field is copied.
+     */
+    LazyGeometry lazyField(int i) {
+        return new LazyGeometry(window, fieldStarts[i], fieldEnds[i] - fieldStarts[i], fieldEscaped[i]);
+    }
+
+    /**
+     * Returns field {@code i} as the canonical String of {@code dictionary}. For a field whose
+     * bytes were seen before, no String is decoded at all: the bytes are hashed and matched in a
+     * per-tokenizer cache. Meant for low-cardinality columns such as parish or municipality.
+     */
+    String internedField(int i, StringDictionary dictionary) {
+        if (fieldEscaped[i]) {
+            return dictionary.canonical(stringField(i));
+        }
+        int start = fieldStarts[i];
+        int length = fieldEnds[i] - start;
+        int hash = 1;
+        for (int k = 0; k < length; k++) {
+            hash = 31 * hash + window.get(start + k);
+        }
+        int mask = internKeys.length - 1;
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        for (byte[] key; (key = internKeys[slot]) != null; slot = (slot + 1) & mask) {
+            if (key.length == length && bytesEqual(key, start)) {
+                return internValues[slot];
+            }
+        }
+        String value = dictionary.canonical(stringField(i));
+        if (internCount < MAX_INTERNED) {
+            internKeys[slot] = Arrays.copyOf(scratch, length);
+            internValues[slot] = value;
+            if (++internCount * 2 > internKeys.length) {
+                rehashInterned();
+            }
+        }
+        return value;
+    }
+
+    private boolean bytesEqual(byte[] key, int start) {
+        for (int k = 0; k < key.length; k++) {
+            if (key[k] != window.get(start + k)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void rehashInterned() {
+        byte[][] oldKeys = internKeys;
+        String[] oldValues = internValues;
+        internKeys = new byte[oldKeys.length * 2][];
+        internValues = new String[oldKeys.length * 2];
+        int mask = internKeys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            byte[] key = oldKeys[j];
+            if (key == null) {
+                continue;
+            }
+            int hash = 1;
+            for (byte b : key) {
+                hash = 31 * hash + b;
+            }
+            int slot = (hash ^ (hash >>> 16)) & mask;
+            while (internKeys[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            internKeys[slot] = key;
+            internValues[slot] = oldValues[j];
+        }
+    }
+
+    /**
+     * Parses field {@code i} as a decimal {@code int}, without creating a String.
+     *
+     * @throws NumberFormatException if the field is not a valid int
+     */
+    int intField(int i) {
+        int p = fieldStarts[i];
+        int stop = fieldEnds[i];
+        boolean negative = false;
+        if (p < stop && (window.get(p) == '-' || window.get(p) == '+')) {
+            negative = window.get(p) == '-';
+            p++;
+        }
+        if (p == stop) {
+            throw numberFormatError(i);
+        }
+        long value = 0;
+        for (; p < stop; p++) {
+            int digit = window.get(p) - '0';
+            if (digit < 0 || digit > 9) {
+                throw numberFormatError(i);
+            }
+            value = value * 10 + digit;
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                throw numberFormatError(i);
+            }
+        }
+        long signed = negative ? -value : value;
+        if (signed > Integer.MAX_VALUE) {
+            throw numberFormatError(i);
+        }
+        return (int) signed;
+    }
+
+    /**
+     * Parses field {@code i} the same way {@code (long) Double.parseDouble(s.replace(',', '.'))} would,
+     * accepting a comma or a dot as decimal separator and an optional exponent (e.g. {@code 2,99624E+12}).
+     * <p>
+     * Values with up to 15 significant digits are computed exactly from the bytes; anything longer
+     * falls back to {@code Double.parseDouble} so rounding stays identical to the OpenCSV path.
+     *
+     * @throws NumberFormatException if the field is not a valid number
+     */
+    long commaDecimalLongField(int i) {
+        int p = fieldStarts[i];
+        int stop = fieldEnds[i];
+        boolean negative = false;
+        if (p < stop && (window.get(p) == '-' || window.get(p) == '+')) {
+            negative = window.get(p) == '-';
+            p++;
+        }
+        long mantissa = 0;
+        int significantDigits = 0;
+        int fractionDigits = 0;
+        boolean anyDigit = false;
+        boolean inFraction = false;
+        for (; p < stop; p++) {
+            byte b = window.get(p);
+            if (b >= '0' && b <= '9') {
+                anyDigit = true;
+                if (mantissa != 0 || b != '0') {
+                    significantDigits++;
+                }
+                if (significantDigits > MAX_FAST_DIGITS) {
+                    return slowCommaDecimalLong(i);
+                }
+                mantissa = mantissa * 10 + (b - '0');
+                if (inFraction) {
+                    fractionDigits++;
+                }
+            } else if ((b == ',' || b == '.') && !inFraction) {
+                inFraction = true;
+            } else {
+                break;
+            }
+        }
+        if (!anyDigit) {
+            return slowCommaDecimalLong(i);
+        }
+        int exponent = 0;
+        if (p < stop) {
+            byte b = window.get(p);
+            if (b != 'e' && b != 'E') {
+                return slowCommaDecimalLong(i);
+            }
+            p++;
+            boolean negativeExponent = false;
+            if (p < stop && (window.get(p) == '-' || window.get(p) == '+')) {
+                negativeExponent = window.get(p) == '-';
+                p++;
+            }
+            if (p == stop || stop - p > 3) {
+                return slowCommaDecimalLong(i);
+            }
+            for (; p < stop; p++) {
+                int digit = window.get(p) - '0';
+                if (digit < 0 || digit > 9) {
+                    return slowCommaDecimalLong(i);
+                }
+                exponent = exponent * 10 + digit;
+            }
+            if (negativeExponent) {
+                exponent = -exponent;
+            }
+        }
+
+        int power = exponent - fractionDigits;
+        long value;
+        if (mantissa == 0) {
+            value = 0;
+        } else if (power >= 0) {
+            if (power >= POWERS_OF_TEN.length || mantissa > MAX_EXACT_DOUBLE_INTEGER / POWERS_OF_TEN[power]) {
+                return slowCommaDecimalLong(i);
+            }
+            value = mantissa * POWERS_OF_TEN[power];
+        } else {
+            value = -power >= POWERS_OF_TEN.length ? 0 : mantissa / POWERS_OF_TEN[-power];
+        }
+        return negative ? -value : value;
+    }
+
+    /** Fallback for {@link #commaDecimalLongField(int)}, matching the OpenCSV code path. */
+    private long slowCommaDecimalLong(int i) {
+        return (long) Double.parseDouble(asciiField(i).replace(',', '.'));
+    }
+
+    /**
+     * Parses field {@code i} with {@link Double#parseDouble(String)}.
+     *
+     * @throws NumberFormatException if the field is not a valid double
+     */
+    double doubleField(int i) {
+        return Double.parseDouble(asciiField(i));
+    }
+
+    /** Decodes a field known to contain only ASCII characters. */
+    private String asciiField(int i) {
+        int length = copyToScratch(i);
+        return new String(scratch, 0, length, StandardCharsets.ISO_8859_1);
+    }
+
+    private int copyToScratch(int i) {
+        int start = fieldStarts[i];
+        int length = fieldEnds[i] - start;
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        window.get(start, scratch, 0, length);
+        return length;
+    }
+
+    private NumberFormatException numberFormatError(int i) {
+        return new NumberFormatException("For input string: \"" + asciiField(i) + "\"");
+    }
+}
@@ -0,0 +1,221 @@
+package iscteiul.ista;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The difference between a loaded dataset and a newer version of it (e.g. Madeira-Moodle 1.1 and 1.2),
+ * so that small cadastral corrections can be applied to the in-memory data in place instead of
+ * re-ingesting everything and rebuilding every graph.
+ * <p>
+ * Records are matched by {@code objectID}; a matched pair counts as changed when its
+ * {@link #contentHash(PropertyRecord) content hash} differs. The delta can then be applied to
+ * a record list ({@link #applyTo(List)}), a {@link Graph} ({@link Graph#applyDelta(DatasetDelta)}) and a
+ * {@link PropertyGraph} ({@link PropertyGraph#applyDelta(DatasetDelta)}), each of which only touches
+ * the records that were added, removed or changed.
+ *
+ * <p><strong>Usage Example:</strong></p>
+ * <pre>{@code
+ * DatasetDelta delta = DatasetDelta.load(reader, "Madeira-Moodle-1.2.csv", App.getPropertyRecords());
+ * App.applyDatasetDelta(delta);
+ * graph.applyDelta(delta);
+ * }</pre>
+ *
+ * <p>{@code objectID}s are assumed to be unique within each dataset; if one repeats, the last
+ * record with that ID is the one compared.</p>
+ */
+public final class DatasetDelta {
+
+    private static final Logger logger = LoggerFactory.getLogger(DatasetDelta.class);
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final List<PropertyRecord> added;
+    private final List<PropertyRecord> removed;
+    private final List<PropertyRecord> changed;
+    private final List<PropertyRecord> previous;
+
+    private DatasetDelta(List<PropertyRecord> added, List<PropertyRecord> removed,
+                         List<PropertyRecord> changed, List<PropertyRecord> previous) {
+        this.added = Collections.unmodifiableList(added);
+        this.removed = Collections.unmodifiableList(removed);
+        this.changed = Collections.unmodifiableList(changed);
+        this.previous = Collections.unmodifiableList(previous);
+    }
+
+    /**
+     * Compares two versions of a dataset.
+     *
+     * @param current  the records currently loaded
+     * @param incoming the records of the new version
+     * @return the records that were added, removed or changed in {@code incoming}
+     */
+    public static DatasetDelta compute(List<PropertyRecord> current, List<PropertyRecord> incoming) {
+        Map<Integer, PropertyRecord> currentById = new HashMap<>(current.size() * 4 / 3 + 1);
+        for (PropertyRecord record : current) {
+            currentById.put(record.getObjectID(), record);
+        }
+
+        List<PropertyRecord> added = new ArrayList<>();
+        List<PropertyRecord> changed = new ArrayList<>();
+        List<PropertyRecord> previous = new ArrayList<>();
+        Set<Integer> seen = new HashSet<>(incoming.size() * 4 / 3 + 1);
+        for (PropertyRecord record : incoming) {
+            seen.add(record.getObjectID());
+            PropertyRecord old = currentById.get(record.getObjectID());
+            if (old == null) {
+                added.add(record);
+            } else if (contentHash(old) != contentHash(record)) {
+                changed.add(record);
+                previous.add(old);
+            }
+        }
+
+        List<PropertyRecord> removed = new ArrayList<>();
+        for (PropertyRecord record : currentById.values()) {
+            if (!seen.contains(record.getObjectID())) {
+                removed.add(record);
+            }
+        }
+
+        logger.info("Dataset delta: {} added, {} removed, {} changed", added.size(), removed.size(), changed.size());
+        return new DatasetDelta(added, removed, changed, previous);
+    }
+
+    /**
+     * Reads a new version of the dataset with {@link CSVFileReader#importDataMapped(String)} and compares it
+     * to the records currently loaded.
+     *
+     * @param reader   the reader to use
+     * @param filePath the path of the new CSV file
+     * @param current  the records currently loaded
+     * @return the delta between {@code current} and the file
+     */
+    public static DatasetDelta load(CSVFileReader reader, String filePath, List<PropertyRecord> current) {
+        return compute(current, reader.importDataMapped(filePath));
+    }
+
+    /**
+     * Computes a 64-bit FNV-1a hash over all the columns of a record. Two records with the same
+     * content always have the same hash; different contents collide with a probability of about
+     * 2<sup>-64</sup>, which is accepted here in exchange for never comparing geometries field by field.
+     *
+     * @param record the record
+     * @return the content hash
+     */
+    public static long contentHash(PropertyRecord record) {
+        long hash = FNV_OFFSET_BASIS;
+        hash = mix(hash, record.getObjectID());
+        hash = mix(hash, record.getParcelID());
+        hash = mix(hash, record.getParcelNumber());
+        hash = mix(hash, Double.doubleToLongBits(record.getShapeLength()));
+        hash = mix(hash, Double.doubleToLongBits(record.getShapeArea()));
+        hash = mix(hash, record.getOwner());
+        hash = mix(hash, record.getGeometry());
+        hash = mix(hash, record.getParish());
+        hash = mix(hash, record.getMunicipality());
+        return mix(hash, record.getIsland());
+    }
+
+    private static long mix(long hash, long value) {
+        for (int i = 0; i < Long.BYTES; i++) {
+            hash = (hash ^ (value & 0xFF)) * FNV_PRIME;
+            value >>>= 8;
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, String value) {
+        if (value == null) {
+            return mix(hash, -1L);
+        }
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+        }
+        // Terminate the string so that ("ab", "c") and ("a", "bc") hash differently.
+        return mix(hash, value.length());
+    }
+
+    /**
+     * @return the records of the new version whose {@code objectID} was not loaded
+     */
+    public List<PropertyRecord> getAdded() {
+        return added;
+    }
+
+    /**
+     * @return the loaded records whose {@code objectID} is missing from the new version
+     */
+    public List<PropertyRecord> getRemoved() {
+        return removed;
+    }
+
+    /**
+     * @return the new versions of the records whose content changed
+     */
+    public List<PropertyRecord> getChanged() {
+        return changed;
+    }
+
+    /**
+     * @return the loaded versions of the records whose content changed, in the same order as
+     *         {@link #getChanged()}
+     */
+    public List<PropertyRecord> getPrevious() {
+        return previous;
+    }
+
+    /**
+     * @return {@code true} if both versions have the same content
+     */
+    public boolean isEmpty() {
+        return added.isEmpty() && removed.isEmpty() && changed.isEmpty();
+    }
+
+    /**
+     * Applies this delta to a list of records in place: removed records are dropped, changed records
+     * are replaced at their position and added records are appended at the end. Takes a single pass
+     * over the list, so it is O(n) regardless of the size of the delta.
+     *
+     * @param records the mutable list to update, normally the list the delta was computed against
+     */
+    public void applyTo(List<PropertyRecord> records) {
+        Objects.requireNonNull(records, "records");
+        Set<Integer> removedIds = new HashSet<>();
+        for (PropertyRecord record : removed) {
+            removedIds.add(record.getObjectID());
+        }
+        Map<Integer, PropertyRecord> replacements = new HashMap<>();
+        for (PropertyRecord record : changed) {
+            replacements.put(record.getObjectID(), record);
+        }
+
+        int kept = 0;
+        for (int i = 0; i < records.size(); i++) {
+            PropertyRecord record = records.get(i);
+            if (removedIds.contains(record.getObjectID())) {
+                continue;
+            }
+            PropertyRecord replacement = replacements.get(record.getObjectID());
+            records.set(kept++, replacement != null ? replacement : record);
+        }
+        records.subList(kept, records.size()).clear();
+        records.addAll(added);
+    }
+
+    @Override
+    public String toString() {
+        return "DatasetDelta{added=" + added.size() + ", removed=" + removed.size()
+                + ", changed=" + changed.size() + '}';
+    }
+}
@@ -0,0 +1,252 @@
+package iscteiul.ista;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact binary snapshot of a parsed cadastral CSV, stored next to the CSV file.
+ * <p>
+ * The first time a CSV is parsed, {@link #write(Path, Path, List)} saves every record with its
+ * primitive columns in binary form. Later runs call {@link #read(Path, Path)}, which memory-maps the
+ * snapshot and rebuilds the records without any text or number parsing. The snapshot is tagged with
+ * the size and last-modified time of the source CSV and is ignored as soon as the CSV changes.
+ *
+ * <p><strong>File layout</strong> (big-endian):
+ * <pre>
+ * header : int magic, int version, long sourceSize, long sourceLastModified
+ * record : byte 1, int objectID, long parcelID, long parcelNumber, double shapeLength,
+ *          double shapeArea, int owner, str parish, str municipality, str island, text geometry
+ * trailer: byte 0, long recordCount
+ * str    : short length (-1 for null) + UTF-8 bytes
+ * text   : int length (-1 for null) + UTF-8 bytes
+ * </pre>
+ * The geometry is kept as its original WKT bytes: {@link PropertyRecord#getGeometry()} must return
+ * the exact CSV text, and copying bytes into a String is far cheaper than re-encoding from WKB.
+ * A snapshot without its trailer (e.g. an interrupted write) is rejected.
+ */
+public final class DatasetSnapshot {
+
+    private static final Logger logger = LoggerFactory.getLogger(DatasetSnapshot.class);
+
+    /** File name suffix appended to the CSV path. */
+    public static final String SUFFIX = ".snapshot";
+
+    /** "PSNP" in ASCII. */
+    private static final int MAGIC = 0x50534E50;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 8;
+
+    private static final byte RECORD_TAG = 1;
+    private static final byte END_TAG = 0;
+
+    /**
+     * Private constructor to prevent instantiation of this utility class.
+     *
+     * @throws AssertionError always, because this constructor should never be called.
+     */
+    private DatasetSnapshot() {
+        throw new AssertionError("Utility class - do not instantiate.");
+    }
+
+    /**
+     * Returns where the snapshot of the given CSV file lives (the CSV path plus {@link #SUFFIX}).
+     *
+     * @param csvFile the source CSV file
+     * @return the snapshot path
+     */
+    public static Path snapshotPathFor(Path csvFile) {
+        return csvFile.resolveSibling(csvFile.getFileName() + SUFFIX);
+    }
+
+    /**
+     * Writes a snapshot of {@code records}, tagged with the current size and modification time of
+     * {@code sourceCsv}. The file is written under a temporary name and then moved into place, so a
+     * reader never sees a partially written snapshot.
+     *
+     * @param snapshot  the snapshot file to create or replace
+     * @param sourceCsv the CSV file the records were parsed from
+     * @param records   the parsed records
+     * @throws IOException if the snapshot cannot be written
+     */
+    public static void write(Path snapshot, Path sourceCsv, List<PropertyRecord> records) throws IOException {
+        BasicFileAttributes source = Files.readAttributes(sourceCsv, BasicFileAttributes.class);
+        Path temp = snapshot.resolveSibling(snapshot.getFileName() + ".tmp");
+        try (OutputStream fileOut = Files.newOutputStream(temp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut, 1 << 16))) {
+            writeHeader(out, source.size(), source.lastModifiedTime().toMillis());
+            for (PropertyRecord record : records) {
+                writeRecord(out, record);
+            }
+            writeTrailer(out, records.size());
+        }
+        try {
+            Files.move(temp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, snapshot, StandardCopyOption.REPLACE_EXISTING);
+        }
+        logger.info("Wrote snapshot of {} records to {}", records.size(), snapshot);
+    }
+
+    /**
+     * Reads a snapshot if it exists, is complete and was written for the current version of
+     * {@code sourceCsv} (same size and modification time).
+     *
+     * @param snapshot  the snapshot file
+     * @param sourceCsv the CSV file the snapshot should correspond to
+     * @return the records in their original order, or {@code null} if the snapshot is missing,
+     *         stale or corrupt (callers should then parse the CSV)
+     */
+    public static List<PropertyRecord> read(Path snapshot, Path sourceCsv) {
+        return read(snapshot, sourceCsv, false);
+    }
+
+    /**
+     * Like {@link #read(Path, Path)}, optionally leaving the geometries in the mapped snapshot.
+     * With {@code lazyGeometry}, every record refers to its WKT bytes in the snapshot and decodes
+     * them on first use (see {@link LazyGeometry}); the mapping stays alive as long as any of the
+     * records does.
+     *
+     * @param snapshot     the snapshot file
+     * @param sourceCsv    the CSV file the snapshot should correspond to
+     * @param lazyGeometry {@code true} to decode geometries on demand
+     * @return the records in their original order, or {@code null} if the snapshot is missing,
+     *         stale or corrupt
+     */
+    public static List<PropertyRecord> read(Path snapshot, Path sourceCsv, boolean lazyGeometry) {
+        if (!Files.isRegularFile(snapshot) || !Files.isRegularFile(sourceCsv)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES || channel.size() > Integer.MAX_VALUE) {
+                return null;
+            }
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            BasicFileAttributes source = Files.readAttributes(sourceCsv, BasicFileAttributes.class);
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION
+                    || buffer.getLong() != source.size()
+                    || buffer.getLong() != source.lastModifiedTime().toMillis()) {
+                logger.info("Snapshot {} is stale or from another version; ignoring it", snapshot);
+                return null;
+            }
+            return readRecords(buffer, lazyGeometry);
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+            logger.warn("Could not read snapshot {}: {}", snapshot, e.toString());
+            return null;
+        }
+    }
+
+    /** Decodes records until the trailer; returns {@code null} if the trailer is missing or inconsistent. */
+    private static List<PropertyRecord> readRecords(ByteBuffer buffer, boolean lazyGeometry) {
+        List<PropertyRecord> records = new ArrayList<>();
+        byte[] scratch = new byte[256];
+        while (buffer.hasRemaining()) {
+            byte tag = buffer.get();
+            if (tag == END_TAG) {
+                long count = buffer.getLong();
+                return count == records.size() ? records : null;
+            }
+            if (tag != RECORD_TAG) {
+                return null;
+            }
+            int objectID = buffer.getInt();
+            long parcelID = buffer.getLong();
+            long parcelNumber = buffer.getLong();
+            double shapeLength = buffer.getDouble();
+            double shapeArea = buffer.getDouble();
+            int owner = buffer.getInt();
+            String parish = readString(buffer, buffer.getShort(), scratch);
+            String municipality = readString(buffer, buffer.getShort(), scratch);
+            String island = readString(buffer, buffer.getShort(), scratch);
+            int geometryLength = buffer.getInt();
+            if (lazyGeometry && geometryLength >= 0) {
+                LazyGeometry geometry = new LazyGeometry(buffer, buffer.position(), geometryLength, false);
+                buffer.position(buffer.position() + geometryLength);
+                records.add(PropertyRecord.withLazyGeometry(objectID, parcelID, parcelNumber, shapeLength,
+                        shapeArea, geometry, owner, parish, municipality, island));
+                continue;
+            }
+            if (geometryLength > scratch.length) {
+                scratch = new byte[Math.max(geometryLength, scratch.length * 2)];
+            }
+            String geometry = readString(buffer, geometryLength, scratch);
+            records.add(new PropertyRecord(objectID, parcelID, parcelNumber, shapeLength, shapeArea,
+                    geometry, owner, parish, municipality, island));
+        }
+        return null;
+    }
+
+    private static String readString(ByteBuffer buffer, int length, byte[] scratch) {
+        if (length < 0) {
+            return null;
+        }
+        byte[] target = length <= scratch.length ? scratch : new byte[length];
+        buffer.get(target, 0, length);
+        return new String(target, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /** Writes the snapshot header. */
+    static void writeHeader(DataOutputStream out, long sourceSize, long sourceLastModified) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(sourceSize);
+        out.writeLong(sourceLastModified);
+    }
+
+    /** Writes one record, preceded by its tag byte. */
+    static void writeRecord(DataOutputStream out, PropertyRecord record) throws IOException {
+        out.writeByte(RECORD_TAG);
+        out.writeInt(record.getObjectID());
+        out.writeLong(record.getParcelID());
+        out.writeLong(record.getParcelNumber());
+        out.writeDouble(record.getShapeLength());
+        out.writeDouble(record.getShapeArea());
+        out.writeInt(record.getOwner());
+        writeShortString(out, record.getParish());
+        writeShortString(out, record.getMunicipality());
+        writeShortString(out, record.getIsland());
+        String geometry = record.getGeometry();
+        if (geometry == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = geometry.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    /** Writes the trailer that marks a complete snapshot. */
+    static void writeTrailer(DataOutputStream out, long recordCount) throws IOException {
+        out.writeByte(END_TAG);
+        out.writeLong(recordCount);
+    }
+
+    private static void writeShortString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeShort(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > Short.MAX_VALUE) {
+            throw new IOException("Location name too long for snapshot: " + bytes.length + " bytes");
+        }
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+}
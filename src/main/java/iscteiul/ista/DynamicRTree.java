@@ -0,0 +1,592 @@
+package iscteiul.ista;
+
+import org.locationtech.jts.geom.Envelope;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * A dynamic R-tree: a {@link SpatialIndex} that supports inserting, removing and moving items at
+ * any time, for consumers such as {@link PropertyGraph} that take in new or edited parcels without
+ * rebuilding their index.
+ * <p>
+ * Nodes hold between {@value #MIN_ENTRIES} and {@value #MAX_ENTRIES} children. The tree is built
+ * as follows:
+ * <ul>
+ *   <li>{@link #insertAll(List, List)} into an empty tree packs the items bottom-up with the
+ *       Sort-Tile-Recursive algorithm, the same packing as JTS's
+ *       {@link org.locationtech.jts.index.strtree.STRtree}, so queries on a freshly loaded tree
+ *       are as fast as on an {@code STRtree}.</li>
+ *   <li>{@link #insert(Envelope, Object)} descends into the child whose box grows least and splits
+ *       overflowing nodes with the R*-tree split (axis with the least total margin, then the
+ *       distribution with the least overlap), which keeps the boxes tight as parcels are added.</li>
+ *   <li>{@link #remove(Envelope, Object)} removes underfull nodes and reinserts their items, so
+ *       the tree stays balanced.</li>
+ * </ul>
+ * Not thread-safe: callers that share a tree must synchronize (as {@link PropertyGraph} does).
+ *
+ * @param <T> the type of the indexed items
+ */
+public final class DynamicRTree<T> implements SpatialIndex<T> {
+
+    /** The largest number of children of a node. */
+    static final int MAX_ENTRIES = 16;
+
+    /** The smallest number of children of a node other than the root (40% of {@link #MAX_ENTRIES}). */
+    static final int MIN_ENTRIES = 6;
+
+    private static final Comparator<Bounds> BY_MIN_X = Comparator.comparingDouble(b -> b.minX);
+    private static final Comparator<Bounds> BY_MAX_X = Comparator.comparingDouble(b -> b.maxX);
+    private static final Comparator<Bounds> BY_MIN_Y = Comparator.comparingDouble(b -> b.minY);
+    private static final Comparator<Bounds> BY_MAX_Y = Comparator.comparingDouble(b -> b.maxY);
+
+    /**
+     * A bounding box.
+     */
+    private static class Bounds {
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+
+        void expand(Bounds other) {
+            minX = Math.min(minX, other.minX);
+            minY = Math.min(minY, other.minY);
+            maxX = Math.max(maxX, other.maxX);
+            maxY = Math.max(maxY, other.maxY);
+        }
+
+        boolean intersects(Envelope envelope) {
+            return minX <= envelope.getMaxX() && envelope.getMinX() <= maxX
+                    && minY <= envelope.getMaxY() && envelope.getMinY() <= maxY;
+        }
+
+        double area() {
+            return maxX < minX ? 0 : (maxX - minX) * (maxY - minY);
+        }
+
+        double margin() {
+            return maxX < minX ? 0 : (maxX - minX) + (maxY - minY);
+        }
+
+        double enlargedArea(Bounds other) {
+            return (Math.max(maxX, other.maxX) - Math.min(minX, other.minX))
+                    * (Math.max(maxY, other.maxY) - Math.min(minY, other.minY));
+        }
+
+        double overlapArea(Bounds other) {
+            double width = Math.min(maxX, other.maxX) - Math.max(minX, other.minX);
+            double height = Math.min(maxY, other.maxY) - Math.max(minY, other.minY);
+            return width <= 0 || height <= 0 ? 0 : width * height;
+        }
+
+        double centreX() {
+            return (minX + maxX) / 2;
+        }
+
+        double centreY() {
+            return (minY + maxY) / 2;
+        }
+
+        static Bounds of(List<? extends Bounds> boxes, int from, int to) {
+            Bounds bounds = new Bounds();
+            for (int i = from; i < to; i++) {
+                bounds.expand(boxes.get(i));
+            }
+            return bounds;
+        }
+    }
+
+    /**
+     * An indexed item with its bounding box.
+     */
+    private static final class Entry<T> extends Bounds {
+        final T item;
+
+        Entry(Envelope envelope, T item) {
+            this.minX = envelope.getMinX();
+            this.minY = envelope.getMinY();
+            this.maxX = envelope.getMaxX();
+            this.maxY = envelope.getMaxY();
+            this.item = item;
+        }
+    }
+
+    /**
+     * A node: its children are {@link Entry entries} in a leaf and nodes otherwise.
+     */
+    private static final class Node extends Bounds {
+        final boolean leaf;
+        List<Bounds> children = new ArrayList<>(MAX_ENTRIES + 1);
+
+        Node(boolean leaf) {
+            this.leaf = leaf;
+        }
+
+        void recompute() {
+            minX = minY = Double.POSITIVE_INFINITY;
+            maxX = maxY = Double.NEGATIVE_INFINITY;
+            for (Bounds child : children) {
+                expand(child);
+            }
+        }
+    }
+
+    private Node root = new Node(true);
+    private int size;
+
+    @Override
+    public void insert(Envelope envelope, T item) {
+        if (envelope == null || envelope.isNull()) {
+            return;
+        }
+        insertEntry(new Entry<>(envelope, item));
+        size++;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Into an empty tree, the items are packed with the Sort-Tile-Recursive algorithm.
+     */
+    @Override
+    public void insertAll(List<Envelope> envelopes, List<? extends T> items) {
+        if (size > 0) {
+            SpatialIndex.super.insertAll(envelopes, items);
+            return;
+        }
+        if (envelopes.size() != items.size()) {
+            throw new IllegalArgumentException("Expected one envelope per item, got " + envelopes.size()
+                    + " envelopes for " + items.size() + " items");
+        }
+        List<Bounds> level = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            Envelope envelope = envelopes.get(i);
+            if (envelope != null && !envelope.isNull()) {
+                level.add(new Entry<T>(envelope, items.get(i)));
+            }
+        }
+        if (level.isEmpty()) {
+            return;
+        }
+        size = level.size();
+        List<Node> nodes = pack(level, true);
+        while (nodes.size() > 1) {
+            nodes = pack(new ArrayList<>(nodes), false);
+        }
+        root = nodes.get(0);
+    }
+
+    /**
+     * Packs one level: sorts the boxes into vertical slices by centre x, then each slice by
+     * centre y, and groups consecutive boxes into full nodes.
+     */
+    private static List<Node> pack(List<Bounds> boxes, boolean leaf) {
+        int nodeCount = (boxes.size() + MAX_ENTRIES - 1) / MAX_ENTRIES;
+        int sliceSize = (int) Math.ceil(Math.sqrt(nodeCount)) * MAX_ENTRIES;
+        boxes.sort(Comparator.comparingDouble(Bounds::centreX));
+        List<Node> nodes = new ArrayList<>(nodeCount);
+        for (int start = 0; start < boxes.size(); start += sliceSize) {
+            List<Bounds> slice = boxes.subList(start, Math.min(boxes.size(), start + sliceSize));
+            slice.sort(Comparator.comparingDouble(Bounds::centreY));
+            for (int from = 0; from < slice.size(); from += MAX_ENTRIES) {
+                Node node = new Node(leaf);
+                node.children.addAll(slice.subList(from, Math.min(slice.size(), from + MAX_ENTRIES)));
+                node.recompute();
+                nodes.add(node);
+            }
+        }
+        return nodes;
+    }
+
+    private void insertEntry(Entry<T> entry) {
+        Node sibling = insert(root, entry);
+        if (sibling != null) {
+            Node newRoot = new Node(false);
+            newRoot.children.add(root);
+            newRoot.children.add(sibling);
+            newRoot.recompute();
+            root = newRoot;
+        }
+    }
+
+    /**
+     * Inserts an entry below {@code node}.
+     *
+     * @return the new sibling of {@code node} if it had to be split, otherwise {@code null}
+     */
+    private static Node insert(Node node, Bounds entry) {
+        node.expand(entry);
+        if (node.leaf) {
+            node.children.add(entry);
+        } else {
+            Node sibling = insert(chooseSubtree(node, entry), entry);
+            if (sibling != null) {
+                node.children.add(sibling);
+            }
+        }
+        return node.children.size() > MAX_ENTRIES ? split(node) : null;
+    }
+
+    /**
+     * @return the child whose box needs the least enlargement to include {@code entry} (ties: the
+     *         smallest box)
+     */
+    private static Node chooseSubtree(Node node, Bounds entry) {
+        Node best = null;
+        double bestEnlargement = Double.POSITIVE_INFINITY;
+        double bestArea = Double.POSITIVE_INFINITY;
+        for (Bounds child : node.children) {
+            double area = child.area();
+            double enlargement = child.enlargedArea(entry) - area;
+            if (enlargement < bestEnlargement || (enlargement == bestEnlargement && area < bestArea)) {
+                best = (Node) child;
+                bestEnlargement = enlargement;
+                bestArea = area;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Splits an overflowing node with the R*-tree split: the axis is the one whose sorted
+     * distributions have the smallest total margin, and the distribution along it is the one with
+     * the least overlap between the two halves (ties: the least total area).
+     *
+     * @return the new sibling, holding the second half of the children
+     */
+    private static Node split(Node node) {
+        List<Bounds> children = node.children;
+        boolean splitOnX = marginSum(children, BY_MIN_X) + marginSum(children, BY_MAX_X)
+                <= marginSum(children, BY_MIN_Y) + marginSum(children, BY_MAX_Y);
+
+        List<Bounds> best = null;
+        int bestSplit = -1;
+        double bestOverlap = Double.POSITIVE_INFINITY;
+        double bestArea = Double.POSITIVE_INFINITY;
+        for (Comparator<Bounds> order : splitOnX ? List.of(BY_MIN_X, BY_MAX_X) : List.of(BY_MIN_Y, BY_MAX_Y)) {
+            List<Bounds> sorted = new ArrayList<>(children);
+            sorted.sort(order);
+            for (int k = MIN_ENTRIES; k <= sorted.size() - MIN_ENTRIES; k++) {
+                Bounds first = Bounds.of(sorted, 0, k);
+                Bounds second = Bounds.of(sorted, k, sorted.size());
+                double overlap = first.overlapArea(second);
+                double area = first.area() + second.area();
+                if (overlap < bestOverlap || (overlap == bestOverlap && area < bestArea)) {
+                    best = sorted;
+                    bestSplit = k;
+                    bestOverlap = overlap;
+                    bestArea = area;
+                }
+            }
+        }
+
+        Node sibling = new Node(node.leaf);
+        node.children = new ArrayList<>(best.subList(0, bestSplit));
+        sibling.children = new ArrayList<>(best.subList(bestSplit, best.size()));
+        node.recompute();
+        sibling.recompute();
+        return sibling;
+    }
+
+    private static double marginSum(List<Bounds> children, Comparator<Bounds> order) {
+        List<Bounds> sorted = new ArrayList<>(children);
+        sorted.sort(order);
+        double sum = 0;
+        for (int k = MIN_ENTRIES; k <= sorted.size() - MIN_ENTRIES; k++) {
+            sum += Bounds.of(sorted, 0, k).margin() + Bounds.of(sorted, k, sorted.size()).margin();
+        }
+        return sum;
+    }
+
+    @Override
+    public boolean remove(Envelope envelope, T item) {
+        if (envelope == null || envelope.isNull()) {
+            return false;
+        }
+        List<Node> path = new ArrayList<>();
+        if (!removeEntry(root, envelope, item, path)) {
+            return false;
+        }
+        size--;
+        condense(path);
+        return true;
+    }
+
+    /**
+     * Finds the leaf holding {@code item} below {@code node} and removes the item from it.
+     *
+     * @param path receives the nodes from {@code node} down to that leaf
+     * @return {@code true} if the item was found
+     */
+    private boolean removeEntry(Node node, Envelope envelope, T item, List<Node> path) {
+        if (!node.intersects(envelope)) {
+            return false;
+        }
+        path.add(node);
+        if (node.leaf) {
+            for (int i = 0; i < node.children.size(); i++) {
+                if (((Entry<?>) node.children.get(i)).item == item) {
+                    node.children.remove(i);
+                    return true;
+                }
+            }
+        } else {
+            for (Bounds child : node.children) {
+                if (removeEntry((Node) child, envelope, item, path)) {
+                    return true;
+                }
+            }
+        }
+        path.remove(path.size() - 1);
+        return false;
+    }
+
+    /**
+     * After a removal from the last node of {@code path}: drops the nodes left underfull on the way
+     * up (reinserting their entries), shrinks the remaining boxes and shortens the tree if the root
+     * has a single child.
+     */
+    private void condense(List<Node> path) {
+        List<Entry<T>> orphans = new ArrayList<>();
+        for (int level = path.size() - 1; level > 0; level--) {
+            Node node = path.get(level);
+            Node parent = path.get(level - 1);
+            if (node.children.size() < MIN_ENTRIES) {
+                parent.children.remove(node);
+                collectEntries(node, orphans);
+            } else {
+                node.recompute();
+            }
+        }
+        root.recompute();
+        while (!root.leaf && root.children.size() == 1) {
+            root = (Node) root.children.get(0);
+        }
+        if (!root.leaf && root.children.isEmpty()) {
+            root = new Node(true);
+        }
+        for (Entry<T> orphan : orphans) {
+            insertEntry(orphan);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void collectEntries(Node node, List<Entry<T>> entries) {
+        for (Bounds child : node.children) {
+            if (node.leaf) {
+                entries.add((Entry<T>) child);
+            } else {
+                collectEntries((Node) child, entries);
+            }
+        }
+    }
+
+    @Override
+    public List<T> query(Envelope searchEnvelope) {
+        List<T> result = new ArrayList<>();
+        visit(searchEnvelope, result::add);
+        return result;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean visit(Envelope searchEnvelope, Predicate<? super T> visitor) {
+        if (searchEnvelope == null || searchEnvelope.isNull() || size == 0) {
+            return true;
+        }
+        Deque<Node> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            for (Bounds child : node.children) {
+                if (!child.intersects(searchEnvelope)) {
+                    continue;
+                }
+                if (!node.leaf) {
+                    pending.push((Node) child);
+                } else if (!visitor.test(((Entry<T>) child).item)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Searches the tree lazily: the spliterator keeps the nodes still to be searched (as
+     * {@link #visit(Envelope, Predicate)} does) and the position in the current leaf, and descends
+     * only as far as needed to find the next item.
+     */
+    @Override
+    public Spliterator<T> spliterator(Envelope searchEnvelope) {
+        return new QuerySpliterator(searchEnvelope);
+    }
+
+    /**
+     * The lazy search of {@link #spliterator(Envelope)}.
+     */
+    private final class QuerySpliterator extends Spliterators.AbstractSpliterator<T> {
+        private final Envelope searchEnvelope;
+        private final Deque<Node> pending = new ArrayDeque<>();
+        private Node leaf;
+        private int next;
+
+        QuerySpliterator(Envelope searchEnvelope) {
+            super(Long.MAX_VALUE, 0);
+            this.searchEnvelope = searchEnvelope;
+            if (searchEnvelope != null && !searchEnvelope.isNull() && size > 0) {
+                pending.push(root);
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean tryAdvance(Consumer<? super T> action) {
+            while (true) {
+                if (leaf != null) {
+                    while (next < leaf.children.size()) {
+                        Bounds child = leaf.children.get(next++);
+                        if (child.intersects(searchEnvelope)) {
+                            action.accept(((Entry<T>) child).item);
+                            return true;
+                        }
+                    }
+                    leaf = null;
+                }
+                if (pending.isEmpty()) {
+                    return false;
+                }
+                Node node = pending.pop();
+                if (node.leaf) {
+                    leaf = node;
+                    next = 0;
+                } else {
+                    for (Bounds child : node.children) {
+                        if (child.intersects(searchEnvelope)) {
+                            pending.push((Node) child);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Visits the items in increasing distance from {@code from}, with a best-first search: nodes
+     * and items wait in a priority queue ordered by the distance to their box, which is a lower
+     * bound for the distance to anything inside, so only the part of the tree closer than the
+     * last visited item is ever expanded. The exact distance of an item is computed (once) only
+     * when its box reaches the front of the queue, and the item is visited when that distance does.
+     *
+     * @param from        the origin of the search (use a zero-size envelope for a point)
+     * @param distance    the exact distance from the origin to an item; it must not be smaller than
+     *                    the distance between {@code from} and the item's box, and is
+     *                    {@link Double#POSITIVE_INFINITY} for items that must not be visited
+     * @param maxDistance items farther away than this are not visited
+     *                    ({@link Double#POSITIVE_INFINITY} for no limit)
+     * @param visitor     called with each item and its distance, nearest first; returns
+     *                    {@code false} to stop the search (e.g. once it has the k items it needs)
+     * @return {@code true} if every item within {@code maxDistance} was visited, {@code false} if
+     *         the visitor stopped
+     */
+    @SuppressWarnings("unchecked")
+    public boolean visitNearest(Envelope from, ToDoubleFunction<? super T> distance, double maxDistance,
+                                NeighbourVisitor<? super T> visitor) {
+        if (from == null || from.isNull() || size == 0) {
+            return true;
+        }
+        PriorityQueue<Candidate> queue = new PriorityQueue<>();
+        queue.add(new Candidate(root, boxDistance(from, root), false));
+        while (!queue.isEmpty()) {
+            Candidate candidate = queue.poll();
+            if (candidate.distance > maxDistance) {
+                break;
+            }
+            if (candidate.bounds instanceof Node) {
+                for (Bounds child : ((Node) candidate.bounds).children) {
+                    double bound = boxDistance(from, child);
+                    if (bound <= maxDistance) {
+                        queue.add(new Candidate(child, bound, false));
+                    }
+                }
+            } else if (!candidate.exact) {
+                double exact = distance.applyAsDouble(((Entry<T>) candidate.bounds).item);
+                if (exact < Double.POSITIVE_INFINITY && exact <= maxDistance) {
+                    queue.add(new Candidate(candidate.bounds, Math.max(exact, candidate.distance), true));
+                }
+            } else if (!visitor.visit(((Entry<T>) candidate.bounds).item, candidate.distance)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Receives the items found by {@link #visitNearest}.
+     *
+     * @param <T> the type of the indexed items
+     */
+    @FunctionalInterface
+    public interface NeighbourVisitor<T> {
+        /**
+         * @param item     the next nearest item
+         * @param distance its distance from the origin of the search
+         * @return {@code true} to go on, {@code false} to stop the search
+         */
+        boolean visit(T item, double distance);
+    }
+
+    /**
+     * A node or item waiting in the queue of {@link #visitNearest}: boxes by their lower bound,
+     * items whose exact distance is known by that distance (and before boxes at the same distance).
+     */
+    private static final class Candidate implements Comparable<Candidate> {
+        final Bounds bounds;
+        final double distance;
+        final boolean exact;
+
+        Candidate(Bounds bounds, double distance, boolean exact) {
+            this.bounds = bounds;
+            this.distance = distance;
+            this.exact = exact;
+        }
+
+        @Override
+        public int compareTo(Candidate other) {
+            int order = Double.compare(distance, other.distance);
+            return order != 0 ? order : Boolean.compare(other.exact, exact);
+        }
+    }
+
+    private static double boxDistance(Envelope from, Bounds bounds) {
+        double dx = Math.max(0, Math.max(from.getMinX() - bounds.maxX, bounds.minX - from.getMaxX()));
+        double dy = Math.max(0, Math.max(from.getMinY() - bounds.maxY, bounds.minY - from.getMaxY()));
+        return Math.hypot(dx, dy);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the number of levels of nodes (1 for a tree that is a single leaf)
+     */
+    int height() {
+        int height = 1;
+        for (Node node = root; !node.leaf; node = (Node) node.children.get(0)) {
+            height++;
+        }
+        return height;
+    }
+}
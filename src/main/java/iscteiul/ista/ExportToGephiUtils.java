@@ -10,6 +10,7 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.util.List;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Demonstrates exporting a subset of {@link PropertyRecord} data (filtered
@@ -17,8 +18,8 @@ import java.util.stream.Collectors;
  *
  * <p>Workflow:
  * <ol>
- *   <li>Read CSV data via {@link CSVFileReader} (e.g. "/Madeira-Moodle-1.1.csv").</li>
- *   <li>Filter records by a chosen parish (e.g. "Arco da Calheta").</li>
+ *   <li>Read CSV data via {@link CSVFileReader} (e.g. "/Madeira-Moodle-1.1.csv"), streaming only
+ *       the rows of a chosen parish (e.g. "Arco da Calheta") when the CSV is a plain file.</li>
  *   <li>Create a {@link SingleGraph} in GraphStream, adding each property as a node
  *       and adjacency edges determined by
  *       {@link PropertyUtils#arePropertiesAdjacent(PropertyRecord, PropertyRecord)}.</li>
@@ -65,11 +66,27 @@ public final class ExportToGephiUtils {
      * @return A {@link SingleGraph} representing adjacency among these properties.
      */
     public static Graph buildGraph(List<PropertyRecord> properties) {
+        return buildGraph(properties, null, 0);
+    }
+
+    /**
+     * Same as {@link #buildGraph(List)}, also attaching each property's geometry as a "geometry"
+     * attribute (WKT) taken from a simplified level, so the export carries a shape that is good
+     * enough for a map view without the full-resolution WKT.
+     *
+     * @param properties The subset of records (already filtered if needed).
+     * @param levels     simplified geometries built from {@code properties}, or {@code null} to
+     *                   attach no geometry
+     * @param level      the level of {@code levels} to export
+     * @return A {@link SingleGraph} representing adjacency among these properties.
+     */
+    public static Graph buildGraph(List<PropertyRecord> properties, SimplifiedGeometryLevels levels, int level) {
         // Create a new graph with the ID "MyGephiExport"
         Graph graph = new SingleGraph("MyGephiExport");
 
         // Add a node for each property
-        for (PropertyRecord pr : properties) {
+        for (int row = 0; row < properties.size(); row++) {
+            PropertyRecord pr = properties.get(row);
             // Node ID is the object's unique ID
             String nodeId = String.valueOf(pr.getObjectID());
             Node node = graph.addNode(nodeId);
@@ -83,6 +100,9 @@ public final class ExportToGephiUtils {
             // You can add more if you like, e.g. geometry, municipality, island, etc.
             node.setAttribute("municipality", pr.getMunicipality());
             node.setAttribute("parish", pr.getParish());
+            if (levels != null && levels.getWkt(row, level) != null) {
+                node.setAttribute("geometry", levels.getWkt(row, level));
+            }
         }
 
         // Add edges for adjacency
@@ -111,8 +131,8 @@ public final class ExportToGephiUtils {
     /**
      * Main method:
      * <ol>
-     *   <li>Reads property records from CSV via {@link CSVFileReader}.</li>
-     *   <li>Filters them by parish ("Arco da Calheta").</li>
+     *   <li>Reads the property records of parish "Arco da Calheta" via
+     *       {@link CSVFileReader#stream(String, RowFilter)}.</li>
      *   <li>Builds a GraphStream graph (with attributes for "owner", "shapeArea").</li>
      *   <li>Exports to "output.gexf" using {@link FileSinkGEXF}.</li>
      * </ol>
@@ -122,16 +142,25 @@ public final class ExportToGephiUtils {
      * @param args not used
      */
     public static void main(String[] args) {
-        // 1) Load data
-        CSVFileReader csvFileReader = new CSVFileReader();
-        List<PropertyRecord> propertyRecords = csvFileReader.importData("/Madeira-Moodle-1.1.csv");
-        logger.info("Total records loaded: {}", propertyRecords.size());
-
-        // 2) Filter records by parish
+        // 1) Load the records of the chosen parish. When the CSV is a plain file we stream it and only
+        //    decode the rows of that parish; otherwise we fall back to loading everything and filtering.
         String chosenParish = "Arco da Calheta";
-        List<PropertyRecord> parishSubset = propertyRecords.stream()
-                .filter(pr -> chosenParish.equals(pr.getParish()))
-                .collect(Collectors.toList());
+        CSVFileReader csvFileReader = new CSVFileReader();
+        String csvFile = csvFileReader.resolveResourceFile("/Madeira-Moodle-1.1.csv");
+        List<PropertyRecord> parishSubset;
+        if (csvFile != null) {
+            try (Stream<PropertyRecord> rows = csvFileReader.stream(csvFile, RowFilter.parish(chosenParish))) {
+                parishSubset = rows.collect(Collectors.toList());
+            }
+        } else {
+            List<PropertyRecord> propertyRecords = csvFileReader.importData("/Madeira-Moodle-1.1.csv");
+            logger.info("Total records loaded: {}", propertyRecords.size());
+
+            // 2) Filter records by parish
+            parishSubset = propertyRecords.stream()
+                    .filter(pr -> chosenParish.equals(pr.getParish()))
+                    .collect(Collectors.toList());
+        }
         logger.info("Records in parish '{}': {}", chosenParish, parishSubset.size());
 
         // 3) Build the adjacency graph from that subset
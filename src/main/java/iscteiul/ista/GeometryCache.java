@@ -0,0 +1,322 @@
+package iscteiul.ista;
+
+import org.locationtech.jts.geom.Geometry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache of parsed JTS geometries, keyed by {@code objectID}, so that the pairwise
+ * adjacency loops ({@link Graph}, {@link MergedPropertyGraph}, {@link ExportToGephiUtils},
+ * {@link PropertyMerger}) parse every WKT once instead of once per pair.
+ * <p>
+ * <strong>Keys and validity.</strong> An entry remembers the WKT it was parsed from. A lookup is a
+ * hit only if the record still has that WKT: the same String instance (the common case), or an
+ * equal one. A record that reuses an {@code objectID} with a different geometry (for instance a
+ * merged property from {@link PropertyMerger}, which keeps the ID of its largest part) therefore
+ * never receives a stale geometry; its entry is simply replaced. WKT that cannot be parsed is cached
+ * as well, so it is neither parsed nor logged again for every pair.
+ * <p>
+ * <strong>Eviction.</strong> Entries are weighed by their number of coordinates, which is what
+ * dominates their heap size (roughly 40 bytes per coordinate), and the least recently used entries
+ * are evicted once the total weight exceeds the limit. The cache is split into independently locked
+ * segments by {@code objectID}, so concurrent callers rarely wait for each other; each segment holds
+ * an equal share of the weight limit.
+ * <p>
+ * <strong>Bulk passes.</strong> Passes over a whole dataset ({@link GeometryDerivedTable},
+ * {@link GeometryQuarantine}, {@link SimplifiedGeometryLevels}) use {@link #peek(PropertyRecord)},
+ * which reuses a cached geometry but does not store the ones it parses. Streaming every parcel
+ * through {@link #get(PropertyRecord)} would only evict the working set of the adjacency loops
+ * once the dataset is larger than the weight limit.
+ * <p>
+ * Records with {@link PropertyRecord#isGeometryLazy() lazy geometry} already memoize their parsed
+ * geometry (softly, see {@link LazyGeometry}); they are answered from that memo and not stored here.
+ * <p>
+ * Cached geometries are shared between callers and must be treated as read-only.
+ */
+public final class GeometryCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(GeometryCache.class);
+
+    /** Default weight limit: one million coordinates, on the order of 40 MB of geometries. */
+    public static final long DEFAULT_MAX_WEIGHT = 1_000_000L;
+
+    private static final int DEFAULT_SEGMENTS = 16;
+
+    /** The cache used by the {@link PropertyRecord} overloads of {@link GeometryUtils}. */
+    private static final GeometryCache SHARED = new GeometryCache(DEFAULT_MAX_WEIGHT);
+
+    private final Segment[] segments;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * A parsed geometry together with the WKT it came from.
+     */
+    private static final class Entry {
+        final String wkt;
+        final Geometry geometry;
+        final long weight;
+
+        Entry(String wkt, Geometry geometry) {
+            this.wkt = wkt;
+            this.geometry = geometry;
+            this.weight = geometry == null ? 1 : Math.max(1, geometry.getNumPoints());
+        }
+
+        boolean matches(String candidate) {
+            return wkt == candidate || wkt.equals(candidate);
+        }
+    }
+
+    /**
+     * One independently locked part of the cache, in least-recently-used order.
+     */
+    private final class Segment {
+        final long maxWeight;
+        final LinkedHashMap<Integer, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+        long weight;
+
+        Segment(long maxWeight) {
+            this.maxWeight = maxWeight;
+        }
+
+        synchronized Entry get(int objectID) {
+            return entries.get(objectID);
+        }
+
+        synchronized void put(int objectID, Entry entry) {
+            Entry old = entries.put(objectID, entry);
+            if (old != null) {
+                weight -= old.weight;
+            }
+            weight += entry.weight;
+            Iterator<Entry> eldest = entries.values().iterator();
+            while (weight > maxWeight && entries.size() > 1) {
+                Entry evicted = eldest.next();
+                eldest.remove();
+                weight -= evicted.weight;
+                evictions.increment();
+            }
+        }
+
+        synchronized void remove(int objectID) {
+            Entry old = entries.remove(objectID);
+            if (old != null) {
+                weight -= old.weight;
+            }
+        }
+
+        synchronized void clear() {
+            entries.clear();
+            weight = 0;
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+
+        synchronized long weight() {
+            return weight;
+        }
+    }
+
+    /**
+     * Creates a cache with the given weight limit.
+     *
+     * @param maxWeight the maximum total number of coordinates kept (must be at least 1)
+     * @throws IllegalArgumentException if {@code maxWeight} is less than 1
+     */
+    public GeometryCache(long maxWeight) {
+        this(maxWeight, DEFAULT_SEGMENTS);
+    }
+
+    /**
+     * Creates a cache with the given weight limit, split into {@code segmentCount} segments.
+     */
+    GeometryCache(long maxWeight, int segmentCount) {
+        if (maxWeight < 1) {
+            throw new IllegalArgumentException("maxWeight must be at least 1, got " + maxWeight);
+        }
+        if (segmentCount < 1) {
+            throw new IllegalArgumentException("segmentCount must be at least 1, got " + segmentCount);
+        }
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(Math.max(1, maxWeight / segmentCount));
+        }
+    }
+
+    /**
+     * @return the cache shared by the {@link PropertyRecord} overloads of {@link GeometryUtils}
+     */
+    public static GeometryCache shared() {
+        return SHARED;
+    }
+
+    /**
+     * Returns the parsed geometry of a record, parsing it only if it is not cached yet.
+     *
+     * @param record the property record
+     * @return the geometry, or {@code null} if the record is {@code null} or its WKT is missing or invalid
+     */
+    public Geometry get(PropertyRecord record) {
+        if (record == null) {
+            return null;
+        }
+        if (record.isGeometryLazy()) {
+            return record.getParsedGeometry();
+        }
+        return get(record.getObjectID(), record.getGeometry());
+    }
+
+    /**
+     * Returns the parsed form of {@code wkt}, cached under {@code objectID}.
+     *
+     * @param objectID the ID of the property the WKT belongs to
+     * @param wkt      the WKT text, may be {@code null}
+     * @return the geometry, or {@code null} if the WKT is missing or invalid
+     */
+    Geometry get(int objectID, String wkt) {
+        return get(objectID, wkt, true);
+    }
+
+    /**
+     * Same as {@link #get(int, String)}; with {@code warnInvalid} set to {@code false}, an invalid
+     * WKT is cached without a log line, for callers that report it themselves (see
+     * {@link GeometryQuarantine}).
+     */
+    Geometry get(int objectID, String wkt, boolean warnInvalid) {
+        if (wkt == null) {
+            return null;
+        }
+        Segment segment = segmentFor(objectID);
+        Entry entry = segment.get(objectID);
+        if (entry != null && entry.matches(wkt)) {
+            hits.increment();
+            return entry.geometry;
+        }
+        misses.increment();
+        Geometry geometry = LazyGeometry.parse(wkt);
+        if (geometry == null && warnInvalid && !wkt.isBlank()) {
+            logger.warn("Invalid WKT for objectID={}; treating it as having no geometry", objectID);
+        }
+        segment.put(objectID, new Entry(wkt, geometry));
+        return geometry;
+    }
+
+    /**
+     * Returns the parsed geometry of a record from the cache if it is there, and otherwise parses
+     * it <em>without</em> storing the result, so a pass over every record of a dataset neither adds
+     * nor evicts entries. Lookups answered from the cache count as hits; the others are not counted
+     * as misses, since they do not fill the cache.
+     *
+     * @param record the property record
+     * @return the geometry, or {@code null} if the record is {@code null} or its WKT is missing or invalid
+     */
+    public Geometry peek(PropertyRecord record) {
+        if (record == null) {
+            return null;
+        }
+        if (record.isGeometryLazy()) {
+            return record.getParsedGeometry();
+        }
+        return peek(record.getObjectID(), record.getGeometry(), true);
+    }
+
+    /**
+     * Same as {@link #peek(PropertyRecord)} for a WKT that belongs to {@code objectID}; with
+     * {@code warnInvalid} set to {@code false}, an invalid WKT is not logged.
+     */
+    Geometry peek(int objectID, String wkt, boolean warnInvalid) {
+        if (wkt == null) {
+            return null;
+        }
+        Entry entry = segmentFor(objectID).get(objectID);
+        if (entry != null && entry.matches(wkt)) {
+            hits.increment();
+            return entry.geometry;
+        }
+        Geometry geometry = LazyGeometry.parse(wkt);
+        if (geometry == null && warnInvalid && !wkt.isBlank()) {
+            logger.warn("Invalid WKT for objectID={}; treating it as having no geometry", objectID);
+        }
+        return geometry;
+    }
+
+    /**
+     * Removes the entry of one property, e.g. after its geometry was corrected.
+     *
+     * @param objectID the property ID
+     */
+    public void invalidate(int objectID) {
+        segmentFor(objectID).remove(objectID);
+    }
+
+    /**
+     * Removes all entries. The hit, miss and eviction counters are kept.
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    /**
+     * @return the number of cached entries
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    /**
+     * @return the total weight (number of coordinates) of the cached entries
+     */
+    public long weight() {
+        long weight = 0;
+        for (Segment segment : segments) {
+            weight += segment.weight();
+        }
+        return weight;
+    }
+
+    /**
+     * @return the number of lookups answered from the cache
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of lookups that had to parse the WKT
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return the number of entries evicted to respect the weight limit
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    private Segment segmentFor(int objectID) {
+        int h = objectID * 0x9E3779B9;
+        return segments[((h ^ (h >>> 16)) & 0x7FFFFFFF) % segments.length];
+    }
+
+    @Override
+    public String toString() {
+        return "GeometryCache{size=" + size() + ", weight=" + weight() + ", hits=" + getHits()
+                + ", misses=" + getMisses() + ", evictions=" + getEvictions() + '}';
+    }
+}
@@ -0,0 +1,214 @@
+package iscteiul.ista;
+
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.Point;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Values derived from the geometry of every parcel of a dataset, computed once and kept in
+ * primitive arrays: centroid, envelope bounds, area and perimeter (as computed by JTS from the
+ * geometry, not the {@code shapeArea}/{@code shapeLength} columns of the CSV).
+ * <p>
+ * The table is built in parallel with one parse per parcel; geometries already in the
+ * {@link GeometryCache#shared() shared geometry cache} are reused, but the others are not added to
+ * it (see {@link GeometryCache#peek(PropertyRecord)}), so building the table does not evict the
+ * working set of the adjacency checks. It can also be built from a {@link PackedCoordinateStore},
+ * whose off-heap geometry views keep the parsed coordinates out of the Java heap. Consumers such as {@link Graph}, {@link PropertyUtils#distanceToFunchal(int)}
+ * and {@link App} read the values from it instead of parsing the WKT again.
+ * <p>
+ * Rows are in the order of the list the table was built from. Parcels with a missing or invalid
+ * geometry have {@code NaN} in every column. The table is immutable and thread-safe.
+ */
+public final class GeometryDerivedTable {
+
+    private static final Logger logger = LoggerFactory.getLogger(GeometryDerivedTable.class);
+
+    private final int[] objectIds;
+    private final double[] centroidX;
+    private final double[] centroidY;
+    private final double[] minX;
+    private final double[] minY;
+    private final double[] maxX;
+    private final double[] maxY;
+    private final double[] area;
+    private final double[] perimeter;
+
+    /** {@code objectID << 32 | row}, sorted, to find the first row of an ID by binary search. */
+    private final long[] idIndex;
+
+    private GeometryDerivedTable(int size) {
+        objectIds = new int[size];
+        centroidX = new double[size];
+        centroidY = new double[size];
+        minX = new double[size];
+        minY = new double[size];
+        maxX = new double[size];
+        maxY = new double[size];
+        area = new double[size];
+        perimeter = new double[size];
+        idIndex = new long[size];
+    }
+
+    /**
+     * Builds the table for {@code records}, parsing the geometries in parallel.
+     *
+     * @param records the parcels
+     * @return the table, with one row per record in list order
+     */
+    public static GeometryDerivedTable build(List<PropertyRecord> records) {
+        long start = System.nanoTime();
+        GeometryDerivedTable table = new GeometryDerivedTable(records.size());
+        IntStream.range(0, records.size()).parallel().forEach(i -> table.fill(i, records.get(i)));
+        table.indexIds();
+        logger.debug("Derived geometry table for {} parcels built in {} ms",
+                records.size(), (System.nanoTime() - start) / 1_000_000);
+        return table;
+    }
+
+    /**
+     * Builds the table from the off-heap views of a {@link PackedCoordinateStore}, in parallel,
+     * without parsing any WKT or keeping the parsed geometries on the heap.
+     *
+     * @param store the packed parcels
+     * @return the table, with one row per parcel of the store in index order
+     */
+    public static GeometryDerivedTable build(PackedCoordinateStore store) {
+        long start = System.nanoTime();
+        GeometryDerivedTable table = new GeometryDerivedTable(store.size());
+        IntStream.range(0, store.size()).parallel()
+                .forEach(i -> table.fill(i, store.getObjectID(i), store.getGeometry(i)));
+        table.indexIds();
+        logger.debug("Derived geometry table for {} packed parcels ({} bytes off-heap) built in {} ms",
+                store.size(), store.getOffHeapBytes(), (System.nanoTime() - start) / 1_000_000);
+        return table;
+    }
+
+    private void indexIds() {
+        for (int i = 0; i < idIndex.length; i++) {
+            idIndex[i] = (long) objectIds[i] << 32 | i;
+        }
+        Arrays.sort(idIndex);
+    }
+
+    private void fill(int row, PropertyRecord record) {
+        fill(row, record.getObjectID(), GeometryCache.shared().peek(record));
+    }
+
+    private void fill(int row, int objectID, Geometry geometry) {
+        objectIds[row] = objectID;
+        if (geometry == null || geometry.isEmpty()) {
+            centroidX[row] = centroidY[row] = Double.NaN;
+            minX[row] = minY[row] = maxX[row] = maxY[row] = Double.NaN;
+            area[row] = perimeter[row] = Double.NaN;
+            return;
+        }
+        Point centroid = geometry.getCentroid();
+        centroidX[row] = centroid.getX();
+        centroidY[row] = centroid.getY();
+        Envelope envelope = geometry.getEnvelopeInternal();
+        minX[row] = envelope.getMinX();
+        minY[row] = envelope.getMinY();
+        maxX[row] = envelope.getMaxX();
+        maxY[row] = envelope.getMaxY();
+        area[row] = geometry.getArea();
+        perimeter[row] = geometry.getLength();
+    }
+
+    /**
+     * @return the number of rows
+     */
+    public int size() {
+        return objectIds.length;
+    }
+
+    /**
+     * @param objectID a parcel's {@code objectID}
+     * @return the first row with that ID, or -1 if there is none
+     */
+    public int indexOf(int objectID) {
+        int low = 0;
+        int high = idIndex.length - 1;
+        long key = (long) objectID << 32;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (idIndex[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low < idIndex.length && (int) (idIndex[low] >> 32) == objectID ? (int) idIndex[low] : -1;
+    }
+
+    /**
+     * @param row the row
+     * @return the {@code objectID} of the parcel
+     */
+    public int getObjectID(int row) {
+        return objectIds[row];
+    }
+
+    /**
+     * @param row the row
+     * @return {@code true} if the parcel has a valid, non-empty geometry
+     */
+    public boolean hasGeometry(int row) {
+        return !Double.isNaN(centroidX[row]);
+    }
+
+    /**
+     * @param row the row
+     * @return the x-coordinate of the centroid, or {@code NaN}
+     */
+    public double getCentroidX(int row) {
+        return centroidX[row];
+    }
+
+    /**
+     * @param row the row
+     * @return the y-coordinate of the centroid, or {@code NaN}
+     */
+    public double getCentroidY(int row) {
+        return centroidY[row];
+    }
+
+    /**
+     * @param row the row
+     * @return a new envelope of the geometry, or {@code null} if the parcel has no geometry
+     */
+    public Envelope getEnvelope(int row) {
+        return hasGeometry(row) ? new Envelope(minX[row], maxX[row], minY[row], maxY[row]) : null;
+    }
+
+    /**
+     * @param row the row
+     * @return the area computed from the geometry, or {@code NaN}
+     */
+    public double getArea(int row) {
+        return area[row];
+    }
+
+    /**
+     * @param row the row
+     * @return the perimeter (boundary length) computed from the geometry, or {@code NaN}
+     */
+    public double getPerimeter(int row) {
+        return perimeter[row];
+    }
+
+    /**
+     * @param row the row
+     * @param x   the x-coordinate of a point
+     * @param y   the y-coordinate of a point
+     * @return the distance from the parcel's centroid to the point, or {@code NaN}
+     */
+    public double centroidDistance(int row, double x, double y) {
+        return Math.hypot(centroidX[row] - x, centroidY[row] - y);
+    }
+}
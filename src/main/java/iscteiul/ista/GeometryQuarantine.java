@@ -0,0 +1,161 @@
+package iscteiul.ista;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * The result of validating the geometries of a dataset once, at load time: the records whose WKT
+ * is missing (null or blank) or cannot be parsed are <em>quarantined</em>.
+ * <p>
+ * {@link #validate(List)} parses every geometry once (reusing the ones already in the
+ * {@link GeometryCache#shared() shared geometry cache}, but without adding the others to it, so a
+ * large dataset does not evict the cache's working set), marks the invalid records with
+ * {@link PropertyRecord#isQuarantined()} and logs a single summary line instead of one error per
+ * record. That flag on the record is what the pairwise algorithms ({@link GeometryUtils}'s record
+ * predicates, {@link Graph}, {@link PropertyGraph},
+ * {@link PropertyUtils#mergeAdjacentPropertiesSameOwner(List)}, ...) consult: they skip
+ * quarantined records in O(1), so one bad parcel no longer costs a failed parse and a log line for
+ * each of the N parcels it is compared with. A {@code GeometryQuarantine} itself is only the
+ * report of the pass: its counts and the sorted objectIDs of the records it marked.
+ * <p>
+ * Instances are immutable and safe to read from several threads.
+ */
+public final class GeometryQuarantine {
+
+    private static final Logger logger = LoggerFactory.getLogger(GeometryQuarantine.class);
+
+    /** How many quarantined objectIDs the summary line lists. */
+    private static final int SUMMARY_IDS = 10;
+
+    private static final byte VALID = 0;
+    private static final byte MISSING = 1;
+    private static final byte UNPARSEABLE = 2;
+
+    private final int checkedCount;
+    private final int missingCount;
+    private final int unparseableCount;
+    private final int[] quarantinedIds;
+
+    private GeometryQuarantine(int checkedCount, int missingCount, int unparseableCount, int[] quarantinedIds) {
+        this.checkedCount = checkedCount;
+        this.missingCount = missingCount;
+        this.unparseableCount = unparseableCount;
+        this.quarantinedIds = quarantinedIds;
+    }
+
+    /**
+     * Parses the geometry of every record (in parallel), marks the records whose WKT is missing or
+     * unparseable as {@link PropertyRecord#isQuarantined() quarantined} and logs one summary of the
+     * result. The marks are set on the given record instances and are never cleared.
+     *
+     * @param records the records to validate; {@code null} elements are ignored
+     * @return the quarantine
+     */
+    public static GeometryQuarantine validate(List<PropertyRecord> records) {
+        byte[] status = new byte[records.size()];
+        IntStream.range(0, records.size()).parallel().forEach(i -> status[i] = check(records.get(i)));
+
+        int missing = 0;
+        int unparseable = 0;
+        int[] ids = new int[records.size()];
+        int quarantined = 0;
+        for (int i = 0; i < status.length; i++) {
+            if (status[i] == VALID) {
+                continue;
+            }
+            if (status[i] == MISSING) {
+                missing++;
+            } else {
+                unparseable++;
+            }
+            ids[quarantined++] = records.get(i).getObjectID();
+        }
+        ids = Arrays.copyOf(ids, quarantined);
+        Arrays.sort(ids);
+
+        GeometryQuarantine quarantine = new GeometryQuarantine(records.size(), missing, unparseable, ids);
+        if (quarantine.size() > 0) {
+            logger.warn("{}", quarantine);
+        } else {
+            logger.debug("{}", quarantine);
+        }
+        return quarantine;
+    }
+
+    private static byte check(PropertyRecord record) {
+        if (record == null) {
+            return VALID;
+        }
+        String wkt = record.getGeometry();
+        if (wkt == null || wkt.isBlank()) {
+            record.quarantine();
+            return MISSING;
+        }
+        boolean parsed = record.isGeometryLazy()
+                ? record.getParsedGeometry() != null
+                : GeometryCache.shared().peek(record.getObjectID(), wkt, false) != null;
+        if (!parsed) {
+            record.quarantine();
+            return UNPARSEABLE;
+        }
+        return VALID;
+    }
+
+    /**
+     * @return the number of records validated
+     */
+    public int getCheckedCount() {
+        return checkedCount;
+    }
+
+    /**
+     * @return the number of quarantined records
+     */
+    public int size() {
+        return quarantinedIds.length;
+    }
+
+    /**
+     * @return the number of records with a null or blank WKT
+     */
+    public int getMissingCount() {
+        return missingCount;
+    }
+
+    /**
+     * @return the number of records whose WKT could not be parsed
+     */
+    public int getUnparseableCount() {
+        return unparseableCount;
+    }
+
+    /**
+     * @return the objectIDs of the quarantined records, sorted (a copy)
+     */
+    public int[] getQuarantinedIds() {
+        return quarantinedIds.clone();
+    }
+
+    /**
+     * @return the one-line summary that {@link #validate(List)} logs
+     */
+    @Override
+    public String toString() {
+        if (quarantinedIds.length == 0) {
+            return "All " + checkedCount + " geometries are valid";
+        }
+        StringBuilder text = new StringBuilder()
+                .append("Quarantined ").append(quarantinedIds.length).append(" of ").append(checkedCount)
+                .append(" geometries (").append(missingCount).append(" missing, ")
+                .append(unparseableCount).append(" unparseable); objectIDs ")
+                .append(Arrays.toString(Arrays.copyOf(quarantinedIds, Math.min(SUMMARY_IDS, quarantinedIds.length))));
+        if (quarantinedIds.length > SUMMARY_IDS) {
+            text.append(" and ").append(quarantinedIds.length - SUMMARY_IDS).append(" more");
+        }
+        return text.toString();
+    }
+}
@@ -2,17 +2,32 @@ package iscteiul.ista;
 
 import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryComponentFilter;
+import org.locationtech.jts.geom.prep.PreparedGeometry;
+import org.locationtech.jts.geom.prep.PreparedGeometryFactory;
 import org.locationtech.jts.io.WKTReader;
 import org.locationtech.jts.io.ParseException;
+import org.locationtech.jts.operation.relateng.RelateNG;
+import org.locationtech.jts.operation.relateng.RelatePredicate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+
 /**
  * A utility class for parsing WKT geometry strings and checking spatial relationships using JTS.
  * <p>
  * This class focuses on simple checks such as adjacency (touch), intersection, and disjoint
  * on WKT (Well-Known Text) polygons, multipolygons, etc. It relies on the LocationTech JTS
  * library for parsing and geometric operations. All parse errors are logged via SLF4J.
+ * <p>
+ * All methods are thread-safe and take no lock, so adjacency loops may run them from parallel
+ * streams or fork-join pools. {@link WKTReader} is not thread-safe, so every thread parses with its
+ * own reader; parsed geometries have the envelopes of all their components computed before they
+ * are shared (see {@link #read(String)}) and are only ever read afterwards.
  */
 public final class GeometryUtils {
 
@@ -31,9 +46,34 @@ public final class GeometryUtils {
     private static final Logger logger = LoggerFactory.getLogger(GeometryUtils.class);
 
     /**
-     * A shared WKTReader to parse WKT strings into JTS {@link Geometry} objects.
+     * One WKTReader per thread to parse WKT strings into JTS {@link Geometry} objects, since a
+     * reader keeps parsing state and must not be used by two threads at once.
      */
-    private static final WKTReader WKT_READER = new WKTReader();
+    private static final ThreadLocal<WKTReader> WKT_READER = ThreadLocal.withInitial(WKTReader::new);
+
+    /**
+     * Parses a WKT string with the calling thread's reader.
+     * <p>
+     * JTS computes a geometry's envelope lazily on first use and stores it in the geometry; that is
+     * the only state JTS predicates write. Predicates on a MultiPolygon also ask its polygons and
+     * their rings for their envelopes, so the envelope of every component is computed here, before
+     * the geometry can be handed to other threads; shared geometries are then effectively immutable.
+     *
+     * @param wkt the WKT text
+     * @return the parsed geometry
+     * @throws ParseException if the text is not valid WKT, including well-formed text that JTS
+     *                        cannot build a geometry from (e.g. a ring that is not closed)
+     */
+    static Geometry read(String wkt) throws ParseException {
+        Geometry geometry;
+        try {
+            geometry = WKT_READER.get().read(wkt);
+        } catch (IllegalArgumentException e) {
+            throw new ParseException(e.getMessage());
+        }
+        geometry.apply((GeometryComponentFilter) Geometry::getEnvelopeInternal);
+        return geometry;
+    }
 
     /**
      * Determines if two geometries (in WKT form) "touch" each other. "Touching" means they
@@ -53,11 +93,11 @@ public final class GeometryUtils {
             return false;
         }
         try {
-            Geometry geometryA = WKT_READER.read(wktA);
-            Geometry geometryB = WKT_READER.read(wktB);
+            Geometry geometryA = read(wktA);
+            Geometry geometryB = read(wktB);
             return geometryA.touches(geometryB);
         } catch (ParseException e) {
-            logger.error("Error parsing WKT in areAdjacent: {}", e.getMessage(), e);
+            logger.error("Error parsing WKT in areAdjacent: {}", e.getMessage());
             return false;
         }
     }
@@ -79,11 +119,11 @@ public final class GeometryUtils {
             return false;
         }
         try {
-            Geometry geometryA = WKT_READER.read(wktA);
-            Geometry geometryB = WKT_READER.read(wktB);
+            Geometry geometryA = read(wktA);
+            Geometry geometryB = read(wktB);
             return geometryA.intersects(geometryB);
         } catch (ParseException e) {
-            logger.error("Error parsing WKT in doIntersect: {}", e.getMessage(), e);
+            logger.error("Error parsing WKT in doIntersect: {}", e.getMessage());
             return false;
         }
     }
@@ -102,13 +142,320 @@ public final class GeometryUtils {
             return false;
         }
         try {
-            Geometry geometryA = WKT_READER.read(wktA);
-            Geometry geometryB = WKT_READER.read(wktB);
+            Geometry geometryA = read(wktA);
+            Geometry geometryB = read(wktB);
             return geometryA.disjoint(geometryB);
         } catch (ParseException e) {
-            logger.error("Error parsing WKT in areDisjoint: {}", e.getMessage(), e);
+            logger.error("Error parsing WKT in areDisjoint: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Determines if two properties "touch" each other, like {@link #areAdjacent(String, String)}, but
+     * parses each geometry only once: the parsed geometries are kept in the {@link GeometryCache#shared()
+     * shared geometry cache}, keyed by {@code objectID}. Use this overload in pairwise loops.
+     * <p>
+     * Pairs whose stored envelopes do not meet (see {@link PropertyRecord#envelope()}), and pairs
+     * with a record quarantined by {@link GeometryQuarantine}, are answered without parsing, as are
+     * the other record overloads below.
+     *
+     * @param a the first property
+     * @param b the second property
+     * @return {@code true} if they share a boundary without overlapping interior points,
+     *         {@code false} otherwise (including if either geometry is missing or invalid).
+     */
+    public static boolean areAdjacent(PropertyRecord a, PropertyRecord b) {
+        if (eitherQuarantined(a, b) || envelopesApart(a, b)) {
+            return false;
+        }
+        Geometry geometryA = cachedGeometry(a, "adjacency");
+        Geometry geometryB = cachedGeometry(b, "adjacency");
+        return geometryA != null && geometryB != null && geometryA.touches(geometryB);
+    }
+
+    /**
+     * Checks if two properties intersect, like {@link #doIntersect(String, String)}, using the
+     * {@link GeometryCache#shared() shared geometry cache}.
+     *
+     * @param a the first property
+     * @param b the second property
+     * @return {@code true} if there's any intersection, {@code false} otherwise.
+     */
+    public static boolean doIntersect(PropertyRecord a, PropertyRecord b) {
+        if (eitherQuarantined(a, b) || envelopesApart(a, b)) {
+            return false;
+        }
+        Geometry geometryA = cachedGeometry(a, "intersection");
+        Geometry geometryB = cachedGeometry(b, "intersection");
+        return geometryA != null && geometryB != null && geometryA.intersects(geometryB);
+    }
+
+    /**
+     * Determines if two properties are completely disjoint, like {@link #areDisjoint(String, String)},
+     * using the {@link GeometryCache#shared() shared geometry cache}.
+     *
+     * @param a the first property
+     * @param b the second property
+     * @return {@code true} if they share no common points at all; {@code false} otherwise
+     *         (including if either geometry is missing or invalid). Because distant pairs are
+     *         answered from envelopes read off the WKT text, a pair of well-formed but topologically
+     *         invalid WKT (e.g. an unclosed ring) far apart is reported disjoint.
+     */
+    public static boolean areDisjoint(PropertyRecord a, PropertyRecord b) {
+        if (eitherQuarantined(a, b)) {
+            return false;
+        }
+        if (envelopesApart(a, b)) {
+            return true;
+        }
+        Geometry geometryA = cachedGeometry(a, "disjoint status");
+        Geometry geometryB = cachedGeometry(b, "disjoint status");
+        return geometryA != null && geometryB != null && geometryA.disjoint(geometryB);
+    }
+
+    /**
+     * Returns the bounding box of a property's geometry, using the {@link GeometryCache#shared()
+     * shared geometry cache}.
+     *
+     * @param record the property
+     * @return the bounding box, or an empty envelope if the geometry is missing or invalid.
+     */
+    public static Envelope getEnvelope(PropertyRecord record) {
+        Geometry geometry = GeometryCache.shared().get(record);
+        return geometry == null ? new Envelope() : geometry.getEnvelopeInternal();
+    }
+
+    /**
+     * Returns the candidates that "touch" {@code subject}, like calling
+     * {@link #areAdjacent(PropertyRecord, PropertyRecord)} for each of them, but much faster when
+     * there are many candidates: the subject is prepared once (its boundary segments are indexed)
+     * and every candidate is then tested against that index. Candidates whose bounding box does not
+     * meet the subject's are skipped without any further work.
+     * <p>
+     * JTS's {@code PreparedGeometry.touches} is not accelerated (it falls back to
+     * {@link Geometry#touches}), so the subject is prepared with {@link RelateNG#prepare(Geometry)}.
+     *
+     * @param subject    the property to test against
+     * @param candidates the properties to test; {@code null} elements, the subject instance itself
+     *                   and candidates with a missing or invalid geometry are skipped
+     * @return the touching candidates, in iteration order; empty if the subject's geometry is
+     *         missing or invalid
+     */
+    public static List<PropertyRecord> touchingAmong(PropertyRecord subject, Collection<PropertyRecord> candidates) {
+        List<PropertyRecord> nearby = nearbyCandidates(subject, candidates);
+        Geometry geometry = nearby.isEmpty() ? null : cachedGeometry(subject, "adjacency");
+        if (geometry == null) {
+            return new ArrayList<>();
+        }
+        RelateNG prepared = RelateNG.prepare(geometry);
+        return filterCandidates(geometry, nearby, other -> prepared.evaluate(other, RelatePredicate.touches()));
+    }
+
+    /**
+     * Returns the candidates that intersect {@code subject}, like calling
+     * {@link #doIntersect(PropertyRecord, PropertyRecord)} for each of them, with the subject
+     * prepared once through {@link PreparedGeometryFactory}.
+     *
+     * @param subject    the property to test against
+     * @param candidates the properties to test; {@code null} elements, the subject instance itself
+     *                   and candidates with a missing or invalid geometry are skipped
+     * @return the intersecting candidates, in iteration order; empty if the subject's geometry is
+     *         missing or invalid
+     */
+    public static List<PropertyRecord> intersectingAmong(PropertyRecord subject,
+                                                         Collection<PropertyRecord> candidates) {
+        List<PropertyRecord> nearby = nearbyCandidates(subject, candidates);
+        Geometry geometry = nearby.isEmpty() ? null : cachedGeometry(subject, "intersection");
+        if (geometry == null) {
+            return new ArrayList<>();
+        }
+        PreparedGeometry prepared = PreparedGeometryFactory.prepare(geometry);
+        return filterCandidates(geometry, nearby, prepared::intersects);
+    }
+
+    /**
+     * A predicate of a prepared subject against one candidate geometry.
+     */
+    private interface PreparedTest {
+        boolean test(Geometry candidate);
+    }
+
+    /**
+     * Returns the candidates (other than {@code null}, the subject itself and quarantined records)
+     * whose stored envelope meets the subject's, before anything is parsed. Candidates without a
+     * stored envelope have no usable geometry and are dropped; if the subject has none, no candidate
+     * is ruled out here. A quarantined subject has no candidates.
+     */
+    private static List<PropertyRecord> nearbyCandidates(PropertyRecord subject,
+                                                         Collection<PropertyRecord> candidates) {
+        List<PropertyRecord> nearby = new ArrayList<>();
+        if (subject == null || candidates == null || subject.isQuarantined()) {
+            return nearby;
+        }
+        Envelope envelope = subject.envelope();
+        for (PropertyRecord candidate : candidates) {
+            if (candidate == null || candidate == subject || candidate.isQuarantined()) {
+                continue;
+            }
+            Envelope stored = candidate.envelope();
+            if (stored != null && (envelope == null || envelope.intersects(stored))) {
+                nearby.add(candidate);
+            }
+        }
+        return nearby;
+    }
+
+    /**
+     * Applies a prepared predicate to every candidate whose geometry's envelope meets the subject's.
+     */
+    private static List<PropertyRecord> filterCandidates(Geometry geometry, List<PropertyRecord> candidates,
+                                                         PreparedTest test) {
+        Envelope envelope = geometry.getEnvelopeInternal();
+        List<PropertyRecord> result = new ArrayList<>();
+        for (PropertyRecord candidate : candidates) {
+            Geometry other = GeometryCache.shared().get(candidate);
+            if (other != null && envelope.intersects(other.getEnvelopeInternal()) && test.test(other)) {
+                result.add(candidate);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return {@code true} if either record was quarantined by a {@link GeometryQuarantine}; such
+     *         pairs are answered as for a missing geometry, without a lookup or a log line
+     */
+    private static boolean eitherQuarantined(PropertyRecord a, PropertyRecord b) {
+        return (a != null && a.isQuarantined()) || (b != null && b.isQuarantined());
+    }
+
+    /**
+     * @return {@code true} if both records have a stored envelope and the two do not meet, so their
+     *         geometries can neither touch nor intersect
+     */
+    private static boolean envelopesApart(PropertyRecord a, PropertyRecord b) {
+        if (a == null || b == null) {
             return false;
         }
+        Envelope envelopeA = a.envelope();
+        Envelope envelopeB = envelopeA == null ? null : b.envelope();
+        return envelopeB != null && !envelopeA.intersects(envelopeB);
+    }
+
+    /**
+     * Computes the bounding box of a WKT geometry by scanning its coordinates, without building a
+     * JTS geometry; this is several times cheaper than {@link WKTReader#read(String)} and allocates
+     * only the result. Only the first two ordinates (x and y) of each coordinate are used.
+     *
+     * @param wkt the WKT text, may be {@code null}
+     * @return the bounding box, or {@code null} if the text is {@code null}, {@code EMPTY}, does not
+     *         start with a known geometry type, or its parentheses or coordinates are malformed
+     */
+    static Envelope scanEnvelope(String wkt) {
+        if (wkt == null) {
+            return null;
+        }
+        int n = wkt.length();
+        int i = 0;
+        while (i < n && wkt.charAt(i) != '(') {
+            i++;
+        }
+        if (i == n || !isGeometryTag(wkt.substring(0, i))) {
+            return null;
+        }
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        double x = 0;
+        int depth = 0;
+        int ordinate = 0;
+        while (i < n) {
+            char c = wkt.charAt(i);
+            if (c == '(' || c == ')' || c == ',') {
+                if (ordinate == 1) {
+                    return null;  // a coordinate with a single ordinate
+                }
+                depth += c == '(' ? 1 : c == ')' ? -1 : 0;
+                if (depth < 0) {
+                    return null;
+                }
+                ordinate = 0;
+                i++;
+            } else if (Character.isWhitespace(c)) {
+                i++;
+            } else if (Character.isLetter(c) && ordinate == 0) {
+                // Nested type names and EMPTY inside collections
+                while (i < n && Character.isLetter(wkt.charAt(i))) {
+                    i++;
+                }
+            } else {
+                int start = i;
+                while (i < n && isNumberChar(wkt.charAt(i))) {
+                    i++;
+                }
+                if (i == start) {
+                    return null;
+                }
+                double value;
+                try {
+                    value = Double.parseDouble(wkt.substring(start, i));
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+                if (ordinate == 0) {
+                    x = value;
+                } else if (ordinate == 1) {
+                    minX = Math.min(minX, x);
+                    maxX = Math.max(maxX, x);
+                    minY = Math.min(minY, value);
+                    maxY = Math.max(maxY, value);
+                }
+                ordinate++;
+            }
+        }
+        if (depth != 0 || minX > maxX) {
+            return null;
+        }
+        return new Envelope(minX, maxX, minY, maxY);
+    }
+
+    private static boolean isGeometryTag(String tag) {
+        String[] words = tag.trim().split("\\s+");
+        if (words.length > 2) {
+            return false;
+        }
+        switch (words[0].toUpperCase(Locale.ROOT)) {
+            case "POINT":
+            case "LINESTRING":
+            case "LINEARRING":
+            case "POLYGON":
+            case "MULTIPOINT":
+            case "MULTILINESTRING":
+            case "MULTIPOLYGON":
+            case "GEOMETRYCOLLECTION":
+                break;
+            default:
+                return false;
+        }
+        return words.length == 1 || words[1].matches("(?i)Z|M|ZM");
+    }
+
+    private static boolean isNumberChar(char c) {
+        return (c >= '0' && c <= '9') || c == '.' || c == '-' || c == '+' || c == 'e' || c == 'E';
+    }
+
+    /**
+     * Looks up a property's geometry in the shared cache, logging a missing record or WKT the same
+     * way as the String-based methods.
+     */
+    private static Geometry cachedGeometry(PropertyRecord record, String operation) {
+        if (record == null || record.getGeometry() == null) {
+            logger.warn("Property or its WKT is null. Cannot determine {}.", operation);
+            return null;
+        }
+        return GeometryCache.shared().get(record);
     }
 
     /**
@@ -123,7 +470,7 @@ public final class GeometryUtils {
      */
     public static Envelope getEnvelope(String wkt) {
         try {
-            Geometry geometry = WKT_READER.read(wkt);
+            Geometry geometry = read(wkt);
             return geometry.getEnvelopeInternal();
         } catch (ParseException e) {
             // For consistency with other methods, we could log this as well:
@@ -32,6 +32,9 @@ public class Graph {
         // For the adjacency list, we store the neighboring nodes.
         private final List<GraphNode> neighbors = new ArrayList<>();
 
+        // The source record, whose stored envelope and cached geometry applyDelta reuses.
+        private final PropertyRecord record;
+
         /**
          * Constructs a {@link GraphNode} based on the data from the given {@link PropertyRecord}.
          * <p>
@@ -40,6 +43,24 @@ public class Graph {
          * @param record the source property record used to populate this node's attributes
          */
         public GraphNode(PropertyRecord record) {
+            this(record, Double.NaN, Double.NaN, true);
+        }
+
+        /**
+         * Constructs a {@link GraphNode} whose centroid was already computed (e.g. by an
+         * {@link IngestPipeline}), so the geometry is not parsed again.
+         *
+         * @param record    the source property record
+         * @param centroidX the x-coordinate of the centroid, or {@code NaN}
+         * @param centroidY the y-coordinate of the centroid, or {@code NaN}
+         */
+        GraphNode(PropertyRecord record, double centroidX, double centroidY) {
+            this(record, centroidX, centroidY, false);
+        }
+
+        private GraphNode(PropertyRecord record, double knownCentroidX, double knownCentroidY,
+                          boolean computeCentroid) {
+            this.record = record;
             this.objectID = record.getObjectID();
             this.parcelID = record.getParcelID();
             this.shapeLength = record.getShapeLength();
@@ -50,19 +71,17 @@ public class Graph {
             this.island = record.getIsland();
             this.geometry = record.getGeometry();
 
-            // Compute centroid from WKT, if valid.
-            double tmpX = Double.NaN;
-            double tmpY = Double.NaN;
-            if (this.geometry != null) {
-                try {
-                    // Use JTS to parse the WKT and get centroid.
-                    org.locationtech.jts.geom.Geometry geom =
-                            new org.locationtech.jts.io.WKTReader().read(this.geometry);
+            // Compute centroid from WKT, if valid (through the shared cache, so it is parsed once).
+            double tmpX = knownCentroidX;
+            double tmpY = knownCentroidY;
+            if (computeCentroid && this.geometry != null) {
+                org.locationtech.jts.geom.Geometry geom = GeometryCache.shared().get(record);
+                if (geom == null) {
+                    System.err.println("Error parsing WKT for objectID=" + objectID);
+                } else if (!geom.isEmpty()) {
                     org.locationtech.jts.geom.Point centroid = geom.getCentroid();
                     tmpX = centroid.getX();
                     tmpY = centroid.getY();
-                } catch (org.locationtech.jts.io.ParseException e) {
-                    System.err.println("Error parsing WKT for objectID=" + objectID + ": " + e.getMessage());
                 }
             }
             this.centroidX = tmpX;
@@ -193,6 +212,15 @@ public class Graph {
             neighbors.add(neighbor);
         }
 
+        /**
+         * Returns the bounding box of the geometry, as stored on the source record.
+         *
+         * @return the envelope, or {@code null} if the geometry is missing or not well-formed
+         */
+        private org.locationtech.jts.geom.Envelope envelope() {
+            return record.envelope();
+        }
+
         @Override
         public String toString() {
             return "GraphNode{" +
@@ -216,21 +244,68 @@ public class Graph {
 
     /**
      * Constructs the Graph from a list of PropertyRecord objects.
+     * <p>
+     * Centroids and envelopes are computed once, in parallel, into a {@link GeometryDerivedTable};
+     * the envelopes are used to skip pairs that cannot touch.
      *
      * @param propertyRecords The list of properties to be added as nodes in the graph.
      */
     public Graph(List<PropertyRecord> propertyRecords) {
         this.nodesById = new HashMap<>();
-        buildNodes(propertyRecords);
-        buildEdges(propertyRecords);
+        GeometryDerivedTable table = GeometryDerivedTable.build(propertyRecords);
+        buildNodes(propertyRecords, table);
+        List<org.locationtech.jts.geom.Envelope> envelopes = new ArrayList<>(propertyRecords.size());
+        for (int i = 0; i < propertyRecords.size(); i++) {
+            envelopes.add(table.getEnvelope(i));
+        }
+        buildEdges(propertyRecords, envelopes);
+    }
+
+    /**
+     * Constructs the Graph from a list of PropertyRecord objects, finding the adjacent pairs with
+     * the given strategy, e.g. {@link AdjacencyStrategy#PLANE_SWEEP} for a whole island.
+     *
+     * @param propertyRecords The list of properties to be added as nodes in the graph.
+     * @param strategy        how to find the adjacent pairs
+     */
+    public Graph(List<PropertyRecord> propertyRecords, AdjacencyStrategy strategy) {
+        this.nodesById = new HashMap<>();
+        buildNodes(propertyRecords, GeometryDerivedTable.build(propertyRecords));
+        for (int[] pair : strategy.adjacentPairs(propertyRecords)) {
+            GraphNode nodeA = nodesById.get(propertyRecords.get(pair[0]).getObjectID());
+            GraphNode nodeB = nodesById.get(propertyRecords.get(pair[1]).getObjectID());
+            nodeA.addNeighbor(nodeB);
+            nodeB.addNeighbor(nodeA);  // undirected graph
+        }
+    }
+
+    /**
+     * Constructs the Graph from the output of an {@link IngestPipeline}, reusing its centroids
+     * for the nodes and its envelopes to skip pairs that cannot touch.
+     *
+     * @param ingest the result of {@link IngestPipeline#run(java.nio.file.Path)}
+     */
+    public Graph(IngestPipeline.Result ingest) {
+        this.nodesById = new HashMap<>();
+        List<PropertyRecord> propertyRecords = ingest.getRecords();
+        for (int i = 0; i < propertyRecords.size(); i++) {
+            GraphNode node = new GraphNode(propertyRecords.get(i), ingest.getCentroidX(i), ingest.getCentroidY(i));
+            nodesById.put(node.getObjectID(), node);
+        }
+        List<org.locationtech.jts.geom.Envelope> envelopes = new ArrayList<>(propertyRecords.size());
+        for (int i = 0; i < propertyRecords.size(); i++) {
+            envelopes.add(ingest.getEnvelope(i));
+        }
+        buildEdges(propertyRecords, envelopes);
     }
 
     /**
-     * Creates a GraphNode for each PropertyRecord and stores them in the map.
+     * Creates a GraphNode for each PropertyRecord, with the centroid from {@code table}, and stores
+     * them in the map.
      */
-    private void buildNodes(List<PropertyRecord> propertyRecords) {
-        for (PropertyRecord record : propertyRecords) {
-            GraphNode node = new GraphNode(record);
+    private void buildNodes(List<PropertyRecord> propertyRecords, GeometryDerivedTable table) {
+        for (int i = 0; i < propertyRecords.size(); i++) {
+            GraphNode node = new GraphNode(propertyRecords.get(i), table.getCentroidX(i), table.getCentroidY(i));
             nodesById.put(node.getObjectID(), node);
         }
     }
@@ -238,19 +313,25 @@ public class Graph {
     /**
      * For each pair of PropertyRecord, checks adjacency using GeometryUtils.areAdjacent
      * and if adjacent, links their corresponding GraphNodes.
+     * <p>
+     * {@code envelopes} has one envelope per record ({@code null} for a missing or invalid
+     * geometry); pairs whose envelopes do not intersect are skipped without parsing, since such
+     * geometries can never touch.
      */
-    private void buildEdges(List<PropertyRecord> propertyRecords) {
+    private void buildEdges(List<PropertyRecord> propertyRecords,
+                            List<org.locationtech.jts.geom.Envelope> envelopes) {
         // We'll do a simple O(N^2) approach for adjacency.
         // For large datasets, consider spatial indexing.
         for (int i = 0; i < propertyRecords.size(); i++) {
             PropertyRecord recordA = propertyRecords.get(i);
             for (int j = i + 1; j < propertyRecords.size(); j++) {
                 PropertyRecord recordB = propertyRecords.get(j);
+                if (envelopes.get(i) == null || envelopes.get(j) == null
+                        || !envelopes.get(i).intersects(envelopes.get(j))) {
+                    continue;
+                }
 
-                boolean adjacent = GeometryUtils.areAdjacent(
-                        recordA.getGeometry(),
-                        recordB.getGeometry()
-                );
+                boolean adjacent = GeometryUtils.areAdjacent(recordA, recordB);
                 if (adjacent) {
                     GraphNode nodeA = nodesById.get(recordA.getObjectID());
                     GraphNode nodeB = nodesById.get(recordB.getObjectID());
@@ -261,6 +342,79 @@ public class Graph {
         }
     }
 
+    /**
+     * Applies a {@link DatasetDelta} to this graph in place, instead of building a new graph from
+     * the whole updated dataset.
+     * <p>
+     * Nodes of removed and changed records are unlinked from their neighbors and dropped; nodes for
+     * the changed and added records are then created and linked to every adjacent node. Only pairs
+     * involving a new node are checked, and only when their envelopes intersect, so the cost grows
+     * with the size of the delta rather than with the square of the dataset. The envelopes are those
+     * stored on the records, and the geometries come from the {@link GeometryCache#shared() shared
+     * geometry cache}, so the existing nodes are not parsed again.
+     *
+     * @param delta the delta between the dataset this graph was built from and its new version
+     */
+    public void applyDelta(DatasetDelta delta) {
+        for (PropertyRecord record : delta.getRemoved()) {
+            removeNode(record.getObjectID());
+        }
+        for (PropertyRecord record : delta.getPrevious()) {
+            removeNode(record.getObjectID());
+        }
+
+        List<GraphNode> existing = new ArrayList<>(nodesById.values());
+        List<GraphNode> inserted = new ArrayList<>();
+        for (List<PropertyRecord> records : List.of(delta.getChanged(), delta.getAdded())) {
+            for (PropertyRecord record : records) {
+                GraphNode node = new GraphNode(record);
+                nodesById.put(node.getObjectID(), node);
+                inserted.add(node);
+            }
+        }
+
+        for (int i = 0; i < inserted.size(); i++) {
+            GraphNode nodeA = inserted.get(i);
+            if (nodeA.envelope() == null) {
+                continue;
+            }
+            for (GraphNode nodeB : existing) {
+                linkIfAdjacent(nodeA, nodeB);
+            }
+            for (int j = i + 1; j < inserted.size(); j++) {
+                linkIfAdjacent(nodeA, inserted.get(j));
+            }
+        }
+    }
+
+    /**
+     * Links two nodes if their envelopes intersect and their geometries touch.
+     */
+    private static void linkIfAdjacent(GraphNode nodeA, GraphNode nodeB) {
+        org.locationtech.jts.geom.Envelope envelopeA = nodeA.envelope();
+        org.locationtech.jts.geom.Envelope envelopeB = nodeB.envelope();
+        if (envelopeA == null || envelopeB == null || !envelopeA.intersects(envelopeB)) {
+            return;
+        }
+        if (GeometryUtils.areAdjacent(nodeA.record, nodeB.record)) {
+            nodeA.addNeighbor(nodeB);
+            nodeB.addNeighbor(nodeA);
+        }
+    }
+
+    /**
+     * Removes a node and every edge to it.
+     */
+    private void removeNode(int objectID) {
+        GraphNode node = nodesById.remove(objectID);
+        if (node != null) {
+            for (GraphNode neighbor : node.getNeighbors()) {
+                neighbor.neighbors.remove(node);
+            }
+            node.neighbors.clear();
+        }
+    }
+
     /**
      * Returns all GraphNodes in this graph.
      *
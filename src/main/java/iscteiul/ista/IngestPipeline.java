@@ -0,0 +1,687 @@
+package iscteiul.ista;
+
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.io.ParseException;
+import org.locationtech.jts.io.WKTReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Loads a cadastral CSV file through four concurrent stages connected by bounded queues, so that
+ * reading, tokenizing, geometry parsing and spatial indexing overlap instead of running one
+ * after another:
+ * <ol>
+ *   <li><strong>reader</strong> (1 thread): reads the file in blocks and cuts them at record
+ *       boundaries (line breaks inside quoted fields are respected);</li>
+ *   <li><strong>tokenizer</strong> workers: turn each block into {@link PropertyRecord}s with a
+ *       {@link CsvByteTokenizer};</li>
+ *   <li><strong>geometry</strong> workers: parse each WKT once with JTS and compute its envelope and
+ *       centroid;</li>
+ *   <li><strong>index</strong> builder (1 thread): restores file order and inserts each block into
+ *       a {@link DynamicRTree} as soon as it is next in line, while later blocks are still being
+ *       tokenized and parsed.</li>
+ * </ol>
+ * The queues are {@link ArrayBlockingQueue}s: a fast stage blocks when the next one falls behind
+ * (backpressure), which bounds memory use to a few blocks per stage. Each stage records its
+ * throughput, the depth of its input queue and how long it was blocked by the next stage
+ * ({@link StageStats}); the stage with the lowest throughput is the one that limits load time.
+ *
+ * <p>The {@link Result} can be passed to {@link PropertyGraph#buildGraph(Result)} and
+ * {@link Graph#Graph(Result)}, which then reuse the envelopes, centroids and index instead of
+ * parsing every WKT again.
+ *
+ * <p><strong>Usage Example:</strong></p>
+ * <pre>{@code
+ * IngestPipeline.Result result = new IngestPipeline().run(Path.of("Madeira-Moodle-1.1.csv"));
+ * result.getStageStats().forEach(System.out::println);
+ * PropertyGraph graph = new PropertyGraph();
+ * graph.buildGraph(result);
+ * }</pre>
+ */
+public final class IngestPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(IngestPipeline.class);
+
+    /** Default size of the blocks handed from the reader to the tokenizers. */
+    public static final int DEFAULT_BATCH_BYTES = 1 << 20;
+
+    private final int tokenizerThreads;
+    private final int geometryThreads;
+    private final int queueCapacity;
+    private final int batchBytes;
+
+    /**
+     * Creates a pipeline sized for the available processors. Geometry parsing is the most expensive
+     * step, so it gets most of the worker threads.
+     */
+    public IngestPipeline() {
+        this(Math.max(1, Runtime.getRuntime().availableProcessors() / 4),
+                Math.max(1, Runtime.getRuntime().availableProcessors() -
+                        Math.max(1, Runtime.getRuntime().availableProcessors() / 4)),
+                16, DEFAULT_BATCH_BYTES);
+    }
+
+    /**
+     * Creates a pipeline with explicit sizing.
+     *
+     * @param tokenizerThreads the number of tokenizer workers
+     * @param geometryThreads  the number of geometry workers
+     * @param queueCapacity    the capacity (in blocks) of each queue between stages
+     * @param batchBytes       the size of the blocks read from the file
+     * @throws IllegalArgumentException if any argument is less than 1
+     */
+    public IngestPipeline(int tokenizerThreads, int geometryThreads, int queueCapacity, int batchBytes) {
+        if (tokenizerThreads < 1 || geometryThreads < 1 || queueCapacity < 1 || batchBytes < 1) {
+            throw new IllegalArgumentException("Pipeline sizes must be >= 1: tokenizerThreads=" + tokenizerThreads
+                    + ", geometryThreads=" + geometryThreads + ", queueCapacity=" + queueCapacity
+                    + ", batchBytes=" + batchBytes);
+        }
+        this.tokenizerThreads = tokenizerThreads;
+        this.geometryThreads = geometryThreads;
+        this.queueCapacity = queueCapacity;
+        this.batchBytes = batchBytes;
+    }
+
+    /**
+     * Runs the pipeline on a CSV file (with a header row) and waits for it to finish.
+     * Rows that cannot be parsed are skipped with a warning, as in {@link CSVFileReader}.
+     *
+     * @param csvFile the CSV file to load
+     * @return the records in file order, with their envelopes, centroids and spatial index
+     * @throws IOException if the file cannot be read, or a stage fails
+     */
+    public Result run(Path csvFile) throws IOException {
+        Run run = new Run(csvFile);
+        return run.execute();
+    }
+
+    /** A block of raw rows, in file order given by {@code seq}. */
+    private static final class RawBatch {
+        static final RawBatch POISON = new RawBatch(-1, null);
+
+        final long seq;
+        final byte[] data;
+
+        RawBatch(long seq, byte[] data) {
+            this.seq = seq;
+            this.data = data;
+        }
+    }
+
+    /** The records of one block, completed with geometry data by the geometry stage. */
+    private static final class RecordBatch {
+        static final RecordBatch POISON = new RecordBatch(-1, null);
+
+        final long seq;
+        final List<PropertyRecord> records;
+        Envelope[] envelopes;
+        double[] centroidX;
+        double[] centroidY;
+
+        RecordBatch(long seq, List<PropertyRecord> records) {
+            this.seq = seq;
+            this.records = records;
+        }
+    }
+
+    /** State of one execution: queues, threads, statistics and the first failure. */
+    private final class Run {
+        private final Path csvFile;
+        private final BlockingQueue<RawBatch> rawQueue = new ArrayBlockingQueue<>(queueCapacity);
+        private final BlockingQueue<RecordBatch> recordQueue = new ArrayBlockingQueue<>(queueCapacity);
+        private final BlockingQueue<RecordBatch> geometryQueue = new ArrayBlockingQueue<>(queueCapacity);
+
+        private final StageStats readerStats = new StageStats("reader", 1, 0);
+        private final StageStats tokenizerStats = new StageStats("tokenizer", tokenizerThreads, queueCapacity);
+        private final StageStats geometryStats = new StageStats("geometry", geometryThreads, queueCapacity);
+        private final StageStats indexStats = new StageStats("index", 1, queueCapacity);
+
+        private final AtomicInteger activeTokenizers = new AtomicInteger(tokenizerThreads);
+        private final AtomicInteger activeGeometryWorkers = new AtomicInteger(geometryThreads);
+        private final AtomicLong rejectedRows = new AtomicLong();
+        private final AtomicLong invalidGeometries = new AtomicLong();
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        private final List<Thread> threads = new CopyOnWriteArrayList<>();
+
+        private final List<PropertyRecord> records = new ArrayList<>();
+        private final List<Envelope> envelopes = new ArrayList<>();
+        private double[] centroidX = new double[1024];
+        private double[] centroidY = new double[1024];
+        private final DynamicRTree<PropertyRecord> index = new DynamicRTree<>();
+
+        Run(Path csvFile) {
+            this.csvFile = csvFile;
+        }
+
+        Result execute() throws IOException {
+            long start = System.nanoTime();
+            start("ingest-reader", this::readStage);
+            for (int i = 1; i <= tokenizerThreads; i++) {
+                start("ingest-tokenizer-" + i, this::tokenizeStage);
+            }
+            for (int i = 1; i <= geometryThreads; i++) {
+                start("ingest-geometry-" + i, this::geometryStage);
+            }
+            start("ingest-index", this::indexStage);
+
+            for (Thread thread : threads) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    threads.forEach(Thread::interrupt);
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while loading " + csvFile, e);
+                }
+            }
+            Throwable error = failure.get();
+            if (error instanceof IOException) {
+                throw (IOException) error;
+            }
+            if (error != null) {
+                throw new IOException("Ingest pipeline failed for " + csvFile, error);
+            }
+
+            readerStats.records.set(records.size() + rejectedRows.get());
+            List<StageStats> stats = List.of(readerStats, tokenizerStats, geometryStats, indexStats);
+            Result result = new Result(records, envelopes, Arrays.copyOf(centroidX, records.size()),
+                    Arrays.copyOf(centroidY, records.size()), index, stats, rejectedRows.get(),
+                    invalidGeometries.get(), System.nanoTime() - start);
+            logger.info("Loaded {} records from {} in {} ms ({} rows rejected, {} invalid geometries)",
+                    records.size(), csvFile, result.getElapsedNanos() / 1_000_000,
+                    result.getRejectedRows(), result.getInvalidGeometries());
+            stats.forEach(s -> logger.info("  {}", s));
+            return result;
+        }
+
+        private void start(String name, StageBody body) {
+            Thread thread = new Thread(() -> {
+                // A stage failed before this thread was started (and could be interrupted).
+                if (failure.get() != null) {
+                    return;
+                }
+                try {
+                    body.run();
+                } catch (InterruptedException e) {
+                    // Cancelled because another stage failed.
+                } catch (Throwable t) {
+                    if (failure.compareAndSet(null, t)) {
+                        threads.forEach(Thread::interrupt);
+                    }
+                }
+            }, name);
+            thread.setDaemon(true);
+            threads.add(thread);
+            thread.start();
+        }
+
+        /** Stage 1: reads blocks and cuts them after the last complete record. */
+        private void readStage() throws IOException, InterruptedException {
+            readerStats.started();
+            try (FileChannel channel = FileChannel.open(csvFile, StandardOpenOption.READ)) {
+                byte[] buffer = new byte[batchBytes];
+                int filled = 0;
+                int scanned = 0;
+                int lastBoundary = 0;   // position after the last complete record, 0 if none
+                boolean inQuotes = false;
+                long seq = 0;
+                long busyStart = System.nanoTime();
+                while (true) {
+                    int n = channel.read(ByteBuffer.wrap(buffer, filled, buffer.length - filled));
+                    if (n < 0) {
+                        break;
+                    }
+                    filled += n;
+                    for (; scanned < filled; scanned++) {
+                        byte b = buffer[scanned];
+                        if (b == '"') {
+                            inQuotes = !inQuotes;
+                        } else if (b == '\n' && !inQuotes) {
+                            lastBoundary = scanned + 1;
+                        }
+                    }
+                    if (filled < buffer.length) {
+                        continue;
+                    }
+                    if (lastBoundary == 0) {
+                        // A single record is larger than the block: grow it.
+                        buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                        continue;
+                    }
+                    RawBatch batch = new RawBatch(seq++, Arrays.copyOf(buffer, lastBoundary));
+                    System.arraycopy(buffer, lastBoundary, buffer, 0, filled - lastBoundary);
+                    filled -= lastBoundary;
+                    scanned -= lastBoundary;
+                    lastBoundary = 0;
+                    readerStats.busy(System.nanoTime() - busyStart, 0);
+                    putRaw(batch);
+                    busyStart = System.nanoTime();
+                }
+                if (filled > 0) {
+                    RawBatch batch = new RawBatch(seq, Arrays.copyOf(buffer, filled));
+                    readerStats.busy(System.nanoTime() - busyStart, 0);
+                    putRaw(batch);
+                } else {
+                    readerStats.busy(System.nanoTime() - busyStart, 0);
+                }
+            } finally {
+                // After a failure every thread is interrupted; nobody may be left to drain the queues.
+                for (int i = 0; i < tokenizerThreads && failure.get() == null; i++) {
+                    rawQueue.put(RawBatch.POISON);
+                }
+                readerStats.finished();
+            }
+        }
+
+        private void putRaw(RawBatch batch) throws InterruptedException {
+            long blockedStart = System.nanoTime();
+            rawQueue.put(batch);
+            readerStats.blocked(System.nanoTime() - blockedStart);
+        }
+
+        /** Stage 2: tokenizes blocks into records. */
+        private void tokenizeStage() throws InterruptedException {
+            tokenizerStats.started();
+            try {
+                while (true) {
+                    tokenizerStats.sampleQueue(rawQueue.size());
+                    RawBatch raw = rawQueue.take();
+                    if (raw == RawBatch.POISON) {
+                        break;
+                    }
+                    long busyStart = System.nanoTime();
+                    List<PropertyRecord> batchRecords = new ArrayList<>();
+                    CsvByteTokenizer tokenizer = new CsvByteTokenizer(ByteBuffer.wrap(raw.data));
+                    boolean skipHeader = raw.seq == 0;
+                    int rowInBatch = 0;
+                    try {
+                        while (tokenizer.next()) {
+                            rowInBatch++;
+                            if (skipHeader) {
+                                skipHeader = false;
+                                continue;
+                            }
+                            try {
+                                batchRecords.add(CSVFileReader.toPropertyRecord(tokenizer, false));
+                            } catch (NumberFormatException e) {
+                                rejectedRows.incrementAndGet();
+                                logger.warn("Skipping row {} of block {} in {} due to parse error: {}",
+                                        rowInBatch, raw.seq, csvFile, e.getMessage());
+                            }
+                        }
+                    } catch (IOException e) {
+                        throw new IllegalStateException("In-memory tokenizing cannot fail", e);
+                    }
+                    tokenizerStats.busy(System.nanoTime() - busyStart, batchRecords.size());
+                    long blockedStart = System.nanoTime();
+                    recordQueue.put(new RecordBatch(raw.seq, batchRecords));
+                    tokenizerStats.blocked(System.nanoTime() - blockedStart);
+                }
+            } finally {
+                if (activeTokenizers.decrementAndGet() == 0) {
+                    for (int i = 0; i < geometryThreads && failure.get() == null; i++) {
+                        recordQueue.put(RecordBatch.POISON);
+                    }
+                }
+                tokenizerStats.finished();
+            }
+        }
+
+        /** Stage 3: parses each WKT once and computes envelope and centroid. */
+        private void geometryStage() throws InterruptedException {
+            geometryStats.started();
+            WKTReader reader = new WKTReader();
+            try {
+                while (true) {
+                    geometryStats.sampleQueue(recordQueue.size());
+                    RecordBatch batch = recordQueue.take();
+                    if (batch == RecordBatch.POISON) {
+                        break;
+                    }
+                    long busyStart = System.nanoTime();
+                    int n = batch.records.size();
+                    batch.envelopes = new Envelope[n];
+                    batch.centroidX = new double[n];
+                    batch.centroidY = new double[n];
+                    for (int i = 0; i < n; i++) {
+                        Geometry geometry = parse(reader, batch.records.get(i));
+                        if (geometry == null) {
+                            batch.centroidX[i] = Double.NaN;
+                            batch.centroidY[i] = Double.NaN;
+                            continue;
+                        }
+                        batch.envelopes[i] = geometry.getEnvelopeInternal();
+                        Point centroid = geometry.getCentroid();
+                        batch.centroidX[i] = centroid.isEmpty() ? Double.NaN : centroid.getX();
+                        batch.centroidY[i] = centroid.isEmpty() ? Double.NaN : centroid.getY();
+                    }
+                    geometryStats.busy(System.nanoTime() - busyStart, n);
+                    long blockedStart = System.nanoTime();
+                    geometryQueue.put(batch);
+                    geometryStats.blocked(System.nanoTime() - blockedStart);
+                }
+            } finally {
+                if (activeGeometryWorkers.decrementAndGet() == 0 && failure.get() == null) {
+                    geometryQueue.put(RecordBatch.POISON);
+                }
+                geometryStats.finished();
+            }
+        }
+
+        private Geometry parse(WKTReader reader, PropertyRecord record) {
+            String wkt = record.getGeometry();
+            if (wkt == null || wkt.isBlank()) {
+                invalidGeometries.incrementAndGet();
+                return null;
+            }
+            try {
+                return reader.read(wkt);
+            } catch (ParseException e) {
+                invalidGeometries.incrementAndGet();
+                logger.warn("Invalid geometry for objectID={} in {}: {}", record.getObjectID(), csvFile, e.getMessage());
+                return null;
+            }
+        }
+
+        /** Stage 4: restores file order and indexes each block as it is released. */
+        private void indexStage() throws InterruptedException {
+            indexStats.started();
+            Map<Long, RecordBatch> pending = new HashMap<>();
+            long nextSeq = 0;
+            try {
+                while (true) {
+                    indexStats.sampleQueue(geometryQueue.size());
+                    RecordBatch batch = geometryQueue.take();
+                    if (batch == RecordBatch.POISON) {
+                        break;
+                    }
+                    long busyStart = System.nanoTime();
+                    pending.put(batch.seq, batch);
+                    int appended = 0;
+                    for (RecordBatch next; (next = pending.remove(nextSeq)) != null; nextSeq++) {
+                        append(next);
+                        appended += next.records.size();
+                    }
+                    indexStats.busy(System.nanoTime() - busyStart, appended);
+                }
+            } finally {
+                indexStats.finished();
+            }
+        }
+
+        /**
+         * Appends a block in file order and indexes its records. The first block is packed into the
+         * empty tree; the following ones are inserted one record at a time.
+         */
+        private void append(RecordBatch batch) {
+            int base = records.size();
+            int n = batch.records.size();
+            if (base + n > centroidX.length) {
+                int capacity = Math.max(base + n, centroidX.length * 2);
+                centroidX = Arrays.copyOf(centroidX, capacity);
+                centroidY = Arrays.copyOf(centroidY, capacity);
+            }
+            for (int i = 0; i < n; i++) {
+                PropertyRecord record = batch.records.get(i);
+                Envelope envelope = batch.envelopes[i];
+                records.add(record);
+                envelopes.add(envelope);
+                centroidX[base + i] = batch.centroidX[i];
+                centroidY[base + i] = batch.centroidY[i];
+            }
+            index.insertAll(Arrays.asList(batch.envelopes), batch.records);
+        }
+    }
+
+    @FunctionalInterface
+    private interface StageBody {
+        void run() throws Exception;
+    }
+
+    /**
+     * Statistics of one pipeline stage, summed over its threads.
+     * <p>
+     * {@link #getThroughput()} is the rate (records per second) the stage sustains while it is
+     * working, i.e. excluding the time spent waiting for input or for room in the next queue. The
+     * stage with the lowest throughput limits the whole load. A consistently full input queue
+     * ({@link #getAverageQueueDepth()} close to {@link #getQueueCapacity()}) points the same way.
+     */
+    public static final class StageStats {
+        private final String name;
+        private final int threads;
+        private final int queueCapacity;
+        private final AtomicLong records = new AtomicLong();
+        private final AtomicLong batches = new AtomicLong();
+        private final AtomicLong busyNanos = new AtomicLong();
+        private final AtomicLong blockedNanos = new AtomicLong();
+        private final AtomicLong depthSamples = new AtomicLong();
+        private final AtomicLong depthSum = new AtomicLong();
+        private final AtomicInteger maxDepth = new AtomicInteger();
+        private final AtomicLong firstStart = new AtomicLong(Long.MAX_VALUE);
+        private final AtomicLong lastEnd = new AtomicLong(Long.MIN_VALUE);
+
+        StageStats(String name, int threads, int queueCapacity) {
+            this.name = name;
+            this.threads = threads;
+            this.queueCapacity = queueCapacity;
+        }
+
+        void started() {
+            firstStart.accumulateAndGet(System.nanoTime(), Math::min);
+        }
+
+        void finished() {
+            lastEnd.accumulateAndGet(System.nanoTime(), Math::max);
+        }
+
+        void busy(long nanos, int recordCount) {
+            busyNanos.addAndGet(nanos);
+            records.addAndGet(recordCount);
+            batches.incrementAndGet();
+        }
+
+        void blocked(long nanos) {
+            blockedNanos.addAndGet(nanos);
+        }
+
+        void sampleQueue(int depth) {
+            depthSamples.incrementAndGet();
+            depthSum.addAndGet(depth);
+            maxDepth.accumulateAndGet(depth, Math::max);
+        }
+
+        /** @return the stage name: reader, tokenizer, geometry or index */
+        public String getName() {
+            return name;
+        }
+
+        /** @return the number of threads running this stage */
+        public int getThreads() {
+            return threads;
+        }
+
+        /** @return the number of records that went through this stage */
+        public long getRecords() {
+            return records.get();
+        }
+
+        /** @return the number of units of work (blocks) this stage processed */
+        public long getBatches() {
+            return batches.get();
+        }
+
+        /** @return the time spent working, summed over the stage's threads */
+        public double getBusySeconds() {
+            return busyNanos.get() / 1e9;
+        }
+
+        /** @return the time spent blocked on a full downstream queue (backpressure), summed over threads */
+        public double getBlockedSeconds() {
+            return blockedNanos.get() / 1e9;
+        }
+
+        /** @return the time between the stage starting and its last thread finishing */
+        public double getWallSeconds() {
+            long start = firstStart.get();
+            long end = lastEnd.get();
+            return start == Long.MAX_VALUE || end < start ? 0.0 : (end - start) / 1e9;
+        }
+
+        /** @return records per second while working, across all threads; 0 if nothing was measured */
+        public double getThroughput() {
+            double busyPerThread = getBusySeconds() / threads;
+            return busyPerThread > 0 ? getRecords() / busyPerThread : 0.0;
+        }
+
+        /** @return the capacity of the stage's input queue (0 for the reader, which has none) */
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        /** @return the largest input queue depth seen before taking work */
+        public int getMaxQueueDepth() {
+            return maxDepth.get();
+        }
+
+        /** @return the average input queue depth seen before taking work */
+        public double getAverageQueueDepth() {
+            long samples = depthSamples.get();
+            return samples == 0 ? 0.0 : (double) depthSum.get() / samples;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-9s threads=%d records=%d throughput=%.0f rec/s busy=%.3fs blocked=%.3fs "
+                            + "queue avg=%.1f max=%d/%d",
+                    name, threads, getRecords(), getThroughput(), getBusySeconds(), getBlockedSeconds(),
+                    getAverageQueueDepth(), getMaxQueueDepth(), queueCapacity);
+        }
+    }
+
+    /**
+     * The output of {@link #run(Path)}: the records in file order and, at the same index, their
+     * envelope and centroid, plus a {@link DynamicRTree} of the records keyed by envelope.
+     */
+    public static final class Result {
+        private final List<PropertyRecord> records;
+        private final List<Envelope> envelopes;
+        private final double[] centroidX;
+        private final double[] centroidY;
+        private final DynamicRTree<PropertyRecord> spatialIndex;
+        private boolean spatialIndexTaken;
+        private final List<StageStats> stageStats;
+        private final long rejectedRows;
+        private final long invalidGeometries;
+        private final long elapsedNanos;
+
+        Result(List<PropertyRecord> records, List<Envelope> envelopes, double[] centroidX, double[] centroidY,
+               DynamicRTree<PropertyRecord> spatialIndex, List<StageStats> stageStats, long rejectedRows, long invalidGeometries,
+               long elapsedNanos) {
+            this.records = Collections.unmodifiableList(records);
+            this.envelopes = Collections.unmodifiableList(envelopes);
+            this.centroidX = centroidX;
+            this.centroidY = centroidY;
+            this.spatialIndex = spatialIndex;
+            this.stageStats = stageStats;
+            this.rejectedRows = rejectedRows;
+            this.invalidGeometries = invalidGeometries;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /** @return the records in file order (read-only) */
+        public List<PropertyRecord> getRecords() {
+            return records;
+        }
+
+        /**
+         * @param i the record index
+         * @return the envelope of record {@code i}, or {@code null} if its geometry is missing or invalid
+         */
+        public Envelope getEnvelope(int i) {
+            return envelopes.get(i);
+        }
+
+        /**
+         * @param i the record index
+         * @return the x-coordinate of the centroid of record {@code i}, or {@code NaN} if unavailable
+         */
+        public double getCentroidX(int i) {
+            return centroidX[i];
+        }
+
+        /**
+         * @param i the record index
+         * @return the y-coordinate of the centroid of record {@code i}, or {@code NaN} if unavailable
+         */
+        public double getCentroidY(int i) {
+            return centroidY[i];
+        }
+
+        /**
+         * Returns an R-tree holding every record with a valid geometry, keyed by its envelope,
+         * built block by block while the file was loading.
+         * <p>
+         * The first {@link PropertyGraph} built from this result (see
+         * {@link PropertyGraph#buildGraph(Result)}) takes the tree over as its own index, and the
+         * tree then follows the changes made to that graph.
+         *
+         * @return the spatial index of the records
+         */
+        public SpatialIndex<PropertyRecord> getSpatialIndex() {
+            return spatialIndex;
+        }
+
+        /**
+         * Hands the spatial index over to a consumer that will keep it up to date with its own
+         * changes. Only the first call gets it, so two consumers never share one mutable index.
+         *
+         * @return the index, or {@code null} if it was already taken
+         */
+        synchronized SpatialIndex<PropertyRecord> takeSpatialIndex() {
+            if (spatialIndexTaken) {
+                return null;
+            }
+            spatialIndexTaken = true;
+            return spatialIndex;
+        }
+
+        /** @return the statistics of the reader, tokenizer, geometry and index stages, in that order */
+        public List<StageStats> getStageStats() {
+            return stageStats;
+        }
+
+        /** @return the number of rows skipped because they could not be parsed */
+        public long getRejectedRows() {
+            return rejectedRows;
+        }
+
+        /** @return the number of records whose geometry is missing or invalid */
+        public long getInvalidGeometries() {
+            return invalidGeometries;
+        }
+
+        /** @return the total load time in nanoseconds */
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+    }
+}
@@ -0,0 +1,305 @@
+package iscteiul.ista;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Statistics of one CSV import done by {@link CSVFileReader}, handed to the report sink passed to
+ * the import, e.g. {@link CSVFileReader#importDataFromFile(String, java.util.function.Consumer)}.
+ * <p>
+ * Besides the row and byte counts and the resulting throughput, the report splits the parse time
+ * into three phases:
+ * <ul>
+ *   <li><b>tokenizing</b> - splitting the input into rows and columns (for OpenCSV this includes
+ *       decoding the bytes to characters)</li>
+ *   <li><b>number parsing</b> - converting the numeric columns</li>
+ *   <li><b>object creation</b> - decoding the String columns and constructing the {@link PropertyRecord}</li>
+ * </ul>
+ * For parallel imports the phase times are summed over all worker threads, so they can exceed
+ * the elapsed (wall-clock) time. Imports served from a {@link DatasetSnapshot} do not parse any
+ * text; their phase times are zero.
+ * <p>
+ * Rejected rows are counted per column: the first column of a row that fails to parse is blamed,
+ * and rows with fewer than ten columns are counted under {@link #COLUMN_COUNT}.
+ * <p>
+ * The peak heap is the highest heap usage sampled by the import itself, every
+ * {@value Recorder#HEAP_SAMPLE_ROWS} rows of each worker and once at the end; it does not reset or
+ * read any JVM-wide peak, so imports running at the same time do not disturb each other's report.
+ * The heap is shared, though: the samples include garbage that was not yet collected and memory
+ * allocated by other threads at the time, and a short spike between two samples can be missed.
+ */
+public final class IngestReport {
+
+    /** The names of the CSV columns, in file order, as used in {@link #getRejectsByColumn()}. */
+    static final String[] COLUMNS = {"objectID", "parcelID", "parcelNumber", "shapeLength", "shapeArea",
+            "geometry", "owner", "parish", "municipality", "island"};
+
+    /** The key in {@link #getRejectsByColumn()} for rows that have fewer than ten columns. */
+    public static final String COLUMN_COUNT = "columnCount";
+
+    /** Maximum number of example messages kept for rejected rows. */
+    static final int MAX_REJECT_EXAMPLES = 5;
+
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+    private final String source;
+    private final long rowsLoaded;
+    private final long rejectedRows;
+    private final long bytesRead;
+    private final long elapsedNanos;
+    private final long tokenizeNanos;
+    private final long numberParseNanos;
+    private final long objectCreationNanos;
+    private final long peakHeapBytes;
+    private final Map<String, Long> rejectsByColumn;
+    private final List<String> rejectExamples;
+
+    private IngestReport(Recorder recorder, String source, long elapsedNanos) {
+        this.source = source;
+        this.rowsLoaded = recorder.rowsLoaded;
+        this.rejectedRows = recorder.rejectedRows;
+        this.bytesRead = recorder.bytesRead;
+        this.elapsedNanos = elapsedNanos;
+        this.tokenizeNanos = recorder.tokenizeNanos;
+        this.numberParseNanos = recorder.numberParseNanos;
+        this.objectCreationNanos = recorder.objectCreationNanos;
+        this.peakHeapBytes = recorder.peakHeapBytes;
+
+        Map<String, Long> rejects = new LinkedHashMap<>();
+        for (int i = 0; i < recorder.rejects.length; i++) {
+            if (recorder.rejects[i] > 0) {
+                rejects.put(i < COLUMNS.length ? COLUMNS[i] : COLUMN_COUNT, recorder.rejects[i]);
+            }
+        }
+        this.rejectsByColumn = Collections.unmodifiableMap(rejects);
+        this.rejectExamples = List.copyOf(recorder.examples);
+    }
+
+    /**
+     * @return the file or resource that was imported
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * @return the number of records returned by the import
+     */
+    public long getRowsLoaded() {
+        return rowsLoaded;
+    }
+
+    /**
+     * @return the number of data rows that were skipped because they could not be parsed
+     */
+    public long getRejectedRows() {
+        return rejectedRows;
+    }
+
+    /**
+     * @return the number of bytes read from the source
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * @return the wall-clock duration of the import, in nanoseconds
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * @return the time spent splitting the input into rows and columns, in nanoseconds
+     */
+    public long getTokenizeNanos() {
+        return tokenizeNanos;
+    }
+
+    /**
+     * @return the time spent parsing the numeric columns, in nanoseconds
+     */
+    public long getNumberParseNanos() {
+        return numberParseNanos;
+    }
+
+    /**
+     * @return the time spent decoding String columns and constructing records, in nanoseconds
+     */
+    public long getObjectCreationNanos() {
+        return objectCreationNanos;
+    }
+
+    /**
+     * @return the highest heap usage sampled during the import, in bytes
+     */
+    public long getPeakHeapBytes() {
+        return peakHeapBytes;
+    }
+
+    /**
+     * @return the rejected rows per column name (see {@link #COLUMN_COUNT}), in column order;
+     *         columns without rejects are omitted
+     */
+    public Map<String, Long> getRejectsByColumn() {
+        return rejectsByColumn;
+    }
+
+    /**
+     * @return the messages of the first few rejected rows (at most five), in file order for
+     *         sequential imports
+     */
+    public List<String> getRejectExamples() {
+        return rejectExamples;
+    }
+
+    /**
+     * @return the loaded rows per second of wall-clock time, or 0 if no time was measured
+     */
+    public double getRowsPerSecond() {
+        return elapsedNanos > 0 ? rowsLoaded * 1e9 / elapsedNanos : 0.0;
+    }
+
+    /**
+     * @return the bytes read per second of wall-clock time, or 0 if no time was measured
+     */
+    public double getBytesPerSecond() {
+        return elapsedNanos > 0 ? bytesRead * 1e9 / elapsedNanos : 0.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("IngestReport{source=%s, rows=%d, rejected=%d %s, bytes=%d, elapsed=%.3fs, "
+                        + "rows/s=%.0f, MB/s=%.1f, tokenize=%.3fs, numbers=%.3fs, objects=%.3fs, peakHeap=%dMB}",
+                source, rowsLoaded, rejectedRows, rejectsByColumn, bytesRead, elapsedNanos / 1e9,
+                getRowsPerSecond(), getBytesPerSecond() / (1 << 20), tokenizeNanos / 1e9,
+                numberParseNanos / 1e9, objectCreationNanos / 1e9, peakHeapBytes >> 20);
+    }
+
+    /**
+     * @return the heap memory currently in use, in bytes
+     */
+    static long heapUsedBytes() {
+        return MEMORY.getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * Mutable counters filled in while one thread parses its part of the input. Not thread-safe:
+     * parallel imports use one recorder per chunk and {@link #merge(Recorder) merge} them at the end.
+     */
+    static final class Recorder {
+
+        /** Rows between two heap samples, see {@link #rowLoaded()}. */
+        static final int HEAP_SAMPLE_ROWS = 4096;
+
+        long rowsLoaded;
+        long rejectedRows;
+        long bytesRead;
+        long tokenizeNanos;
+        long numberParseNanos;
+        long objectCreationNanos;
+        long peakHeapBytes;
+        final long[] rejects = new long[COLUMNS.length + 1];
+        final List<String> examples = new ArrayList<>();
+
+        /** The end of the last lap, see {@link #startClock()}. */
+        private long mark;
+
+        /**
+         * Starts timing. Every following {@code lap...} call adds the time since the previous call
+         * to one phase, so each row costs only one {@link System#nanoTime()} call per phase.
+         */
+        void startClock() {
+            mark = System.nanoTime();
+        }
+
+        /** Adds the time since the previous lap to the tokenizing phase. */
+        void lapTokenize() {
+            tokenizeNanos += lap();
+        }
+
+        /** Adds the time since the previous lap to the number parsing phase. */
+        void lapNumbers() {
+            numberParseNanos += lap();
+        }
+
+        /** Adds the time since the previous lap to the object creation phase. */
+        void lapObjects() {
+            objectCreationNanos += lap();
+        }
+
+        private long lap() {
+            long now = System.nanoTime();
+            long elapsed = now - mark;
+            mark = now;
+            return elapsed;
+        }
+
+        /**
+         * Counts a loaded row, and samples the heap every {@value #HEAP_SAMPLE_ROWS} rows.
+         */
+        void rowLoaded() {
+            if (++rowsLoaded % HEAP_SAMPLE_ROWS == 0) {
+                sampleHeap();
+            }
+        }
+
+        /**
+         * Raises {@link #peakHeapBytes} to the heap usage of this moment, if that is higher.
+         */
+        void sampleHeap() {
+            peakHeapBytes = Math.max(peakHeapBytes, heapUsedBytes());
+        }
+
+        /**
+         * Counts a rejected row.
+         *
+         * @param column  the index of the offending column, or {@code COLUMNS.length} for a short row
+         * @param message a description of the problem, kept if fewer than five examples were recorded
+         */
+        void reject(int column, String message) {
+            rejectedRows++;
+            rejects[column]++;
+            if (examples.size() < MAX_REJECT_EXAMPLES) {
+                examples.add(message);
+            }
+        }
+
+        /**
+         * Adds the counters of another recorder to this one.
+         */
+        void merge(Recorder other) {
+            rowsLoaded += other.rowsLoaded;
+            rejectedRows += other.rejectedRows;
+            bytesRead += other.bytesRead;
+            tokenizeNanos += other.tokenizeNanos;
+            numberParseNanos += other.numberParseNanos;
+            objectCreationNanos += other.objectCreationNanos;
+            peakHeapBytes = Math.max(peakHeapBytes, other.peakHeapBytes);
+            for (int i = 0; i < rejects.length; i++) {
+                rejects[i] += other.rejects[i];
+            }
+            for (String example : other.examples) {
+                if (examples.size() < MAX_REJECT_EXAMPLES) {
+                    examples.add(example);
+                }
+            }
+        }
+
+        /**
+         * Creates the immutable report.
+         *
+         * @param source       the imported file or resource
+         * @param elapsedNanos the wall-clock duration of the import
+         */
+        IngestReport finish(String source, long elapsedNanos) {
+            return new IngestReport(this, source, elapsedNanos);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package iscteiul.ista;
+
+/**
+ * A set of primitive {@code int}s using open addressing with linear probing, for de-duplicating
+ * {@code objectID}s without boxing every value into an {@link Integer} (as a {@code HashSet<Integer>}
+ * would, at roughly 50 bytes per entry instead of 8 at most here).
+ * <p>
+ * Not thread-safe.
+ */
+final class IntHashSet {
+
+    /** Marks a free slot; the value 0 itself is tracked by {@link #containsZero}. */
+    private static final int FREE = 0;
+
+    /** The largest table, the largest power of two an {@code int[]} can have. */
+    static final int MAX_CAPACITY = 1 << 30;
+
+    private int[] slots;
+    private int size;
+    private boolean containsZero;
+
+    /**
+     * @param expectedSize the number of values expected, used to size the table
+     * @throws IllegalArgumentException if {@code expectedSize} is negative
+     */
+    IntHashSet(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("expectedSize must not be negative, got " + expectedSize);
+        }
+        slots = new int[capacityFor(expectedSize)];
+    }
+
+    /**
+     * Returns the table size for {@code expectedSize} values: a power of two (at least 8) that keeps
+     * the load factor at or below 0.5, but at most {@link #MAX_CAPACITY}. Computed in {@code long},
+     * so large sizes do not overflow.
+     */
+    static int capacityFor(int expectedSize) {
+        long wanted = Math.max(4L, 2L * expectedSize - 1);
+        return (int) Math.min(MAX_CAPACITY, Long.highestOneBit(wanted) << 1);
+    }
+
+    /**
+     * Adds a value.
+     *
+     * @param value the value
+     * @return {@code true} if the value was not in the set yet
+     */
+    boolean add(int value) {
+        if (value == FREE) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            return true;
+        }
+        int mask = slots.length - 1;
+        int i = mix(value) & mask;
+        while (slots[i] != FREE) {
+            if (slots[i] == value) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        if (size - (containsZero ? 1 : 0) == MAX_CAPACITY - 1) {
+            // Probing needs at least one free slot to stop.
+            throw new IllegalStateException("IntHashSet is full at " + size + " values");
+        }
+        slots[i] = value;
+        size++;
+        if (size * 2L > slots.length && slots.length < MAX_CAPACITY) {
+            grow();
+        }
+        return true;
+    }
+
+    /**
+     * @param value the value
+     * @return {@code true} if the value is in the set
+     */
+    boolean contains(int value) {
+        if (value == FREE) {
+            return containsZero;
+        }
+        int mask = slots.length - 1;
+        int i = mix(value) & mask;
+        while (slots[i] != FREE) {
+            if (slots[i] == value) {
+                return true;
+            }
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * @return the number of values in the set
+     */
+    int size() {
+        return size;
+    }
+
+    private void grow() {
+        int[] old = slots;
+        slots = new int[old.length << 1];
+        int mask = slots.length - 1;
+        for (int value : old) {
+            if (value != FREE) {
+                int i = mix(value) & mask;
+                while (slots[i] != FREE) {
+                    i = (i + 1) & mask;
+                }
+                slots[i] = value;
+            }
+        }
+    }
+
+    /**
+     * Spreads the bits of sequential IDs, which would otherwise fill neighbouring slots and make
+     * linear probing degrade.
+     */
+    private static int mix(int value) {
+        int h = value * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
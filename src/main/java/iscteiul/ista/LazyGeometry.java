@@ -0,0 +1,104 @@
+package iscteiul.ista;
+
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.io.ParseException;
+
+import java.lang.ref.SoftReference;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The geometry column of a {@link PropertyRecord}, kept as a reference to its UTF-8 WKT bytes in a
+ * memory-mapped CSV file or {@link DatasetSnapshot} instead of as a decoded String.
+ * <p>
+ * The WKT String and the parsed JTS {@link Geometry} are only created on first use and are held
+ * through {@link SoftReference}s, so the garbage collector can drop them again under memory
+ * pressure; they are simply decoded again the next time they are needed. Records whose geometry is
+ * never looked at therefore cost a few bytes of heap for their geometry instead of the full WKT.
+ *
+ * <p>The source buffer must not change while records refer to it: the mapped file should not be
+ * modified in place (snapshots are always replaced atomically, see {@link DatasetSnapshot}).
+ *
+ * <p>Instances are thread-safe; concurrent first accesses may decode twice, which is harmless.
+ */
+final class LazyGeometry {
+
+    private final ByteBuffer source;
+    private final int offset;
+    private final int length;
+    private final boolean escaped;
+
+    private volatile SoftReference<String> wkt;
+    private volatile SoftReference<Geometry> parsed;
+
+    /**
+     * @param source  the buffer holding the WKT bytes; only absolute reads are used
+     * @param offset  the index of the first byte in {@code source}
+     * @param length  the number of bytes
+     * @param escaped {@code true} if the bytes contain CSV-escaped ({@code ""}) quotes
+     */
+    LazyGeometry(ByteBuffer source, int offset, int length, boolean escaped) {
+        this.source = source;
+        this.offset = offset;
+        this.length = length;
+        this.escaped = escaped;
+    }
+
+    /**
+     * @return the WKT text, decoded now if it was never decoded or has been collected
+     */
+    String wkt() {
+        SoftReference<String> ref = wkt;
+        String value = ref == null ? null : ref.get();
+        if (value == null) {
+            byte[] bytes = new byte[length];
+            source.get(offset, bytes, 0, length);
+            value = new String(bytes, StandardCharsets.UTF_8);
+            if (escaped) {
+                value = value.replace("\"\"", "\"");
+            }
+            wkt = new SoftReference<>(value);
+        }
+        return value;
+    }
+
+    /**
+     * @return the parsed geometry, or {@code null} if the WKT is blank or invalid
+     */
+    Geometry parsed() {
+        SoftReference<Geometry> ref = parsed;
+        Geometry geometry = ref == null ? null : ref.get();
+        if (geometry == null) {
+            geometry = parse(wkt());
+            if (geometry != null) {
+                parsed = new SoftReference<>(geometry);
+            }
+        }
+        return geometry;
+    }
+
+    /**
+     * @return {@code true} if the decoded WKT String is currently held in memory
+     */
+    boolean isDecoded() {
+        SoftReference<String> ref = wkt;
+        return ref != null && ref.get() != null;
+    }
+
+    /**
+     * Parses a WKT String.
+     *
+     * @param wkt the WKT text, may be {@code null}
+     * @return the geometry, or {@code null} if the text is null, blank or invalid
+     */
+    static Geometry parse(String wkt) {
+        if (wkt == null || wkt.isBlank()) {
+            return null;
+        }
+        try {
+            return GeometryUtils.read(wkt);
+        } catch (ParseException e) {
+            return null;
+        }
+    }
+}
@@ -39,7 +39,7 @@ public final class MergedPropertyGraph {
                 // skip if same owner => we only want adjacency among different owners?
                 // or do we keep adjacency anyway? depends on your definition
                 // We'll build adjacency for all, so you can choose later
-                if (GeometryUtils.areAdjacent(a.getGeometry(), b.getGeometry())) {
+                if (GeometryUtils.areAdjacent(a, b)) {
                     graph.addEdge(a, b);
                 }
             }
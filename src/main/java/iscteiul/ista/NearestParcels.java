@@ -0,0 +1,267 @@
+package iscteiul.ista;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.BiPredicate;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.Predicate;
+
+/**
+ * k-nearest-neighbour queries over the in-memory dataset: the parcels closest to a given parcel or
+ * point, nearest first, answered with a best-first search of a {@link DynamicRTree} (see
+ * {@link DynamicRTree#visitNearest}) instead of a {@link PostGISUtils#distance(int, int)} round
+ * trip per pair or a scan of the whole dataset.
+ * <p>
+ * Distances are measured in one of two ways ({@link Measure}): between centroids, read from a
+ * {@link GeometryDerivedTable}, or between the geometries themselves (0 for parcels that touch or
+ * overlap), computed only for the candidates the search actually reaches. A filter restricts the
+ * result, e.g. to parcels of {@link #DIFFERENT_OWNER another owner} or {@link #SAME_MUNICIPALITY the
+ * same municipality}, for the swap and consolidation analyses; the search goes on until it has found
+ * {@code k} parcels that pass it.
+ * <p>
+ * Records without a valid geometry (or quarantined by {@link GeometryQuarantine}) are never
+ * returned, and have no neighbours. Instances are not updated when the records change; build a new
+ * one (see {@link App#getNearestParcels()}). They are safe to query from several threads.
+ */
+public final class NearestParcels {
+
+    private static final Logger logger = LoggerFactory.getLogger(NearestParcels.class);
+
+    private static final GeometryFactory FACTORY = new GeometryFactory();
+
+    /**
+     * How the distance between a parcel and the origin of a query is measured.
+     */
+    public enum Measure {
+        /** Between the centroids (or from the query point to the parcel's centroid). */
+        CENTROID,
+        /** Between the geometries: the shortest distance between any two of their points. */
+        GEOMETRY
+    }
+
+    /** Keeps the parcels whose owner is not the owner of the query parcel. */
+    public static final BiPredicate<PropertyRecord, PropertyRecord> DIFFERENT_OWNER =
+            (subject, candidate) -> subject.getOwner() != candidate.getOwner();
+
+    /** Keeps the parcels in the municipality of the query parcel. */
+    public static final BiPredicate<PropertyRecord, PropertyRecord> SAME_MUNICIPALITY =
+            (subject, candidate) -> Objects.equals(subject.getMunicipality(), candidate.getMunicipality());
+
+    /**
+     * A parcel found by a query, with its distance from the query's origin.
+     */
+    public static final class Neighbour {
+        private final PropertyRecord record;
+        private final double distance;
+
+        Neighbour(PropertyRecord record, double distance) {
+            this.record = record;
+            this.distance = distance;
+        }
+
+        /**
+         * @return the parcel
+         */
+        public PropertyRecord getRecord() {
+            return record;
+        }
+
+        /**
+         * @return the distance, in map units, as measured by the query
+         */
+        public double getDistance() {
+            return distance;
+        }
+
+        @Override
+        public String toString() {
+            return "Neighbour{objectID=" + record.getObjectID() + ", distance=" + distance + "}";
+        }
+    }
+
+    private final List<PropertyRecord> records;
+    private final GeometryDerivedTable table;
+    private final DynamicRTree<Integer> index;
+
+    private NearestParcels(List<PropertyRecord> records, GeometryDerivedTable table, DynamicRTree<Integer> index) {
+        this.records = records;
+        this.table = table;
+        this.index = index;
+    }
+
+    /**
+     * Indexes {@code records}, deriving their centroids and envelopes first.
+     *
+     * @param records the parcels
+     * @return the queries over those parcels
+     */
+    public static NearestParcels build(List<PropertyRecord> records) {
+        return build(records, GeometryDerivedTable.build(records));
+    }
+
+    /**
+     * Indexes {@code records} with the centroids and envelopes of an existing table.
+     *
+     * @param records the parcels
+     * @param table   the table built from {@code records}
+     * @return the queries over those parcels
+     * @throws IllegalArgumentException if the table does not have one row per record
+     */
+    public static NearestParcels build(List<PropertyRecord> records, GeometryDerivedTable table) {
+        if (table.size() != records.size()) {
+            throw new IllegalArgumentException("Expected a table of " + records.size() + " rows, got "
+                    + table.size());
+        }
+        long start = System.nanoTime();
+        List<Envelope> envelopes = new ArrayList<>(records.size());
+        List<Integer> rows = new ArrayList<>(records.size());
+        for (int row = 0; row < records.size(); row++) {
+            if (table.hasGeometry(row) && !records.get(row).isQuarantined()) {
+                envelopes.add(table.getEnvelope(row));
+                rows.add(row);
+            }
+        }
+        DynamicRTree<Integer> index = new DynamicRTree<>();
+        index.insertAll(envelopes, rows);
+        logger.debug("Indexed {} of {} parcels for nearest-neighbour queries in {} ms", index.size(),
+                records.size(), (System.nanoTime() - start) / 1_000_000);
+        return new NearestParcels(new ArrayList<>(records), table, index);
+    }
+
+    /**
+     * @return the number of indexed parcels
+     */
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * Finds the {@code k} parcels nearest to a parcel, by geometry distance.
+     *
+     * @param objectId    the {@code objectID} of the query parcel (which is not part of the result)
+     * @param k           the largest number of parcels to return
+     * @param maxDistance parcels farther away are not returned
+     * @return the parcels found, nearest first; empty if the query parcel is unknown or has no geometry
+     * @throws IllegalArgumentException if {@code k} or {@code maxDistance} is negative
+     */
+    public List<Neighbour> nearest(int objectId, int k, double maxDistance) {
+        return nearest(objectId, k, maxDistance, Measure.GEOMETRY, null);
+    }
+
+    /**
+     * Finds the {@code k} parcels nearest to a parcel that pass a filter.
+     *
+     * @param objectId    the {@code objectID} of the query parcel (which is not part of the result)
+     * @param k           the largest number of parcels to return
+     * @param maxDistance parcels farther away are not returned ({@link Double#POSITIVE_INFINITY} for no limit)
+     * @param measure     how distances are measured
+     * @param filter      called with the query parcel and a candidate, keeps the candidates for which
+     *                    it returns {@code true}, e.g. {@link #DIFFERENT_OWNER}; {@code null} keeps all
+     * @return the parcels found, nearest first; empty if the query parcel is unknown or has no geometry
+     * @throws IllegalArgumentException if {@code k} or {@code maxDistance} is negative
+     */
+    public List<Neighbour> nearest(int objectId, int k, double maxDistance, Measure measure,
+                                   BiPredicate<? super PropertyRecord, ? super PropertyRecord> filter) {
+        checkArguments(k, maxDistance);
+        int subjectRow = table.indexOf(objectId);
+        if (subjectRow < 0 || !table.hasGeometry(subjectRow) || records.get(subjectRow).isQuarantined()) {
+            return new ArrayList<>();
+        }
+        PropertyRecord subject = records.get(subjectRow);
+        Predicate<PropertyRecord> keep = filter == null
+                ? candidate -> true
+                : candidate -> filter.test(subject, candidate);
+        if (measure == Measure.CENTROID) {
+            double x = table.getCentroidX(subjectRow);
+            double y = table.getCentroidY(subjectRow);
+            return search(new Envelope(x, x, y, y), row -> table.centroidDistance(row, x, y), subjectRow,
+                    k, maxDistance, keep);
+        }
+        Geometry geometry = GeometryCache.shared().get(subject);
+        if (geometry == null) {
+            return new ArrayList<>();
+        }
+        return search(table.getEnvelope(subjectRow), geometryDistance(geometry), subjectRow, k, maxDistance, keep);
+    }
+
+    /**
+     * Finds the {@code k} parcels nearest to a point, by geometry distance (0 for the parcels that
+     * contain it).
+     *
+     * @param point the point, in the coordinates of the dataset
+     * @param k     the largest number of parcels to return
+     * @return the parcels found, nearest first
+     * @throws IllegalArgumentException if {@code k} is negative
+     */
+    public List<Neighbour> nearest(Coordinate point, int k) {
+        return nearest(point, k, Double.POSITIVE_INFINITY, Measure.GEOMETRY, null);
+    }
+
+    /**
+     * Finds the {@code k} parcels nearest to a point that pass a filter.
+     *
+     * @param point       the point, in the coordinates of the dataset
+     * @param k           the largest number of parcels to return
+     * @param maxDistance parcels farther away are not returned ({@link Double#POSITIVE_INFINITY} for no limit)
+     * @param measure     how distances are measured
+     * @param filter      keeps the parcels for which it returns {@code true}; {@code null} keeps all
+     * @return the parcels found, nearest first
+     * @throws IllegalArgumentException if {@code k} or {@code maxDistance} is negative
+     */
+    public List<Neighbour> nearest(Coordinate point, int k, double maxDistance, Measure measure,
+                                   Predicate<? super PropertyRecord> filter) {
+        checkArguments(k, maxDistance);
+        Predicate<PropertyRecord> keep = filter == null ? candidate -> true : filter::test;
+        Envelope origin = new Envelope(point);
+        IntToDoubleFunction distance = measure == Measure.CENTROID
+                ? row -> table.centroidDistance(row, point.x, point.y)
+                : geometryDistance(FACTORY.createPoint(point));
+        return search(origin, distance, -1, k, maxDistance, keep);
+    }
+
+    private static void checkArguments(int k, double maxDistance) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k must not be negative, got " + k);
+        }
+        if (!(maxDistance >= 0)) {
+            throw new IllegalArgumentException("The maximum distance must not be negative, got " + maxDistance);
+        }
+    }
+
+    private IntToDoubleFunction geometryDistance(Geometry origin) {
+        return row -> {
+            Geometry geometry = GeometryCache.shared().get(records.get(row));
+            return geometry == null ? Double.POSITIVE_INFINITY : origin.distance(geometry);
+        };
+    }
+
+    /**
+     * Runs the best-first search. Parcels that are the query parcel or fail the filter get an
+     * infinite distance, so their geometry distance is never computed and they are never visited.
+     */
+    private List<Neighbour> search(Envelope origin, IntToDoubleFunction distance, int subjectRow, int k,
+                                   double maxDistance, Predicate<PropertyRecord> keep) {
+        List<Neighbour> result = new ArrayList<>(Math.min(k, 64));
+        if (k == 0) {
+            return result;
+        }
+        index.visitNearest(origin,
+                row -> row == subjectRow || !keep.test(records.get(row))
+                        ? Double.POSITIVE_INFINITY
+                        : distance.applyAsDouble(row),
+                maxDistance,
+                (row, rowDistance) -> {
+                    result.add(new Neighbour(records.get(row), rowDistance));
+                    return result.size() < k;
+                });
+        return result;
+    }
+}
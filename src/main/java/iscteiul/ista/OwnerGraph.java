@@ -75,6 +75,27 @@ public class OwnerGraph {
         }
     }
 
+    /**
+     * Builds the Owner graph like {@link #buildGraph(List)}, but finds the adjacent properties once
+     * with the given strategy and links their owners, instead of comparing the properties of every
+     * pair of owners.
+     *
+     * @param properties A list of all {@link PropertyRecord} objects.
+     * @param strategy   how to find the adjacent pairs, e.g. {@link AdjacencyStrategy#SHARED_BOUNDARY}
+     */
+    public void buildGraph(List<PropertyRecord> properties, AdjacencyStrategy strategy) {
+        for (PropertyRecord property : properties) {
+            graph.addVertex(property.getOwner());
+        }
+        for (int[] pair : strategy.adjacentPairs(properties)) {
+            int ownerA = properties.get(pair[0]).getOwner();
+            int ownerB = properties.get(pair[1]).getOwner();
+            if (ownerA != ownerB) {
+                graph.addEdge(ownerA, ownerB);
+            }
+        }
+    }
+
     /**
      * Simple helper method to check if any property in listA is adjacent to any property in listB.
      */
@@ -0,0 +1,306 @@
+package iscteiul.ista;
+
+import org.locationtech.jts.geom.CoordinateSequence;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LinearRing;
+import org.locationtech.jts.geom.MultiPolygon;
+import org.locationtech.jts.geom.Polygon;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the parsed polygons of many parcels in one off-heap buffer instead of as JTS objects.
+ * <p>
+ * A parsed JTS polygon holds one {@code Coordinate} object (about 40 bytes, plus a reference) per
+ * vertex, all of which the garbage collector has to trace. This store copies the {@code x, y}
+ * values of every ring into a single direct {@link DoubleBuffer} (16 bytes per vertex, outside the
+ * Java heap) and keeps only a few {@code int} offsets per parcel, ring and polygon on the heap:
+ * <ul>
+ *   <li>{@code polygonStart[p] .. polygonStart[p + 1]} are the polygons of parcel {@code p};</li>
+ *   <li>{@code ringStart[q] .. ringStart[q + 1]} are the rings of polygon {@code q}, shell first;</li>
+ *   <li>{@code coordinateStart[r] .. coordinateStart[r + 1]} are the coordinates of ring {@code r}.</li>
+ * </ul>
+ * {@link #getGeometry(int)} returns an ordinary JTS {@link Polygon} or {@link MultiPolygon} whose
+ * rings are {@link BufferCoordinateSequence} views of the buffer, so JTS predicates,
+ * {@code getCentroid()}, {@code getArea()} and the like work unchanged. The few objects of such a
+ * view are created per call and are short-lived. Their coordinates are read-only: anything that
+ * writes a coordinate of a view, such as {@code setOrdinate}, {@code apply(CoordinateSequenceFilter)}
+ * or {@code normalize()} on a ring, throws {@link UnsupportedOperationException}, so call
+ * {@link Geometry#copy()} first. Overlays, and {@code normalize()} on a polygon (which replaces
+ * the rings of that view object with normalized copies), leave the buffer untouched.
+ * <p>
+ * {@link GeometryDerivedTable#build(PackedCoordinateStore)} computes its values from the views, so
+ * a table can be built for a whole dataset without its parsed geometries on the heap.
+ * <p>
+ * Only x and y are kept. Records with a missing or invalid geometry have none; the rare
+ * non-polygonal geometries are kept as ordinary heap geometries. The store is immutable once built
+ * and safe to read from several threads.
+ */
+public final class PackedCoordinateStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(PackedCoordinateStore.class);
+
+    /** Factory for the geometry views; also used by JTS for the results of operations on them. */
+    private static final GeometryFactory FACTORY = new GeometryFactory();
+
+    /** A direct buffer holds at most {@code Integer.MAX_VALUE} bytes. */
+    private static final long MAX_DOUBLES = Integer.MAX_VALUE / Double.BYTES;
+
+    private static final byte MISSING = 0;
+    private static final byte POLYGON = 1;
+    private static final byte MULTI_POLYGON = 2;
+    private static final byte OTHER = 3;
+
+    private final int[] objectIds;
+    private final byte[] kinds;
+    private final int[] polygonStart;
+    private final int[] ringStart;
+    private final int[] coordinateStart;
+    private final DoubleBuffer coordinates;
+    private final Map<Integer, Geometry> otherGeometries;
+    private final Map<Integer, Integer> indexById;
+
+    private PackedCoordinateStore(Builder builder) {
+        this.objectIds = Arrays.copyOf(builder.objectIds, builder.parcels);
+        this.kinds = Arrays.copyOf(builder.kinds, builder.parcels);
+        this.polygonStart = Arrays.copyOf(builder.polygonStart, builder.parcels + 1);
+        this.ringStart = Arrays.copyOf(builder.ringStart, builder.polygons + 1);
+        this.coordinateStart = Arrays.copyOf(builder.coordinateStart, builder.rings + 1);
+        this.coordinates = builder.coordinates.flip().asReadOnlyBuffer();
+        this.otherGeometries = builder.otherGeometries;
+        this.indexById = new HashMap<>(objectIds.length * 2);
+        for (int i = 0; i < objectIds.length; i++) {
+            indexById.putIfAbsent(objectIds[i], i);
+        }
+    }
+
+    /**
+     * Parses the geometries of {@code records} one at a time and packs them, so at most one parsed
+     * JTS geometry is on the heap at any time. The coordinates are first counted from the WKT text,
+     * so the off-heap buffer is allocated once at its final size instead of being grown by copying.
+     *
+     * @param records the parcels, in the order of the store's indices
+     * @return the store
+     */
+    public static PackedCoordinateStore of(List<PropertyRecord> records) {
+        long coordinateCount = 0;
+        for (PropertyRecord record : records) {
+            coordinateCount += countPolygonCoordinates(record.getGeometry());
+        }
+        Builder builder = new Builder(records.size(), coordinateCount);
+        for (PropertyRecord record : records) {
+            builder.add(record.getObjectID(), record.getParsedGeometry());
+        }
+        PackedCoordinateStore store = new PackedCoordinateStore(builder);
+        logger.info("Packed {} parcels ({} coordinates, {} bytes off-heap)",
+                store.size(), store.getCoordinateCount(), store.getOffHeapBytes());
+        return store;
+    }
+
+    /**
+     * @return the number of parcels
+     */
+    public int size() {
+        return objectIds.length;
+    }
+
+    /**
+     * @param index the parcel index
+     * @return the {@code objectID} of the parcel
+     */
+    public int getObjectID(int index) {
+        return objectIds[index];
+    }
+
+    /**
+     * @param objectID a parcel's {@code objectID}
+     * @return the index of the first parcel with that ID, or -1 if there is none
+     */
+    public int indexOf(int objectID) {
+        Integer index = indexById.get(objectID);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * Counts the coordinates of a polygonal WKT without parsing it: every coordinate starts right
+     * after an opening parenthesis or a comma. Other geometry types are not packed and count as 0.
+     *
+     * @param wkt the WKT text, may be {@code null}
+     * @return the number of coordinates of a {@code POLYGON} or {@code MULTIPOLYGON}, otherwise 0
+     */
+    static long countPolygonCoordinates(String wkt) {
+        if (wkt == null) {
+            return 0;
+        }
+        int start = 0;
+        while (start < wkt.length() && Character.isWhitespace(wkt.charAt(start))) {
+            start++;
+        }
+        if (!wkt.regionMatches(true, start, "POLYGON", 0, 7)
+                && !wkt.regionMatches(true, start, "MULTIPOLYGON", 0, 12)) {
+            return 0;
+        }
+        long count = 0;
+        char previous = ' ';
+        for (int i = start; i < wkt.length(); i++) {
+            char c = wkt.charAt(i);
+            if (Character.isWhitespace(c)) {
+                continue;
+            }
+            if ((previous == '(' || previous == ',') && c != '(' && c != ')') {
+                count++;
+            }
+            previous = c;
+        }
+        return count;
+    }
+
+    /**
+     * @return the number of coordinates stored off-heap
+     */
+    public long getCoordinateCount() {
+        return coordinates.limit() / 2;
+    }
+
+    /**
+     * @return the size of the off-heap coordinate buffer in bytes; larger than 16 bytes per
+     *         coordinate only if some polygonal WKT could not be parsed, since its coordinates were
+     *         counted but not stored
+     */
+    public long getOffHeapBytes() {
+        return (long) coordinates.capacity() * Double.BYTES;
+    }
+
+    /**
+     * Returns a JTS view of one parcel's geometry, backed by the off-heap buffer.
+     *
+     * @param index the parcel index
+     * @return a read-only {@link Polygon} or {@link MultiPolygon} (or the heap geometry of a
+     *         non-polygonal parcel), or {@code null} if the parcel has no valid geometry
+     */
+    public Geometry getGeometry(int index) {
+        switch (kinds[index]) {
+            case POLYGON:
+                return polygonStart[index] == polygonStart[index + 1]
+                        ? FACTORY.createPolygon()
+                        : polygon(polygonStart[index]);
+            case MULTI_POLYGON:
+                Polygon[] polygons = new Polygon[polygonStart[index + 1] - polygonStart[index]];
+                for (int i = 0; i < polygons.length; i++) {
+                    polygons[i] = polygon(polygonStart[index] + i);
+                }
+                return FACTORY.createMultiPolygon(polygons);
+            case OTHER:
+                return otherGeometries.get(index);
+            default:
+                return null;
+        }
+    }
+
+    private Polygon polygon(int polygon) {
+        int firstRing = ringStart[polygon];
+        LinearRing[] holes = new LinearRing[ringStart[polygon + 1] - firstRing - 1];
+        for (int h = 0; h < holes.length; h++) {
+            holes[h] = ring(firstRing + 1 + h);
+        }
+        return FACTORY.createPolygon(ring(firstRing), holes);
+    }
+
+    private LinearRing ring(int ring) {
+        int first = coordinateStart[ring];
+        CoordinateSequence sequence = new BufferCoordinateSequence(coordinates, 2 * first,
+                coordinateStart[ring + 1] - first);
+        return FACTORY.createLinearRing(sequence);
+    }
+
+    /**
+     * Accumulates the packed arrays. The coordinate buffer is allocated once, with the capacity
+     * counted by {@link #countPolygonCoordinates(String)}; the small heap arrays double as needed.
+     */
+    private static final class Builder {
+        int parcels;
+        int polygons;
+        int rings;
+        int[] objectIds;
+        byte[] kinds;
+        int[] polygonStart;
+        int[] ringStart = new int[64];
+        int[] coordinateStart = new int[64];
+        final DoubleBuffer coordinates;
+        final Map<Integer, Geometry> otherGeometries = new HashMap<>();
+
+        Builder(int expectedParcels, long coordinateCount) {
+            if (coordinateCount > MAX_DOUBLES / 2) {
+                throw new IllegalStateException("Too many coordinates for one packed store: " + coordinateCount
+                        + "; split the parcels (e.g. by island) over several stores");
+            }
+            coordinates = ByteBuffer.allocateDirect((int) (coordinateCount * 2 * Double.BYTES))
+                    .order(ByteOrder.nativeOrder()).asDoubleBuffer();
+            objectIds = new int[Math.max(1, expectedParcels)];
+            kinds = new byte[objectIds.length];
+            polygonStart = new int[objectIds.length + 1];
+        }
+
+        void add(int objectID, Geometry geometry) {
+            if (parcels == objectIds.length) {
+                objectIds = Arrays.copyOf(objectIds, parcels * 2);
+                kinds = Arrays.copyOf(kinds, parcels * 2);
+                polygonStart = Arrays.copyOf(polygonStart, parcels * 2 + 1);
+            }
+            objectIds[parcels] = objectID;
+            if (geometry instanceof Polygon) {
+                kinds[parcels] = POLYGON;
+                if (!geometry.isEmpty()) {
+                    addPolygon((Polygon) geometry);
+                }
+            } else if (geometry instanceof MultiPolygon) {
+                kinds[parcels] = MULTI_POLYGON;
+                for (int i = 0; i < geometry.getNumGeometries(); i++) {
+                    addPolygon((Polygon) geometry.getGeometryN(i));
+                }
+            } else if (geometry != null) {
+                kinds[parcels] = OTHER;
+                otherGeometries.put(parcels, geometry);
+            } else {
+                kinds[parcels] = MISSING;
+            }
+            parcels++;
+            polygonStart[parcels] = polygons;
+        }
+
+        private void addPolygon(Polygon polygon) {
+            if (polygons + 2 > ringStart.length) {
+                ringStart = Arrays.copyOf(ringStart, ringStart.length * 2);
+            }
+            addRing(polygon.getExteriorRing().getCoordinateSequence());
+            for (int h = 0; h < polygon.getNumInteriorRing(); h++) {
+                addRing(polygon.getInteriorRingN(h).getCoordinateSequence());
+            }
+            polygons++;
+            ringStart[polygons] = rings;
+        }
+
+        private void addRing(CoordinateSequence ring) {
+            if (rings + 2 > coordinateStart.length) {
+                coordinateStart = Arrays.copyOf(coordinateStart, coordinateStart.length * 2);
+            }
+            if (coordinates.remaining() < 2 * ring.size()) {
+                throw new IllegalStateException("More coordinates than counted in the WKT");
+            }
+            for (int i = 0; i < ring.size(); i++) {
+                coordinates.put(ring.getX(i)).put(ring.getY(i));
+            }
+            rings++;
+            coordinateStart[rings] = coordinates.position() / 2;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package iscteiul.ista;
+
+import org.locationtech.jts.geom.Envelope;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Finds the touching pairs of a set of parcels with a sort-and-sweep spatial self-join on their
+ * envelopes (see {@link AdjacencyStrategy#PLANE_SWEEP}), so only pairs whose envelopes meet are
+ * tested with {@link GeometryUtils#areAdjacent(PropertyRecord, PropertyRecord)}.
+ * <p>
+ * The envelopes (read from the WKT text by {@link PropertyRecord#envelope()}, without parsing) are
+ * sorted by {@code minX} and split into vertical strips holding about the same number of parcels.
+ * Each strip is swept in parallel: parcels enter an active set in {@code minX} order and leave it
+ * once the sweep line has passed their {@code maxX}, and each entering parcel is paired with the
+ * active parcels whose y-range meets its own. A parcel that spans several strips is swept in each
+ * of them; a pair is only reported by the strip that contains the left edge of the intersection of
+ * the two envelopes (the larger {@code minX}), so no pair is reported twice.
+ * <p>
+ * Unlike {@link SharedBoundaryAdjacency} this makes no assumption on the data: the result is
+ * exactly the pairwise {@code touches} result. Records without a valid geometry (or quarantined by
+ * {@link GeometryQuarantine}) are never adjacent.
+ */
+final class PlaneSweepAdjacency {
+
+    /** Aim for strips of at least this many parcels, so small inputs are not split needlessly. */
+    private static final int MIN_STRIP_SIZE = 256;
+
+    /**
+     * Private constructor to prevent instantiation of this utility class.
+     *
+     * @throws AssertionError always, because this constructor should never be called.
+     */
+    private PlaneSweepAdjacency() {
+        throw new AssertionError("Utility class - do not instantiate.");
+    }
+
+    /**
+     * Finds all touching pairs among {@code records}, with a number of strips suited to the input
+     * size and the available processors.
+     *
+     * @param records the parcels
+     * @return the pairs as {@code {i, j}} indices into {@code records} with {@code i < j}, sorted
+     */
+    static List<int[]> adjacentPairs(List<PropertyRecord> records) {
+        int strips = Math.min(ForkJoinPool.getCommonPoolParallelism() * 4, records.size() / MIN_STRIP_SIZE);
+        return adjacentPairs(records, Math.max(1, strips));
+    }
+
+    /**
+     * Same as {@link #adjacentPairs(List)}, with a given number of strips.
+     */
+    static List<int[]> adjacentPairs(List<PropertyRecord> records, int strips) {
+        int n = records.size();
+        double[] minX = new double[n];
+        double[] minY = new double[n];
+        double[] maxX = new double[n];
+        double[] maxY = new double[n];
+        int[] present = new int[n];
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            PropertyRecord record = records.get(i);
+            Envelope envelope = record == null || record.isQuarantined() ? null : record.envelope();
+            if (envelope == null) {
+                continue;
+            }
+            minX[i] = envelope.getMinX();
+            minY[i] = envelope.getMinY();
+            maxX[i] = envelope.getMaxX();
+            maxY[i] = envelope.getMaxY();
+            present[count++] = i;
+        }
+        if (count < 2) {
+            return new ArrayList<>();
+        }
+
+        int[] sorted = IntStream.of(Arrays.copyOf(present, count)).boxed()
+                .sorted(Comparator.comparingDouble(i -> minX[i]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+
+        // Strip s covers x >= bounds[s] (and < bounds[s + 1]); the first strip is unbounded on the left.
+        int stripCount = Math.max(1, Math.min(strips, count));
+        double[] bounds = new double[stripCount];
+        for (int s = 1; s < stripCount; s++) {
+            bounds[s] = minX[sorted[(int) ((long) s * count / stripCount)]];
+        }
+        bounds[0] = Double.NEGATIVE_INFINITY;
+
+        // Members of each strip, in minX order (the order in which they are added).
+        int[][] members = new int[stripCount][];
+        int[] sizes = new int[stripCount];
+        for (int s = 0; s < stripCount; s++) {
+            members[s] = new int[Math.max(4, 2 * count / stripCount)];
+        }
+        for (int i : sorted) {
+            for (int s = strip(bounds, minX[i]), last = strip(bounds, maxX[i]); s <= last; s++) {
+                if (sizes[s] == members[s].length) {
+                    members[s] = Arrays.copyOf(members[s], sizes[s] * 2);
+                }
+                members[s][sizes[s]++] = i;
+            }
+        }
+
+        long[][] found = new long[stripCount][];
+        IntStream.range(0, stripCount).parallel().forEach(s -> found[s] = sweep(records, s, bounds,
+                members[s], sizes[s], minX, minY, maxX, maxY));
+
+        long[] pairs = Arrays.stream(found).flatMapToLong(Arrays::stream).sorted().toArray();
+        List<int[]> result = new ArrayList<>(pairs.length);
+        for (long pair : pairs) {
+            result.add(new int[]{(int) (pair >>> 32), (int) pair});
+        }
+        return result;
+    }
+
+    /**
+     * Sweeps one strip and tests its candidate pairs.
+     *
+     * @return the touching pairs owned by this strip, as {@code i << 32 | j} with {@code i < j}
+     */
+    private static long[] sweep(List<PropertyRecord> records, int strip, double[] bounds, int[] members, int size,
+                                double[] minX, double[] minY, double[] maxX, double[] maxY) {
+        int[] active = new int[16];
+        int activeCount = 0;
+        long[] pairs = new long[16];
+        int pairCount = 0;
+        for (int m = 0; m < size; m++) {
+            int entering = members[m];
+            int kept = 0;
+            for (int k = 0; k < activeCount; k++) {
+                int other = active[k];
+                if (maxX[other] < minX[entering]) {
+                    continue;  // the sweep line has passed it
+                }
+                active[kept++] = other;
+                if (maxY[other] < minY[entering] || maxY[entering] < minY[other]
+                        || strip(bounds, Math.max(minX[other], minX[entering])) != strip) {
+                    continue;
+                }
+                if (GeometryUtils.areAdjacent(records.get(other), records.get(entering))) {
+                    if (pairCount == pairs.length) {
+                        pairs = Arrays.copyOf(pairs, pairCount * 2);
+                    }
+                    pairs[pairCount++] = (long) Math.min(other, entering) << 32 | Math.max(other, entering);
+                }
+            }
+            activeCount = kept;
+            if (activeCount == active.length) {
+                active = Arrays.copyOf(active, activeCount * 2);
+            }
+            active[activeCount++] = entering;
+        }
+        return Arrays.copyOf(pairs, pairCount);
+    }
+
+    /**
+     * @return the index of the strip containing {@code x}: the last {@code s} with {@code bounds[s] <= x}
+     */
+    private static int strip(double[] bounds, double x) {
+        int low = 1;
+        int high = bounds.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (bounds[mid] <= x) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low - 1;
+    }
+}
@@ -3,9 +3,12 @@ package iscteiul.ista;
 import org.jgrapht.Graph;
 import org.jgrapht.graph.DefaultEdge;
 import org.jgrapht.graph.SimpleGraph;
-import org.locationtech.jts.index.strtree.STRtree;
+import org.locationtech.jts.geom.Envelope;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -15,7 +18,10 @@ import java.util.concurrent.ConcurrentHashMap;
  * <p>It uses:
  * <ul>
  *   <li>A JGraphT {@link Graph} to store vertices (properties) and edges (adjacency)</li>
- *   <li>An R-tree ({@link STRtree}) for efficient spatial queries on property geometry</li>
+ *   <li>An R-tree ({@link DynamicRTree}) for efficient spatial queries on property geometry; it
+ *       accepts new, edited and removed properties after the graph is built
+ *       ({@link #addProperty(PropertyRecord)}, {@link #updateProperty(PropertyRecord, PropertyRecord)},
+ *       {@link #removeProperty(PropertyRecord)}), without being rebuilt</li>
  * </ul>
  *
  * <p><strong>Usage Example:</strong></p>
@@ -47,22 +53,22 @@ public class PropertyGraph {
      * Spatial index (R-tree) for quick lookups of nearby properties.
      * Used to reduce the computational cost of finding candidate neighbors.
      */
-    private final STRtree spatialIndex;
+    private SpatialIndex<PropertyRecord> spatialIndex;
 
     /**
      * Constructs an empty {@code PropertyGraph} with a {@link SimpleGraph}
-     * and an {@link STRtree} for spatial indexing.
+     * and a {@link DynamicRTree} for spatial indexing.
      */
     public PropertyGraph() {
         this.graph = new SimpleGraph<>(DefaultEdge.class);
-        this.spatialIndex = new STRtree(); // R-tree for spatial indexing
+        this.spatialIndex = new DynamicRTree<>(); // R-tree for spatial indexing
     }
 
     /**
      * Builds the adjacency graph from a list of {@link PropertyRecord} objects.
      * <ul>
      *   <li><strong>Step 1:</strong> Each property is added to the graph as a vertex,
-     *       and also inserted into the {@link STRtree} for spatial queries.</li>
+     *       and also inserted into the spatial index (packed in one go if it is empty).</li>
      *   <li><strong>Step 2:</strong> For each property, neighbors are retrieved from
      *       the spatial index, and {@code PropertyUtils.arePropertiesAdjacent(...)}
      *       is used to verify adjacency before creating edges.</li>
@@ -81,24 +87,29 @@ public class PropertyGraph {
         ConcurrentHashMap<Integer, PropertyRecord> propertyMap = new ConcurrentHashMap<>();
 
         // Step 1: Add all vertices to the graph and spatial index.
+        List<Envelope> envelopes = new ArrayList<>(properties.size());
         properties.forEach(property -> {
             synchronized (this) {
                 graph.addVertex(property);
-                spatialIndex.insert(GeometryUtils.getEnvelope(property.getGeometry()), property);
+                envelopes.add(GeometryUtils.getEnvelope(property));
                 propertyMap.put(property.getObjectID(), property);
             }
         });
+        synchronized (this) {
+            spatialIndex.insertAll(envelopes, properties);
+        }
 
         // Step 2: Identify and add edges for adjacent properties.
         properties.forEach(property -> {
             // Query potential neighbors from the spatial index using property envelope
-            List<?> neighbors = spatialIndex.query(GeometryUtils.getEnvelope(property.getGeometry()));
+            List<PropertyRecord> neighbors;
+            synchronized (this) {
+                neighbors = spatialIndex.query(GeometryUtils.getEnvelope(property));
+            }
 
-            // Check adjacency and add edges.
-            neighbors.forEach(obj -> {
-                PropertyRecord neighbor = (PropertyRecord) obj;
-                if (!property.equals(neighbor)
-                        && PropertyUtils.arePropertiesAdjacent(property, neighbor)) {
+            // Check adjacency (with the property prepared once) and add edges.
+            GeometryUtils.touchingAmong(property, neighbors).forEach(neighbor -> {
+                if (!property.equals(neighbor)) {
                     synchronized (this) {
                         // Ensure vertices still exist in the graph
                         if (graph.containsVertex(property) && graph.containsVertex(neighbor)) {
@@ -118,6 +129,177 @@ public class PropertyGraph {
                 + graph.edgeSet().size() + " edges.");
     }
 
+    /**
+     * Builds the adjacency graph from a list of {@link PropertyRecord} objects, finding the adjacent
+     * pairs with the given strategy instead of querying the spatial index for each property. The
+     * properties are still inserted into the spatial index, for {@link #applyDelta(DatasetDelta)}.
+     *
+     * @param properties the properties to add as vertices
+     * @param strategy   how to find the adjacent pairs, e.g. {@link AdjacencyStrategy#PLANE_SWEEP}
+     */
+    public synchronized void buildGraph(List<PropertyRecord> properties, AdjacencyStrategy strategy) {
+        List<Envelope> envelopes = new ArrayList<>(properties.size());
+        for (PropertyRecord property : properties) {
+            graph.addVertex(property);
+            envelopes.add(GeometryUtils.getEnvelope(property));
+        }
+        spatialIndex.insertAll(envelopes, properties);
+        for (int[] pair : strategy.adjacentPairs(properties)) {
+            PropertyRecord a = properties.get(pair[0]);
+            PropertyRecord b = properties.get(pair[1]);
+            if (a != b) {
+                graph.addEdge(a, b);
+            }
+        }
+
+        System.out.println("Graph built with " + graph.vertexSet().size() + " vertices and "
+                + graph.edgeSet().size() + " edges.");
+    }
+
+    /**
+     * Builds the adjacency graph from the output of an {@link IngestPipeline}.
+     * <p>
+     * Works like {@link #buildGraph(List)}, but reuses the envelopes already computed by the pipeline
+     * instead of parsing every WKT again to get its envelope. If this graph's spatial index is still
+     * empty, it takes over the R-tree the pipeline already built
+     * ({@link IngestPipeline.Result#getSpatialIndex()}), unless another graph took it first;
+     * otherwise the envelopes are added to its own index. Records without a valid geometry become
+     * isolated vertices, as they can never be adjacent.
+     *
+     * @param ingest the result of {@link IngestPipeline#run(java.nio.file.Path)}
+     */
+    public void buildGraph(IngestPipeline.Result ingest) {
+        List<PropertyRecord> properties = ingest.getRecords();
+
+        // Step 1: Add all vertices, and index them by the envelopes the pipeline computed.
+        List<Envelope> envelopes = new ArrayList<>(properties.size());
+        for (int i = 0; i < properties.size(); i++) {
+            envelopes.add(ingest.getEnvelope(i));
+        }
+        synchronized (this) {
+            properties.forEach(graph::addVertex);
+            SpatialIndex<PropertyRecord> built = spatialIndex.size() == 0 ? ingest.takeSpatialIndex() : null;
+            if (built != null) {
+                spatialIndex = built;
+            } else {
+                spatialIndex.insertAll(envelopes, properties);
+            }
+        }
+
+        // Step 2: Identify and add edges for adjacent properties.
+        for (int i = 0; i < properties.size(); i++) {
+            PropertyRecord property = properties.get(i);
+            Envelope envelope = ingest.getEnvelope(i);
+            if (envelope == null) {
+                continue;
+            }
+            List<PropertyRecord> neighbors;
+            synchronized (this) {
+                neighbors = spatialIndex.query(envelope);
+            }
+            for (PropertyRecord neighbor : GeometryUtils.touchingAmong(property, neighbors)) {
+                if (!property.equals(neighbor)) {
+                    synchronized (this) {
+                        graph.addEdge(property, neighbor);
+                    }
+                }
+            }
+        }
+
+        System.out.println("Graph built with " + graph.vertexSet().size() + " vertices and "
+                + graph.edgeSet().size() + " edges.");
+    }
+
+    /**
+     * Applies a {@link DatasetDelta} to this graph in place, instead of building a new graph from
+     * the whole updated dataset.
+     * <p>
+     * The vertices of removed and changed properties are removed (with their edges) from the graph
+     * and the spatial index. The changed and added properties are then added as vertices and
+     * connected to the adjacent properties found through the spatial index, so only the
+     * neighborhoods of the delta are recomputed.
+     *
+     * @param delta the delta between the dataset this graph was built from and its new version
+     */
+    public synchronized void applyDelta(DatasetDelta delta) {
+        Map<Integer, PropertyRecord> verticesById = new HashMap<>();
+        for (PropertyRecord vertex : graph.vertexSet()) {
+            verticesById.put(vertex.getObjectID(), vertex);
+        }
+        List<PropertyRecord> outdated = new ArrayList<>(delta.getRemoved());
+        outdated.addAll(delta.getPrevious());
+        for (PropertyRecord record : outdated) {
+            PropertyRecord vertex = verticesById.remove(record.getObjectID());
+            if (vertex != null) {
+                removeProperty(vertex);
+            }
+        }
+
+        for (List<PropertyRecord> records : List.of(delta.getChanged(), delta.getAdded())) {
+            records.forEach(this::addProperty);
+        }
+    }
+
+    /**
+     * Adds one property to the graph after it was built: it is inserted into the spatial index and
+     * connected to the adjacent properties found through it.
+     *
+     * @param property the new property
+     */
+    public synchronized void addProperty(PropertyRecord property) {
+        graph.addVertex(property);
+        Envelope envelope = envelopeOf(property);
+        if (envelope == null) {
+            return;
+        }
+        List<PropertyRecord> candidates = spatialIndex.query(envelope);
+        spatialIndex.insert(envelope, property);
+        for (PropertyRecord neighbor : GeometryUtils.touchingAmong(property, candidates)) {
+            if (graph.containsVertex(neighbor) && !property.equals(neighbor)) {
+                graph.addEdge(property, neighbor);
+            }
+        }
+    }
+
+    /**
+     * Removes one property (with its edges) from the graph and the spatial index.
+     *
+     * @param property the vertex to remove
+     * @return {@code true} if it was a vertex of the graph
+     */
+    public synchronized boolean removeProperty(PropertyRecord property) {
+        if (!graph.removeVertex(property)) {
+            return false;
+        }
+        Envelope envelope = envelopeOf(property);
+        if (envelope != null) {
+            spatialIndex.remove(envelope, property);
+        }
+        return true;
+    }
+
+    /**
+     * Replaces a property by its edited version: the old vertex is removed with its edges, and the
+     * new one is indexed and connected to its neighbors. Only the neighborhood of the property is
+     * recomputed.
+     *
+     * @param previous the vertex to replace
+     * @param updated  its new version
+     */
+    public synchronized void updateProperty(PropertyRecord previous, PropertyRecord updated) {
+        removeProperty(previous);
+        addProperty(updated);
+    }
+
+    /**
+     * @return the envelope of a property's geometry (as indexed), or {@code null} if it is missing
+     *         or invalid
+     */
+    private static Envelope envelopeOf(PropertyRecord property) {
+        Envelope envelope = GeometryUtils.getEnvelope(property);
+        return envelope.isNull() ? null : envelope;
+    }
+
     /**
      * Returns the underlying JGraphT graph containing property vertices and adjacency edges.
      *
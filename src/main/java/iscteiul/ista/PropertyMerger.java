@@ -59,7 +59,7 @@ public final class PropertyMerger {
                 PropertyRecord b = properties.get(j);
                 if (a.getOwner() == b.getOwner()) {
                     // If they have the same owner, check adjacency
-                    if (GeometryUtils.areAdjacent(a.getGeometry(), b.getGeometry())) {
+                    if (GeometryUtils.areAdjacent(a, b)) {
                         graph.addEdge(a, b);
                     }
                 }
@@ -1,15 +1,37 @@
 package iscteiul.ista;
 
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+
 /**
- * Represents an immutable record of a property, including its geometry, area, ownership,
+ * Represents a record of a property, including its geometry, area, ownership,
  * and location details (parish, municipality, island).
  * <p>
- * This class is typically instantiated from parsed CSV data. All fields are declared
- * {@code final}, ensuring that once a {@code PropertyRecord} is created, its values
- * cannot be changed.
+ * This class is typically instantiated from parsed CSV data. Its data fields are declared
+ * {@code final}, so once a {@code PropertyRecord} is created the values returned by its
+ * getters cannot change. The record does lazily cache the bounding box of its geometry
+ * (see {@link #envelope()}), computed from the WKT on first use; the cache is {@code volatile}
+ * and always holds the same value, so records can still be shared between threads.
+ * <p>
+ * A record also carries a one-way quarantine flag (see {@link #isQuarantined()}):
+ * {@link GeometryQuarantine#validate(java.util.List)} sets it on the records whose geometry is
+ * missing or unparseable, and nothing ever clears it. The flag belongs to the record instance, so
+ * validating a list marks the caller's own records, including in any other list that shares them.
+ * <p>
+ * Records read by the memory-mapped readers of {@link CSVFileReader} (with
+ * {@link CSVFileReader#setLazyGeometryEnabled(boolean) lazy geometry} enabled) do not hold their
+ * WKT String: it is decoded from the mapped file the first time {@link #getGeometry()} or
+ * {@link #getParsedGeometry()} is called, and kept only as long as memory allows.
  */
 public class PropertyRecord {
 
+    /**
+     * Dictionary shared by every record for the parish, municipality and island columns. The
+     * dataset only has a few dozen distinct names, so each record stores small {@code int} codes
+     * and all records share one String instance per name.
+     */
+    private static final StringDictionary REGIONS = new StringDictionary();
+
     /** Unique ID of the property record. */
     private final int objectID;
 
@@ -25,23 +47,35 @@ public class PropertyRecord {
     /** The area of the property. */
     private final double shapeArea;
 
-    /** A geometry string (e.g., WKT) representing the property's shape. */
+    /** A geometry string (e.g., WKT) representing the property's shape; {@code null} if lazy. */
     private final String geometry;
 
+    /** Source of the geometry when it is decoded on demand, otherwise {@code null}. */
+    private final LazyGeometry lazyGeometry;
+
     /** An integer representing the owner code or ID. */
     private final int owner;
 
-    /** The parish (freguesia) name, or {@code null} if "NA" in the CSV. */
-    private final String parish;
+    /** {@link #REGIONS} code of the parish (freguesia) name; {@link StringDictionary#NULL_CODE} if "NA". */
+    private final int parishCode;
+
+    /** {@link #REGIONS} code of the municipality name; {@link StringDictionary#NULL_CODE} if "NA". */
+    private final int municipalityCode;
 
-    /** The municipality name, or {@code null} if "NA" in the CSV. */
-    private final String municipality;
+    /** {@link #REGIONS} code of the island name; {@link StringDictionary#NULL_CODE} if "NA". */
+    private final int islandCode;
 
-    /** The island name, or {@code null} if "NA" in the CSV. */
-    private final String island;
+    /** Marks {@link #envelope} as computed for a record whose WKT yields no envelope. */
+    private static final Envelope NO_ENVELOPE = new Envelope();
+
+    /** Bounding box of the geometry, computed on first use by {@link #envelope()}. */
+    private volatile Envelope envelope;
+
+    /** Set by {@link GeometryQuarantine#validate(java.util.List)} if the geometry is missing or unparseable. */
+    private volatile boolean quarantined;
 
     /**
-     * Constructs an immutable {@code PropertyRecord} with all required fields.
+     * Constructs a {@code PropertyRecord} with all required fields.
      *
      * @param objectID      the unique object identifier (column 0)
      * @param parcelID      the primary parcel ID, possibly parsed from scientific notation (column 1)
@@ -56,16 +90,43 @@ public class PropertyRecord {
      */
     public PropertyRecord(int objectID, long parcelID, long parcelNumber, double shapeLength, double shapeArea,
                           String geometry, int owner, String parish, String municipality, String island) {
+        this(objectID, parcelID, parcelNumber, shapeLength, shapeArea, geometry, null,
+                owner, parish, municipality, island);
+    }
+
+    /**
+     * Creates a record whose geometry is decoded on demand from {@code lazyGeometry}; the other
+     * arguments are those of the public constructor.
+     */
+    static PropertyRecord withLazyGeometry(int objectID, long parcelID, long parcelNumber, double shapeLength,
+                                           double shapeArea, LazyGeometry lazyGeometry, int owner,
+                                           String parish, String municipality, String island) {
+        return new PropertyRecord(objectID, parcelID, parcelNumber, shapeLength, shapeArea, null, lazyGeometry,
+                owner, parish, municipality, island);
+    }
+
+    private PropertyRecord(int objectID, long parcelID, long parcelNumber, double shapeLength, double shapeArea,
+                           String geometry, LazyGeometry lazyGeometry, int owner,
+                           String parish, String municipality, String island) {
         this.objectID = objectID;
         this.parcelID = parcelID;
         this.parcelNumber = parcelNumber;
         this.shapeLength = shapeLength;
         this.shapeArea = shapeArea;
         this.geometry = geometry;
+        this.lazyGeometry = lazyGeometry;
         this.owner = owner;
-        this.parish = parish;
-        this.municipality = municipality;
-        this.island = island;
+        this.parishCode = REGIONS.intern(parish);
+        this.municipalityCode = REGIONS.intern(municipality);
+        this.islandCode = REGIONS.intern(island);
+    }
+
+    /**
+     * Constructor for subclasses that supply every value through overridden getters, such as the
+     * flyweight row views of {@link PropertyTable}. All fields are left at their default values.
+     */
+    protected PropertyRecord() {
+        this(0, 0L, 0L, 0.0, 0.0, null, null, 0, null, null, null);
     }
 
     /**
@@ -119,7 +180,68 @@ public class PropertyRecord {
      * @return the geometry string
      */
     public String getGeometry() {
-        return geometry;
+        return lazyGeometry != null ? lazyGeometry.wkt() : geometry;
+    }
+
+    /**
+     * Returns the geometry parsed into a JTS {@link Geometry}. For records with lazy geometry the
+     * parsed form is cached (softly) on the record; otherwise the WKT is parsed on every call.
+     * <p>
+     * The returned geometry may be shared and must not be modified.
+     *
+     * @return the parsed geometry, or {@code null} if the WKT is missing, blank or invalid
+     */
+    public Geometry getParsedGeometry() {
+        return lazyGeometry != null ? lazyGeometry.parsed() : LazyGeometry.parse(getGeometry());
+    }
+
+    /**
+     * Returns the bounding box of the geometry. It is read from the WKT text the first time it is
+     * needed (see {@link GeometryUtils#scanEnvelope(String)}, which does not build a JTS geometry)
+     * and then kept on the record, so the pairwise predicates of {@link GeometryUtils} can rule out
+     * distant parcels without parsing or relating them.
+     * <p>
+     * The returned envelope is shared and must not be modified.
+     *
+     * @return the envelope, or {@code null} if the WKT is missing or not well-formed
+     */
+    Envelope envelope() {
+        Envelope value = envelope;
+        if (value == null) {
+            value = GeometryUtils.scanEnvelope(getGeometry());
+            if (value == null) {
+                value = NO_ENVELOPE;
+            }
+            envelope = value;
+        }
+        return value == NO_ENVELOPE ? null : value;
+    }
+
+    /**
+     * Returns whether a {@link GeometryQuarantine} validation pass found this record's geometry
+     * missing or unparseable. The pairwise algorithms skip such records in O(1), without parsing
+     * the WKT again or logging it.
+     *
+     * @return {@code true} if the record is quarantined
+     */
+    boolean isQuarantined() {
+        return quarantined;
+    }
+
+    /**
+     * Marks the record as having a missing or unparseable geometry.
+     */
+    void quarantine() {
+        quarantined = true;
+    }
+
+    /**
+     * Returns whether the geometry is decoded on demand rather than held as a String.
+     *
+     * @return {@code true} for records created with lazy geometry
+     */
+    public boolean isGeometryLazy() {
+        return lazyGeometry != null;
     }
 
     /**
@@ -137,7 +259,7 @@ public class PropertyRecord {
      * @return the parish name, or null
      */
     public String getParish() {
-        return parish;
+        return REGIONS.valueOf(parishCode);
     }
 
     /**
@@ -146,7 +268,7 @@ public class PropertyRecord {
      * @return the municipality name, or null
      */
     public String getMunicipality() {
-        return municipality;
+        return REGIONS.valueOf(municipalityCode);
     }
 
     /**
@@ -155,14 +277,52 @@ public class PropertyRecord {
      * @return the island name, or null
      */
     public String getIsland() {
-        return island;
+        return REGIONS.valueOf(islandCode);
+    }
+
+    /**
+     * Returns the code of the parish name in {@link #regionDictionary()}. Comparing codes is
+     * equivalent to comparing names with {@link String#equals(Object)}.
+     *
+     * @return the parish code, or {@link StringDictionary#NULL_CODE} if the parish is null
+     */
+    public int getParishCode() {
+        return parishCode;
+    }
+
+    /**
+     * Returns the code of the municipality name in {@link #regionDictionary()}.
+     *
+     * @return the municipality code, or {@link StringDictionary#NULL_CODE} if the municipality is null
+     */
+    public int getMunicipalityCode() {
+        return municipalityCode;
+    }
+
+    /**
+     * Returns the code of the island name in {@link #regionDictionary()}.
+     *
+     * @return the island code, or {@link StringDictionary#NULL_CODE} if the island is null
+     */
+    public int getIslandCode() {
+        return islandCode;
+    }
+
+    /**
+     * Returns the dictionary that encodes the parish, municipality and island names of all records.
+     *
+     * @return the shared region dictionary
+     */
+    public static StringDictionary regionDictionary() {
+        return REGIONS;
     }
 
     @Override
     public String toString() {
-        return "PropertyRecord{" + "objectID=" + objectID + ", parcelID=" + parcelID + ", parcelNumber=" + parcelNumber +
-                ", shapeLength=" + shapeLength + ", shapeArea=" + shapeArea + ", geometry='" + geometry + '\'' +
-                ", owner=" + owner + ", parish='" + parish + '\'' + ", municipality='" + municipality + '\'' +
-                ", island='" + island + '\'' + '}';
+        return "PropertyRecord{" + "objectID=" + getObjectID() + ", parcelID=" + getParcelID() +
+                ", parcelNumber=" + getParcelNumber() + ", shapeLength=" + getShapeLength() +
+                ", shapeArea=" + getShapeArea() + ", geometry='" + getGeometry() + '\'' +
+                ", owner=" + getOwner() + ", parish='" + getParish() + '\'' +
+                ", municipality='" + getMunicipality() + '\'' + ", island='" + getIsland() + '\'' + '}';
     }
 }
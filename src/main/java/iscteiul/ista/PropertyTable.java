@@ -0,0 +1,465 @@
+package iscteiul.ista;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * A columnar (struct-of-arrays) store of cadastral records.
+ * <p>
+ * Instead of one {@link PropertyRecord} object per parcel, every column is kept in its own
+ * primitive array ({@code int[] objectId}, {@code long[] parcelId}, {@code double[] shapeArea}, ...)
+ * and the parish, municipality and island names are dictionary-encoded as {@code int} codes
+ * through a shared {@link StringDictionary}. Aggregations such as
+ * {@link PropertyUtils#calculateAverageArea(PropertyTable, int[])} then scan contiguous primitive
+ * arrays, and a whole dataset costs a handful of arrays instead of tens of thousands of objects.
+ *
+ * <p>Code that works with {@link PropertyRecord} can still use the table through
+ * {@link #view(int)} and {@link #asList()}, which return lightweight views backed by the arrays.
+ * Two views are equal when they point at the same row of the same table.
+ *
+ * <p>A table grows through {@link #add(PropertyRecord)}; it is not thread-safe while being filled,
+ * but can be read concurrently once complete.
+ *
+ * <p><strong>Usage Example:</strong></p>
+ * <pre>{@code
+ * PropertyTable table = PropertyTable.of(records);
+ * int[] rows = PropertyUtils.findByParish(table, "Arco da Calheta");
+ * double average = PropertyUtils.calculateAverageArea(table, rows);
+ * }</pre>
+ */
+public final class PropertyTable {
+
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    private final StringDictionary regions;
+
+    private int size;
+    private int[] objectIds;
+    private long[] parcelIds;
+    private long[] parcelNumbers;
+    private double[] shapeLengths;
+    private double[] shapeAreas;
+    private String[] geometries;
+    private int[] owners;
+    private int[] parishCodes;
+    private int[] municipalityCodes;
+    private int[] islandCodes;
+
+    /**
+     * Creates an empty table that encodes names with {@link PropertyRecord#regionDictionary()}.
+     */
+    public PropertyTable() {
+        this(DEFAULT_CAPACITY, PropertyRecord.regionDictionary());
+    }
+
+    /**
+     * Creates an empty table.
+     *
+     * @param initialCapacity the number of rows to allocate up front
+     * @param regions         the dictionary used to encode parish, municipality and island names
+     * @throws IllegalArgumentException if {@code initialCapacity} is negative
+     */
+    public PropertyTable(int initialCapacity, StringDictionary regions) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("initialCapacity must be >= 0, was " + initialCapacity);
+        }
+        this.regions = Objects.requireNonNull(regions, "regions");
+        objectIds = new int[initialCapacity];
+        parcelIds = new long[initialCapacity];
+        parcelNumbers = new long[initialCapacity];
+        shapeLengths = new double[initialCapacity];
+        shapeAreas = new double[initialCapacity];
+        geometries = new String[initialCapacity];
+        owners = new int[initialCapacity];
+        parishCodes = new int[initialCapacity];
+        municipalityCodes = new int[initialCapacity];
+        islandCodes = new int[initialCapacity];
+    }
+
+    /**
+     * Builds a table holding a copy of the given records, in order. Names are encoded with
+     * {@link PropertyRecord#regionDictionary()}, so row codes equal the records' own codes.
+     *
+     * @param records the records to copy; {@code null} yields an empty table
+     * @return the new table
+     */
+    public static PropertyTable of(List<PropertyRecord> records) {
+        if (records == null) {
+            return new PropertyTable(0, PropertyRecord.regionDictionary());
+        }
+        PropertyTable table = new PropertyTable(records.size(), PropertyRecord.regionDictionary());
+        for (PropertyRecord record : records) {
+            table.add(record);
+        }
+        return table;
+    }
+
+    /**
+     * Appends a copy of {@code record} as a new row.
+     *
+     * @param record the record to copy
+     * @return the index of the new row
+     */
+    public int add(PropertyRecord record) {
+        Objects.requireNonNull(record, "record");
+        return add(record.getObjectID(), record.getParcelID(), record.getParcelNumber(),
+                record.getShapeLength(), record.getShapeArea(), record.getGeometry(), record.getOwner(),
+                record.getParish(), record.getMunicipality(), record.getIsland());
+    }
+
+    /**
+     * Appends a new row from its column values, using the same arguments as the
+     * {@link PropertyRecord} constructor.
+     *
+     * @return the index of the new row
+     */
+    public int add(int objectID, long parcelID, long parcelNumber, double shapeLength, double shapeArea,
+                   String geometry, int owner, String parish, String municipality, String island) {
+        if (size == objectIds.length) {
+            grow();
+        }
+        int row = size;
+        objectIds[row] = objectID;
+        parcelIds[row] = parcelID;
+        parcelNumbers[row] = parcelNumber;
+        shapeLengths[row] = shapeLength;
+        shapeAreas[row] = shapeArea;
+        geometries[row] = geometry;
+        owners[row] = owner;
+        parishCodes[row] = regions.intern(parish);
+        municipalityCodes[row] = regions.intern(municipality);
+        islandCodes[row] = regions.intern(island);
+        size = row + 1;
+        return row;
+    }
+
+    private void grow() {
+        int capacity = Math.max(DEFAULT_CAPACITY, objectIds.length + (objectIds.length >> 1));
+        objectIds = Arrays.copyOf(objectIds, capacity);
+        parcelIds = Arrays.copyOf(parcelIds, capacity);
+        parcelNumbers = Arrays.copyOf(parcelNumbers, capacity);
+        shapeLengths = Arrays.copyOf(shapeLengths, capacity);
+        shapeAreas = Arrays.copyOf(shapeAreas, capacity);
+        geometries = Arrays.copyOf(geometries, capacity);
+        owners = Arrays.copyOf(owners, capacity);
+        parishCodes = Arrays.copyOf(parishCodes, capacity);
+        municipalityCodes = Arrays.copyOf(municipalityCodes, capacity);
+        islandCodes = Arrays.copyOf(islandCodes, capacity);
+    }
+
+    /**
+     * @return the number of rows
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the dictionary encoding the parish, municipality and island columns
+     */
+    public StringDictionary getRegions() {
+        return regions;
+    }
+
+    /**
+     * @param row the row index
+     * @return the object ID of the row
+     */
+    public int getObjectID(int row) {
+        return objectIds[checkRow(row)];
+    }
+
+    /**
+     * @param row the row index
+     * @return the parcel ID of the row
+     */
+    public long getParcelID(int row) {
+        return parcelIds[checkRow(row)];
+    }
+
+    /**
+     * @param row the row index
+     * @return the parcel number of the row
+     */
+    public long getParcelNumber(int row) {
+        return parcelNumbers[checkRow(row)];
+    }
+
+    /**
+     * @param row the row index
+     * @return the shape length of the row
+     */
+    public double getShapeLength(int row) {
+        return shapeLengths[checkRow(row)];
+    }
+
+    /**
+     * @param row the row index
+     * @return the shape area of the row
+     */
+    public double getShapeArea(int row) {
+        return shapeAreas[checkRow(row)];
+    }
+
+    /**
+     * @param row the row index
+     * @return the geometry string (WKT) of the row
+     */
+    public String getGeometry(int row) {
+        return geometries[checkRow(row)];
+    }
+
+    /**
+     * @param row the row index
+     * @return the owner code of the row
+     */
+    public int getOwner(int row) {
+        return owners[checkRow(row)];
+    }
+
+    /**
+     * @param row the row index
+     * @return the dictionary code of the row's parish, or {@link StringDictionary#NULL_CODE}
+     */
+    public int getParishCode(int row) {
+        return parishCodes[checkRow(row)];
+    }
+
+    /**
+     * @param row the row index
+     * @return the dictionary code of the row's municipality, or {@link StringDictionary#NULL_CODE}
+     */
+    public int getMunicipalityCode(int row) {
+        return municipalityCodes[checkRow(row)];
+    }
+
+    /**
+     * @param row the row index
+     * @return the dictionary code of the row's island, or {@link StringDictionary#NULL_CODE}
+     */
+    public int getIslandCode(int row) {
+        return islandCodes[checkRow(row)];
+    }
+
+    /**
+     * @param row the row index
+     * @return the parish name, or {@code null} of the row
+     */
+    public String getParish(int row) {
+        return regions.valueOf(getParishCode(row));
+    }
+
+    /**
+     * @param row the row index
+     * @return the municipality name, or {@code null} of the row
+     */
+    public String getMunicipality(int row) {
+        return regions.valueOf(getMunicipalityCode(row));
+    }
+
+    /**
+     * @param row the row index
+     * @return the island name, or {@code null} of the row
+     */
+    public String getIsland(int row) {
+        return regions.valueOf(getIslandCode(row));
+    }
+
+    private int checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of bounds for table of size " + size);
+        }
+        return row;
+    }
+
+    // Package-private raw column access for the scans in PropertyUtils.
+    // Only the first size() entries are meaningful.
+
+    int[] ownerColumn() {
+        return owners;
+    }
+
+    double[] shapeAreaColumn() {
+        return shapeAreas;
+    }
+
+    int[] parishColumn() {
+        return parishCodes;
+    }
+
+    int[] municipalityColumn() {
+        return municipalityCodes;
+    }
+
+    int[] islandColumn() {
+        return islandCodes;
+    }
+
+    /**
+     * Returns a {@link PropertyRecord} view of one row. The view reads the table arrays on every
+     * call and holds no copy of the data.
+     *
+     * @param row the row index
+     * @return a view of the row
+     * @throws IndexOutOfBoundsException if the row does not exist
+     */
+    public PropertyRecord view(int row) {
+        return new RowView(this, checkRow(row));
+    }
+
+    /**
+     * Returns views of the given rows.
+     *
+     * @param rows row indices, e.g. from {@link PropertyUtils#findByParish(PropertyTable, String)}
+     * @return a new list of views, in the order of {@code rows}
+     */
+    public List<PropertyRecord> views(int[] rows) {
+        return new AbstractRowList(rows.length) {
+            @Override
+            public PropertyRecord get(int index) {
+                return view(rows[index]);
+            }
+        };
+    }
+
+    /**
+     * Returns a read-only {@link List} of views over every row, so existing list-based code can run
+     * on the table. Views are created on access.
+     *
+     * @return a random-access list of views
+     */
+    public List<PropertyRecord> asList() {
+        return new AbstractRowList(size) {
+            @Override
+            public PropertyRecord get(int index) {
+                return view(index);
+            }
+        };
+    }
+
+    /** A fixed-size, read-only, random-access list of row views. */
+    private abstract static class AbstractRowList extends AbstractList<PropertyRecord> implements RandomAccess {
+        private final int length;
+
+        AbstractRowList(int length) {
+            this.length = length;
+        }
+
+        @Override
+        public int size() {
+            return length;
+        }
+    }
+
+    /**
+     * A flyweight {@link PropertyRecord} backed by one row of a {@link PropertyTable}.
+     */
+    static final class RowView extends PropertyRecord {
+
+        private final PropertyTable table;
+        private final int row;
+
+        RowView(PropertyTable table, int row) {
+            this.table = table;
+            this.row = row;
+        }
+
+        /**
+         * @return the table row this view reads
+         */
+        int row() {
+            return row;
+        }
+
+        @Override
+        public int getObjectID() {
+            return table.objectIds[row];
+        }
+
+        @Override
+        public long getParcelID() {
+            return table.parcelIds[row];
+        }
+
+        @Override
+        public long getParcelNumber() {
+            return table.parcelNumbers[row];
+        }
+
+        @Override
+        public double getShapeLength() {
+            return table.shapeLengths[row];
+        }
+
+        @Override
+        public double getShapeArea() {
+            return table.shapeAreas[row];
+        }
+
+        @Override
+        public String getGeometry() {
+            return table.geometries[row];
+        }
+
+        @Override
+        public int getOwner() {
+            return table.owners[row];
+        }
+
+        @Override
+        public String getParish() {
+            return table.regions.valueOf(table.parishCodes[row]);
+        }
+
+        @Override
+        public String getMunicipality() {
+            return table.regions.valueOf(table.municipalityCodes[row]);
+        }
+
+        @Override
+        public String getIsland() {
+            return table.regions.valueOf(table.islandCodes[row]);
+        }
+
+        @Override
+        public int getParishCode() {
+            return sharedCode(table.parishCodes[row]);
+        }
+
+        @Override
+        public int getMunicipalityCode() {
+            return sharedCode(table.municipalityCodes[row]);
+        }
+
+        @Override
+        public int getIslandCode() {
+            return sharedCode(table.islandCodes[row]);
+        }
+
+        /** Translates a table code into a {@link PropertyRecord#regionDictionary()} code. */
+        private int sharedCode(int tableCode) {
+            StringDictionary shared = PropertyRecord.regionDictionary();
+            return table.regions == shared ? tableCode : shared.intern(table.regions.valueOf(tableCode));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof RowView)) {
+                return false;
+            }
+            RowView other = (RowView) o;
+            return table == other.table && row == other.row;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(table) + row;
+        }
+    }
+}
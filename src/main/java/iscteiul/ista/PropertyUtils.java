@@ -56,11 +56,12 @@ public final class PropertyUtils {
      * @return a new List of PropertyRecord in that municipality
      */
     public static List<PropertyRecord> findByMunicipality(List<PropertyRecord> records, String municipality) {
-        if (records == null || municipality == null) {
+        int code = PropertyRecord.regionDictionary().codeOf(municipality);
+        if (records == null || code == StringDictionary.NULL_CODE) {
             return new ArrayList<>();
         }
         return records.stream()
-                .filter(r -> municipality.equals(r.getMunicipality()))
+                .filter(r -> r.getMunicipalityCode() == code)
                 .collect(Collectors.toList());
     }
 
@@ -72,16 +73,18 @@ public final class PropertyUtils {
      * @return a new List of PropertyRecord on that island
      */
     public static List<PropertyRecord> findByIsland(List<PropertyRecord> records, String island) {
-        if (records == null || island == null) {
+        int code = PropertyRecord.regionDictionary().codeOf(island);
+        if (records == null || code == StringDictionary.NULL_CODE) {
             return new ArrayList<>();
         }
         return records.stream()
-                .filter(r -> island.equals(r.getIsland()))
+                .filter(r -> r.getIslandCode() == code)
                 .collect(Collectors.toList());
     }
 
     /**
-     * Checks if two PropertyRecords are adjacent (touching) by delegating to GeometryUtils.
+     * Checks if two PropertyRecords are adjacent (touching) by delegating to GeometryUtils, which
+     * parses each geometry only once (see {@link GeometryCache}).
      * Returns false if either geometry is missing/null.
      *
      * @param a the first PropertyRecord
@@ -92,9 +95,7 @@ public final class PropertyUtils {
         if (a == null || b == null) {
             return false;
         }
-        String wktA = a.getGeometry();
-        String wktB = b.getGeometry();
-        return GeometryUtils.areAdjacent(wktA, wktB);
+        return GeometryUtils.areAdjacent(a, b);
     }
 
     /**
@@ -107,19 +108,11 @@ public final class PropertyUtils {
     public static List<PropertyRecord> findAdjacentProperties(
             PropertyRecord record, List<PropertyRecord> records) {
 
-        List<PropertyRecord> result = new ArrayList<>();
         if (record == null || records == null) {
-            return result;
-        }
-        for (PropertyRecord r : records) {
-            if (r == record) {
-                continue;  // Skip the same instance
-            }
-            if (arePropertiesAdjacent(record, r)) {
-                result.add(r);
-            }
+            return new ArrayList<>();
         }
-        return result;
+        // Prepares the record's geometry once; skips the same instance
+        return GeometryUtils.touchingAmong(record, records);
     }
 
     /**
@@ -133,10 +126,14 @@ public final class PropertyUtils {
         if (records == null) {
             return Collections.emptySet();
         }
-        return records.stream()
-                .map(PropertyRecord::getParish)
-                .filter(Objects::nonNull)  // skip null
-                .collect(Collectors.toSet());
+        BitSet codes = new BitSet();
+        for (PropertyRecord r : records) {
+            int code = r.getParishCode();
+            if (code != StringDictionary.NULL_CODE) {  // skip null
+                codes.set(code);
+            }
+        }
+        return decodeRegions(codes);
     }
 
     /**
@@ -150,10 +147,24 @@ public final class PropertyUtils {
         if (records == null) {
             return Collections.emptySet();
         }
-        return records.stream()
-                .map(PropertyRecord::getMunicipality)
-                .filter(Objects::nonNull)  // skip null
-                .collect(Collectors.toSet());
+        BitSet codes = new BitSet();
+        for (PropertyRecord r : records) {
+            int code = r.getMunicipalityCode();
+            if (code != StringDictionary.NULL_CODE) {  // skip null
+                codes.set(code);
+            }
+        }
+        return decodeRegions(codes);
+    }
+
+    /** Maps a set of {@link PropertyRecord#regionDictionary()} codes back to their names. */
+    private static Set<String> decodeRegions(BitSet codes) {
+        StringDictionary regions = PropertyRecord.regionDictionary();
+        Set<String> names = new HashSet<>();
+        for (int code = codes.nextSetBit(0); code >= 0; code = codes.nextSetBit(code + 1)) {
+            names.add(regions.valueOf(code));
+        }
+        return names;
     }
 
     // You can add more utility methods here (e.g., merging contiguous properties,
@@ -167,11 +178,12 @@ public final class PropertyUtils {
      * @return a new list of {@link PropertyRecord} objects in the specified parish
      */
     public static List<PropertyRecord> findByParish(List<PropertyRecord> records, String parish) {
-        if (records == null || parish == null) {
+        int code = PropertyRecord.regionDictionary().codeOf(parish);
+        if (records == null || code == StringDictionary.NULL_CODE) {
             return new ArrayList<>();
         }
         return records.stream()
-                .filter(r -> parish.equals(r.getParish()))
+                .filter(r -> r.getParishCode() == code)
                 .collect(Collectors.toList());
     }
 
@@ -204,6 +216,184 @@ public final class PropertyUtils {
                 .collect(Collectors.groupingBy(PropertyRecord::getOwner));
     }
 
+    // ---------------------------------------------------------------------------------------------
+    // Columnar variants: the same queries over a PropertyTable, scanning its primitive columns and
+    // returning row indices (use PropertyTable#views(int[]) to get PropertyRecord views back).
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Returns the rows of {@code table} owned by the specified owner.
+     *
+     * @param table   the table to scan
+     * @param ownerId the owner ID to filter by
+     * @return the matching row indices in ascending order; empty if the table is null
+     */
+    public static int[] findByOwner(PropertyTable table, int ownerId) {
+        if (table == null) {
+            return new int[0];
+        }
+        return matchingRows(table.ownerColumn(), table.size(), ownerId);
+    }
+
+    /**
+     * Returns the rows of {@code table} in the given parish (case-sensitive).
+     *
+     * @param table  the table to scan
+     * @param parish the parish to match; if null, returns no rows
+     * @return the matching row indices in ascending order
+     */
+    public static int[] findByParish(PropertyTable table, String parish) {
+        if (table == null) {
+            return new int[0];
+        }
+        return matchingRegionRows(table.parishColumn(), table.size(), table.getRegions().codeOf(parish));
+    }
+
+    /**
+     * Returns the rows of {@code table} in the given municipality (case-sensitive).
+     *
+     * @param table        the table to scan
+     * @param municipality the municipality to match; if null, returns no rows
+     * @return the matching row indices in ascending order
+     */
+    public static int[] findByMunicipality(PropertyTable table, String municipality) {
+        if (table == null) {
+            return new int[0];
+        }
+        return matchingRegionRows(table.municipalityColumn(), table.size(), table.getRegions().codeOf(municipality));
+    }
+
+    /**
+     * Returns the rows of {@code table} on the given island (case-sensitive).
+     *
+     * @param table  the table to scan
+     * @param island the island to match; if null, returns no rows
+     * @return the matching row indices in ascending order
+     */
+    public static int[] findByIsland(PropertyTable table, String island) {
+        if (table == null) {
+            return new int[0];
+        }
+        return matchingRegionRows(table.islandColumn(), table.size(), table.getRegions().codeOf(island));
+    }
+
+    /**
+     * Like {@link #matchingRows(int[], int, int)} for a dictionary-encoded column. A null or unknown
+     * name ({@link StringDictionary#NULL_CODE}) matches nothing, as in the list-based filters.
+     */
+    private static int[] matchingRegionRows(int[] column, int size, int code) {
+        if (code == StringDictionary.NULL_CODE) {
+            return new int[0];
+        }
+        return matchingRows(column, size, code);
+    }
+
+    /** Collects, in ascending order, the indices {@code i < size} where {@code column[i] == value}. */
+    private static int[] matchingRows(int[] column, int size, int value) {
+        int[] rows = new int[Math.min(size, 16)];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (column[i] == value) {
+                if (count == rows.length) {
+                    rows = Arrays.copyOf(rows, Math.max(16, count * 2));
+                }
+                rows[count++] = i;
+            }
+        }
+        return Arrays.copyOf(rows, count);
+    }
+
+    /**
+     * Calculates the average area of the given rows of {@code table}.
+     *
+     * @param table the table holding the rows
+     * @param rows  row indices, e.g. from {@link #findByParish(PropertyTable, String)},
+     *              or {@code null} for every row of the table
+     * @return the average area, or 0.0 if the table is null or there are no rows
+     * @throws IndexOutOfBoundsException if a row does not exist
+     */
+    public static double calculateAverageArea(PropertyTable table, int[] rows) {
+        if (table == null) return 0.0;
+        if (rows == null) {
+            if (table.size() == 0) return 0.0;
+            double[] areas = table.shapeAreaColumn();
+            double totalArea = 0.0;
+            for (int i = 0; i < table.size(); i++) {
+                totalArea += areas[i];
+            }
+            return totalArea / table.size();
+        }
+        if (rows.length == 0) return 0.0;
+
+        double totalArea = 0.0;
+        for (int row : rows) {
+            totalArea += table.getShapeArea(row);
+        }
+        return totalArea / rows.length;
+    }
+
+    /**
+     * Groups the rows of {@code table} by owner ID.
+     *
+     * @param table the table to scan
+     * @return a map from owner ID to that owner's row indices (ascending)
+     */
+    public static Map<Integer, int[]> groupPropertiesByOwner(PropertyTable table) {
+        if (table == null) return new HashMap<>();
+
+        int[] owners = table.ownerColumn();
+        int size = table.size();
+        // First pass counts rows per owner, second pass fills exactly-sized arrays.
+        Map<Integer, int[]> counts = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            counts.computeIfAbsent(owners[i], k -> new int[1])[0]++;
+        }
+        Map<Integer, int[]> groups = new HashMap<>(counts.size() * 2);
+        for (Map.Entry<Integer, int[]> entry : counts.entrySet()) {
+            groups.put(entry.getKey(), new int[entry.getValue()[0]]);
+            entry.getValue()[0] = 0;
+        }
+        for (int i = 0; i < size; i++) {
+            int[] fill = counts.get(owners[i]);
+            groups.get(owners[i])[fill[0]++] = i;
+        }
+        return groups;
+    }
+
+    /**
+     * Returns the distinct parish names present in {@code table}, without decoding any row.
+     *
+     * @param table the table to scan
+     * @return a Set of unique parish strings, or an empty set if the table is null or has no parishes
+     */
+    public static Set<String> getDistinctParishes(PropertyTable table) {
+        return table == null ? Collections.emptySet() : distinctRegions(table, table.parishColumn());
+    }
+
+    /**
+     * Returns the distinct municipality names present in {@code table}, without decoding any row.
+     *
+     * @param table the table to scan
+     * @return a Set of unique municipality strings, or an empty set if the table is null or has none
+     */
+    public static Set<String> getDistinctMunicipalities(PropertyTable table) {
+        return table == null ? Collections.emptySet() : distinctRegions(table, table.municipalityColumn());
+    }
+
+    private static Set<String> distinctRegions(PropertyTable table, int[] codes) {
+        StringDictionary regions = table.getRegions();
+        boolean[] seen = new boolean[regions.size()];
+        Set<String> result = new HashSet<>();
+        for (int i = 0; i < table.size(); i++) {
+            int code = codes[i];
+            if (code != StringDictionary.NULL_CODE && !seen[code]) {
+                seen[code] = true;
+                result.add(regions.valueOf(code));
+            }
+        }
+        return result;
+    }
+
     /**
      * Calculates the average area of connected property groups for each owner.
      *
@@ -288,46 +478,7 @@ public final class PropertyUtils {
      *         or Funchal reference is missing/invalid, or if geometry parse fails
      */
     public static double distanceToFunchal(int propertyId) {
-        // 1) Find the source property record by propertyId
-        PropertyRecord source = App.getPropertyRecords().stream()
-                .filter(pr -> pr.getObjectID() == propertyId)
-                .findFirst()
-                .orElse(null);
-
-        // 2) Retrieve the Funchal (Sé) property from App
-        PropertyRecord funchalSe = App.getFunchalPropertyRecord();
-
-        // If either property was not found, return NaN
-        if (source == null || funchalSe == null) {
-            return Double.NaN;
-        }
-
-        // If either geometry is null or blank, return NaN
-        String wktSource = source.getGeometry();
-        String wktFunchal = funchalSe.getGeometry();
-        if (wktSource == null || wktFunchal == null ||
-                wktSource.isBlank() || wktFunchal.isBlank()) {
-            return Double.NaN;
-        }
-
-        try {
-            // 3) Parse WKT with JTS
-            org.locationtech.jts.geom.Geometry geomSource =
-                    new org.locationtech.jts.io.WKTReader().read(wktSource);
-            org.locationtech.jts.geom.Geometry geomFunchal =
-                    new org.locationtech.jts.io.WKTReader().read(wktFunchal);
-
-            // 4) Get centroids
-            org.locationtech.jts.geom.Point centroidSource = geomSource.getCentroid();
-            org.locationtech.jts.geom.Point centroidFunchal = geomFunchal.getCentroid();
-
-            // 5) Compute and return distance between centroids
-            return centroidSource.distance(centroidFunchal);
-
-        } catch (org.locationtech.jts.io.ParseException e) {
-            // If the geometry fails to parse, return NaN
-            return Double.NaN;
-        }
+        return distanceToReference(propertyId, App.getFunchalPropertyRecord());
     }
 
     /**
@@ -348,46 +499,41 @@ public final class PropertyUtils {
      *         or Machico reference is missing/invalid, or if geometry parse fails
      */
     public static double distanceToMachico(int propertyId) {
-        // 1) Find the source property record by propertyId
-        PropertyRecord source = App.getPropertyRecords().stream()
-                .filter(pr -> pr.getObjectID() == propertyId)
-                .findFirst()
-                .orElse(null);
-
-        // 2) Retrieve the Machico property from App
-        PropertyRecord machicoRef = App.getMachicoPropertyRecord();
+        return distanceToReference(propertyId, App.getMachicoPropertyRecord());
+    }
 
-        // If either property was not found, return NaN
-        if (source == null || machicoRef == null) {
+    /**
+     * Computes the distance between the centroid of a loaded property and that of a reference
+     * property. Centroids are read from {@link App#getDerivedTable()}; the reference is only parsed
+     * if it is not one of the loaded records (or has a different geometry than the loaded record
+     * with its ID).
+     *
+     * @return the distance, or {@code Double.NaN} if either property is missing or has no valid geometry
+     */
+    private static double distanceToReference(int propertyId, PropertyRecord reference) {
+        if (App.getPropertyRecords() == null || reference == null) {
             return Double.NaN;
         }
-
-        // If either geometry is null or blank, return NaN
-        String wktSource = source.getGeometry();
-        String wktMachico = machicoRef.getGeometry();
-        if (wktSource == null || wktMachico == null ||
-                wktSource.isBlank() || wktMachico.isBlank()) {
+        GeometryDerivedTable table = App.getDerivedTable();
+        int row = table.indexOf(propertyId);
+        if (row < 0 || !table.hasGeometry(row)) {
             return Double.NaN;
         }
 
-        try {
-            // 3) Parse WKT with JTS
-            org.locationtech.jts.geom.Geometry geomSource =
-                    new org.locationtech.jts.io.WKTReader().read(wktSource);
-            org.locationtech.jts.geom.Geometry geomMachico =
-                    new org.locationtech.jts.io.WKTReader().read(wktMachico);
-
-            // 4) Get centroids
-            org.locationtech.jts.geom.Point centroidSource = geomSource.getCentroid();
-            org.locationtech.jts.geom.Point centroidMachico = geomMachico.getCentroid();
-
-            // 5) Compute and return distance between centroids
-            return centroidSource.distance(centroidMachico);
-
-        } catch (org.locationtech.jts.io.ParseException e) {
-            // If the geometry fails to parse, return NaN
+        String referenceWkt = reference.getGeometry();
+        int referenceRow = table.indexOf(reference.getObjectID());
+        if (referenceRow >= 0 && referenceWkt != null) {
+            String loadedWkt = App.getPropertyRecords().get(referenceRow).getGeometry();
+            if (loadedWkt == referenceWkt || referenceWkt.equals(loadedWkt)) {
+                return table.centroidDistance(row, table.getCentroidX(referenceRow), table.getCentroidY(referenceRow));
+            }
+        }
+        org.locationtech.jts.geom.Geometry referenceGeometry = GeometryCache.shared().get(reference);
+        if (referenceGeometry == null || referenceGeometry.isEmpty()) {
             return Double.NaN;
         }
+        org.locationtech.jts.geom.Point centroid = referenceGeometry.getCentroid();
+        return table.centroidDistance(row, centroid.getX(), centroid.getY());
     }
 
     /**
@@ -437,16 +583,23 @@ public final class PropertyUtils {
             graph.addVertex(pr);
         }
 
-        // 3) O(N^2) adjacency check: same owner + arePropertiesAdjacent => add graph edge
+        // 3) O(N^2) adjacency check: same owner + arePropertiesAdjacent => add graph edge.
+        //    Each geometry is checked once, not per pair: quarantined records (see App.main) are
+        //    invalid without a lookup, the others are parsed once through the shared cache.
         List<PropertyRecord> propList = new ArrayList<>(properties);
+        boolean[] valid = new boolean[propList.size()];
+        for (int i = 0; i < propList.size(); i++) {
+            PropertyRecord pr = propList.get(i);
+            valid[i] = !pr.isQuarantined() && GeometryCache.shared().get(pr) != null;
+        }
         for (int i = 0; i < propList.size(); i++) {
             for (int j = i + 1; j < propList.size(); j++) {
                 PropertyRecord a = propList.get(i);
                 PropertyRecord b = propList.get(j);
 
                 if (a.getOwner() == b.getOwner()) {
-                    boolean validA = isGeometryValid(a.getGeometry());
-                    boolean validB = isGeometryValid(b.getGeometry());
+                    boolean validA = valid[i];
+                    boolean validB = valid[j];
 
                     if (validA && validB) {
                         // Both geometries parse OK => do the normal adjacency check
@@ -490,16 +643,15 @@ public final class PropertyUtils {
                 // Union all geometries in the component via JTS
                 org.locationtech.jts.geom.Geometry unionGeom = null;
                 for (PropertyRecord pr : component) {
-                    try {
-                        org.locationtech.jts.geom.Geometry g =
-                                new org.locationtech.jts.io.WKTReader().read(pr.getGeometry());
-                        if (unionGeom == null) {
-                            unionGeom = g;
-                        } else {
-                            unionGeom = unionGeom.union(g);
-                        }
-                    } catch (org.locationtech.jts.io.ParseException e) {
-                        System.err.println("Skipping invalid geometry for objectID=" + pr.getObjectID());
+                    org.locationtech.jts.geom.Geometry g =
+                            pr.isQuarantined() ? null : GeometryCache.shared().get(pr);
+                    if (g == null) {
+                        continue;  // invalid geometry, already reported
+                    }
+                    if (unionGeom == null) {
+                        unionGeom = g;
+                    } else {
+                        unionGeom = unionGeom.union(g);
                     }
                 }
                 if (unionGeom == null) {
@@ -543,25 +695,4 @@ public final class PropertyUtils {
 
         return mergedList;
     }
-
-    /**
-     * Checks whether the given WKT string is valid (parsable) geometry.
-     *
-     * <p>This method attempts to parse the WKT using JTS's {@link org.locationtech.jts.io.WKTReader}.
-     * If the parsing succeeds without throwing a {@link org.locationtech.jts.io.ParseException},
-     * the WKT is considered valid; otherwise, it is deemed invalid.</p>
-     *
-     * @param wkt a Well-Known Text (WKT) representation of a geometry, which may be {@code null} or blank
-     * @return {@code true} if {@code wkt} is non-blank and can be successfully parsed as a valid geometry;
-     *         {@code false} otherwise
-     */
-    private static boolean isGeometryValid(String wkt) {
-        if (wkt == null || wkt.isBlank()) return false;
-        try {
-            new org.locationtech.jts.io.WKTReader().read(wkt);
-            return true;
-        } catch (org.locationtech.jts.io.ParseException e) {
-            return false;
-        }
-    }
 }
@@ -0,0 +1,74 @@
+package iscteiul.ista;
+
+import java.util.Objects;
+
+/**
+ * A predicate over the location columns (parish, municipality, island) of a CSV row.
+ * <p>
+ * Used by {@link CSVFileReader#stream(String, RowFilter)} to decide whether a row is worth
+ * decoding <em>before</em> its numeric columns and its (long) WKT geometry are parsed.
+ * {@code "NA"} values are passed as {@code null}, exactly as they end up in a {@link PropertyRecord}.
+ *
+ * <p><strong>Usage Example:</strong></p>
+ * <pre>{@code
+ * try (Stream<PropertyRecord> parish = reader.stream(path, RowFilter.parish("Arco da Calheta"))) {
+ *     List<PropertyRecord> subset = parish.collect(Collectors.toList());
+ * }
+ * }</pre>
+ */
+@FunctionalInterface
+public interface RowFilter {
+
+    /**
+     * Decides whether a row should be fully decoded.
+     *
+     * @param parish       the parish column, or {@code null} if "NA"
+     * @param municipality the municipality column, or {@code null} if "NA"
+     * @param island       the island column, or {@code null} if "NA"
+     * @return {@code true} to decode and emit the row, {@code false} to skip it
+     */
+    boolean accept(String parish, String municipality, String island);
+
+    /**
+     * Returns a filter that matches rows accepted by both this filter and {@code other}.
+     *
+     * @param other the second filter
+     * @return the combined filter
+     */
+    default RowFilter and(RowFilter other) {
+        Objects.requireNonNull(other, "other");
+        return (parish, municipality, island) ->
+                accept(parish, municipality, island) && other.accept(parish, municipality, island);
+    }
+
+    /**
+     * @return a filter that accepts every row
+     */
+    static RowFilter all() {
+        return (parish, municipality, island) -> true;
+    }
+
+    /**
+     * @param parish the parish name to match (case-sensitive)
+     * @return a filter that accepts rows of the given parish
+     */
+    static RowFilter parish(String parish) {
+        return (p, municipality, island) -> parish != null && parish.equals(p);
+    }
+
+    /**
+     * @param municipality the municipality name to match (case-sensitive)
+     * @return a filter that accepts rows of the given municipality
+     */
+    static RowFilter municipality(String municipality) {
+        return (parish, m, island) -> municipality != null && municipality.equals(m);
+    }
+
+    /**
+     * @param island the island name to match (case-sensitive)
+     * @return a filter that accepts rows of the given island
+     */
+    static RowFilter island(String island) {
+        return (parish, municipality, i) -> island != null && island.equals(i);
+    }
+}
@@ -0,0 +1,173 @@
+package iscteiul.ista;
+
+import java.util.List;
+
+/**
+ * Per-shard statistics of a {@link CSVFileReader#importDirectory(String, int)} run, with summary
+ * measures of how unevenly the work was spread over the shards.
+ * <p>
+ * Shards are read concurrently, so the slowest shard bounds the whole import: a {@link #getTimeSkew()
+ * time skew} of 3 means the largest shard took three times as long as the average one, and
+ * splitting it (or merging the smallest ones) would shorten the run. A perfectly balanced set of
+ * shards has a skew of 1 and a {@link #getRowCoefficientOfVariation() coefficient of variation} of 0.
+ */
+public final class ShardReport {
+
+    /**
+     * The statistics of one shard (one CSV file).
+     */
+    public static final class Shard {
+
+        private final String file;
+        private final long rows;
+        private final long duplicates;
+        private final long bytes;
+        private final long elapsedNanos;
+
+        Shard(String file, long rows, long duplicates, long bytes, long elapsedNanos) {
+            this.file = file;
+            this.rows = rows;
+            this.duplicates = duplicates;
+            this.bytes = bytes;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * @return the path of the shard file
+         */
+        public String getFile() {
+            return file;
+        }
+
+        /**
+         * @return the number of records parsed from the shard, duplicates included
+         */
+        public long getRows() {
+            return rows;
+        }
+
+        /**
+         * @return the number of records dropped because their {@code objectID} was already taken from
+         *         an earlier shard
+         */
+        public long getDuplicates() {
+            return duplicates;
+        }
+
+        /**
+         * @return the size of the shard file in bytes
+         */
+        public long getBytes() {
+            return bytes;
+        }
+
+        /**
+         * @return the time taken to parse the shard, in nanoseconds
+         */
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d rows (%d duplicate), %d bytes, %.3fs",
+                    file, rows, duplicates, bytes, elapsedNanos / 1e9);
+        }
+    }
+
+    private final List<Shard> shards;
+
+    ShardReport(List<Shard> shards) {
+        this.shards = List.copyOf(shards);
+    }
+
+    /**
+     * @return the shards, in the order in which they were merged (file name order)
+     */
+    public List<Shard> getShards() {
+        return shards;
+    }
+
+    /**
+     * @return the number of records dropped as duplicates over all shards
+     */
+    public long getDuplicates() {
+        long duplicates = 0;
+        for (Shard shard : shards) {
+            duplicates += shard.getDuplicates();
+        }
+        return duplicates;
+    }
+
+    /**
+     * @return the shard with the most rows, or {@code null} if there are no shards
+     */
+    public Shard getLargestShard() {
+        Shard largest = null;
+        for (Shard shard : shards) {
+            if (largest == null || shard.getRows() > largest.getRows()) {
+                largest = shard;
+            }
+        }
+        return largest;
+    }
+
+    /**
+     * @return the rows of the largest shard divided by the mean rows per shard (1 when balanced),
+     *         or 0 if there are no rows
+     */
+    public double getRowSkew() {
+        long max = 0;
+        long total = 0;
+        for (Shard shard : shards) {
+            max = Math.max(max, shard.getRows());
+            total += shard.getRows();
+        }
+        return total == 0 ? 0.0 : max * (double) shards.size() / total;
+    }
+
+    /**
+     * @return the parse time of the slowest shard divided by the mean parse time (1 when balanced),
+     *         or 0 if no time was measured
+     */
+    public double getTimeSkew() {
+        long max = 0;
+        long total = 0;
+        for (Shard shard : shards) {
+            max = Math.max(max, shard.getElapsedNanos());
+            total += shard.getElapsedNanos();
+        }
+        return total == 0 ? 0.0 : max * (double) shards.size() / total;
+    }
+
+    /**
+     * @return the standard deviation of the rows per shard divided by their mean (0 when balanced),
+     *         or 0 if there are no rows
+     */
+    public double getRowCoefficientOfVariation() {
+        if (shards.isEmpty()) {
+            return 0.0;
+        }
+        double mean = 0;
+        for (Shard shard : shards) {
+            mean += shard.getRows();
+        }
+        mean /= shards.size();
+        if (mean == 0) {
+            return 0.0;
+        }
+        double variance = 0;
+        for (Shard shard : shards) {
+            double diff = shard.getRows() - mean;
+            variance += diff * diff;
+        }
+        return Math.sqrt(variance / shards.size()) / mean;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ShardReport{shards=%d, duplicates=%d, rowSkew=%.2f, timeSkew=%.2f, rowCV=%.2f, largest=%s}",
+                shards.size(), getDuplicates(), getRowSkew(), getTimeSkew(), getRowCoefficientOfVariation(),
+                getLargestShard());
+    }
+}
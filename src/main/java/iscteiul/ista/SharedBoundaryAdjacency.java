@@ -0,0 +1,271 @@
+package iscteiul.ista;
+
+import org.locationtech.jts.algorithm.Orientation;
+import org.locationtech.jts.geom.CoordinateSequence;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.geom.Polygon;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Finds the touching pairs of a set of parcels from their shared boundary vertices and segments,
+ * in one pass over all coordinates, instead of testing {@link Geometry#touches(Geometry)} pair by
+ * pair (see {@link AdjacencyStrategy#SHARED_BOUNDARY}).
+ * <p>
+ * Neighbouring cadastral parcels are digitized on the same boundary, so they have bit-identical
+ * vertices and their common edges appear in both polygons. Every boundary segment is hashed with
+ * its endpoints in a canonical order, and every vertex is hashed as well:
+ * <ul>
+ *   <li>Rings are oriented so that the polygon's interior is on their left (shells
+ *       counter-clockwise, holes clockwise). A segment found in two parcels in <em>opposite</em>
+ *       directions has their interiors on either side of it, so the pair touches and is accepted
+ *       without further work. This is the case for almost every adjacent pair.</li>
+ *   <li>A segment found in the <em>same</em> direction (the interiors overlap near it) and a
+ *       contact through a shared vertex only (parcels meeting at a corner) are confirmed with
+ *       {@link GeometryUtils#areAdjacent(PropertyRecord, PropertyRecord)}.</li>
+ * </ul>
+ * <p>
+ * <strong>Assumptions.</strong> The result equals the pairwise {@code touches} result for a valid,
+ * noded coverage: parcels do not overlap, and wherever two boundaries meet both have a vertex.
+ * Contacts that are not at a common vertex (a vertex of one parcel in the middle of an edge of the
+ * other) are not found, and two parcels that share an edge but also overlap elsewhere are reported
+ * as touching. Use {@link AdjacencyStrategy#PAIRWISE} for data that may violate this.
+ * <p>
+ * Records without a valid geometry (including those quarantined by {@link GeometryQuarantine}) are
+ * never adjacent. Non-polygonal parts only contribute their
+ * vertices, so their contacts are always confirmed with JTS.
+ */
+final class SharedBoundaryAdjacency {
+
+    /**
+     * Private constructor to prevent instantiation of this utility class.
+     *
+     * @throws AssertionError always, because this constructor should never be called.
+     */
+    private SharedBoundaryAdjacency() {
+        throw new AssertionError("Utility class - do not instantiate.");
+    }
+
+    /**
+     * A boundary vertex, compared by exact coordinates.
+     */
+    private static final class Vertex {
+        final double x;
+        final double y;
+
+        Vertex(double x, double y) {
+            // + 0.0 turns -0.0 into 0.0, so the two compare equal
+            this.x = x + 0.0;
+            this.y = y + 0.0;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Vertex)) {
+                return false;
+            }
+            Vertex other = (Vertex) o;
+            return x == other.x && y == other.y;
+        }
+
+        @Override
+        public int hashCode() {
+            long h = Double.doubleToLongBits(x) * 31 + Double.doubleToLongBits(y);
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+
+    /**
+     * A boundary segment with its endpoints in canonical (lexicographic) order.
+     */
+    private static final class Segment {
+        final Vertex from;
+        final Vertex to;
+
+        Segment(Vertex from, Vertex to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Segment)) {
+                return false;
+            }
+            Segment other = (Segment) o;
+            return from.equals(other.from) && to.equals(other.to);
+        }
+
+        @Override
+        public int hashCode() {
+            return from.hashCode() * 31 + to.hashCode();
+        }
+    }
+
+    /**
+     * A small growable list of ints: record indices for vertices, or record indices shifted left
+     * by one with the direction in the low bit for segments.
+     */
+    private static final class IntList {
+        int[] items = new int[2];
+        int size;
+
+        void add(int value) {
+            if (size == items.length) {
+                items = Arrays.copyOf(items, size * 2);
+            }
+            items[size++] = value;
+        }
+
+        int last() {
+            return items[size - 1];
+        }
+    }
+
+    /**
+     * Finds all touching pairs among {@code records}.
+     *
+     * @param records the parcels
+     * @return the pairs as {@code {i, j}} indices into {@code records} with {@code i < j}, sorted
+     */
+    static List<int[]> adjacentPairs(List<PropertyRecord> records) {
+        Map<Segment, IntList> segments = new HashMap<>();
+        Map<Vertex, IntList> vertices = new HashMap<>();
+        for (int i = 0; i < records.size(); i++) {
+            if (records.get(i).isQuarantined()) {
+                continue;
+            }
+            Geometry geometry = GeometryCache.shared().get(records.get(i));
+            if (geometry != null) {
+                addGeometry(i, geometry, segments, vertices);
+            }
+        }
+
+        Set<Long> accepted = new HashSet<>();
+        Set<Long> suspects = new HashSet<>();
+        for (IntList owners : segments.values()) {
+            for (int a = 0; a < owners.size; a++) {
+                for (int b = a + 1; b < owners.size; b++) {
+                    int first = owners.items[a];
+                    int second = owners.items[b];
+                    if (first >>> 1 == second >>> 1) {
+                        continue;  // two rings of the same parcel
+                    }
+                    long pair = pairKey(first >>> 1, second >>> 1);
+                    if ((first & 1) != (second & 1)) {
+                        accepted.add(pair);
+                    } else {
+                        suspects.add(pair);
+                    }
+                }
+            }
+        }
+        for (IntList owners : vertices.values()) {
+            for (int a = 0; a < owners.size; a++) {
+                for (int b = a + 1; b < owners.size; b++) {
+                    if (owners.items[a] != owners.items[b]) {
+                        suspects.add(pairKey(owners.items[a], owners.items[b]));
+                    }
+                }
+            }
+        }
+        suspects.removeAll(accepted);
+
+        List<Long> pairs = new ArrayList<>(accepted);
+        for (long pair : suspects) {
+            if (GeometryUtils.areAdjacent(records.get((int) (pair >>> 32)), records.get((int) pair))) {
+                pairs.add(pair);
+            }
+        }
+        pairs.sort(null);
+        List<int[]> result = new ArrayList<>(pairs.size());
+        for (long pair : pairs) {
+            result.add(new int[]{(int) (pair >>> 32), (int) pair});
+        }
+        return result;
+    }
+
+    /**
+     * Registers the vertices and segments of every part of a geometry.
+     */
+    private static void addGeometry(int index, Geometry geometry,
+                                    Map<Segment, IntList> segments, Map<Vertex, IntList> vertices) {
+        for (int n = 0; n < geometry.getNumGeometries(); n++) {
+            Geometry part = geometry.getGeometryN(n);
+            if (part instanceof Polygon) {
+                Polygon polygon = (Polygon) part;
+                addRing(index, polygon.getExteriorRing().getCoordinateSequence(), true, segments, vertices);
+                for (int h = 0; h < polygon.getNumInteriorRing(); h++) {
+                    addRing(index, polygon.getInteriorRingN(h).getCoordinateSequence(), false, segments, vertices);
+                }
+            } else if (part instanceof LineString || part instanceof Point) {
+                CoordinateSequence sequence = part instanceof Point
+                        ? ((Point) part).getCoordinateSequence()
+                        : ((LineString) part).getCoordinateSequence();
+                for (int k = 0; k < sequence.size(); k++) {
+                    addVertex(index, new Vertex(sequence.getX(k), sequence.getY(k)), vertices);
+                }
+            } else if (part != geometry) {
+                addGeometry(index, part, segments, vertices);
+            }
+        }
+    }
+
+    /**
+     * Registers the vertices and the oriented segments of one ring.
+     *
+     * @param shell {@code true} for an exterior ring, which is walked counter-clockwise; holes are
+     *              walked clockwise, so the polygon's interior is always on the left
+     */
+    private static void addRing(int index, CoordinateSequence ring, boolean shell,
+                                Map<Segment, IntList> segments, Map<Vertex, IntList> vertices) {
+        int size = ring.size();
+        if (size < 4) {
+            return;
+        }
+        boolean reverse = Orientation.isCCW(ring) != shell;
+        Vertex previous = null;
+        for (int k = 0; k < size; k++) {
+            int at = reverse ? size - 1 - k : k;
+            Vertex vertex = new Vertex(ring.getX(at), ring.getY(at));
+            if (k < size - 1) {
+                addVertex(index, vertex, vertices);
+            }
+            if (previous != null && !previous.equals(vertex)) {
+                addSegment(index, previous, vertex, segments);
+            }
+            previous = vertex;
+        }
+    }
+
+    private static void addVertex(int index, Vertex vertex, Map<Vertex, IntList> vertices) {
+        IntList owners = vertices.computeIfAbsent(vertex, v -> new IntList());
+        if (owners.size == 0 || owners.last() != index) {
+            owners.add(index);
+        }
+    }
+
+    private static void addSegment(int index, Vertex start, Vertex end, Map<Segment, IntList> segments) {
+        boolean forward = start.x < end.x || (start.x == end.x && start.y < end.y);
+        Segment segment = forward ? new Segment(start, end) : new Segment(end, start);
+        IntList owners = segments.computeIfAbsent(segment, s -> new IntList());
+        int entry = index << 1 | (forward ? 1 : 0);
+        if (owners.size == 0 || owners.last() >>> 1 != index) {
+            owners.add(entry);
+        }
+    }
+
+    private static long pairKey(int a, int b) {
+        int low = Math.min(a, b);
+        int high = Math.max(a, b);
+        return (long) low << 32 | high;
+    }
+}
@@ -0,0 +1,227 @@
+package iscteiul.ista;
+
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.simplify.TopologyPreservingSimplifier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Simplified versions of every parcel of a dataset at a few increasing tolerances ("levels"),
+ * computed once, in parallel, with JTS's {@link TopologyPreservingSimplifier} and kept for reuse.
+ * <p>
+ * Some parcels have thousands of vertices, which is wasted on zoomed-out views and on tests that
+ * only need to rule pairs out. The levels serve two purposes:
+ * <ul>
+ *   <li><strong>Rendering and export.</strong> {@link #getWkt(int, int)} gives a much smaller WKT
+ *       for a level (see {@link ExportToGephiUtils#buildGraph(List, SimplifiedGeometryLevels, int)}),
+ *       and {@link #levelFor(double)} picks the coarsest level whose error is acceptable, e.g. the
+ *       size of a pixel in map units.</li>
+ *   <li><strong>Conservative pre-filter.</strong> Every point of a parcel is within the level's
+ *       tolerance of its simplified version and vice versa, so two parcels can only meet if their
+ *       simplified versions are within twice that tolerance of each other.
+ *       {@link #mayIntersect(int, int, int)} is {@code false} only for pairs that certainly neither
+ *       touch nor intersect; the exact predicates of {@link GeometryUtils} decide the rest.</li>
+ * </ul>
+ * Rows are in the order of the list the levels were built from. Records without a valid geometry
+ * (or quarantined by {@link GeometryQuarantine}) have no simplified geometry. Instances are
+ * immutable and safe to read from several threads; the returned geometries are shared and must not
+ * be modified.
+ */
+public final class SimplifiedGeometryLevels {
+
+    private static final Logger logger = LoggerFactory.getLogger(SimplifiedGeometryLevels.class);
+
+    /** Default tolerances, in map units (metres for the cadastral data). */
+    private static final double[] DEFAULT_TOLERANCES = {1.0, 5.0, 25.0};
+
+    /** Slack on the pre-filter distance, for rounding differences between the simplifier and JTS distances. */
+    private static final double DISTANCE_SLACK = 1e-9;
+
+    private final double[] tolerances;
+    private final int[] objectIds;
+    private final Geometry[][] geometries;
+    private final long[] vertexCounts;
+    private final Map<Integer, Integer> indexById;
+
+    private SimplifiedGeometryLevels(double[] tolerances, int[] objectIds, Geometry[][] geometries) {
+        this.tolerances = tolerances;
+        this.objectIds = objectIds;
+        this.geometries = geometries;
+        this.vertexCounts = new long[tolerances.length];
+        for (int level = 0; level < tolerances.length; level++) {
+            for (Geometry geometry : geometries[level]) {
+                vertexCounts[level] += geometry == null ? 0 : geometry.getNumPoints();
+            }
+        }
+        this.indexById = new HashMap<>(objectIds.length * 2);
+        for (int i = 0; i < objectIds.length; i++) {
+            indexById.putIfAbsent(objectIds[i], i);
+        }
+    }
+
+    /**
+     * Builds the levels for {@code records} at the default tolerances of 1, 5 and 25 map units.
+     *
+     * @param records the parcels
+     * @return the levels, with one row per record in list order
+     */
+    public static SimplifiedGeometryLevels build(List<PropertyRecord> records) {
+        return build(records, DEFAULT_TOLERANCES);
+    }
+
+    /**
+     * Builds the levels for {@code records}, simplifying each parcel's geometry at every tolerance.
+     * The parcels are processed in parallel; each level is simplified from the full-resolution
+     * geometry, so its error is bounded by its own tolerance.
+     *
+     * @param records    the parcels
+     * @param tolerances the tolerance of each level, positive and increasing (finest level first)
+     * @return the levels, with one row per record in list order
+     * @throws IllegalArgumentException if no tolerance is given, or they are not positive and increasing
+     */
+    public static SimplifiedGeometryLevels build(List<PropertyRecord> records, double... tolerances) {
+        if (tolerances.length == 0) {
+            throw new IllegalArgumentException("At least one tolerance is required");
+        }
+        for (int level = 0; level < tolerances.length; level++) {
+            if (!(tolerances[level] > 0) || (level > 0 && !(tolerances[level] > tolerances[level - 1]))) {
+                throw new IllegalArgumentException("Tolerances must be positive and increasing, got "
+                        + Arrays.toString(tolerances));
+            }
+        }
+        long start = System.nanoTime();
+        int[] objectIds = new int[records.size()];
+        Geometry[][] geometries = new Geometry[tolerances.length][records.size()];
+        long[] fullVertices = new long[records.size()];
+        IntStream.range(0, records.size()).parallel().forEach(row -> {
+            PropertyRecord record = records.get(row);
+            objectIds[row] = record.getObjectID();
+            Geometry geometry = record.isQuarantined() ? null : GeometryCache.shared().peek(record);
+            if (geometry == null || geometry.isEmpty()) {
+                return;
+            }
+            fullVertices[row] = geometry.getNumPoints();
+            for (int level = 0; level < tolerances.length; level++) {
+                Geometry simplified = TopologyPreservingSimplifier.simplify(geometry, tolerances[level]);
+                simplified.getEnvelopeInternal();  // computed now, so readers never race to cache it
+                geometries[level][row] = simplified;
+            }
+        });
+        SimplifiedGeometryLevels levels = new SimplifiedGeometryLevels(tolerances.clone(), objectIds, geometries);
+        logger.debug("Simplified {} parcels in {} ms: {} vertices at full resolution, {} at tolerances {}",
+                records.size(), (System.nanoTime() - start) / 1_000_000, Arrays.stream(fullVertices).sum(),
+                Arrays.toString(levels.vertexCounts), Arrays.toString(tolerances));
+        return levels;
+    }
+
+    /**
+     * @return the number of rows
+     */
+    public int size() {
+        return objectIds.length;
+    }
+
+    /**
+     * @return the number of levels
+     */
+    public int getLevelCount() {
+        return tolerances.length;
+    }
+
+    /**
+     * @param level the level, 0 being the finest
+     * @return the tolerance the level was simplified with
+     */
+    public double getTolerance(int level) {
+        return tolerances[level];
+    }
+
+    /**
+     * Returns the coarsest level whose tolerance does not exceed {@code maxError}, e.g. the size of
+     * one pixel in map units for a map view.
+     *
+     * @param maxError the largest acceptable deviation from the full-resolution geometry
+     * @return the level, or -1 if even the finest level is too coarse (use the full-resolution geometry)
+     */
+    public int levelFor(double maxError) {
+        int level = -1;
+        while (level + 1 < tolerances.length && tolerances[level + 1] <= maxError) {
+            level++;
+        }
+        return level;
+    }
+
+    /**
+     * @param objectID a parcel's {@code objectID}
+     * @return the first row with that ID, or -1 if there is none
+     */
+    public int indexOf(int objectID) {
+        Integer row = indexById.get(objectID);
+        return row == null ? -1 : row;
+    }
+
+    /**
+     * @param row the row
+     * @return the {@code objectID} of the parcel
+     */
+    public int getObjectID(int row) {
+        return objectIds[row];
+    }
+
+    /**
+     * @param row   the row
+     * @param level the level
+     * @return the simplified geometry (shared, do not modify), or {@code null} if the parcel has none
+     */
+    public Geometry getGeometry(int row, int level) {
+        return geometries[level][row];
+    }
+
+    /**
+     * @param row   the row
+     * @param level the level
+     * @return the WKT of the simplified geometry, or {@code null} if the parcel has none
+     */
+    public String getWkt(int row, int level) {
+        Geometry geometry = geometries[level][row];
+        return geometry == null ? null : geometry.toText();
+    }
+
+    /**
+     * @param level the level
+     * @return the total number of vertices of all parcels at that level
+     */
+    public long getVertexCount(int level) {
+        return vertexCounts[level];
+    }
+
+    /**
+     * Conservative pre-filter for {@link GeometryUtils#areAdjacent(PropertyRecord, PropertyRecord)}
+     * and {@link GeometryUtils#doIntersect(PropertyRecord, PropertyRecord)}: tests the simplified
+     * geometries of a level, allowing for the error of both.
+     *
+     * @param rowA  the row of the first parcel
+     * @param rowB  the row of the second parcel
+     * @param level the level to test at (coarser levels are cheaper and rule out fewer pairs)
+     * @return {@code false} if the full-resolution parcels certainly do not meet (or either has no
+     *         geometry); {@code true} if they may touch or intersect
+     */
+    public boolean mayIntersect(int rowA, int rowB, int level) {
+        Geometry a = geometries[level][rowA];
+        Geometry b = geometries[level][rowB];
+        if (a == null || b == null) {
+            return false;
+        }
+        double distance = 2 * tolerances[level] * (1 + DISTANCE_SLACK);
+        Envelope envelope = new Envelope(a.getEnvelopeInternal());
+        envelope.expandBy(distance);
+        return envelope.intersects(b.getEnvelopeInternal()) && a.isWithinDistance(b, distance);
+    }
+}
@@ -0,0 +1,115 @@
+package iscteiul.ista;
+
+import org.locationtech.jts.geom.Envelope;
+
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Predicate;
+
+/**
+ * A spatial index of items keyed by their bounding box, which, unlike JTS's
+ * {@link org.locationtech.jts.index.strtree.STRtree}, stays open for changes after it has been
+ * queried: items can be inserted, removed and moved at any time.
+ * <p>
+ * Items are compared by identity ({@code ==}), as in the JTS indexes. Items with a {@code null} or
+ * null (empty) envelope have no location and are not indexed.
+ *
+ * @param <T> the type of the indexed items
+ * @see DynamicRTree
+ */
+public interface SpatialIndex<T> {
+
+    /**
+     * Adds an item.
+     *
+     * @param envelope the item's bounding box
+     * @param item     the item
+     */
+    void insert(Envelope envelope, T item);
+
+    /**
+     * Adds many items. Implementations may load them faster than one {@link #insert} at a time.
+     *
+     * @param envelopes the bounding boxes, one per item
+     * @param items     the items
+     * @throws IllegalArgumentException if the two lists differ in size
+     */
+    default void insertAll(List<Envelope> envelopes, List<? extends T> items) {
+        if (envelopes.size() != items.size()) {
+            throw new IllegalArgumentException("Expected one envelope per item, got " + envelopes.size()
+                    + " envelopes for " + items.size() + " items");
+        }
+        for (int i = 0; i < items.size(); i++) {
+            insert(envelopes.get(i), items.get(i));
+        }
+    }
+
+    /**
+     * Removes an item.
+     *
+     * @param envelope the bounding box the item was inserted with
+     * @param item     the item
+     * @return {@code true} if the item was found and removed
+     */
+    boolean remove(Envelope envelope, T item);
+
+    /**
+     * Moves an item to a new bounding box, e.g. after its geometry was edited.
+     *
+     * @param oldEnvelope the bounding box the item was inserted with
+     * @param newEnvelope its new bounding box
+     * @param item        the item
+     * @return {@code true} if the item was in the index (it is inserted either way)
+     */
+    default boolean update(Envelope oldEnvelope, Envelope newEnvelope, T item) {
+        boolean removed = remove(oldEnvelope, item);
+        insert(newEnvelope, item);
+        return removed;
+    }
+
+    /**
+     * Finds the items whose bounding box intersects {@code searchEnvelope}.
+     *
+     * @param searchEnvelope the area to search
+     * @return the items found, in no particular order
+     */
+    List<T> query(Envelope searchEnvelope);
+
+    /**
+     * Passes the items whose bounding box intersects {@code searchEnvelope} to {@code visitor}, one
+     * at a time and without collecting them, until the visitor returns {@code false}. Use this to
+     * stream results or stop after the first few.
+     *
+     * @param searchEnvelope the area to search
+     * @param visitor        called with each item found, in no particular order; returns
+     *                       {@code false} to stop the search
+     * @return {@code true} if every item found was visited, {@code false} if the visitor stopped
+     */
+    default boolean visit(Envelope searchEnvelope, Predicate<? super T> visitor) {
+        for (T item : query(searchEnvelope)) {
+            if (!visitor.test(item)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the items whose bounding box intersects {@code searchEnvelope} as a
+     * {@link Spliterator}, e.g. for {@link java.util.stream.StreamSupport#stream(Spliterator, boolean)}.
+     * Implementations should search lazily, one item per {@link Spliterator#tryAdvance}, so that a
+     * short-circuiting stream stops the search; the default collects the result of
+     * {@link #query(Envelope)} first. The index must not be changed while the spliterator is in use.
+     *
+     * @param searchEnvelope the area to search
+     * @return the items found, in no particular order
+     */
+    default Spliterator<T> spliterator(Envelope searchEnvelope) {
+        return query(searchEnvelope).spliterator();
+    }
+
+    /**
+     * @return the number of indexed items
+     */
+    int size();
+}
@@ -0,0 +1,263 @@
+package iscteiul.ista;
+
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.prep.PreparedGeometry;
+import org.locationtech.jts.geom.prep.PreparedGeometryFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Range queries over the in-memory dataset: the parcels that meet a window (e.g. a map viewport
+ * or an export tile) or a polygon, answered from a {@link DynamicRTree} over the parcel envelopes
+ * instead of a linear filter or a PostGIS round trip through {@link PostGISUtils}.
+ * <p>
+ * A parcel is returned if its geometry intersects the search area (touching counts). The index
+ * rules out the parcels whose envelope misses the area; parcels whose envelope lies inside a window
+ * are accepted without parsing their geometry, and only those on the window's edge, or all
+ * candidates of a polygon query, are tested exactly against their geometry (from the
+ * {@link GeometryCache#shared() shared geometry cache}).
+ * <p>
+ * Each query comes in four shapes: a list of records, an array of {@code objectID}s with a result
+ * limit, a lazy {@link Stream} and a visitor that can stop the search early. Limited queries stop
+ * as soon as the limit is reached, so they return an arbitrary subset of the matching parcels.
+ * Records without a valid geometry (or quarantined by {@link GeometryQuarantine}) are never
+ * returned.
+ * <p>
+ * Instances are not updated when the records change; build a new one (see
+ * {@link App#getSpatialQueries()}). They are safe to query from several threads.
+ */
+public final class SpatialQueries {
+
+    private static final Logger logger = LoggerFactory.getLogger(SpatialQueries.class);
+
+    private static final GeometryFactory FACTORY = new GeometryFactory();
+
+    private final SpatialIndex<PropertyRecord> index;
+
+    private SpatialQueries(SpatialIndex<PropertyRecord> index) {
+        this.index = index;
+    }
+
+    /**
+     * Indexes the envelopes of {@code records}, read from their WKT text without parsing it.
+     *
+     * @param records the parcels; {@code null} elements are ignored
+     * @return the queries over those parcels
+     */
+    public static SpatialQueries build(List<PropertyRecord> records) {
+        long start = System.nanoTime();
+        List<Envelope> envelopes = new ArrayList<>(records.size());
+        List<PropertyRecord> indexed = new ArrayList<>(records.size());
+        for (PropertyRecord record : records) {
+            Envelope envelope = record == null || record.isQuarantined() ? null : record.envelope();
+            if (envelope != null) {
+                envelopes.add(envelope);
+                indexed.add(record);
+            }
+        }
+        DynamicRTree<PropertyRecord> tree = new DynamicRTree<>();
+        tree.insertAll(envelopes, indexed);
+        logger.debug("Indexed {} of {} parcels for range queries in {} ms", tree.size(), records.size(),
+                (System.nanoTime() - start) / 1_000_000);
+        return new SpatialQueries(tree);
+    }
+
+    /**
+     * @return the number of indexed parcels
+     */
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * Finds the parcels that meet a window.
+     *
+     * @param window the window, e.g. a map viewport in map units
+     * @return the parcels whose geometry intersects the window, in no particular order
+     */
+    public List<PropertyRecord> inEnvelope(Envelope window) {
+        return inEnvelope(window, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Finds up to {@code limit} parcels that meet a window.
+     *
+     * @param window the window
+     * @param limit  the largest number of parcels to return
+     * @return the parcels found, in no particular order
+     * @throws IllegalArgumentException if {@code limit} is negative
+     */
+    public List<PropertyRecord> inEnvelope(Envelope window, int limit) {
+        List<PropertyRecord> result = new ArrayList<>();
+        collect(window, windowTest(window), limit, result::add);
+        return result;
+    }
+
+    /**
+     * Finds the {@code objectID}s of up to {@code limit} parcels that meet a window.
+     *
+     * @param window the window
+     * @param limit  the largest number of IDs to return ({@link Integer#MAX_VALUE} for all)
+     * @return the IDs found, sorted
+     * @throws IllegalArgumentException if {@code limit} is negative
+     */
+    public int[] idsInEnvelope(Envelope window, int limit) {
+        return ids(window, windowTest(window), limit);
+    }
+
+    /**
+     * Streams the parcels that meet a window. The index is searched and the exact tests run as the
+     * stream is consumed, so a short-circuiting stream (e.g. with {@link Stream#limit(long)}) stops
+     * the search early.
+     *
+     * @param window the window
+     * @return the parcels whose geometry intersects the window, in no particular order
+     */
+    public Stream<PropertyRecord> streamInEnvelope(Envelope window) {
+        return StreamSupport.stream(index.spliterator(window), false).filter(windowTest(window));
+    }
+
+    /**
+     * Passes the parcels that meet a window to {@code visitor}, one at a time, without collecting
+     * them.
+     *
+     * @param window  the window
+     * @param visitor called with each parcel found; returns {@code false} to stop the search
+     * @return {@code true} if every parcel found was visited, {@code false} if the visitor stopped
+     */
+    public boolean forEachInEnvelope(Envelope window, Predicate<? super PropertyRecord> visitor) {
+        return visit(window, windowTest(window), visitor);
+    }
+
+    /**
+     * Finds the parcels that meet a polygon (or any other geometry).
+     *
+     * @param area the search area, in the coordinates of the dataset
+     * @return the parcels whose geometry intersects the area, in no particular order
+     */
+    public List<PropertyRecord> inPolygon(Geometry area) {
+        return inPolygon(area, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Finds up to {@code limit} parcels that meet a polygon.
+     *
+     * @param area  the search area
+     * @param limit the largest number of parcels to return
+     * @return the parcels found, in no particular order
+     * @throws IllegalArgumentException if {@code limit} is negative
+     */
+    public List<PropertyRecord> inPolygon(Geometry area, int limit) {
+        List<PropertyRecord> result = new ArrayList<>();
+        collect(envelopeOf(area), areaTest(area), limit, result::add);
+        return result;
+    }
+
+    /**
+     * Finds the {@code objectID}s of up to {@code limit} parcels that meet a polygon.
+     *
+     * @param area  the search area
+     * @param limit the largest number of IDs to return ({@link Integer#MAX_VALUE} for all)
+     * @return the IDs found, sorted
+     * @throws IllegalArgumentException if {@code limit} is negative
+     */
+    public int[] idsInPolygon(Geometry area, int limit) {
+        return ids(envelopeOf(area), areaTest(area), limit);
+    }
+
+    /**
+     * Streams the parcels that meet a polygon, searching the index and testing the candidates as the
+     * stream is consumed.
+     *
+     * @param area the search area
+     * @return the parcels whose geometry intersects the area, in no particular order
+     */
+    public Stream<PropertyRecord> streamInPolygon(Geometry area) {
+        return StreamSupport.stream(index.spliterator(envelopeOf(area)), false).filter(areaTest(area));
+    }
+
+    /**
+     * Passes the parcels that meet a polygon to {@code visitor}, one at a time, without collecting
+     * them.
+     *
+     * @param area    the search area
+     * @param visitor called with each parcel found; returns {@code false} to stop the search
+     * @return {@code true} if every parcel found was visited, {@code false} if the visitor stopped
+     */
+    public boolean forEachInPolygon(Geometry area, Predicate<? super PropertyRecord> visitor) {
+        return visit(envelopeOf(area), areaTest(area), visitor);
+    }
+
+    private boolean visit(Envelope searchEnvelope, Predicate<PropertyRecord> test,
+                          Predicate<? super PropertyRecord> visitor) {
+        return index.visit(searchEnvelope, record -> !test.test(record) || visitor.test(record));
+    }
+
+    private void collect(Envelope searchEnvelope, Predicate<PropertyRecord> test, int limit,
+                         Predicate<PropertyRecord> sink) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("The limit must not be negative, got " + limit);
+        }
+        if (limit == 0) {
+            return;
+        }
+        int[] found = {0};
+        visit(searchEnvelope, test, record -> sink.test(record) && ++found[0] < limit);
+    }
+
+    private int[] ids(Envelope searchEnvelope, Predicate<PropertyRecord> test, int limit) {
+        List<PropertyRecord> found = new ArrayList<>();
+        collect(searchEnvelope, test, limit, found::add);
+        int[] ids = new int[found.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = found.get(i).getObjectID();
+        }
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    /**
+     * The exact test for a window: parcels whose envelope lies inside it need no geometry.
+     */
+    private static Predicate<PropertyRecord> windowTest(Envelope window) {
+        if (window == null || window.isNull()) {
+            return record -> false;
+        }
+        Geometry rectangle = FACTORY.toGeometry(window);
+        return record -> {
+            Envelope envelope = record.envelope();
+            if (envelope != null && window.covers(envelope)) {
+                return true;
+            }
+            Geometry geometry = GeometryCache.shared().get(record);
+            return geometry != null && rectangle.intersects(geometry);
+        };
+    }
+
+    /**
+     * The exact test for a polygon, prepared once for all candidates.
+     */
+    private static Predicate<PropertyRecord> areaTest(Geometry area) {
+        if (area == null || area.isEmpty()) {
+            return record -> false;
+        }
+        PreparedGeometry prepared = PreparedGeometryFactory.prepare(area);
+        return record -> {
+            Geometry geometry = GeometryCache.shared().get(record);
+            return geometry != null && prepared.intersects(geometry);
+        };
+    }
+
+    private static Envelope envelopeOf(Geometry area) {
+        return area == null ? null : area.getEnvelopeInternal();
+    }
+}
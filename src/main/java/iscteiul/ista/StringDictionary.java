@@ -0,0 +1,110 @@
+package iscteiul.ista;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A thread-safe dictionary that assigns a small, dense {@code int} code to each distinct String and
+ * keeps one canonical String instance per value.
+ * <p>
+ * Cadastral data has only a few dozen distinct parish, municipality and island names across tens of
+ * thousands of rows. Dictionary-encoding those columns lets every row store an {@code int} instead of
+ * its own String, and lets filters compare codes instead of calling {@link String#equals(Object)}.
+ *
+ * <p>Codes are assigned in insertion order starting at 0 and never change. {@code null} is encoded
+ * as {@link #NULL_CODE}.
+ */
+public final class StringDictionary {
+
+    /** Code used for {@code null} values and returned by {@link #codeOf(String)} for unknown values. */
+    public static final int NULL_CODE = -1;
+
+    /** Value to code mapping; lock-free for lookups of existing values. */
+    private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<>();
+
+    /** Code to value mapping; only grows, under the instance lock. */
+    private volatile String[] values = new String[16];
+
+    /** Number of assigned codes; written under the instance lock. */
+    private volatile int size;
+
+    /**
+     * Returns the code of {@code value}, assigning a new one if the value was never seen.
+     *
+     * @param value the String to encode, may be {@code null}
+     * @return the code of the value, or {@link #NULL_CODE} for {@code null}
+     */
+    public int intern(String value) {
+        if (value == null) {
+            return NULL_CODE;
+        }
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        synchronized (this) {
+            code = codes.get(value);
+            if (code != null) {
+                return code;
+            }
+            int newCode = size;
+            String[] current = values;
+            if (newCode == current.length) {
+                current = Arrays.copyOf(current, current.length * 2);
+            }
+            current[newCode] = value;
+            values = current;
+            size = newCode + 1;
+            codes.put(value, newCode);
+            return newCode;
+        }
+    }
+
+    /**
+     * Returns the canonical instance equal to {@code value}, adding it if necessary.
+     *
+     * @param value the String to canonicalize, may be {@code null}
+     * @return the shared instance, or {@code null} for {@code null}
+     */
+    public String canonical(String value) {
+        return valueOf(intern(value));
+    }
+
+    /**
+     * Returns the code of {@code value} without adding it.
+     *
+     * @param value the String to look up, may be {@code null}
+     * @return the code, or {@link #NULL_CODE} if the value is {@code null} or unknown
+     */
+    public int codeOf(String value) {
+        if (value == null) {
+            return NULL_CODE;
+        }
+        Integer code = codes.get(value);
+        return code == null ? NULL_CODE : code;
+    }
+
+    /**
+     * Returns the value for a code.
+     *
+     * @param code a code returned by {@link #intern(String)}, or {@link #NULL_CODE}
+     * @return the canonical String, or {@code null} for {@link #NULL_CODE}
+     * @throws IndexOutOfBoundsException if the code was never assigned
+     */
+    public String valueOf(int code) {
+        if (code == NULL_CODE) {
+            return null;
+        }
+        if (code < 0 || code >= size) {
+            throw new IndexOutOfBoundsException("Unknown dictionary code: " + code);
+        }
+        return values[code];
+    }
+
+    /**
+     * @return the number of distinct (non-null) values in the dictionary
+     */
+    public int size() {
+        return size;
+    }
+}
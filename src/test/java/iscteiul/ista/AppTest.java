@@ -1,7 +1,13 @@
 package iscteiul.ista;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.junit.jupiter.api.Test;
 
 /**
@@ -16,4 +22,41 @@ public class AppTest {
     public void shouldAnswerWithTrue() {
         assertTrue(true);
     }
+
+    /**
+     * The values derived from the loaded records are built once, and rebuilt after the records
+     * are replaced or resized in place.
+     */
+    @Test
+    public void testDerivedDataFollowsTheRecords() {
+        List<PropertyRecord> saved = App.getPropertyRecords();
+        try {
+            List<PropertyRecord> records = new ArrayList<>();
+            records.add(TestParcels.record(1, TestParcels.rectangle(0, 0, 1, 1)));
+            records.add(TestParcels.record(2, TestParcels.rectangle(1, 0, 1, 1)));
+            App.setPropertyRecords(records);
+
+            GeometryDerivedTable table = App.getDerivedTable();
+            SpatialQueries queries = App.getSpatialQueries();
+            NearestParcels nearest = App.getNearestParcels();
+            SimplifiedGeometryLevels levels = App.getSimplifiedLevels();
+            assertSame(table, App.getDerivedTable());
+            assertSame(queries, App.getSpatialQueries());
+            assertSame(nearest, App.getNearestParcels());
+            assertSame(levels, App.getSimplifiedLevels());
+            assertEquals(2, table.size());
+
+            records.add(TestParcels.record(3, TestParcels.rectangle(2, 0, 1, 1)));
+            assertEquals(3, App.getDerivedTable().size(), "Resized in place");
+            assertEquals(3, App.getSpatialQueries().size());
+            assertEquals(3, App.getNearestParcels().size());
+
+            App.setPropertyRecords(new ArrayList<>(records));
+            assertNotSame(table, App.getDerivedTable());
+            assertNotSame(levels, App.getSimplifiedLevels());
+            assertEquals(3, App.getSimplifiedLevels().size());
+        } finally {
+            App.setPropertyRecords(saved);
+        }
+    }
 }
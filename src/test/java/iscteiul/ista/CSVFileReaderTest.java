@@ -1,8 +1,19 @@
 package iscteiul.ista;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -72,4 +83,327 @@ class CSVFileReaderTest {
         // Expect an empty list since the file doesn't exist
         assertTrue(records.isEmpty(), "Records should be empty if the CSV file doesn't exist.");
     }
+
+    /**
+     * Verifies that the parallel import of {@code test-data.csv} yields the same records,
+     * in the same order, as the sequential import.
+     */
+    @Test
+    void testImportDataParallelMatchesSequential() throws URISyntaxException {
+        String path = Paths.get(getClass().getResource("/test-data.csv").toURI()).toString();
+        CSVFileReader reader = new CSVFileReader();
+
+        List<PropertyRecord> sequential = reader.importDataFromFile(path);
+        List<PropertyRecord> parallel = reader.importDataParallel(path, 4);
+
+        assertEquals(sequential.size(), parallel.size(), "Parallel import should load the same number of rows");
+        for (int i = 0; i < sequential.size(); i++) {
+            assertEquals(sequential.get(i).toString(), parallel.get(i).toString(),
+                    "Record " + i + " should be identical in both modes");
+        }
+    }
+
+    /**
+     * Builds a file with many rows, some of them holding quoted multi-line fields and escaped
+     * quotes, and verifies that the parallel import never splits a record and keeps file order.
+     */
+    @Test
+    void testImportDataParallelWithMultiLineFields(@TempDir Path tempDir) throws IOException {
+        int rows = 500;
+        Path file = writeSampleCsv(tempDir.resolve("multi-line.csv"), rows);
+
+        CSVFileReader reader = new CSVFileReader();
+        List<PropertyRecord> sequential = reader.importDataFromFile(file.toString());
+        List<PropertyRecord> parallel = reader.importDataParallel(file.toString(), 8);
+
+        assertEquals(rows, sequential.size(), "Sequential import should load every row");
+        assertEquals(rows, parallel.size(), "Parallel import should load every row");
+        for (int i = 0; i < rows; i++) {
+            assertEquals(i + 1, parallel.get(i).getObjectID(), "Records must keep the original file order");
+            assertEquals(sequential.get(i).toString(), parallel.get(i).toString(),
+                    "Record " + i + " should be identical in both modes");
+        }
+        assertEquals(2996240000000L, parallel.get(0).getParcelNumber(), "Comma-decimal parcel number");
+        assertEquals("\"Quoted\" Parish", parallel.get(6).getParish(), "Escaped quotes are preserved");
+        assertNull(parallel.get(0).getIsland(), "\"NA\" maps to null");
+    }
+
+    /**
+     * Verifies that the parallel import returns an empty list for a missing file and rejects
+     * a non-positive parallelism.
+     */
+    @Test
+    void testImportDataParallelInvalidArguments() {
+        CSVFileReader reader = new CSVFileReader();
+        assertTrue(reader.importDataParallel("target/does-not-exist.csv", 2).isEmpty(),
+                "Missing file => empty list");
+        assertThrows(IllegalArgumentException.class, () -> reader.importDataParallel("target/x.csv", 0),
+                "Parallelism below 1 must be rejected");
+    }
+
+    /**
+     * Verifies that the memory-mapped import yields exactly the same records as the OpenCSV-based
+     * import, both for {@code test-data.csv} and for a larger file with multi-line quoted fields.
+     */
+    @Test
+    void testImportDataMappedMatchesOpenCsv(@TempDir Path tempDir) throws IOException, URISyntaxException {
+        CSVFileReader reader = new CSVFileReader();
+        String testData = Paths.get(getClass().getResource("/test-data.csv").toURI()).toString();
+        Path sample = writeSampleCsv(tempDir.resolve("sample.csv"), 300);
+
+        for (String path : List.of(testData, sample.toString())) {
+            List<PropertyRecord> expected = reader.importDataFromFile(path);
+            List<PropertyRecord> mapped = reader.importDataMapped(path);
+
+            assertEquals(expected.size(), mapped.size(), "Mapped import should load the same rows from " + path);
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i).toString(), mapped.get(i).toString(),
+                        "Record " + i + " of " + path + " should be identical in both modes");
+            }
+        }
+        assertTrue(reader.importDataMapped("target/does-not-exist.csv").isEmpty(), "Missing file => empty list");
+    }
+
+    /**
+     * Verifies that rows with malformed numbers are skipped by the memory-mapped import,
+     * just as they are by the OpenCSV path.
+     */
+    @Test
+    void testImportDataMappedSkipsMalformedRows(@TempDir Path tempDir) throws IOException {
+        Path file = tempDir.resolve("malformed.csv");
+        Files.write(file, ("objectID;parcelID;parcelNumber;shapeLength;shapeArea;geometry;owner;parish;municipality;island\r\n"
+                + "1;1;1;1.0;2.0;\"POINT (0 0)\";5;P;M;I\r\n"
+                + "x;1;1;1.0;2.0;\"POINT (0 0)\";5;P;M;I\r\n"
+                + "3;1;1;1.0;2.0;\"POINT (0 0)\";5;P;M\r\n"
+                + "4;1;1;1.0;2.0;\"POINT (0 0)\";5;P;M;I").getBytes(StandardCharsets.UTF_8));
+
+        List<PropertyRecord> records = new CSVFileReader().importDataMapped(file.toString());
+
+        assertEquals(2, records.size(), "Malformed and short rows should be skipped");
+        assertEquals(1, records.get(0).getObjectID(), "First valid row");
+        assertEquals("I", records.get(0).getIsland(), "CRLF line ending is not part of the last column");
+        assertEquals(4, records.get(1).getObjectID(), "Last row without trailing newline is read");
+    }
+
+    /**
+     * Verifies that every eager import publishes an {@link IngestReport} with the loaded rows, the
+     * bytes read and the rejected rows per column, for both the OpenCSV and memory-mapped readers.
+     */
+    @Test
+    void testIngestReport(@TempDir Path tempDir) throws IOException {
+        Path file = tempDir.resolve("report.csv");
+        byte[] bytes = ("objectID;parcelID;parcelNumber;shapeLength;shapeArea;geometry;owner;parish;municipality;island\n"
+                + "1;1;1;1.0;2.0;\"POINT (0 0)\";5;P;M;I\n"
+                + "x;1;1;1.0;2.0;\"POINT (0 0)\";5;P;M;I\n"
+                + "3;1;1;abc;2.0;\"POINT (0 0)\";5;P;M;I\n"
+                + "4;1;1;1.0;2.0;\"POINT (0 0)\";5;P;M\n"
+                + "5;1;1;1.0;2.0;\"POINT (0 0)\";y;P;M;I\n"
+                + "6;1;1;1.0;2.0;\"POINT (0 0)\";5;P;M;I\n").getBytes(StandardCharsets.UTF_8);
+        Files.write(file, bytes);
+        CSVFileReader reader = new CSVFileReader();
+        Map<String, Long> expectedRejects = Map.of("objectID", 1L, "shapeLength", 1L, "owner", 1L,
+                IngestReport.COLUMN_COUNT, 1L);
+
+        List<IngestReport> reports = new ArrayList<>();
+        assertEquals(2, reader.importDataFromFile(file.toString(), reports::add).size());
+        assertEquals(2, reader.importDataMapped(file.toString(), reports::add).size());
+        assertEquals(2, reader.importDataParallel(file.toString(), 2, reports::add).size());
+        assertEquals(3, reports.size(), "One report per import");
+        IngestReport mapped = reports.get(1);
+
+        for (IngestReport report : reports) {
+            assertEquals(2, report.getRowsLoaded(), "Rows loaded");
+            assertEquals(4, report.getRejectedRows(), "Rows rejected");
+            assertEquals(expectedRejects, report.getRejectsByColumn(), "Rejects per column");
+            assertEquals(bytes.length, report.getBytesRead(), "Bytes read");
+            assertTrue(report.getElapsedNanos() > 0, "Elapsed time");
+            assertTrue(report.getTokenizeNanos() > 0 && report.getNumberParseNanos() > 0
+                    && report.getObjectCreationNanos() > 0, "Every phase is timed: " + report);
+            assertTrue(report.getPeakHeapBytes() > 0, "Peak heap");
+        }
+        assertTrue(mapped.getRejectExamples().get(0).startsWith("row 2 in "), mapped.getRejectExamples().get(0));
+
+        List<IngestReport> streamed = new ArrayList<>();
+        try (Stream<PropertyRecord> rows = reader.stream(file.toString(), RowFilter.all(), streamed::add)) {
+            assertEquals(2, rows.count());
+        }
+        assertEquals(1, streamed.size(), "The report is handed over when the stream is closed");
+        assertEquals(2, streamed.get(0).getRowsLoaded());
+        assertEquals(expectedRejects, streamed.get(0).getRejectsByColumn(), "Streamed rejects per column");
+        assertEquals(bytes.length, streamed.get(0).getBytesRead());
+
+        reports.clear();
+        assertTrue(reader.importDataFromFile("target/does-not-exist.csv", reports::add).isEmpty());
+        assertTrue(reports.isEmpty(), "No report for a missing file");
+    }
+
+    /**
+     * Verifies that {@link CSVFileReader#importDirectory(String, int)} merges all CSV shards of a
+     * directory in file name order, drops objectIDs already taken from an earlier shard and reports
+     * every shard.
+     */
+    @Test
+    void testImportDirectory(@TempDir Path tempDir) throws IOException {
+        String header = "objectID;parcelID;parcelNumber;shapeLength;shapeArea;geometry;owner;parish;municipality;island\n";
+        Files.write(tempDir.resolve("b-porto-santo.csv"), (header
+                + "10;1;1;1.0;2.0;\"POINT (0 0)\";5;P;Porto Santo;Ilha de Porto Santo\n"
+                + "3;1;1;1.0;2.0;\"POINT (0 0)\";5;P;Porto Santo;Ilha de Porto Santo\n").getBytes(StandardCharsets.UTF_8));
+        StringBuilder madeira = new StringBuilder(header);
+        for (int id = 1; id <= 6; id++) {
+            madeira.append(id).append(";1;1;1.0;2.0;\"POINT (0 0)\";5;P;Funchal;Ilha da Madeira\n");
+        }
+        Files.write(tempDir.resolve("a-madeira.csv"), madeira.toString().getBytes(StandardCharsets.UTF_8));
+        Files.write(tempDir.resolve("notes.txt"), "not a shard".getBytes(StandardCharsets.UTF_8));
+        CSVFileReader reader = new CSVFileReader();
+
+        List<IngestReport> reports = new ArrayList<>();
+        List<ShardReport> shardReports = new ArrayList<>();
+        List<PropertyRecord> records = reader.importDirectory(tempDir.toString(), 2, reports::add, shardReports::add);
+
+        assertEquals(List.of(1, 2, 3, 4, 5, 6, 10),
+                records.stream().map(PropertyRecord::getObjectID).collect(Collectors.toList()),
+                "Shards merged in file name order; duplicate objectID 3 kept from the first shard");
+        assertEquals("Funchal", records.get(2).getMunicipality());
+        ShardReport shards = shardReports.get(0);
+        assertEquals(2, shards.getShards().size(), "Only .csv files are shards");
+        assertEquals(6, shards.getShards().get(0).getRows());
+        assertEquals(1, shards.getShards().get(1).getDuplicates());
+        assertTrue(shards.getShards().get(0).getFile().endsWith("a-madeira.csv"));
+        assertEquals(1.5, shards.getRowSkew(), 1e-9, "6 rows against a mean of 4");
+        assertEquals(7, reports.get(0).getRowsLoaded());
+
+        shardReports.clear();
+        assertTrue(reader.importDirectory(tempDir.resolve("missing").toString(), 2, reports::add,
+                shardReports::add).isEmpty());
+        assertTrue(shardReports.isEmpty(), "No report for a missing directory");
+        assertThrows(IllegalArgumentException.class, () -> reader.importDirectory(tempDir.toString(), 0));
+    }
+
+    /**
+     * Verifies that {@link CSVFileReader#stream(String, RowFilter)} emits only the rows accepted by the
+     * filter, in file order, with the same content as the eager import.
+     */
+    @Test
+    void testStreamWithParishFilter(@TempDir Path tempDir) throws IOException {
+        Path file = writeSampleCsv(tempDir.resolve("stream.csv"), 100);
+        CSVFileReader reader = new CSVFileReader();
+
+        List<PropertyRecord> expected = reader.importDataFromFile(file.toString()).stream()
+                .filter(r -> "Parish 10".equals(r.getParish()) || "\"Quoted\" Parish".equals(r.getParish()))
+                .collect(Collectors.toList());
+        RowFilter filter = RowFilter.parish("Parish 10").and(RowFilter.municipality("Calheta"));
+        RowFilter quoted = RowFilter.parish("\"Quoted\" Parish");
+
+        List<PropertyRecord> streamed;
+        try (Stream<PropertyRecord> rows = reader.stream(file.toString(),
+                (p, m, i) -> filter.accept(p, m, i) || quoted.accept(p, m, i))) {
+            streamed = rows.collect(Collectors.toList());
+        }
+
+        assertEquals(expected.size(), streamed.size(), "Streamed subset should match the filtered eager import");
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).toString(), streamed.get(i).toString(), "Record " + i + " should match");
+        }
+        try (Stream<PropertyRecord> rows = reader.stream(file.toString(), RowFilter.all())) {
+            assertEquals(100, rows.count(), "RowFilter.all() should emit every row");
+        }
+        try (Stream<PropertyRecord> rows = reader.stream(file.toString(), RowFilter.island("Madeira"))) {
+            assertEquals(0, rows.count(), "\"NA\" islands are null and never match");
+        }
+    }
+
+    /**
+     * Verifies that streaming a missing file yields an empty stream, and that a classpath resource can
+     * be resolved to a file so it can be streamed.
+     */
+    @Test
+    void testStreamMissingFileAndResourceResolution() {
+        CSVFileReader reader = new CSVFileReader();
+        try (Stream<PropertyRecord> rows = reader.stream("target/does-not-exist.csv", RowFilter.all())) {
+            assertEquals(0, rows.count(), "Missing file => empty stream");
+        }
+        assertNull(reader.resolveResourceFile("/nonexistent.csv"), "Missing resource => null");
+
+        String testData = reader.resolveResourceFile("/test-data.csv");
+        assertNotNull(testData, "Test resources are plain files on the classpath");
+        try (Stream<PropertyRecord> rows = reader.stream(testData, RowFilter.parish("Arco da Calheta"))) {
+            assertEquals(2, rows.count(), "Both rows of test-data.csv are in Arco da Calheta");
+        }
+    }
+
+    /**
+     * Verifies that {@link CSVFileReader#importData(String)} writes a snapshot next to a file-based
+     * resource and that the next import (served from the snapshot) returns the same records.
+     */
+    @Test
+    void testImportDataUsesSnapshot() {
+        CSVFileReader reader = new CSVFileReader();
+        Path csv = Paths.get(reader.resolveResourceFile("/test-data.csv"));
+        Path snapshot = DatasetSnapshot.snapshotPathFor(csv);
+
+        reader.setSnapshotCacheEnabled(false);
+        List<PropertyRecord> parsed = reader.importData("/test-data.csv");
+
+        reader.setSnapshotCacheEnabled(true);
+        List<PropertyRecord> first = reader.importData("/test-data.csv");
+        assertTrue(Files.exists(snapshot), "A snapshot should be written next to the CSV");
+        List<PropertyRecord> second = reader.importData("/test-data.csv");
+
+        assertNotNull(DatasetSnapshot.read(snapshot, csv), "The snapshot should be up to date");
+        assertEquals(parsed.size(), second.size(), "Snapshot-based import should load the same rows");
+        for (int i = 0; i < parsed.size(); i++) {
+            assertEquals(parsed.get(i).toString(), first.get(i).toString(), "Record " + i + " (first import)");
+            assertEquals(parsed.get(i).toString(), second.get(i).toString(), "Record " + i + " (from snapshot)");
+        }
+    }
+
+    /**
+     * Verifies that with lazy geometry enabled the mapped and streaming readers return records that
+     * do not decode their WKT until it is requested, and then yield the same content as an eager import.
+     */
+    @Test
+    void testLazyGeometry(@TempDir Path tempDir) throws IOException {
+        Path file = writeSampleCsv(tempDir.resolve("lazy.csv"), 50);
+        CSVFileReader reader = new CSVFileReader();
+        List<PropertyRecord> eager = reader.importDataMapped(file.toString());
+
+        reader.setLazyGeometryEnabled(true);
+        List<PropertyRecord> lazy = reader.importDataMapped(file.toString());
+        List<PropertyRecord> streamed;
+        try (Stream<PropertyRecord> rows = reader.stream(file.toString(), RowFilter.all())) {
+            streamed = rows.collect(Collectors.toList());
+        }
+
+        assertFalse(eager.get(0).isGeometryLazy(), "Lazy geometry is off by default");
+        assertEquals(eager.size(), lazy.size());
+        assertEquals(eager.size(), streamed.size());
+        for (int i = 0; i < eager.size(); i++) {
+            assertTrue(lazy.get(i).isGeometryLazy(), "Record " + i + " should have lazy geometry");
+            assertEquals(eager.get(i).toString(), lazy.get(i).toString(), "Record " + i + " (mapped)");
+            assertEquals(eager.get(i).toString(), streamed.get(i).toString(), "Record " + i + " (stream)");
+        }
+        assertEquals(1.0, lazy.get(2).getParsedGeometry().getArea(), 1e-9, "Parsed on demand");
+        assertSame(lazy.get(2).getParsedGeometry(), lazy.get(2).getParsedGeometry(),
+                "The parsed geometry is cached while memory allows");
+    }
+
+    /**
+     * Writes a semicolon-separated CSV with the given number of rows. Every third geometry holds an
+     * embedded line break and every seventh parish holds escaped quotes.
+     */
+    private static Path writeSampleCsv(Path file, int rows) throws IOException {
+        StringBuilder csv = new StringBuilder(
+                "objectID;parcelID;parcelNumber;shapeLength;shapeArea;geometry;owner;parish;municipality;island\n");
+        for (int i = 1; i <= rows; i++) {
+            String geometry = (i % 3 == 0)
+                    ? "MULTIPOLYGON (((0 0, 1 0,\n 1 1, 0 1, 0 0)))"   // embedded newline
+                    : "MULTIPOLYGON (((0 0, 1 0, 1 1, 0 1, 0 0)))";
+            String parish = (i % 7 == 0) ? "\"\"Quoted\"\" Parish" : "Parish " + i;
+            csv.append(i).append(';').append("7343148,0").append(';').append("2,99624E+12").append(';')
+                    .append("10.5").append(';').append(i).append(".25").append(";\"").append(geometry)
+                    .append("\";").append(i % 10).append(";\"").append(parish).append("\";Calheta;NA\n");
+        }
+        Files.write(file, csv.toString().getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
 }
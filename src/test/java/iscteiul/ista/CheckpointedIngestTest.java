@@ -0,0 +1,152 @@
+package iscteiul.ista;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link CheckpointedIngest}: a complete run must produce the same records as the
+ * memory-mapped import, and a run interrupted after a checkpoint must resume from it without losing
+ * or duplicating records.
+ */
+class CheckpointedIngestTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Writes {@code rows} data rows; every fourth geometry holds a line break and row 13 is malformed.
+     */
+    private Path writeCsv(String name, int rows) throws IOException {
+        StringBuilder csv = new StringBuilder(
+                "objectID;parcelID;parcelNumber;shapeLength;shapeArea;geometry;owner;parish;municipality;island\n");
+        for (int id = 1; id <= rows; id++) {
+            String separator = id % 4 == 0 ? ",\n" : ", ";
+            csv.append(id == 13 ? "x" : String.valueOf(id)).append(";7343148,0;2,99624E+12;4.0;1.0;\"POLYGON ((")
+                    .append(id).append(" 0").append(separator).append(id + 1).append(" 0, ").append(id + 1)
+                    .append(" 1, ").append(id).append(" 0))\";").append(id % 7).append(";Parish ").append(id % 3)
+                    .append(";Calheta;NA\n");
+        }
+        Path file = tempDir.resolve(name);
+        Files.write(file, csv.toString().getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    /**
+     * Runs {@code ingest} and interrupts it from its first checkpoint, like a process killed halfway:
+     * the run fails on its next file operation, leaving the checkpoint and the partial output behind.
+     */
+    private static void interruptAfterFirstCheckpoint(CheckpointedIngest ingest) {
+        ingest.setCheckpointListener(() -> Thread.currentThread().interrupt());
+        try {
+            assertThrows(ClosedByInterruptException.class, ingest::run, "The run was interrupted");
+        } finally {
+            Thread.interrupted();
+            ingest.setCheckpointListener(null);
+        }
+    }
+
+    private static void assertSameRecords(List<PropertyRecord> expected, List<PropertyRecord> actual) {
+        assertEquals(expected.size(), actual.size(), "Number of records");
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).toString(), actual.get(i).toString(), "Record " + i);
+        }
+    }
+
+    /**
+     * An uninterrupted run writes a complete snapshot and removes its working files.
+     */
+    @Test
+    void testCompleteRun() throws IOException {
+        Path csv = writeCsv("full.csv", 60);
+        Path snapshot = tempDir.resolve("full.snapshot");
+
+        CheckpointedIngest.Result result = new CheckpointedIngest(csv, snapshot, 500).run();
+
+        assertEquals(59, result.getRecords(), "One malformed row is skipped");
+        assertEquals(1, result.getRejectedRows());
+        assertEquals(0, result.getResumedFromOffset());
+        assertTrue(result.getCheckpoints() > 1, "Several checkpoints for a small interval");
+        assertSameRecords(new CSVFileReader().importDataMapped(csv.toString()), DatasetSnapshot.read(snapshot, csv));
+        assertFalse(Files.exists(CheckpointedIngest.partialPathFor(snapshot)), "Partial output moved into place");
+        assertFalse(Files.exists(CheckpointedIngest.checkpointPathFor(snapshot)), "Checkpoint deleted");
+    }
+
+    /**
+     * A run stopped after its last checkpoint resumes at the checkpointed offset; the rows written
+     * after the checkpoint are discarded and converted again, so nothing is lost or duplicated.
+     */
+    @Test
+    void testResumeAfterInterruption() throws IOException {
+        Path csv = writeCsv("resume.csv", 60);
+        Path snapshot = tempDir.resolve("resume.snapshot");
+        CheckpointedIngest ingest = new CheckpointedIngest(csv, snapshot, 500);
+
+        interruptAfterFirstCheckpoint(ingest);
+        assertTrue(Files.exists(CheckpointedIngest.checkpointPathFor(snapshot)), "A checkpoint was written");
+        assertNull(DatasetSnapshot.read(snapshot, csv), "No snapshot until the run completes");
+
+        CheckpointedIngest.Result result = ingest.run();
+
+        assertTrue(result.getResumedFromOffset() > 0, "Resumed from the checkpoint");
+        assertEquals(59, result.getRecords(), "Counts include the records written before the interruption");
+        assertEquals(1, result.getRejectedRows());
+        IngestReport report = result.getReport();
+        assertTrue(report.getRowsLoaded() > 0 && report.getRowsLoaded() < 59, "The report covers this run only");
+        assertEquals(Files.size(csv) - result.getResumedFromOffset(), report.getBytesRead());
+        assertSameRecords(new CSVFileReader().importDataMapped(csv.toString()), DatasetSnapshot.read(snapshot, csv));
+    }
+
+    /**
+     * A checkpoint for an older version of the CSV is ignored and the run starts over.
+     */
+    @Test
+    void testChangedCsvStartsOver() throws IOException {
+        Path csv = writeCsv("changed.csv", 60);
+        Path snapshot = tempDir.resolve("changed.snapshot");
+        interruptAfterFirstCheckpoint(new CheckpointedIngest(csv, snapshot, 500));
+
+        writeCsv("changed.csv", 50);
+        Files.setLastModifiedTime(csv, FileTime.fromMillis(Files.getLastModifiedTime(csv).toMillis() + 5000));
+        CheckpointedIngest.Result result = new CheckpointedIngest(csv, snapshot, 300).run();
+
+        assertEquals(0, result.getResumedFromOffset(), "Stale checkpoint ignored");
+        assertEquals(49, result.getRecords());
+        assertSameRecords(new CSVFileReader().importDataMapped(csv.toString()), DatasetSnapshot.read(snapshot, csv));
+    }
+
+    /**
+     * {@link CSVFileReader#importDataCheckpointed(String)} returns the records and leaves a snapshot
+     * that is reused afterwards.
+     */
+    @Test
+    void testImportDataCheckpointed() throws IOException {
+        Path csv = writeCsv("reader.csv", 25);
+        CSVFileReader reader = new CSVFileReader();
+
+        List<IngestReport> reports = new ArrayList<>();
+        List<PropertyRecord> records = reader.importDataCheckpointed(csv.toString(), reports::add);
+
+        assertSameRecords(reader.importDataMapped(csv.toString()), records);
+        assertEquals(24, reports.get(0).getRowsLoaded());
+        assertEquals(Map.of("objectID", 1L), reports.get(0).getRejectsByColumn(), "The rejects of this run");
+        assertTrue(Files.exists(DatasetSnapshot.snapshotPathFor(csv)), "The snapshot is kept");
+        assertSameRecords(records, reader.importDataCheckpointed(csv.toString(), reports::add));
+        assertEquals(2, reports.size(), "A report for the snapshot load as well");
+        assertEquals(24, reports.get(1).getRowsLoaded());
+        assertEquals(0, reports.get(1).getRejectedRows());
+        assertTrue(reader.importDataCheckpointed(tempDir.resolve("missing.csv").toString()).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> new CheckpointedIngest(csv, csv, 0));
+    }
+}
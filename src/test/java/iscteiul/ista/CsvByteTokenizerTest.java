@@ -0,0 +1,158 @@
+package iscteiul.ista;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link CsvByteTokenizer}, covering field splitting (quotes, escaped quotes,
+ * embedded line breaks), number parsing straight from bytes, and re-mapping when a record
+ * crosses the end of a mapped window.
+ */
+class CsvByteTokenizerTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Writes the given content to a file and returns every record as a list of String fields.
+     */
+    private List<List<String>> tokenize(String content, long windowBytes) throws IOException {
+        Path file = tempDir.resolve("tokens.csv");
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        List<List<String>> records = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            CsvByteTokenizer tokenizer = new CsvByteTokenizer(channel, 0, channel.size(), windowBytes);
+            while (tokenizer.next()) {
+                List<String> fields = new ArrayList<>();
+                for (int i = 0; i < tokenizer.fieldCount(); i++) {
+                    fields.add(tokenizer.stringField(i));
+                }
+                records.add(fields);
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Returns a tokenizer positioned on the single record held by {@code content}.
+     */
+    private CsvByteTokenizer single(String content) throws IOException {
+        Path file = tempDir.resolve("single.csv");
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            CsvByteTokenizer tokenizer = new CsvByteTokenizer(channel, 0, channel.size());
+            assertTrue(tokenizer.next(), "Expected one record");
+            return tokenizer;
+        }
+    }
+
+    /**
+     * Quoted fields may contain separators, escaped quotes and line breaks.
+     */
+    @Test
+    void testQuotedFields() throws IOException {
+        List<List<String>> records = tokenize("a;\"b;c\";\"say \"\"hi\"\"\"\n\"multi\nline\";;NA\r\n", 1 << 20);
+
+        assertEquals(2, records.size(), "Two records expected");
+        assertEquals(List.of("a", "b;c", "say \"hi\""), records.get(0), "First record fields");
+        assertEquals(List.of("multi\nline", "", "NA"), records.get(1), "Second record fields");
+    }
+
+    /**
+     * A tiny window forces many re-mappings (including windows smaller than one record),
+     * which must not change the result.
+     */
+    @Test
+    void testSmallWindowsGiveSameResult() throws IOException {
+        String content = "1;\"POLYGON ((0 0, 1 0,\n 1 1, 0 0))\";x\n22;\"q\"\"q\";y\n333;z;\"w\"";
+        List<List<String>> expected = tokenize(content, 1 << 20);
+        for (long window = 1; window <= 16; window++) {
+            assertEquals(expected, tokenize(content, window), "Window of " + window + " bytes");
+        }
+    }
+
+    /**
+     * Integers are parsed from bytes, including signs, and invalid values are rejected.
+     */
+    @Test
+    void testIntField() throws IOException {
+        CsvByteTokenizer t = single("42;-7;+3;2147483647;-2147483648;2147483648;4x;");
+        assertEquals(42, t.intField(0));
+        assertEquals(-7, t.intField(1));
+        assertEquals(3, t.intField(2));
+        assertEquals(Integer.MAX_VALUE, t.intField(3));
+        assertEquals(Integer.MIN_VALUE, t.intField(4));
+        assertThrows(NumberFormatException.class, () -> t.intField(5), "Overflow must be rejected");
+        assertThrows(NumberFormatException.class, () -> t.intField(6), "Non-digits must be rejected");
+        assertThrows(NumberFormatException.class, () -> t.intField(7), "Empty field must be rejected");
+    }
+
+    /**
+     * Comma-decimal values behave like {@code (long) Double.parseDouble(s.replace(',', '.'))}.
+     */
+    @Test
+    void testCommaDecimalLongField() throws IOException {
+        String[] inputs = {"7343148", "7343148,0", "2,99624E+12", "2.99624e12", "-12,9", "0,5",
+                "1,5E-1", "123456789012345678901", "9,99999999999999999", "1E30", "1E+3"};
+        CsvByteTokenizer t = single(String.join(";", inputs));
+        for (int i = 0; i < inputs.length; i++) {
+            long expected = (long) Double.parseDouble(inputs[i].replace(',', '.'));
+            assertEquals(expected, t.commaDecimalLongField(i), "Parsing " + inputs[i]);
+        }
+
+        CsvByteTokenizer invalid = single("abc;");
+        assertThrows(NumberFormatException.class, () -> invalid.commaDecimalLongField(0));
+        assertThrows(NumberFormatException.class, () -> invalid.commaDecimalLongField(1));
+    }
+
+    /**
+     * Double fields and the {@code NA} marker.
+     */
+    @Test
+    void testDoubleAndNA() throws IOException {
+        CsvByteTokenizer t = single("57.2469341921808;NA;NAB\n");
+        assertEquals(57.2469341921808, t.doubleField(0), 0.0);
+        assertFalse(t.isNA(0));
+        assertTrue(t.isNA(1));
+        assertFalse(t.isNA(2));
+    }
+
+    /**
+     * Interned fields decode to the dictionary's canonical instance, also after the per-tokenizer
+     * cache has grown, and escaped fields are unescaped before interning.
+     */
+    @Test
+    void testInternedField() throws IOException {
+        StringDictionary dictionary = new StringDictionary();
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            content.append("Parish ").append(i % 100).append(";\"Sa\"\"o\"\n");
+        }
+        Path file = tempDir.resolve("interned.csv");
+        Files.write(file, content.toString().getBytes(StandardCharsets.UTF_8));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            CsvByteTokenizer tokenizer = new CsvByteTokenizer(channel, 0, channel.size());
+            int row = 0;
+            while (tokenizer.next()) {
+                String parish = tokenizer.internedField(0, dictionary);
+                assertEquals("Parish " + (row % 100), parish, "Row " + row);
+                assertSame(dictionary.valueOf(dictionary.codeOf(parish)), parish, "Canonical instance expected");
+                assertEquals("Sa\"o", tokenizer.internedField(1, dictionary), "Escaped quotes are unescaped");
+                row++;
+            }
+            assertEquals(200, row);
+        }
+        assertEquals(101, dictionary.size(), "100 parishes plus one escaped value");
+    }
+}
@@ -0,0 +1,230 @@
+package iscteiul.ista;
+
+import org.jgrapht.graph.DefaultEdge;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link DatasetDelta}: detection of added, removed and changed records, and in-place
+ * application to a record list, a {@link Graph} and a {@link PropertyGraph}, which must end up
+ * exactly as if they had been built from the new dataset.
+ */
+class DatasetDeltaTest {
+
+    /** A unit square at grid position (x, y). */
+    private static PropertyRecord square(int id, int x, int y, int owner) {
+        String wkt = "MULTIPOLYGON (((" + x + " " + y + ", " + (x + 1) + " " + y + ", " + (x + 1) + " " + (y + 1)
+                + ", " + x + " " + (y + 1) + ", " + x + " " + y + ")))";
+        return new PropertyRecord(id, 100L + id, 200L + id, 4.0, 1.0, wkt, owner, "Parish", "Calheta", null);
+    }
+
+    /** A 4 x 3 grid of unit squares, objectIDs 1..12. */
+    private static List<PropertyRecord> grid() {
+        List<PropertyRecord> records = new ArrayList<>();
+        for (int y = 0; y < 3; y++) {
+            for (int x = 0; x < 4; x++) {
+                records.add(square(y * 4 + x + 1, x, y, 1));
+            }
+        }
+        return records;
+    }
+
+    /**
+     * The grid with square 6 removed, square 3 with a new owner, square 12 moved away and two new
+     * squares (one touching square 4, one isolated).
+     */
+    private static List<PropertyRecord> updatedGrid() {
+        List<PropertyRecord> records = new ArrayList<>();
+        for (PropertyRecord record : grid()) {
+            switch (record.getObjectID()) {
+                case 6:
+                    break;
+                case 3:
+                    records.add(square(3, 2, 0, 99));
+                    break;
+                case 12:
+                    records.add(square(12, 10, 10, 1));
+                    break;
+                default:
+                    records.add(square(record.getObjectID(), (record.getObjectID() - 1) % 4,
+                            (record.getObjectID() - 1) / 4, 1));
+            }
+        }
+        records.add(square(13, 4, 0, 1));
+        records.add(square(14, 20, 20, 1));
+        return records;
+    }
+
+    private static Set<Integer> ids(List<PropertyRecord> records) {
+        return records.stream().map(PropertyRecord::getObjectID).collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    /**
+     * Records are matched by objectID and compared by content, regardless of instance identity.
+     */
+    @Test
+    void testCompute() {
+        DatasetDelta delta = DatasetDelta.compute(grid(), updatedGrid());
+
+        assertEquals(Set.of(13, 14), ids(delta.getAdded()), "Added");
+        assertEquals(Set.of(6), ids(delta.getRemoved()), "Removed");
+        assertEquals(Set.of(3, 12), ids(delta.getChanged()), "Changed (equal content in new instances is unchanged)");
+        assertEquals(ids(delta.getChanged()), ids(delta.getPrevious()), "Previous versions of the changed records");
+        assertEquals(99, delta.getChanged().get(0).getOwner());
+        assertEquals(1, delta.getPrevious().get(0).getOwner());
+        assertFalse(delta.isEmpty());
+        assertTrue(DatasetDelta.compute(grid(), grid()).isEmpty(), "Same content => empty delta");
+    }
+
+    /**
+     * Every column takes part in the content hash, and null differs from an empty String.
+     */
+    @Test
+    void testContentHash() {
+        PropertyRecord base = new PropertyRecord(1, 2L, 3L, 4.0, 5.0, "POINT (0 0)", 6, "P", "M", null);
+        long hash = DatasetDelta.contentHash(base);
+
+        assertEquals(hash, DatasetDelta.contentHash(
+                new PropertyRecord(1, 2L, 3L, 4.0, 5.0, "POINT (0 0)", 6, "P", "M", null)));
+        List<PropertyRecord> variants = List.of(
+                new PropertyRecord(9, 2L, 3L, 4.0, 5.0, "POINT (0 0)", 6, "P", "M", null),
+                new PropertyRecord(1, 9L, 3L, 4.0, 5.0, "POINT (0 0)", 6, "P", "M", null),
+                new PropertyRecord(1, 2L, 9L, 4.0, 5.0, "POINT (0 0)", 6, "P", "M", null),
+                new PropertyRecord(1, 2L, 3L, 4.5, 5.0, "POINT (0 0)", 6, "P", "M", null),
+                new PropertyRecord(1, 2L, 3L, 4.0, 5.5, "POINT (0 0)", 6, "P", "M", null),
+                new PropertyRecord(1, 2L, 3L, 4.0, 5.0, "POINT (0 1)", 6, "P", "M", null),
+                new PropertyRecord(1, 2L, 3L, 4.0, 5.0, "POINT (0 0)", 9, "P", "M", null),
+                new PropertyRecord(1, 2L, 3L, 4.0, 5.0, "POINT (0 0)", 6, "PM", "", null),
+                new PropertyRecord(1, 2L, 3L, 4.0, 5.0, "POINT (0 0)", 6, "P", "M", ""));
+        for (PropertyRecord variant : variants) {
+            assertNotEquals(hash, DatasetDelta.contentHash(variant), "Hash should change for " + variant);
+        }
+    }
+
+    /**
+     * Applying the delta to the old list gives the new records: removed ones dropped, changed ones
+     * replaced in place and added ones appended.
+     */
+    @Test
+    void testApplyToList() {
+        List<PropertyRecord> records = grid();
+        DatasetDelta delta = DatasetDelta.compute(records, updatedGrid());
+
+        delta.applyTo(records);
+
+        assertEquals(ids(updatedGrid()), ids(records));
+        assertEquals(3, records.get(2).getObjectID(), "Changed records keep their position");
+        assertEquals(99, records.get(2).getOwner());
+        assertEquals(List.of(13, 14), List.of(records.get(11).getObjectID(), records.get(12).getObjectID()),
+                "Added records are appended in order");
+    }
+
+    /**
+     * A {@link Graph} updated with the delta has the same adjacency as one built from the new records.
+     */
+    @Test
+    void testGraphApplyDelta() {
+        List<PropertyRecord> records = grid();
+        Graph graph = new Graph(records);
+        DatasetDelta delta = DatasetDelta.compute(records, updatedGrid());
+
+        graph.applyDelta(delta);
+        Graph rebuilt = new Graph(updatedGrid());
+
+        assertEquals(rebuilt.getAllNodes().size(), graph.getAllNodes().size());
+        assertNull(graph.getNodeByObjectID(6), "Removed node is gone");
+        for (Graph.GraphNode node : rebuilt.getAllNodes()) {
+            assertEquals(neighborIds(rebuilt, node.getObjectID()), neighborIds(graph, node.getObjectID()),
+                    "Neighbors of " + node.getObjectID());
+        }
+        assertEquals(99, graph.getNodeByObjectID(3).getOwner(), "Changed node has the new content");
+    }
+
+    private static Set<Integer> neighborIds(Graph graph, int objectID) {
+        return graph.getNeighbors(objectID).stream().map(Graph.GraphNode::getObjectID)
+                .collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    /**
+     * A {@link PropertyGraph} updated with two successive deltas has the same edges as one built from
+     * the final records; the second delta exercises properties added by the first.
+     */
+    @Test
+    void testPropertyGraphApplyDelta() {
+        List<PropertyRecord> records = grid();
+        PropertyGraph graph = new PropertyGraph();
+        graph.buildGraph(records);
+
+        DatasetDelta first = DatasetDelta.compute(records, updatedGrid());
+        graph.applyDelta(first);
+        first.applyTo(records);
+        List<PropertyRecord> finalRecords = new ArrayList<>(updatedGrid());
+        finalRecords.removeIf(r -> r.getObjectID() == 13);
+        finalRecords.add(square(15, 5, 0, 1));
+        finalRecords.add(square(16, 4, 0, 1));
+        DatasetDelta second = DatasetDelta.compute(records, finalRecords);
+        graph.applyDelta(second);
+
+        PropertyGraph rebuilt = new PropertyGraph();
+        rebuilt.buildGraph(finalRecords);
+        assertEquals(edgeIds(rebuilt), edgeIds(graph));
+        assertEquals(finalRecords.size(), graph.getGraph().vertexSet().size());
+    }
+
+    private static Set<String> edgeIds(PropertyGraph propertyGraph) {
+        org.jgrapht.Graph<PropertyRecord, DefaultEdge> graph = propertyGraph.getGraph();
+        return graph.edgeSet().stream().map(edge -> {
+            int a = graph.getEdgeSource(edge).getObjectID();
+            int b = graph.getEdgeTarget(edge).getObjectID();
+            return Math.min(a, b) + "-" + Math.max(a, b);
+        }).collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    /**
+     * {@link DatasetDelta#load} reads the new file and {@link App#applyDatasetDelta} updates the
+     * application's records and reference properties.
+     */
+    @Test
+    void testLoadAndApplyToApp(@TempDir Path tempDir) throws IOException {
+        List<PropertyRecord> records = new ArrayList<>(List.of(
+                new PropertyRecord(11074, 1L, 1L, 1.0, 2.0, "POINT (0 0)", 5, "Sé", "Funchal", "Ilha da Madeira"),
+                new PropertyRecord(11517, 1L, 1L, 1.0, 2.0, "POINT (0 0)", 5, "Machico", "Machico", "Ilha da Madeira")));
+        Path file = tempDir.resolve("v2.csv");
+        Files.write(file, ("objectID;parcelID;parcelNumber;shapeLength;shapeArea;geometry;owner;parish;municipality;island\n"
+                + "11074;1;1;1.0;2.0;\"POINT (0 0)\";6;Sé;Funchal;Ilha da Madeira\n"
+                + "7;1;1;1.0;2.0;\"POINT (1 1)\";5;Sé;Funchal;Ilha da Madeira\n").getBytes(StandardCharsets.UTF_8));
+
+        List<PropertyRecord> previousRecords = App.getPropertyRecords();
+        PropertyRecord previousFunchal = App.getFunchalPropertyRecord();
+        PropertyRecord previousMachico = App.getMachicoPropertyRecord();
+        try {
+            App.setPropertyRecords(records);
+            App.setFunchalPropertyRecord(records.get(0));
+            App.setMachicoPropertyRecord(records.get(1));
+
+            DatasetDelta delta = DatasetDelta.load(new CSVFileReader(), file.toString(), App.getPropertyRecords());
+            App.applyDatasetDelta(delta);
+
+            assertSame(records, App.getPropertyRecords(), "The list is updated in place");
+            assertEquals(Set.of(11074, 7), ids(records));
+            assertEquals(6, App.getFunchalPropertyRecord().getOwner(), "Funchal reference follows the change");
+            assertNull(App.getMachicoPropertyRecord(), "Machico reference was removed");
+        } finally {
+            App.setPropertyRecords(previousRecords);
+            App.setFunchalPropertyRecord(previousFunchal);
+            App.setMachicoPropertyRecord(previousMachico);
+        }
+    }
+}
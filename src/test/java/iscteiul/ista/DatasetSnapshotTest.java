@@ -0,0 +1,117 @@
+package iscteiul.ista;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link DatasetSnapshot}, covering a write/read round trip and the cases where a
+ * snapshot must be ignored (stale source, truncated file, missing file).
+ */
+class DatasetSnapshotTest {
+
+    @TempDir
+    Path tempDir;
+
+    /** Creates a small source CSV; its content does not matter, only its size and timestamp. */
+    private Path sourceCsv() throws IOException {
+        Path csv = tempDir.resolve("source.csv");
+        Files.write(csv, "objectID;parcelID\n1;2\n".getBytes(StandardCharsets.UTF_8));
+        return csv;
+    }
+
+    private static List<PropertyRecord> sampleRecords() {
+        return Arrays.asList(
+                new PropertyRecord(1, 7343148L, 2996240000000L, 57.2469341921808, 202.05981432070362,
+                        "MULTIPOLYGON (((0 0, 1 0, 1 1, 0 1, 0 0)))", 93,
+                        "Arco da Calheta", "Calheta", "Ilha da Madeira (Madeira)"),
+                new PropertyRecord(2, -1L, 0L, 0.0, Double.NaN, null, 68, null, "São Vicente", null)
+        );
+    }
+
+    /**
+     * A lazy read returns the same records, with geometries decoded from the snapshot on demand.
+     */
+    @Test
+    void testLazyGeometryRead() throws IOException {
+        Path csv = sourceCsv();
+        Path snapshot = DatasetSnapshot.snapshotPathFor(csv);
+        List<PropertyRecord> records = sampleRecords();
+        DatasetSnapshot.write(snapshot, csv, records);
+
+        List<PropertyRecord> loaded = DatasetSnapshot.read(snapshot, csv, true);
+
+        assertNotNull(loaded);
+        assertTrue(loaded.get(0).isGeometryLazy(), "Geometry should stay in the snapshot");
+        assertFalse(loaded.get(1).isGeometryLazy(), "A null geometry has nothing to defer");
+        for (int i = 0; i < records.size(); i++) {
+            assertEquals(records.get(i).toString(), loaded.get(i).toString(), "Record " + i + " should round-trip");
+        }
+    }
+
+    /**
+     * Every field, including nulls, NaN and non-ASCII names, survives the round trip, and location
+     * names are shared between records.
+     */
+    @Test
+    void testRoundTrip() throws IOException {
+        Path csv = sourceCsv();
+        Path snapshot = DatasetSnapshot.snapshotPathFor(csv);
+        List<PropertyRecord> records = sampleRecords();
+
+        DatasetSnapshot.write(snapshot, csv, records);
+        List<PropertyRecord> loaded = DatasetSnapshot.read(snapshot, csv);
+
+        assertEquals(tempDir.resolve("source.csv.snapshot"), snapshot, "Snapshot lives next to the CSV");
+        assertNotNull(loaded, "A fresh snapshot should be readable");
+        assertEquals(records.size(), loaded.size());
+        for (int i = 0; i < records.size(); i++) {
+            assertEquals(records.get(i).toString(), loaded.get(i).toString(), "Record " + i + " should round-trip");
+        }
+        assertFalse(Files.exists(tempDir.resolve("source.csv.snapshot.tmp")), "Temporary file is moved into place");
+    }
+
+    /**
+     * A snapshot is ignored once the source CSV changes.
+     */
+    @Test
+    void testStaleSnapshotIsIgnored() throws IOException {
+        Path csv = sourceCsv();
+        Path snapshot = DatasetSnapshot.snapshotPathFor(csv);
+        DatasetSnapshot.write(snapshot, csv, sampleRecords());
+
+        Files.setLastModifiedTime(csv, FileTime.fromMillis(Files.getLastModifiedTime(csv).toMillis() + 5000));
+        assertNull(DatasetSnapshot.read(snapshot, csv), "Modified source => stale snapshot");
+
+        DatasetSnapshot.write(snapshot, csv, sampleRecords());
+        Files.write(csv, "objectID;parcelID\n1;2\n3;4\n".getBytes(StandardCharsets.UTF_8));
+        assertNull(DatasetSnapshot.read(snapshot, csv), "Different source size => stale snapshot");
+    }
+
+    /**
+     * Truncated or missing snapshots are rejected instead of returning partial data.
+     */
+    @Test
+    void testTruncatedOrMissingSnapshot() throws IOException {
+        Path csv = sourceCsv();
+        Path snapshot = DatasetSnapshot.snapshotPathFor(csv);
+        assertNull(DatasetSnapshot.read(snapshot, csv), "Missing snapshot => null");
+
+        DatasetSnapshot.write(snapshot, csv, sampleRecords());
+        byte[] bytes = Files.readAllBytes(snapshot);
+        Files.write(snapshot, Arrays.copyOf(bytes, bytes.length - 9));
+        assertNull(DatasetSnapshot.read(snapshot, csv), "Snapshot without trailer => null");
+
+        Files.write(snapshot, Arrays.copyOf(bytes, 10));
+        assertNull(DatasetSnapshot.read(snapshot, csv), "Snapshot shorter than its header => null");
+    }
+}
@@ -0,0 +1,214 @@
+package iscteiul.ista;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.index.strtree.STRtree;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.TreeSet;
+import java.util.stream.StreamSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link DynamicRTree}: after any sequence of bulk loads, inserts, removals and
+ * moves, queries must return exactly the items whose envelope intersects the search area, and the
+ * tree must stay balanced.
+ */
+class DynamicRTreeTest {
+
+    /**
+     * An item with an ID, compared by identity like the parcels in {@link PropertyGraph}.
+     */
+    private static final class Item {
+        final int id;
+
+        Item(int id) {
+            this.id = id;
+        }
+    }
+
+    private static Envelope randomEnvelope(Random random) {
+        double x = random.nextDouble() * 1000;
+        double y = random.nextDouble() * 1000;
+        return new Envelope(x, x + random.nextDouble() * 20, y, y + random.nextDouble() * 20);
+    }
+
+    private static Set<Integer> ids(List<Item> items) {
+        Set<Integer> ids = new TreeSet<>();
+        for (Item item : items) {
+            assertTrue(ids.add(item.id), "Item " + item.id + " returned once");
+        }
+        return ids;
+    }
+
+    private static Set<Integer> bruteForce(Map<Item, Envelope> contents, Envelope search) {
+        Set<Integer> ids = new TreeSet<>();
+        contents.forEach((item, envelope) -> {
+            if (envelope.intersects(search)) {
+                ids.add(item.id);
+            }
+        });
+        return ids;
+    }
+
+    /**
+     * A bulk-loaded tree answers like an {@link STRtree} over the same items.
+     */
+    @Test
+    void testBulkLoadMatchesStrTree() {
+        Random random = new Random(1);
+        List<Envelope> envelopes = new ArrayList<>();
+        List<Item> items = new ArrayList<>();
+        STRtree strTree = new STRtree();
+        for (int i = 0; i < 5000; i++) {
+            Envelope envelope = randomEnvelope(random);
+            envelopes.add(envelope);
+            items.add(new Item(i));
+            strTree.insert(envelope, items.get(i));
+        }
+        envelopes.set(7, new Envelope());  // not indexed
+        envelopes.set(8, null);
+        DynamicRTree<Item> tree = new DynamicRTree<>();
+        tree.insertAll(envelopes, items);
+
+        assertEquals(4998, tree.size());
+        assertTrue(tree.height() <= 4, "Packed tree is shallow, height " + tree.height());
+        for (int q = 0; q < 200; q++) {
+            Envelope search = randomEnvelope(random);
+            Set<Integer> expected = new TreeSet<>();
+            for (Object item : strTree.query(search)) {
+                Item found = (Item) item;
+                if (found.id != 7 && found.id != 8) {
+                    expected.add(found.id);
+                }
+            }
+            assertEquals(expected, ids(tree.query(search)), "Query " + search);
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> new DynamicRTree<Item>().insertAll(envelopes, items.subList(0, 10)));
+    }
+
+    /**
+     * Random inserts, removals and moves, interleaved with queries, always agree with a brute-force
+     * search; removing everything leaves an empty tree.
+     */
+    @Test
+    void testRandomChangesMatchBruteForce() {
+        Random random = new Random(2);
+        DynamicRTree<Item> tree = new DynamicRTree<>();
+        Map<Item, Envelope> contents = new IdentityHashMap<>();
+        List<Item> present = new ArrayList<>();
+        int nextId = 0;
+
+        List<Envelope> initial = new ArrayList<>();
+        List<Item> initialItems = new ArrayList<>();
+        for (; nextId < 500; nextId++) {
+            Item item = new Item(nextId);
+            Envelope envelope = randomEnvelope(random);
+            initial.add(envelope);
+            initialItems.add(item);
+            contents.put(item, envelope);
+            present.add(item);
+        }
+        tree.insertAll(initial, initialItems);
+
+        for (int step = 0; step < 20000; step++) {
+            int action = random.nextInt(10);
+            if (action < 4 || present.isEmpty()) {
+                Item item = new Item(nextId++);
+                Envelope envelope = randomEnvelope(random);
+                tree.insert(envelope, item);
+                contents.put(item, envelope);
+                present.add(item);
+            } else if (action < 7) {
+                Item item = present.remove(random.nextInt(present.size()));
+                assertTrue(tree.remove(contents.remove(item), item), "Item " + item.id + " removed");
+                assertFalse(tree.remove(randomEnvelope(random), item), "Item " + item.id + " already gone");
+            } else if (action < 8) {
+                Item item = present.get(random.nextInt(present.size()));
+                Envelope moved = randomEnvelope(random);
+                assertTrue(tree.update(contents.put(item, moved), moved, item), "Item " + item.id + " moved");
+            } else {
+                Envelope search = randomEnvelope(random);
+                search.expandBy(random.nextDouble() * 50);
+                assertEquals(bruteForce(contents, search), ids(tree.query(search)), "Step " + step);
+            }
+            assertEquals(contents.size(), tree.size());
+        }
+        assertTrue(tree.height() <= 5, "Tree stays balanced, height " + tree.height());
+        assertEquals(bruteForce(contents, new Envelope(0, 1100, 0, 1100)),
+                ids(tree.query(new Envelope(0, 1100, 0, 1100))));
+
+        Collections.shuffle(present, random);
+        for (Item item : present) {
+            assertTrue(tree.remove(contents.remove(item), item));
+        }
+        assertEquals(0, tree.size());
+        assertEquals(1, tree.height());
+        assertTrue(tree.query(new Envelope(0, 1100, 0, 1100)).isEmpty());
+    }
+
+    /**
+     * The spliterator finds the same items as a query, one per {@code tryAdvance}, and nothing for
+     * an empty tree or search area.
+     */
+    @Test
+    void testSpliteratorMatchesQuery() {
+        Random random = new Random(3);
+        List<Envelope> envelopes = new ArrayList<>();
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            envelopes.add(randomEnvelope(random));
+            items.add(new Item(i));
+        }
+        DynamicRTree<Item> tree = new DynamicRTree<>();
+        tree.insertAll(envelopes, items);
+        for (int i = 0; i < 500; i++) {
+            tree.insert(randomEnvelope(random), new Item(3000 + i));
+        }
+
+        for (int q = 0; q < 100; q++) {
+            Envelope search = randomEnvelope(random);
+            search.expandBy(random.nextDouble() * 100);
+            List<Item> found = new ArrayList<>();
+            tree.spliterator(search).forEachRemaining(found::add);
+            assertEquals(ids(tree.query(search)), ids(found), "Search " + search);
+        }
+
+        Spliterator<Item> everything = tree.spliterator(new Envelope(0, 1100, 0, 1100));
+        List<Item> first = new ArrayList<>();
+        assertTrue(everything.tryAdvance(first::add));
+        assertEquals(1, first.size(), "One item per tryAdvance");
+        long rest = StreamSupport.stream(everything, false).count();
+        assertEquals(tree.size() - 1, rest, "The rest follows");
+        assertFalse(tree.spliterator(new Envelope()).tryAdvance(first::add));
+        assertFalse(new DynamicRTree<Item>().spliterator(new Envelope(0, 1, 0, 1)).tryAdvance(first::add));
+    }
+
+    /**
+     * Items sharing one envelope (e.g. duplicated parcels) are told apart by identity.
+     */
+    @Test
+    void testIdenticalEnvelopes() {
+        DynamicRTree<Item> tree = new DynamicRTree<>();
+        Envelope envelope = new Envelope(0, 1, 0, 1);
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            items.add(new Item(i));
+            tree.insert(envelope, items.get(i));
+        }
+        assertEquals(100, tree.query(new Envelope(0.5, 0.5, 0.5, 0.5)).size());
+        assertTrue(tree.remove(envelope, items.get(42)));
+        assertFalse(tree.query(envelope).contains(items.get(42)));
+        assertEquals(99, tree.size());
+        assertFalse(tree.remove(envelope, new Item(42)), "An equal-looking item is a different item");
+    }
+}
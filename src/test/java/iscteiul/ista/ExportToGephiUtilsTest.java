@@ -123,4 +123,26 @@ public class ExportToGephiUtilsTest {
         assertEquals(0, graph.getEdgeCount(),
                 "No edges should be in the graph for an empty list.");
     }
+
+    /**
+     * Verifies that the overload with simplified levels attaches the simplified WKT as a
+     * "geometry" attribute, and none for a record without a valid geometry.
+     */
+    @Test
+    void testBuildGraphWithSimplifiedGeometry() {
+        List<PropertyRecord> records = new ArrayList<>();
+        records.add(new PropertyRecord(1, 100L, 999L, 10.0, 20.0,
+                "POLYGON((0 0,0 0.5,0 1,0.5 1.01,1 1,1 0,0 0))", 11, "ParishA", "MunicipA", "IslandX"));
+        records.add(new PropertyRecord(2, 200L, 888L, 10.0, 30.0,
+                "NOT_A_VALID_WKT", 12, "ParishA", "MunicipA", "IslandX"));
+        SimplifiedGeometryLevels levels = SimplifiedGeometryLevels.build(records, 0.1);
+
+        Graph graph = ExportToGephiUtils.buildGraph(records, levels, 0);
+
+        assertEquals("POLYGON ((0 0, 0 1, 1 1, 1 0, 0 0))", graph.getNode("1").getAttribute("geometry"),
+                "Node '1' should carry the simplified geometry.");
+        assertNull(graph.getNode("2").getAttribute("geometry"),
+                "Node '2' has no valid geometry to attach.");
+        assertEquals(11, ((Number) graph.getNode("1").getAttribute("owner")).intValue());
+    }
 }
@@ -0,0 +1,105 @@
+package iscteiul.ista;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Geometry;
+
+import static iscteiul.ista.TestParcels.INVALID_WKT;
+import static iscteiul.ista.TestParcels.record;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link GeometryCache}: geometries are parsed once per objectID, a changed WKT
+ * replaces the cached entry, and the weight limit evicts the least recently used entries.
+ */
+class GeometryCacheTest {
+
+    private static String square(int x) {
+        return "POLYGON ((" + x + " 0, " + (x + 1) + " 0, " + (x + 1) + " 1, " + x + " 1, " + x + " 0))";
+    }
+
+    /**
+     * A second lookup returns the same instance without parsing; an equal (but not identical) WKT
+     * also hits, and a different WKT under the same objectID is parsed again.
+     */
+    @Test
+    void testHitsAndChangedGeometry() {
+        GeometryCache cache = new GeometryCache(1000);
+        PropertyRecord record = record(1, square(0));
+
+        Geometry first = cache.get(record);
+        assertNotNull(first);
+        assertSame(first, cache.get(record), "Second lookup is a hit");
+        assertSame(first, cache.get(1, new String(square(0))), "Equal WKT is a hit");
+        assertEquals(2, cache.getHits());
+        assertEquals(1, cache.getMisses());
+
+        Geometry merged = cache.get(record(1, square(5)));
+        assertNotSame(first, merged, "A different WKT for the same objectID is not served stale");
+        assertEquals(5.0, merged.getEnvelopeInternal().getMinX());
+        assertEquals(1, cache.size(), "The entry was replaced");
+        assertEquals(5, cache.weight(), "Weight is the number of coordinates");
+    }
+
+    /**
+     * Missing and invalid WKT yield {@code null}; invalid WKT is cached so it is not parsed again.
+     */
+    @Test
+    void testInvalidAndMissingWkt() {
+        GeometryCache cache = new GeometryCache(1000);
+
+        assertNull(cache.get(null));
+        assertNull(cache.get(record(2, null)));
+        assertNull(cache.get(record(3, INVALID_WKT)));
+        assertNull(cache.get(record(3, INVALID_WKT)));
+        assertEquals(1, cache.getHits(), "The invalid WKT was remembered");
+
+        cache.invalidate(3);
+        assertEquals(0, cache.size());
+        assertThrows(IllegalArgumentException.class, () -> new GeometryCache(0));
+    }
+
+    /**
+     * Once the weight limit is exceeded the least recently used entry is evicted.
+     */
+    @Test
+    void testEviction() {
+        GeometryCache cache = new GeometryCache(10, 1);
+        cache.get(record(1, square(1)));
+        cache.get(record(2, square(2)));
+        cache.get(record(1, square(1)));
+        cache.get(record(3, square(3)));
+
+        assertEquals(1, cache.getEvictions(), "One 5-coordinate entry had to go");
+        assertEquals(10, cache.weight());
+        long misses = cache.getMisses();
+        cache.get(record(1, square(1)));
+        assertEquals(misses, cache.getMisses(), "The recently used entry was kept");
+        cache.get(record(2, square(2)));
+        assertEquals(misses + 1, cache.getMisses(), "The least recently used entry was evicted");
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.weight());
+    }
+
+    /**
+     * A bulk pass through {@link GeometryCache#peek(PropertyRecord)} reuses cached geometries but
+     * neither stores the others nor evicts anything.
+     */
+    @Test
+    void testPeekDoesNotFillTheCache() {
+        GeometryCache cache = new GeometryCache(10, 1);
+        PropertyRecord cached = record(1, square(1));
+        Geometry geometry = cache.get(cached);
+
+        assertSame(geometry, cache.peek(cached), "A cached geometry is reused");
+        for (int id = 2; id < 100; id++) {
+            assertNotNull(cache.peek(record(id, square(id))));
+        }
+        assertNull(cache.peek(record(100, INVALID_WKT)));
+        assertEquals(1, cache.size(), "Nothing was stored");
+        assertEquals(0, cache.getEvictions(), "Nothing was evicted");
+        assertEquals(1, cache.getMisses());
+        assertSame(geometry, cache.get(cached));
+    }
+}
@@ -0,0 +1,85 @@
+package iscteiul.ista;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.io.WKTReader;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static iscteiul.ista.TestParcels.INVALID_WKT;
+import static iscteiul.ista.TestParcels.record;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link GeometryDerivedTable}: every column must match what JTS computes from the
+ * parsed geometry, and rows without a valid geometry must hold {@code NaN}.
+ */
+class GeometryDerivedTableTest {
+
+    /**
+     * Centroid, envelope, area and perimeter equal the JTS values of the parsed geometry.
+     */
+    @Test
+    void testMatchesJts() throws Exception {
+        List<PropertyRecord> records = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            double x = 300000 + (i % 20) * 15.0;
+            double y = 3620000 + (i / 20) * 15.0;
+            records.add(record(i + 1, "POLYGON ((" + x + " " + y + ", " + (x + 10) + " " + y + ", "
+                    + (x + 10) + " " + (y + 12) + ", " + x + " " + (y + 5) + ", " + x + " " + y + "))"));
+        }
+        records.add(record(500, "MULTIPOLYGON (((0 0, 10 0, 10 10, 0 10, 0 0), (2 2, 2 4, 4 4, 4 2, 2 2)), "
+                + "((20 0, 30 0, 30 5, 20 0)))"));
+
+        GeometryDerivedTable table = GeometryDerivedTable.build(records);
+        assertEquals(records.size(), table.size());
+        WKTReader reader = new WKTReader();
+        for (int i = 0; i < records.size(); i++) {
+            Geometry geometry = reader.read(records.get(i).getGeometry());
+            assertTrue(table.hasGeometry(i), "Row " + i + " has a geometry");
+            assertEquals(records.get(i).getObjectID(), table.getObjectID(i));
+            assertEquals(geometry.getCentroid().getX(), table.getCentroidX(i), 1e-9, "Centroid x of row " + i);
+            assertEquals(geometry.getCentroid().getY(), table.getCentroidY(i), 1e-9, "Centroid y of row " + i);
+            assertEquals(geometry.getEnvelopeInternal(), table.getEnvelope(i), "Envelope of row " + i);
+            assertEquals(geometry.getArea(), table.getArea(i), 1e-9, "Area of row " + i);
+            assertEquals(geometry.getLength(), table.getPerimeter(i), 1e-9, "Perimeter of row " + i);
+            assertEquals(i, table.indexOf(records.get(i).getObjectID()), "Row of objectID");
+        }
+        int last = records.size() - 1;
+        assertEquals(5.0, table.centroidDistance(0, table.getCentroidX(0) + 3, table.getCentroidY(0) + 4), 1e-9);
+        assertNotSame(table.getEnvelope(last), table.getEnvelope(last), "Envelopes are copies");
+    }
+
+    /**
+     * Missing, invalid and empty geometries give {@code NaN} rows; duplicate and negative IDs are
+     * found at their first row.
+     */
+    @Test
+    void testMissingGeometriesAndIds() {
+        List<PropertyRecord> records = List.of(
+                record(7, "POLYGON ((0 0, 1 0, 1 1, 0 0))"),
+                record(-3, INVALID_WKT),
+                record(7, "POLYGON ((5 5, 6 5, 6 6, 5 5))"),
+                record(Integer.MAX_VALUE, null),
+                record(Integer.MIN_VALUE, "POLYGON EMPTY"));
+
+        GeometryDerivedTable table = GeometryDerivedTable.build(records);
+        assertTrue(table.hasGeometry(0));
+        for (int row : new int[]{1, 3, 4}) {
+            assertFalse(table.hasGeometry(row), "Row " + row + " has no geometry");
+            assertTrue(Double.isNaN(table.getCentroidX(row)));
+            assertTrue(Double.isNaN(table.getArea(row)));
+            assertTrue(Double.isNaN(table.getPerimeter(row)));
+            assertTrue(Double.isNaN(table.centroidDistance(row, 0, 0)));
+            assertNull(table.getEnvelope(row));
+        }
+        assertEquals(0, table.indexOf(7), "First row of a duplicate ID");
+        assertEquals(1, table.indexOf(-3));
+        assertEquals(3, table.indexOf(Integer.MAX_VALUE));
+        assertEquals(4, table.indexOf(Integer.MIN_VALUE));
+        assertEquals(-1, table.indexOf(8));
+        assertEquals(-1, table.indexOf(0));
+        assertEquals(-1, GeometryDerivedTable.build(List.of()).indexOf(1));
+    }
+}
@@ -0,0 +1,91 @@
+package iscteiul.ista;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static iscteiul.ista.TestParcels.INVALID_WKT;
+import static iscteiul.ista.TestParcels.record;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link GeometryQuarantine}: the validation pass must quarantine exactly the
+ * records with a missing or unparseable WKT, and the pairwise predicates must then skip them
+ * without touching the geometry cache.
+ */
+class GeometryQuarantineTest {
+
+    /**
+     * Null and blank WKT count as missing, bad text as unparseable; valid and empty geometries pass.
+     */
+    @Test
+    void testValidate() {
+        List<PropertyRecord> records = new ArrayList<>();
+        records.add(record(1, "POLYGON ((0 0, 1 0, 1 1, 0 1, 0 0))"));
+        records.add(record(2, null));
+        records.add(record(3, "   "));
+        records.add(record(4, INVALID_WKT));
+        records.add(record(5, "POLYGON ((0 0, 1 0"));
+        records.add(record(6, "POLYGON EMPTY"));
+        records.add(null);
+        records.add(record(8, "POLYGON ((0 0, 1 0, 1 1, 0 1))"));  // well-formed, but the ring is not closed
+
+        GeometryQuarantine quarantine = GeometryQuarantine.validate(records);
+
+        assertEquals(8, quarantine.getCheckedCount());
+        assertEquals(5, quarantine.size());
+        assertEquals(2, quarantine.getMissingCount());
+        assertEquals(3, quarantine.getUnparseableCount());
+        assertArrayEquals(new int[]{2, 3, 4, 5, 8}, quarantine.getQuarantinedIds());
+        assertTrue(records.get(7).isQuarantined(), "Unclosed ring quarantined");
+        assertFalse(records.get(5).isQuarantined(), "Empty geometries are not quarantined");
+        for (int i = 0; i < 6; i++) {
+            boolean reported = Arrays.binarySearch(quarantine.getQuarantinedIds(), i + 1) >= 0;
+            assertEquals(reported, records.get(i).isQuarantined(), "Record " + (i + 1) + " flagged");
+        }
+        assertEquals("Quarantined 5 of 8 geometries (2 missing, 3 unparseable); objectIDs [2, 3, 4, 5, 8]",
+                quarantine.toString());
+    }
+
+    /**
+     * The summary lists at most ten objectIDs.
+     */
+    @Test
+    void testSummaryIsBounded() {
+        List<PropertyRecord> records = new ArrayList<>();
+        for (int i = 100; i > 0; i--) {
+            records.add(record(i, "BAD " + i));
+        }
+        GeometryQuarantine quarantine = GeometryQuarantine.validate(records);
+        assertEquals("Quarantined 100 of 100 geometries (0 missing, 100 unparseable); "
+                + "objectIDs [1, 2, 3, 4, 5, 6, 7, 8, 9, 10] and 90 more", quarantine.toString());
+        assertEquals("All 0 geometries are valid", GeometryQuarantine.validate(List.of()).toString());
+    }
+
+    /**
+     * Quarantined records are answered as having no geometry without a cache lookup, and are
+     * dropped from the batch predicates.
+     */
+    @Test
+    void testPredicatesSkipQuarantined() {
+        PropertyRecord valid = record(910_001, "POLYGON ((0 0, 1 0, 1 1, 0 1, 0 0))");
+        PropertyRecord neighbour = record(910_002, "POLYGON ((1 0, 2 0, 2 1, 1 1, 1 0))");
+        PropertyRecord broken = record(910_003, "POLYGON ((1 0, 2 0, 2 1, 1 1, 1 0)");
+        GeometryQuarantine.validate(List.of(valid, neighbour, broken));
+        assertTrue(broken.isQuarantined());
+
+        GeometryCache cache = GeometryCache.shared();
+        long hits = cache.getHits();
+        long misses = cache.getMisses();
+        assertFalse(GeometryUtils.areAdjacent(valid, broken));
+        assertFalse(GeometryUtils.doIntersect(broken, valid));
+        assertFalse(GeometryUtils.areDisjoint(valid, broken));
+        assertEquals(hits, cache.getHits(), "No cache lookups for quarantined pairs");
+        assertEquals(misses, cache.getMisses(), "No cache lookups for quarantined pairs");
+
+        assertEquals(List.of(neighbour), GeometryUtils.touchingAmong(valid, List.of(neighbour, broken)));
+        assertTrue(GeometryUtils.touchingAmong(broken, List.of(valid, neighbour)).isEmpty());
+    }
+}
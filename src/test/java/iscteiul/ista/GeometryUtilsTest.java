@@ -2,6 +2,17 @@ package iscteiul.ista;
 
 import org.junit.jupiter.api.Test;
 import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryComponentFilter;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -98,7 +109,7 @@ class GeometryUtilsTest {
                 "Null input => areAdjacent returns false.");
         assertFalse(GeometryUtils.doIntersect(valid, null),
                 "Null input => doIntersect returns false.");
-        assertFalse(GeometryUtils.areDisjoint(null, null),
+        assertFalse(GeometryUtils.areDisjoint((String) null, null),
                 "Null input => areDisjoint returns false.");
     }
 
@@ -231,4 +242,204 @@ class GeometryUtilsTest {
         assertEquals(100.0, envNeg.getMaxY(), 1e-9,
                 "Expected maxY = 100 for bigNeg polygon.");
     }
+
+    /**
+     * The {@link PropertyRecord} overloads agree with the WKT-based methods, including for missing
+     * and invalid geometries.
+     */
+    @Test
+    void testPropertyRecordOverloads() {
+        PropertyRecord a = new PropertyRecord(9001, 1, 1, 1.0, 1.0,
+                "MULTIPOLYGON(((0 0,5 0,5 5,0 5,0 0)))", 1, "P", "M", "I");
+        PropertyRecord b = new PropertyRecord(9002, 2, 2, 1.0, 1.0,
+                "MULTIPOLYGON(((5 0,10 0,10 5,5 5,5 0)))", 2, "P", "M", "I");
+        PropertyRecord far = new PropertyRecord(9003, 3, 3, 1.0, 1.0,
+                "MULTIPOLYGON(((20 20,25 20,25 25,20 25,20 20)))", 3, "P", "M", "I");
+        PropertyRecord invalid = new PropertyRecord(9004, 4, 4, 1.0, 1.0,
+                "NOT_A_VALID_WKT", 4, "P", "M", "I");
+        PropertyRecord missing = new PropertyRecord(9005, 5, 5, 1.0, 1.0, null, 5, "P", "M", "I");
+
+        assertTrue(GeometryUtils.areAdjacent(a, b), "Squares sharing an edge => adjacency = true.");
+        assertTrue(GeometryUtils.doIntersect(a, b), "Boundary contact yields intersection.");
+        assertFalse(GeometryUtils.areDisjoint(a, b), "Sharing a boundary => not disjoint.");
+        assertTrue(GeometryUtils.areDisjoint(a, far), "Separate squares are disjoint.");
+        assertFalse(GeometryUtils.areAdjacent(a, invalid), "Invalid WKT => false.");
+        assertFalse(GeometryUtils.areDisjoint(a, missing), "Missing WKT => false.");
+        assertFalse(GeometryUtils.areAdjacent(null, b), "Null record => false.");
+        assertEquals(new Envelope(0, 5, 0, 5), GeometryUtils.getEnvelope(a));
+        assertTrue(GeometryUtils.getEnvelope(invalid).isNull(), "Invalid WKT => empty envelope.");
+    }
+
+    /**
+     * Stress test: many threads run the predicates on the same grid of squares at once, through
+     * both the WKT and the cached {@link PropertyRecord} overloads. Every thread must see the exact
+     * adjacency count of the grid (horizontal, vertical and corner contacts).
+     */
+    @Test
+    void testConcurrentPredicates() throws Exception {
+        int k = 8;
+        List<PropertyRecord> grid = new ArrayList<>();
+        for (int x = 0; x < k; x++) {
+            for (int y = 0; y < k; y++) {
+                grid.add(new PropertyRecord(9100 + x * k + y, 1, 1, 4.0, 1.0,
+                        "POLYGON ((" + x + " " + y + ", " + (x + 1) + " " + y + ", " + (x + 1) + " " + (y + 1)
+                                + ", " + x + " " + (y + 1) + ", " + x + " " + y + "))", 1, "P", "M", "I"));
+            }
+        }
+        int expected = 2 * k * (k - 1) + 2 * (k - 1) * (k - 1);
+
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<int[]>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    int cached = 0;
+                    int parsed = 0;
+                    for (int i = 0; i < grid.size(); i++) {
+                        for (int j = i + 1; j < grid.size(); j++) {
+                            PropertyRecord a = grid.get(i);
+                            PropertyRecord b = grid.get(j);
+                            if (GeometryUtils.areAdjacent(a, b)) {
+                                cached++;
+                            }
+                            if (GeometryUtils.areAdjacent(a.getGeometry(), b.getGeometry())) {
+                                parsed++;
+                            }
+                            assertEquals(!GeometryUtils.doIntersect(a, b), GeometryUtils.areDisjoint(a, b));
+                        }
+                    }
+                    return new int[]{cached, parsed};
+                }));
+            }
+            start.countDown();
+            for (Future<int[]> result : results) {
+                int[] counts = result.get(60, TimeUnit.SECONDS);
+                assertEquals(expected, counts[0], "Adjacent pairs via the cache");
+                assertEquals(expected, counts[1], "Adjacent pairs via WKT parsing");
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * The prepared batch predicates return exactly the candidates the pairwise predicates accept,
+     * in order, skipping the subject itself, {@code null} elements and invalid geometries.
+     */
+    @Test
+    void testBatchPredicatesMatchPairwise() {
+        List<PropertyRecord> candidates = new ArrayList<>();
+        for (int x = 0; x < 4; x++) {
+            for (int y = 0; y < 4; y++) {
+                candidates.add(new PropertyRecord(9200 + x * 4 + y, 1, 1, 4.0, 1.0,
+                        "POLYGON ((" + x + " " + y + ", " + (x + 1) + " " + y + ", " + (x + 1) + " " + (y + 1)
+                                + ", " + x + " " + (y + 1) + ", " + x + " " + y + "))", 1, "P", "M", "I"));
+            }
+        }
+        PropertyRecord overlapping = new PropertyRecord(9300, 1, 1, 4.0, 1.0,
+                "POLYGON ((1.5 1.5, 2.5 1.5, 2.5 2.5, 1.5 2.5, 1.5 1.5))", 1, "P", "M", "I");
+        candidates.add(overlapping);
+        candidates.add(new PropertyRecord(9301, 1, 1, 4.0, 1.0, "NOT_A_VALID_WKT", 1, "P", "M", "I"));
+        candidates.add(null);
+
+        for (PropertyRecord subject : List.of(candidates.get(5), candidates.get(0), overlapping)) {
+            List<PropertyRecord> touching = new ArrayList<>();
+            List<PropertyRecord> intersecting = new ArrayList<>();
+            for (PropertyRecord candidate : candidates) {
+                if (candidate != null && candidate != subject) {
+                    if (GeometryUtils.areAdjacent(subject, candidate)) {
+                        touching.add(candidate);
+                    }
+                    if (GeometryUtils.doIntersect(subject, candidate)) {
+                        intersecting.add(candidate);
+                    }
+                }
+            }
+            assertEquals(touching, GeometryUtils.touchingAmong(subject, candidates),
+                    "touchingAmong agrees with areAdjacent for " + subject.getObjectID());
+            assertEquals(intersecting, GeometryUtils.intersectingAmong(subject, candidates),
+                    "intersectingAmong agrees with doIntersect for " + subject.getObjectID());
+        }
+        assertEquals(8, GeometryUtils.touchingAmong(candidates.get(5), candidates).size(),
+                "An inner cell touches its 8 neighbours; the overlapping square does not touch it");
+        assertTrue(GeometryUtils.touchingAmong(candidates.get(17), candidates).isEmpty(),
+                "Invalid subject => no results");
+        assertTrue(GeometryUtils.touchingAmong(null, candidates).isEmpty(), "Null subject => no results");
+    }
+
+    /**
+     * Envelopes scanned from WKT text match the parsed geometries' envelopes; malformed text,
+     * unknown types and {@code EMPTY} yield {@code null}.
+     */
+    @Test
+    void testScanEnvelope() {
+        String[] wkts = {
+                "MULTIPOLYGON(((0 0,5 0,5 5,0 5,0 0)))",
+                "POLYGON ((-100.5 -3, 1e2 -3, 1e2 100, -100.5 -3))",
+                "POLYGON Z ((0 0 9, 2 0 9, 2 3 -9, 0 0 9))",
+                "MULTIPOINT ((1 2), (3 4))",
+                "GEOMETRYCOLLECTION (POINT (1 1), LINESTRING (2 2, 4 7), POINT EMPTY)",
+                "LINESTRING(7 8,9 -10)"
+        };
+        for (String wkt : wkts) {
+            assertEquals(GeometryUtils.getEnvelope(wkt), GeometryUtils.scanEnvelope(wkt), wkt);
+        }
+        assertNull(GeometryUtils.scanEnvelope(null));
+        assertNull(GeometryUtils.scanEnvelope("POLYGON EMPTY"));
+        assertNull(GeometryUtils.scanEnvelope("NOT_A_VALID_WKT"));
+        assertNull(GeometryUtils.scanEnvelope("SQUARE ((0 0, 1 0, 1 1, 0 0))"), "Unknown type");
+        assertNull(GeometryUtils.scanEnvelope("POLYGON ((0 0, 1 0, 1 1, 0 0)"), "Unbalanced parentheses");
+        assertNull(GeometryUtils.scanEnvelope("POLYGON ((0 0, 1, 1 1, 0 0))"), "Single ordinate");
+        assertNull(GeometryUtils.scanEnvelope("POLYGON ((0 0, 1 x, 1 1, 0 0))"), "Not a number");
+    }
+
+    /**
+     * Pairs whose stored envelopes do not meet are answered without parsing their geometries.
+     */
+    @Test
+    void testEnvelopePrefilter() {
+        PropertyRecord a = new PropertyRecord(9400, 1, 1, 1.0, 1.0,
+                "POLYGON ((0 0, 1 0, 1 1, 0 1, 0 0))", 1, "P", "M", "I");
+        PropertyRecord far = new PropertyRecord(9401, 1, 1, 1.0, 1.0,
+                "POLYGON ((5000 0, 5001 0, 5001 1, 5000 1, 5000 0))", 1, "P", "M", "I");
+        PropertyRecord near = new PropertyRecord(9402, 1, 1, 1.0, 1.0,
+                "POLYGON ((1 0, 2 0, 2 1, 1 1, 1 0))", 1, "P", "M", "I");
+        GeometryCache cache = GeometryCache.shared();
+
+        long misses = cache.getMisses();
+        long hits = cache.getHits();
+        assertFalse(GeometryUtils.areAdjacent(a, far));
+        assertFalse(GeometryUtils.doIntersect(a, far));
+        assertTrue(GeometryUtils.areDisjoint(a, far));
+        assertTrue(GeometryUtils.touchingAmong(a, List.of(far)).isEmpty());
+        assertEquals(misses, cache.getMisses(), "Distant pair was not parsed");
+        assertEquals(hits, cache.getHits(), "Distant pair was not looked up");
+
+        assertTrue(GeometryUtils.areAdjacent(a, near), "Envelopes meet => full predicate runs");
+        assertEquals(new Envelope(0, 1, 0, 1), a.envelope());
+        assertNull(new PropertyRecord(9403, 1, 1, 1.0, 1.0, null, 1, "P", "M", "I").envelope());
+    }
+
+    /**
+     * {@link GeometryUtils#read(String)} computes the envelope of every polygon and ring of a
+     * MultiPolygon before the geometry is shared, so predicates running on several threads never
+     * write the lazily cached envelopes.
+     */
+    @Test
+    void testReadComputesComponentEnvelopes() throws Exception {
+        Geometry geometry = GeometryUtils.read("MULTIPOLYGON (((0 0, 4 0, 4 4, 0 4, 0 0), (1 1, 2 1, 2 2, 1 1)), "
+                + "((10 0, 11 0, 11 1, 10 0)))");
+        Field envelope = Geometry.class.getDeclaredField("envelope");
+        envelope.setAccessible(true);
+        List<Geometry> components = new ArrayList<>();
+        geometry.apply((GeometryComponentFilter) components::add);
+
+        assertEquals(6, components.size(), "The MultiPolygon, two polygons and three rings");
+        for (Geometry component : components) {
+            assertNotNull(envelope.get(component), "Envelope of " + component.getGeometryType() + " is computed");
+        }
+    }
 }
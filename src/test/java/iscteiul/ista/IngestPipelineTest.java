@@ -0,0 +1,159 @@
+package iscteiul.ista;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.locationtech.jts.geom.Envelope;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link IngestPipeline}: the staged load must give the same records as the
+ * sequential readers, with correct envelopes, centroids and spatial index, and the graphs built
+ * from its result must match the graphs built from a plain list.
+ */
+class IngestPipelineTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Writes a {@code columns x rows} grid of unit squares; every fifth geometry holds a line break
+     * inside its quoted field, and one row has an invalid geometry.
+     */
+    private Path writeGridCsv(int columns, int rows) throws IOException {
+        StringBuilder csv = new StringBuilder(
+                "objectID;parcelID;parcelNumber;shapeLength;shapeArea;geometry;owner;parish;municipality;island\n");
+        int id = 1;
+        for (int y = 0; y < rows; y++) {
+            for (int x = 0; x < columns; x++, id++) {
+                String separator = id % 5 == 0 ? ",\n " : ", ";
+                String geometry = "MULTIPOLYGON (((" + x + " " + y + separator + (x + 1) + " " + y + ", "
+                        + (x + 1) + " " + (y + 1) + ", " + x + " " + (y + 1) + ", " + x + " " + y + ")))";
+                if (id == 7) {
+                    geometry = "NOT A GEOMETRY";
+                }
+                csv.append(id).append(";7343148,0;2,99624E+12;4.0;1.0;\"").append(geometry).append("\";")
+                        .append(id % 4).append(";Parish ").append(y % 3).append(";Calheta;NA\n");
+            }
+        }
+        Path file = tempDir.resolve("grid.csv");
+        Files.write(file, csv.toString().getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    /**
+     * Small blocks and queues force many batches, re-ordering and backpressure; the records must
+     * still match the sequential import, in file order.
+     */
+    @Test
+    void testMatchesSequentialImport() throws IOException {
+        Path file = writeGridCsv(20, 15);
+        List<PropertyRecord> expected = new CSVFileReader().importDataMapped(file.toString());
+
+        IngestPipeline.Result result = new IngestPipeline(3, 3, 2, 256).run(file);
+
+        assertEquals(expected.size(), result.getRecords().size(), "Same number of records");
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).toString(), result.getRecords().get(i).toString(), "Record " + i);
+        }
+        assertEquals(0, result.getRejectedRows());
+        assertEquals(1, result.getInvalidGeometries(), "Row 7 has an invalid geometry");
+    }
+
+    /**
+     * Envelopes and centroids are computed once per record and the spatial index finds records by them.
+     */
+    @Test
+    void testGeometryDataAndIndex() throws IOException {
+        IngestPipeline.Result result = new IngestPipeline(1, 2, 4, 1024).run(writeGridCsv(4, 4));
+
+        // objectID 6 is the square (1,1)-(2,2).
+        assertEquals(new Envelope(1, 2, 1, 2), result.getEnvelope(5));
+        assertEquals(1.5, result.getCentroidX(5), 1e-9);
+        assertEquals(1.5, result.getCentroidY(5), 1e-9);
+        assertNull(result.getEnvelope(6), "Invalid geometry => no envelope");
+        assertTrue(Double.isNaN(result.getCentroidX(6)), "Invalid geometry => NaN centroid");
+
+        List<?> hits = result.getSpatialIndex().query(new Envelope(3.5, 3.6, 3.5, 3.6));
+        assertEquals(1, hits.size(), "Only the top-right square covers (3.5, 3.5)");
+        assertEquals(16, ((PropertyRecord) hits.get(0)).getObjectID());
+    }
+
+    /**
+     * Every stage reports its work and the queues never exceed their capacity.
+     */
+    @Test
+    void testStageStats() throws IOException {
+        IngestPipeline.Result result = new IngestPipeline(2, 2, 3, 512).run(writeGridCsv(10, 10));
+
+        List<IngestPipeline.StageStats> stats = result.getStageStats();
+        assertEquals(List.of("reader", "tokenizer", "geometry", "index"),
+                stats.stream().map(IngestPipeline.StageStats::getName).collect(Collectors.toList()));
+        for (IngestPipeline.StageStats stage : stats) {
+            assertEquals(100, stage.getRecords(), stage.getName() + " should see every record");
+            assertTrue(stage.getBatches() > 1, stage.getName() + " should process several blocks");
+            assertTrue(stage.getMaxQueueDepth() <= stage.getQueueCapacity(), stage.getName() + " queue bound");
+            assertTrue(stage.getThroughput() > 0, stage.getName() + " throughput");
+            assertNotNull(stage.toString());
+        }
+        assertTrue(result.getElapsedNanos() > 0);
+    }
+
+    /**
+     * Graphs built from the pipeline result have the same edges as graphs built from a plain list.
+     */
+    @Test
+    void testGraphsFromResult() throws IOException {
+        Path file = writeGridCsv(6, 5);
+        IngestPipeline.Result result = new IngestPipeline(2, 2, 2, 700).run(file);
+        List<PropertyRecord> records = result.getRecords();
+
+        PropertyGraph fromList = new PropertyGraph();
+        fromList.buildGraph(records);
+        PropertyGraph fromResult = new PropertyGraph();
+        fromResult.buildGraph(result);
+        assertEquals(fromList.getGraph().edgeSet().size(), fromResult.getGraph().edgeSet().size(),
+                "PropertyGraph edge count");
+        assertEquals(records.size(), fromResult.getGraph().vertexSet().size());
+
+        PropertyGraph second = new PropertyGraph();
+        second.buildGraph(result);
+        assertEquals(fromList.getGraph().edgeSet().size(), second.getGraph().edgeSet().size(),
+                "A second graph from the same result indexes the envelopes itself");
+        int indexed = result.getSpatialIndex().size();
+        assertTrue(fromResult.removeProperty(records.get(0)));
+        assertEquals(indexed - 1, result.getSpatialIndex().size(), "The first graph took over the pipeline's index");
+        assertEquals(fromList.getGraph().edgeSet().size(), second.getGraph().edgeSet().size());
+
+        Graph plain = new Graph(records);
+        Graph pipelined = new Graph(result);
+        for (PropertyRecord record : records) {
+            int id = record.getObjectID();
+            assertEquals(neighborIds(plain, id), neighborIds(pipelined, id), "Neighbors of " + id);
+            assertEquals(plain.getNodeByObjectID(id).getCentroidX(), pipelined.getNodeByObjectID(id).getCentroidX(),
+                    1e-9, "Centroid of " + id);
+        }
+    }
+
+    private static Set<Integer> neighborIds(Graph graph, int objectID) {
+        return graph.getNeighbors(objectID).stream().map(Graph.GraphNode::getObjectID).collect(Collectors.toSet());
+    }
+
+    /**
+     * Invalid sizes are rejected and a missing file fails with an {@link IOException}.
+     */
+    @Test
+    void testInvalidArgumentsAndMissingFile() {
+        assertThrows(IllegalArgumentException.class, () -> new IngestPipeline(0, 1, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new IngestPipeline(1, 1, 0, 1));
+        assertThrows(IOException.class, () -> new IngestPipeline().run(tempDir.resolve("missing.csv")));
+    }
+}
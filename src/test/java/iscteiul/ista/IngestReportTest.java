@@ -0,0 +1,104 @@
+package iscteiul.ista;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link IngestReport}: counters collected by a {@link IngestReport.Recorder},
+ * merging of per-chunk recorders, rejects per column and the derived throughput.
+ */
+class IngestReportTest {
+
+    /**
+     * Rejects are reported per column name, in column order, and only the first examples are kept.
+     */
+    @Test
+    void testRejectsByColumn() {
+        IngestReport.Recorder recorder = new IngestReport.Recorder();
+        recorder.reject(6, "owner");
+        recorder.reject(IngestReport.COLUMNS.length, "short");
+        for (int i = 0; i < 6; i++) {
+            recorder.reject(0, "id " + i);
+        }
+
+        IngestReport report = recorder.finish("test.csv", 1_000_000_000L);
+
+        assertEquals(8, report.getRejectedRows());
+        assertEquals(Map.of("objectID", 6L, "owner", 1L, IngestReport.COLUMN_COUNT, 1L), report.getRejectsByColumn());
+        assertEquals(List.of("objectID", "owner", IngestReport.COLUMN_COUNT),
+                List.copyOf(report.getRejectsByColumn().keySet()), "Columns in file order, short rows last");
+        assertEquals(IngestReport.MAX_REJECT_EXAMPLES, report.getRejectExamples().size());
+        assertEquals("owner", report.getRejectExamples().get(0), "Examples keep their order");
+    }
+
+    /**
+     * Merged recorders add up, and the rates are derived from the wall-clock time.
+     */
+    @Test
+    void testMergeAndThroughput() {
+        IngestReport.Recorder first = new IngestReport.Recorder();
+        first.rowsLoaded = 300;
+        first.bytesRead = 1000;
+        first.tokenizeNanos = 5;
+        first.peakHeapBytes = 123;
+        first.reject(1, "a");
+        IngestReport.Recorder second = new IngestReport.Recorder();
+        second.rowsLoaded = 100;
+        second.bytesRead = 1000;
+        second.tokenizeNanos = 7;
+        second.peakHeapBytes = 50;
+        second.reject(1, "b");
+
+        first.merge(second);
+        IngestReport report = first.finish("test.csv", 2_000_000_000L);
+
+        assertEquals(400, report.getRowsLoaded());
+        assertEquals(12, report.getTokenizeNanos());
+        assertEquals(Map.of("parcelID", 2L), report.getRejectsByColumn());
+        assertEquals(200.0, report.getRowsPerSecond(), 1e-9);
+        assertEquals(1000.0, report.getBytesPerSecond(), 1e-9);
+        assertEquals(123, report.getPeakHeapBytes());
+        assertEquals(0.0, new IngestReport.Recorder().finish("x", 0).getRowsPerSecond(), "No time => no rate");
+        assertTrue(report.toString().contains("test.csv"));
+    }
+
+    /**
+     * Laps add the time since the previous lap to the chosen phase.
+     */
+    @Test
+    void testLaps() throws InterruptedException {
+        IngestReport.Recorder recorder = new IngestReport.Recorder();
+        recorder.startClock();
+        Thread.sleep(2);
+        recorder.lapNumbers();
+        recorder.lapObjects();
+
+        assertTrue(recorder.numberParseNanos >= 2_000_000L, "The sleep is counted as number parsing");
+        assertTrue(recorder.objectCreationNanos < recorder.numberParseNanos);
+        assertEquals(0, recorder.tokenizeNanos);
+    }
+
+    /**
+     * The heap is sampled by the recorder itself, every few thousand rows and on request, and a
+     * peak never goes down.
+     */
+    @Test
+    void testHeapSampling() {
+        IngestReport.Recorder recorder = new IngestReport.Recorder();
+        for (int i = 1; i < IngestReport.Recorder.HEAP_SAMPLE_ROWS; i++) {
+            recorder.rowLoaded();
+        }
+        assertEquals(0, recorder.peakHeapBytes, "No sample before the first full interval");
+        recorder.rowLoaded();
+        assertEquals(IngestReport.Recorder.HEAP_SAMPLE_ROWS, recorder.rowsLoaded);
+        assertTrue(recorder.peakHeapBytes > 0, "Sampled after a full interval");
+
+        recorder.peakHeapBytes = Long.MAX_VALUE;
+        recorder.sampleHeap();
+        assertEquals(Long.MAX_VALUE, recorder.finish("x", 1).getPeakHeapBytes(), "The peak is kept");
+    }
+}
@@ -0,0 +1,63 @@
+package iscteiul.ista;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link IntHashSet}, comparing it with a {@link HashSet} over random and edge-case
+ * values, including growth far beyond the expected size.
+ */
+class IntHashSetTest {
+
+    /**
+     * The set behaves like a {@code HashSet<Integer>}, including for 0 and negative values.
+     */
+    @Test
+    void testMatchesHashSet() {
+        IntHashSet set = new IntHashSet(4);
+        Set<Integer> expected = new HashSet<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            int value = i % 3 == 0 ? random.nextInt() : random.nextInt(5000) - 2500;
+            assertEquals(expected.add(value), set.add(value), "add(" + value + ")");
+        }
+        assertEquals(expected.size(), set.size());
+        for (int value = -3000; value <= 3000; value++) {
+            assertEquals(expected.contains(value), set.contains(value), "contains(" + value + ")");
+        }
+    }
+
+    /**
+     * Zero and the extreme values are ordinary members, and a negative size is rejected.
+     */
+    @Test
+    void testEdgeValues() {
+        IntHashSet set = new IntHashSet(0);
+        assertFalse(set.contains(0));
+        assertTrue(set.add(0));
+        assertFalse(set.add(0), "0 is only added once");
+        assertTrue(set.add(Integer.MIN_VALUE));
+        assertTrue(set.add(Integer.MAX_VALUE));
+        assertTrue(set.contains(0) && set.contains(Integer.MIN_VALUE) && set.contains(Integer.MAX_VALUE));
+        assertEquals(3, set.size());
+        assertThrows(IllegalArgumentException.class, () -> new IntHashSet(-1));
+    }
+
+    /**
+     * The table keeps a load factor of at most 0.5 and never overflows for large expected sizes.
+     */
+    @Test
+    void testCapacity() {
+        assertEquals(8, IntHashSet.capacityFor(0));
+        assertEquals(8, IntHashSet.capacityFor(4));
+        assertEquals(16, IntHashSet.capacityFor(5));
+        assertEquals(1 << 30, IntHashSet.capacityFor(1 << 29));
+        assertEquals(IntHashSet.MAX_CAPACITY, IntHashSet.capacityFor((1 << 29) + 1), "Capped");
+        assertEquals(IntHashSet.MAX_CAPACITY, IntHashSet.capacityFor(Integer.MAX_VALUE), "No overflow");
+    }
+}
@@ -0,0 +1,47 @@
+package iscteiul.ista;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link LazyGeometry}: on-demand decoding from a byte buffer, unescaping of CSV
+ * quotes, caching of the decoded forms and handling of invalid WKT.
+ */
+class LazyGeometryTest {
+
+    private static LazyGeometry over(String prefix, String field, boolean escaped) {
+        byte[] bytes = (prefix + field + ";tail").getBytes(StandardCharsets.UTF_8);
+        int offset = prefix.getBytes(StandardCharsets.UTF_8).length;
+        return new LazyGeometry(ByteBuffer.wrap(bytes), offset, field.getBytes(StandardCharsets.UTF_8).length, escaped);
+    }
+
+    /**
+     * Nothing is decoded until requested; afterwards the decoded forms are reused.
+     */
+    @Test
+    void testDecodesOnDemand() {
+        LazyGeometry geometry = over("1;", "POLYGON ((0 0, 2 0, 2 2, 0 2, 0 0))", false);
+
+        assertFalse(geometry.isDecoded(), "Nothing should be decoded up front");
+        assertEquals("POLYGON ((0 0, 2 0, 2 2, 0 2, 0 0))", geometry.wkt());
+        assertTrue(geometry.isDecoded());
+        assertSame(geometry.wkt(), geometry.wkt(), "The decoded String is cached");
+        assertEquals(4.0, geometry.parsed().getArea(), 1e-9);
+        assertSame(geometry.parsed(), geometry.parsed(), "The parsed geometry is cached");
+    }
+
+    /**
+     * Escaped quotes are unescaped, and invalid or blank WKT parses to {@code null}.
+     */
+    @Test
+    void testEscapesAndInvalidWkt() {
+        assertEquals("say \"hi\"", over("", "say \"\"hi\"\"", true).wkt());
+        assertNull(over("x;", "NOT WKT", false).parsed(), "Invalid WKT => null");
+        assertNull(over("x;", "", false).parsed(), "Blank WKT => null");
+        assertNull(LazyGeometry.parse(null));
+    }
+}
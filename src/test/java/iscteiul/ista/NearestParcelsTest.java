@@ -0,0 +1,150 @@
+package iscteiul.ista;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Point;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntPredicate;
+import java.util.function.IntToDoubleFunction;
+
+import static iscteiul.ista.TestParcels.INVALID_WKT;
+import static iscteiul.ista.TestParcels.rectangle;
+import static iscteiul.ista.TestParcels.triangle;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link NearestParcels}: the k nearest parcels must be those a linear scan finds,
+ * for both measures, with and without filters and distance limits.
+ * <p>
+ * The parcels are random triangles and rectangles of various sizes, so the nearest parcel by
+ * geometry is often not the one with the nearest centroid.
+ */
+class NearestParcelsTest {
+
+    private static final GeometryFactory FACTORY = new GeometryFactory();
+
+    private static final TestParcels.Dataset dataset = new TestParcels.Dataset();
+    private static final List<PropertyRecord> records = dataset.records;
+    private static final List<Geometry> geometries = dataset.geometries;
+    private static NearestParcels nearest;
+
+    @BeforeAll
+    static void buildDataset() {
+        Random random = new Random(5);
+        for (int id = 1; id <= 1500; id++) {
+            double x = 300000 + random.nextDouble() * 3000;
+            double y = 3620000 + random.nextDouble() * 3000;
+            double w = 5 + random.nextDouble() * (id % 10 == 0 ? 300 : 40);
+            double h = 5 + random.nextDouble() * 40;
+            String wkt = id % 2 == 0 ? triangle(x, y, w, h) : rectangle(x, y, w, h);
+            dataset.add(new PropertyRecord(id, id, id, 1.0, 1.0, wkt, id % 7, "Parish",
+                    id % 3 == 0 ? "Funchal" : "Machico", "Madeira"));
+        }
+        dataset.add(new PropertyRecord(1501, 1501, 1501, 1.0, 1.0, INVALID_WKT, 1, "Parish", "Funchal", "Madeira"));
+        GeometryQuarantine.validate(records);
+        nearest = NearestParcels.build(records);
+    }
+
+    /**
+     * The distances of the {@code k} nearest parcels that pass {@code keep}, by a linear scan.
+     */
+    private static List<Double> bruteForce(IntToDoubleFunction distance, IntPredicate keep, int k,
+                                           double maxDistance) {
+        return dataset.nearestDistances(distance, keep, k, maxDistance);
+    }
+
+    private static List<Double> distances(List<NearestParcels.Neighbour> found) {
+        List<Double> distances = new ArrayList<>();
+        for (NearestParcels.Neighbour neighbour : found) {
+            distances.add(neighbour.getDistance());
+        }
+        return distances;
+    }
+
+    private static void assertSameDistances(List<Double> expected, List<Double> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i), actual.get(i), 1e-9, "Neighbour " + i);
+        }
+    }
+
+    /**
+     * Queries from a parcel match a linear scan, by geometry and by centroid, with filters.
+     */
+    @Test
+    void testNearestToParcelMatchesLinearScan() {
+        Random random = new Random(9);
+        for (int q = 0; q < 100; q++) {
+            int subjectRow = random.nextInt(1500);
+            PropertyRecord subject = records.get(subjectRow);
+            Geometry geometry = geometries.get(subjectRow);
+            Point centroid = geometry.getCentroid();
+            int k = 1 + random.nextInt(12);
+
+            List<NearestParcels.Neighbour> found = nearest.nearest(subject.getObjectID(), k, 200);
+            assertSameDistances(bruteForce(row -> geometry.distance(geometries.get(row)),
+                    row -> row != subjectRow, k, 200), distances(found));
+            for (NearestParcels.Neighbour neighbour : found) {
+                assertNotEquals(subject.getObjectID(), neighbour.getRecord().getObjectID());
+                assertEquals(geometry.distance(geometries.get(neighbour.getRecord().getObjectID() - 1)),
+                        neighbour.getDistance(), 1e-9, "Distance of the parcel returned");
+            }
+
+            assertSameDistances(bruteForce(row -> centroid.distance(geometries.get(row).getCentroid()),
+                            row -> row != subjectRow && records.get(row).getOwner() != subject.getOwner(),
+                            k, Double.POSITIVE_INFINITY),
+                    distances(nearest.nearest(subject.getObjectID(), k, Double.POSITIVE_INFINITY,
+                            NearestParcels.Measure.CENTROID, NearestParcels.DIFFERENT_OWNER)));
+
+            assertSameDistances(bruteForce(row -> geometry.distance(geometries.get(row)),
+                            row -> row != subjectRow
+                                    && records.get(row).getMunicipality().equals(subject.getMunicipality()),
+                            k, Double.POSITIVE_INFINITY),
+                    distances(nearest.nearest(subject.getObjectID(), k, Double.POSITIVE_INFINITY,
+                            NearestParcels.Measure.GEOMETRY, NearestParcels.SAME_MUNICIPALITY)));
+        }
+    }
+
+    /**
+     * Queries from a point match a linear scan; parcels that contain the point are at distance 0.
+     */
+    @Test
+    void testNearestToPointMatchesLinearScan() {
+        Random random = new Random(13);
+        for (int q = 0; q < 100; q++) {
+            Coordinate coordinate = new Coordinate(299500 + random.nextDouble() * 4000,
+                    3619500 + random.nextDouble() * 4000);
+            Point point = FACTORY.createPoint(coordinate);
+            int k = 1 + random.nextInt(12);
+            assertSameDistances(bruteForce(row -> point.distance(geometries.get(row)), row -> true, k,
+                    Double.POSITIVE_INFINITY), distances(nearest.nearest(coordinate, k)));
+            assertSameDistances(bruteForce(row -> point.distance(geometries.get(row).getCentroid()),
+                            row -> records.get(row).getOwner() == 3, k, 500),
+                    distances(nearest.nearest(coordinate, k, 500, NearestParcels.Measure.CENTROID,
+                            record -> record.getOwner() == 3)));
+        }
+    }
+
+    /**
+     * Unknown and quarantined parcels have no neighbours, and invalid arguments are rejected.
+     */
+    @Test
+    void testEdgeCases() {
+        assertEquals(1500, nearest.size(), "The invalid geometry is not indexed");
+        assertTrue(nearest.nearest(1501, 5, 1000).isEmpty());
+        assertTrue(nearest.nearest(99999, 5, 1000).isEmpty());
+        assertTrue(nearest.nearest(1, 0, 1000).isEmpty());
+        assertEquals(1499, nearest.nearest(1, 5000, Double.POSITIVE_INFINITY,
+                NearestParcels.Measure.CENTROID, null).size());
+        assertThrows(IllegalArgumentException.class, () -> nearest.nearest(1, -1, 10));
+        assertThrows(IllegalArgumentException.class, () -> nearest.nearest(1, 1, -10));
+        assertThrows(IllegalArgumentException.class,
+                () -> NearestParcels.build(records, GeometryDerivedTable.build(records.subList(0, 10))));
+    }
+}
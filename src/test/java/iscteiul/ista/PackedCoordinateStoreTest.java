@@ -0,0 +1,161 @@
+package iscteiul.ista;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.CoordinateSequenceFilter;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.Polygon;
+import org.locationtech.jts.geom.util.AffineTransformation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static iscteiul.ista.TestParcels.INVALID_WKT;
+import static iscteiul.ista.TestParcels.record;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link PackedCoordinateStore} and {@link BufferCoordinateSequence}: the off-heap
+ * views must be equal to the parsed geometries and behave like them in JTS predicates and
+ * measurements.
+ */
+class PackedCoordinateStoreTest {
+
+    private static List<PropertyRecord> sample() {
+        List<PropertyRecord> records = new ArrayList<>();
+        records.add(record(1, "POLYGON ((0 0, 10 0, 10 10, 0 10, 0 0), (2 2, 2 4, 4 4, 4 2, 2 2))"));
+        records.add(record(2, "MULTIPOLYGON (((10 0, 20 0, 20 10, 10 10, 10 0)), ((30 0, 31 0, 31 1, 30 0)))"));
+        records.add(record(3, INVALID_WKT));
+        records.add(record(4, null));
+        records.add(record(5, "LINESTRING (0 20, 5 25)"));
+        records.add(record(6, "POLYGON EMPTY"));
+        records.add(record(7, "POLYGON Z ((40 0 5, 41 0 5, 41 1 5, 40 0 5))"));
+        return records;
+    }
+
+    /**
+     * Every view is exactly equal to the parsed geometry, with the same type, area and centroid.
+     */
+    @Test
+    void testViewsEqualParsedGeometries() {
+        List<PropertyRecord> records = sample();
+        PackedCoordinateStore store = PackedCoordinateStore.of(records);
+
+        assertEquals(records.size(), store.size());
+        for (int i = 0; i < records.size(); i++) {
+            Geometry expected = records.get(i).getParsedGeometry();
+            Geometry actual = store.getGeometry(i);
+            assertEquals(records.get(i).getObjectID(), store.getObjectID(i));
+            if (expected == null) {
+                assertNull(actual, "No geometry for record " + i);
+                continue;
+            }
+            assertEquals(expected.getGeometryType(), actual.getGeometryType(), "Type of record " + i);
+            assertTrue(expected.equalsExact(actual), "Same coordinates for record " + i);
+            assertEquals(expected.getArea(), actual.getArea(), 1e-9, "Area of record " + i);
+            if (!expected.isEmpty()) {
+                assertTrue(expected.getCentroid().equalsExact(actual.getCentroid(), 1e-9), "Centroid of record " + i);
+            }
+        }
+        assertEquals(5 + 5 + 5 + 4 + 4, store.getCoordinateCount(), "Polygonal coordinates only");
+        assertEquals(store.getCoordinateCount() * 16, store.getOffHeapBytes());
+        assertEquals(4, store.indexOf(5));
+        assertEquals(-1, store.indexOf(99));
+    }
+
+    /**
+     * JTS predicates give the same answers on the views as on the parsed geometries.
+     */
+    @Test
+    void testPredicatesOnViews() throws Exception {
+        PackedCoordinateStore store = PackedCoordinateStore.of(sample());
+        Geometry square = store.getGeometry(0);
+        Geometry multi = store.getGeometry(1);
+
+        assertTrue(square.touches(multi), "Shared edge at x = 10");
+        assertFalse(square.intersects(store.getGeometry(6)));
+        assertTrue(square.isValid());
+        assertTrue(square.union(multi).getArea() > square.getArea(), "Overlay operations work");
+        assertEquals(1, ((Polygon) square).getNumInteriorRing(), "Hole kept");
+        assertTrue(GeometryUtils.read("POINT (3 3)").disjoint(square), "The hole is not part of the polygon");
+    }
+
+    /**
+     * The views' coordinates are read-only, but copies can be modified and the store is unaffected.
+     */
+    @Test
+    void testViewsAreReadOnly() throws Exception {
+        PackedCoordinateStore store = PackedCoordinateStore.of(sample());
+        Polygon view = (Polygon) store.getGeometry(0);
+
+        assertThrows(UnsupportedOperationException.class,
+                () -> view.getExteriorRing().getCoordinateSequence().setOrdinate(0, 0, 5.0));
+        Geometry copy = view.copy();
+        copy.apply((CoordinateSequenceFilter) new AffineTransformation().translate(1, 1));
+        copy.geometryChanged();
+        assertEquals(1.0, copy.getEnvelopeInternal().getMinX(), "The copy was moved");
+        view.normalize();
+        assertEquals(0.0, store.getGeometry(0).getEnvelopeInternal().getMinX(), "The store is unchanged");
+        assertTrue(view.equalsNorm(GeometryUtils.read("POLYGON ((0 0, 10 0, 10 10, 0 10, 0 0), (2 2, 2 4, 4 4, 4 2, 2 2))")));
+    }
+
+    /**
+     * A large store is allocated at exactly its final size, from the coordinates counted in the WKT.
+     */
+    @Test
+    void testExactAllocation() {
+        List<PropertyRecord> records = new ArrayList<>();
+        for (int i = 0; i < 9000; i++) {
+            records.add(record(i, "POLYGON ((" + i + " 0, " + (i + 1) + " 0, " + (i + 1) + " 1, " + i + " 1, " + i + " 0))"));
+        }
+        PackedCoordinateStore store = PackedCoordinateStore.of(records);
+
+        assertEquals(45000, store.getCoordinateCount());
+        assertEquals(45000 * 16, store.getOffHeapBytes(), "No spare capacity");
+        assertEquals(8999.0, store.getGeometry(8999).getEnvelopeInternal().getMinX());
+        assertTrue(store.getGeometry(4000).touches(store.getGeometry(4001)));
+    }
+
+    /**
+     * Coordinates are counted from the text of polygonal WKT only; polygonal WKT that fails to
+     * parse leaves its counted space unused.
+     */
+    @Test
+    void testCountPolygonCoordinates() {
+        assertEquals(10, PackedCoordinateStore.countPolygonCoordinates(
+                "POLYGON ((0 0, 10 0, 10 10, 0 10, 0 0), (2 2, 2 4, 4 4, 4 2, 2 2))"));
+        assertEquals(9, PackedCoordinateStore.countPolygonCoordinates(
+                " multipolygon(((10 0,20 0,20 10,10 10,10 0)),((-30 0, 31 0, 31 1, -30 0)))"));
+        assertEquals(4, PackedCoordinateStore.countPolygonCoordinates("POLYGON Z ((40 0 5, 41 0 5, 41 1 5, 40 0 5))"));
+        assertEquals(0, PackedCoordinateStore.countPolygonCoordinates("POLYGON EMPTY"));
+        assertEquals(0, PackedCoordinateStore.countPolygonCoordinates("LINESTRING (0 20, 5 25)"));
+        assertEquals(0, PackedCoordinateStore.countPolygonCoordinates(null));
+
+        PackedCoordinateStore store = PackedCoordinateStore.of(List.of(
+                record(1, "POLYGON ((0 0, 1 0, 1 1, 0 0))"), record(2, "POLYGON ((0 0, 1 0, 1 1))")));
+        assertEquals(4, store.getCoordinateCount());
+        assertEquals(7 * 16, store.getOffHeapBytes(), "The unclosed ring was counted but not stored");
+        assertNull(store.getGeometry(1));
+    }
+
+    /**
+     * A {@link GeometryDerivedTable} built from the packed views equals one built from the records.
+     */
+    @Test
+    void testDerivedTableFromStore() {
+        List<PropertyRecord> records = sample();
+        GeometryDerivedTable expected = GeometryDerivedTable.build(records);
+        GeometryDerivedTable actual = GeometryDerivedTable.build(PackedCoordinateStore.of(records));
+
+        assertEquals(expected.size(), actual.size());
+        for (int row = 0; row < records.size(); row++) {
+            assertEquals(expected.getObjectID(row), actual.getObjectID(row));
+            assertEquals(expected.hasGeometry(row), actual.hasGeometry(row), "Geometry of row " + row);
+            assertEquals(expected.getCentroidX(row), actual.getCentroidX(row), 1e-9, "Centroid x of row " + row);
+            assertEquals(expected.getCentroidY(row), actual.getCentroidY(row), 1e-9, "Centroid y of row " + row);
+            assertEquals(expected.getArea(row), actual.getArea(row), 1e-9, "Area of row " + row);
+            assertEquals(expected.getPerimeter(row), actual.getPerimeter(row), 1e-9, "Perimeter of row " + row);
+            assertEquals(expected.getEnvelope(row), actual.getEnvelope(row), "Envelope of row " + row);
+        }
+        assertEquals(expected.indexOf(5), actual.indexOf(5));
+    }
+}
@@ -0,0 +1,115 @@
+package iscteiul.ista;
+
+import org.jgrapht.graph.DefaultEdge;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static iscteiul.ista.TestParcels.INVALID_WKT;
+import static iscteiul.ista.TestParcels.point;
+import static iscteiul.ista.TestParcels.record;
+import static iscteiul.ista.TestParcels.rectangle;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Equivalence tests for {@link AdjacencyStrategy#PLANE_SWEEP}: for any number of strips it must
+ * find exactly the pairs that {@link AdjacencyStrategy#PAIRWISE} finds, each once, and the graphs
+ * built with either strategy must have the same edges.
+ * <p>
+ * The data is a jittered grid of parcels plus long parcels spanning many strips, overlapping and
+ * nested parcels, a duplicated record and records with an invalid or missing geometry.
+ */
+class PlaneSweepAdjacencyTest {
+
+    private static final int K = 12;
+
+    private static List<PropertyRecord> records;
+
+    @BeforeAll
+    static void buildDataset() {
+        TestParcels.JitteredGrid grid = new TestParcels.JitteredGrid(new Random(7), K);
+        records = new ArrayList<>();
+        int id = 1;
+        for (int x = 0; x < K; x++) {
+            for (int y = 0; y < K; y++) {
+                records.add(record(id++, grid.cell(x, y)));
+            }
+        }
+        // A long parcel below the grid, touching the bottom row along its full width
+        StringBuilder strip = new StringBuilder("POLYGON ((").append(point(grid.xs[0][0], 3619000));
+        strip.append(", ").append(point(grid.xs[K][0], 3619000));
+        for (int x = K; x >= 0; x--) {
+            strip.append(", ").append(grid.corner(x, 0));
+        }
+        records.add(record(id++, strip.append(", ").append(point(grid.xs[0][0], 3619000)).append("))").toString()));
+        // Overlapping the middle of the grid, touching nothing
+        records.add(record(id++, rectangle(300100, 3620100, 30, 30)));
+        // Touching the right edge of the grid at one point only
+        records.add(record(id++, "POLYGON ((" + grid.corner(K, K / 2) + ", 300400 3620000, 300400 3620400, "
+                + grid.corner(K, K / 2) + "))"));
+        records.add(records.get(5));
+        records.add(record(id++, INVALID_WKT));
+        records.add(record(id, null));
+    }
+
+    private static List<String> asList(List<int[]> pairs) {
+        List<String> list = new ArrayList<>();
+        for (int[] pair : pairs) {
+            assertTrue(pair[0] < pair[1], "Pairs are ordered");
+            list.add(pair[0] + "-" + pair[1]);
+        }
+        return list;
+    }
+
+    /**
+     * The sweep finds the pairwise pairs, in the same order and without duplicates, whether the
+     * data is swept as one strip or split into many (so most parcels span a strip boundary).
+     */
+    @Test
+    void testSamePairsAsPairwise() {
+        List<String> expected = asList(AdjacencyStrategy.PAIRWISE.adjacentPairs(records));
+        assertTrue(expected.size() > 2 * K * (K - 1), "Grid is dense");
+        for (int strips : new int[]{1, 2, 5, 16, 64, 1000}) {
+            assertEquals(expected, asList(PlaneSweepAdjacency.adjacentPairs(records, strips)), strips + " strips");
+        }
+        assertEquals(expected, asList(AdjacencyStrategy.PLANE_SWEEP.adjacentPairs(records)));
+        assertTrue(PlaneSweepAdjacency.adjacentPairs(List.of(records.get(0))).isEmpty());
+    }
+
+    /**
+     * {@link Graph} and {@link PropertyGraph} have the same edges with either strategy.
+     */
+    @Test
+    void testGraphsAgree() {
+        Graph pairwise = new Graph(records);
+        Graph sweep = new Graph(records, AdjacencyStrategy.PLANE_SWEEP);
+        for (PropertyRecord record : records) {
+            Set<Integer> expected = new TreeSet<>();
+            pairwise.getNeighbors(record.getObjectID()).forEach(n -> expected.add(n.getObjectID()));
+            Set<Integer> actual = new TreeSet<>();
+            sweep.getNeighbors(record.getObjectID()).forEach(n -> actual.add(n.getObjectID()));
+            assertEquals(expected, actual, "Neighbours of " + record.getObjectID());
+        }
+
+        PropertyGraph propertyPairwise = new PropertyGraph();
+        propertyPairwise.buildGraph(records);
+        PropertyGraph propertySweep = new PropertyGraph();
+        propertySweep.buildGraph(records, AdjacencyStrategy.PLANE_SWEEP);
+        assertEquals(edgeSet(propertyPairwise.getGraph()), edgeSet(propertySweep.getGraph()));
+    }
+
+    private static Set<String> edgeSet(org.jgrapht.Graph<PropertyRecord, DefaultEdge> graph) {
+        Set<String> edges = new TreeSet<>();
+        for (DefaultEdge edge : graph.edgeSet()) {
+            int a = graph.getEdgeSource(edge).getObjectID();
+            int b = graph.getEdgeTarget(edge).getObjectID();
+            edges.add(Math.min(a, b) + "-" + Math.max(a, b));
+        }
+        return edges;
+    }
+}
@@ -132,4 +132,49 @@ class PropertyGraphTest {
         // Assert: Confirm it is not null.
         assertNotNull(graph, "The returned graph should not be null.");
     }
+
+    /**
+     * Tests {@link PropertyGraph#addProperty(PropertyRecord)},
+     * {@link PropertyGraph#updateProperty(PropertyRecord, PropertyRecord)} and
+     * {@link PropertyGraph#removeProperty(PropertyRecord)} on a graph that was already built (and
+     * whose spatial index was already queried).
+     *
+     * <p><strong>Scenario:</strong> A row of two squares gets a third square added next to it,
+     * which is then moved away and finally removed.
+     * <ul>
+     *   <li>Expected Outcome: Edges follow each change, without rebuilding the graph.</li>
+     * </ul>
+     */
+    @Test
+    void changesAfterBuild() {
+        PropertyGraph propertyGraph = new PropertyGraph();
+        PropertyRecord record1 = new PropertyRecord(1, 1L, 1L, 4.0, 1.0,
+                "POLYGON((0 0, 1 0, 1 1, 0 1, 0 0))", 1, "Parish1", "Municipality1", "Island1");
+        PropertyRecord record2 = new PropertyRecord(2, 2L, 2L, 4.0, 1.0,
+                "POLYGON((1 0, 2 0, 2 1, 1 1, 1 0))", 2, "Parish1", "Municipality1", "Island1");
+        propertyGraph.buildGraph(Arrays.asList(record1, record2));
+        Graph<PropertyRecord, DefaultEdge> graph = propertyGraph.getGraph();
+        assertEquals(1, graph.edgeSet().size(), "The two squares share an edge.");
+
+        PropertyRecord record3 = new PropertyRecord(3, 3L, 3L, 4.0, 1.0,
+                "POLYGON((2 0, 3 0, 3 1, 2 1, 2 0))", 3, "Parish1", "Municipality1", "Island1");
+        propertyGraph.addProperty(record3);
+        assertTrue(graph.containsEdge(record2, record3), "The added square touches record2.");
+        assertFalse(graph.containsEdge(record1, record3), "The added square does not touch record1.");
+
+        PropertyRecord moved = new PropertyRecord(3, 3L, 3L, 4.0, 1.0,
+                "POLYGON((0 1, 1 1, 1 2, 0 2, 0 1))", 3, "Parish1", "Municipality1", "Island1");
+        propertyGraph.updateProperty(record3, moved);
+        assertFalse(graph.containsVertex(record3), "The old version is gone.");
+        assertTrue(graph.containsEdge(record1, moved), "The moved square sits on record1.");
+        assertTrue(graph.containsEdge(record2, moved), "The moved square meets record2 at a corner.");
+
+        assertTrue(propertyGraph.removeProperty(moved));
+        assertFalse(propertyGraph.removeProperty(moved), "Already removed.");
+        assertEquals(1, graph.edgeSet().size(), "Only the original edge is left.");
+
+        // The index no longer returns the removed square: adding a copy links it afresh.
+        propertyGraph.addProperty(record3);
+        assertEquals(2, graph.edgeSet().size());
+    }
 }
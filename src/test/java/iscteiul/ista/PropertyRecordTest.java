@@ -72,4 +72,23 @@ class PropertyRecordTest {
         assertTrue(toStringResult.contains("owner=999"), "Should include owner in toString output.");
         // You can add more assertions as needed to confirm the presence of various fields.
     }
+
+    /**
+     * Location names are dictionary-encoded: equal names share a code and a single String instance,
+     * and {@code null} is encoded as {@link StringDictionary#NULL_CODE}.
+     */
+    @Test
+    void testLocationNamesAreShared() {
+        PropertyRecord a = new PropertyRecord(1, 1L, 1L, 1.0, 1.0, null, 1,
+                new String("Arco da Calheta"), new String("Calheta"), null);
+        PropertyRecord b = new PropertyRecord(2, 2L, 2L, 2.0, 2.0, null, 2,
+                new String("Arco da Calheta"), new String("Calheta"), null);
+
+        assertEquals(a.getParishCode(), b.getParishCode(), "Equal parishes should share a code.");
+        assertSame(a.getParish(), b.getParish(), "Equal parishes should share one String instance.");
+        assertSame(a.getMunicipality(), b.getMunicipality(), "Equal municipalities should share one String.");
+        assertNotEquals(a.getParishCode(), a.getMunicipalityCode(), "Different names get different codes.");
+        assertEquals(StringDictionary.NULL_CODE, a.getIslandCode(), "A null island is encoded as NULL_CODE.");
+        assertEquals("Calheta", PropertyRecord.regionDictionary().valueOf(a.getMunicipalityCode()));
+    }
 }
@@ -0,0 +1,91 @@
+package iscteiul.ista;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link PropertyTable}, covering column storage, dictionary encoding of the
+ * location columns, growth beyond the initial capacity, and the flyweight {@link PropertyRecord}
+ * views.
+ */
+class PropertyTableTest {
+
+    private static PropertyRecord record(int id, int owner, String parish) {
+        return new PropertyRecord(id, 1000L + id, 2000L + id, 1.5 * id, 10.0 * id,
+                "POLYGON((0 0, 1 0, 1 1, 0 1, 0 0))", owner, parish, "Calheta", null);
+    }
+
+    /**
+     * Views expose exactly the values of the records the table was built from.
+     */
+    @Test
+    void testViewsMatchSourceRecords() {
+        List<PropertyRecord> records = List.of(record(1, 7, "Arco da Calheta"), record(2, 8, null));
+        PropertyTable table = PropertyTable.of(records);
+
+        assertEquals(2, table.size());
+        for (int row = 0; row < records.size(); row++) {
+            PropertyRecord expected = records.get(row);
+            PropertyRecord view = table.view(row);
+            assertEquals(expected.toString(), view.toString(), "Row " + row + " should read back unchanged");
+        }
+        assertNull(table.getParish(1), "Null parish stays null");
+        assertEquals(StringDictionary.NULL_CODE, table.getIslandCode(0), "Null island is encoded as NULL_CODE");
+    }
+
+    /**
+     * Equal location names share one dictionary code and one String instance.
+     */
+    @Test
+    void testLocationColumnsAreDictionaryEncoded() {
+        PropertyTable table = new PropertyTable(4, new StringDictionary());
+        table.add(record(1, 7, new String("Arco da Calheta")));
+        table.add(record(2, 7, new String("Arco da Calheta")));
+
+        assertEquals(table.getParishCode(0), table.getParishCode(1), "Same parish => same code");
+        assertSame(table.getParish(0), table.getParish(1), "Decoded names are canonical instances");
+        assertEquals(2, table.getRegions().size(), "Only the parish and municipality names are stored");
+        assertEquals(table.view(0).getParishCode(), new PropertyRecord(9, 0L, 0L, 0.0, 0.0, null, 7,
+                "Arco da Calheta", null, null).getParishCode(),
+                "Views translate private dictionary codes into shared region codes");
+    }
+
+    /**
+     * The table grows past its initial capacity without losing rows.
+     */
+    @Test
+    void testGrowth() {
+        PropertyTable table = new PropertyTable(0, new StringDictionary());
+        List<PropertyRecord> records = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            PropertyRecord r = record(i, i % 13, "P" + (i % 5));
+            records.add(r);
+            assertEquals(i, table.add(r), "add() returns the new row index");
+        }
+        assertEquals(5000, table.size());
+        assertEquals(4999, table.getObjectID(4999));
+        assertEquals(records.get(1234).toString(), table.asList().get(1234).toString());
+        assertThrows(IndexOutOfBoundsException.class, () -> table.getObjectID(5000));
+        assertThrows(IllegalArgumentException.class, () -> new PropertyTable(-1, new StringDictionary()));
+    }
+
+    /**
+     * Views of the same row are equal and usable as map/graph keys; other rows are not.
+     */
+    @Test
+    void testViewEquality() {
+        PropertyTable table = PropertyTable.of(List.of(record(1, 7, "A"), record(2, 7, "B")));
+
+        assertEquals(table.view(0), table.view(0));
+        assertEquals(table.view(0).hashCode(), table.view(0).hashCode());
+        assertNotEquals(table.view(0), table.view(1));
+        assertNotEquals(table.view(0), PropertyTable.of(List.of(record(1, 7, "A"))).view(0),
+                "Views of different tables differ even with equal content");
+        assertThrows(UnsupportedOperationException.class, () -> table.asList().add(record(3, 7, "C")),
+                "The list view is read-only");
+    }
+}
@@ -683,6 +683,7 @@ public class PropertyUtilsTest {
         Geometry finalGeom = WKT_READER.read(merged.get(0).getGeometry());
         assertEquals(1.0, finalGeom.getArea(), 1e-4,
                 "Should be just the valid polygon’s area=1.0, ignoring the invalid geometry.");
+        assertFalse(invalid.isQuarantined(), "Merging does not mark the caller's records");
     }
 
     /**
@@ -766,4 +767,53 @@ public class PropertyUtilsTest {
         assertEquals(1.0, unionGeom.getArea(), 1e-4,
                 "Again, area=1.0 from the single valid geometry.");
     }
+
+    // ------------------------------------------------------------------------
+    // TESTS for the PropertyTable (columnar) overloads
+    // ------------------------------------------------------------------------
+
+    /**
+     * Row filters over a {@link PropertyTable} select the same records as the list-based filters.
+     */
+    @Test
+    @Order(38)
+    void testTableFiltersMatchListFilters() {
+        PropertyTable table = PropertyTable.of(sampleRecords);
+
+        assertArrayEquals(new int[]{0, 1}, PropertyUtils.findByOwner(table, 93), "Owner 93 => rows 0 and 1");
+        assertArrayEquals(new int[]{0}, PropertyUtils.findByParish(table, "Arco da Calheta"));
+        assertArrayEquals(new int[]{0, 1}, PropertyUtils.findByMunicipality(table, "Calheta"));
+        assertArrayEquals(new int[]{0, 1, 2}, PropertyUtils.findByIsland(table, "Ilha da Madeira (Madeira)"));
+        assertEquals(0, PropertyUtils.findByParish(table, "Unknown").length, "Unknown parish => no rows");
+        assertEquals(0, PropertyUtils.findByParish(table, null).length, "Null parish => no rows");
+        assertEquals(0, PropertyUtils.findByOwner((PropertyTable) null, 93).length, "Null table => no rows");
+
+        assertEquals(PropertyUtils.findByMunicipality(sampleRecords, "Calheta").size(),
+                table.views(PropertyUtils.findByMunicipality(table, "Calheta")).size());
+        assertEquals(PropertyUtils.getDistinctParishes(sampleRecords), PropertyUtils.getDistinctParishes(table));
+        assertEquals(PropertyUtils.getDistinctMunicipalities(sampleRecords),
+                PropertyUtils.getDistinctMunicipalities(table));
+    }
+
+    /**
+     * Table aggregations match the list-based ones.
+     */
+    @Test
+    @Order(39)
+    void testTableAggregations() {
+        PropertyTable table = PropertyTable.of(sampleRecords);
+
+        assertEquals(PropertyUtils.calculateAverageArea(sampleRecords),
+                PropertyUtils.calculateAverageArea(table, null), 1e-9, "Average over all rows");
+        assertEquals(PropertyUtils.calculateAverageArea(PropertyUtils.findByOwner(sampleRecords, 93)),
+                PropertyUtils.calculateAverageArea(table, PropertyUtils.findByOwner(table, 93)), 1e-9,
+                "Average over owner 93");
+        assertEquals(0.0, PropertyUtils.calculateAverageArea(table, new int[0]), "No rows => 0.0");
+        assertEquals(0.0, PropertyUtils.calculateAverageArea(null, new int[]{0}), "Null table => 0.0");
+
+        Map<Integer, int[]> groups = PropertyUtils.groupPropertiesByOwner(table);
+        assertEquals(2, groups.size(), "Two distinct owners");
+        assertArrayEquals(new int[]{0, 1}, groups.get(93));
+        assertArrayEquals(new int[]{2}, groups.get(999));
+    }
 }
@@ -0,0 +1,43 @@
+package iscteiul.ista;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link RowFilter} factory methods and their composition.
+ */
+class RowFilterTest {
+
+    /**
+     * Each factory matches only its own column, case-sensitively, and never matches {@code null}.
+     */
+    @Test
+    void testFactories() {
+        assertTrue(RowFilter.all().accept(null, null, null), "all() accepts everything");
+
+        assertTrue(RowFilter.parish("Machico").accept("Machico", "Machico", "Madeira"));
+        assertFalse(RowFilter.parish("Machico").accept("machico", "Machico", "Madeira"), "Case-sensitive");
+        assertFalse(RowFilter.parish("Machico").accept(null, "Machico", "Madeira"), "Null parish never matches");
+        assertFalse(RowFilter.parish(null).accept(null, null, null), "Null filter value never matches");
+
+        assertTrue(RowFilter.municipality("Calheta").accept("Arco da Calheta", "Calheta", null));
+        assertFalse(RowFilter.municipality("Calheta").accept("Calheta", "Funchal", null));
+
+        assertTrue(RowFilter.island("Madeira").accept(null, null, "Madeira"));
+        assertFalse(RowFilter.island("Madeira").accept("Madeira", "Madeira", "Porto Santo"));
+    }
+
+    /**
+     * {@link RowFilter#and(RowFilter)} requires both filters to accept the row.
+     */
+    @Test
+    void testAnd() {
+        RowFilter filter = RowFilter.municipality("Calheta").and(RowFilter.parish("Arco da Calheta"));
+
+        assertTrue(filter.accept("Arco da Calheta", "Calheta", null));
+        assertFalse(filter.accept("Estreito da Calheta", "Calheta", null));
+        assertFalse(filter.accept("Arco da Calheta", "Funchal", null));
+        assertThrows(NullPointerException.class, () -> filter.and(null));
+    }
+}
@@ -0,0 +1,60 @@
+package iscteiul.ista;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link ShardReport}: totals and the skew measures for balanced, skewed and empty
+ * sets of shards.
+ */
+class ShardReportTest {
+
+    /**
+     * Equal shards have a skew of 1 and no variation.
+     */
+    @Test
+    void testBalanced() {
+        ShardReport report = new ShardReport(List.of(
+                new ShardReport.Shard("a.csv", 100, 0, 1000, 10),
+                new ShardReport.Shard("b.csv", 100, 2, 1000, 10)));
+
+        assertEquals(1.0, report.getRowSkew(), 1e-9);
+        assertEquals(1.0, report.getTimeSkew(), 1e-9);
+        assertEquals(0.0, report.getRowCoefficientOfVariation(), 1e-9);
+        assertEquals(2, report.getDuplicates());
+    }
+
+    /**
+     * One large shard dominates the skew measures and is reported as the largest.
+     */
+    @Test
+    void testSkewed() {
+        ShardReport report = new ShardReport(List.of(
+                new ShardReport.Shard("small.csv", 100, 0, 1000, 10),
+                new ShardReport.Shard("large.csv", 700, 0, 7000, 70),
+                new ShardReport.Shard("tiny.csv", 100, 0, 1000, 10)));
+
+        assertEquals(700 * 3 / 900.0, report.getRowSkew(), 1e-9);
+        assertEquals(70 * 3 / 90.0, report.getTimeSkew(), 1e-9);
+        assertEquals(Math.sqrt((2 * 200.0 * 200.0 + 400.0 * 400.0) / 3) / 300.0,
+                report.getRowCoefficientOfVariation(), 1e-9);
+        assertEquals("large.csv", report.getLargestShard().getFile());
+        assertTrue(report.toString().contains("large.csv"));
+    }
+
+    /**
+     * Without shards or rows, the measures are 0 rather than NaN.
+     */
+    @Test
+    void testEmpty() {
+        ShardReport empty = new ShardReport(List.of());
+        assertEquals(0.0, empty.getRowSkew());
+        assertEquals(0.0, empty.getTimeSkew());
+        assertEquals(0.0, empty.getRowCoefficientOfVariation());
+        assertNull(empty.getLargestShard());
+        assertEquals(0.0, new ShardReport(List.of(new ShardReport.Shard("e.csv", 0, 0, 10, 0))).getRowSkew());
+    }
+}
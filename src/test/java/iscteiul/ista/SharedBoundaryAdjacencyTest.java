@@ -0,0 +1,149 @@
+package iscteiul.ista;
+
+import org.jgrapht.graph.DefaultEdge;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static iscteiul.ista.TestParcels.INVALID_WKT;
+import static iscteiul.ista.TestParcels.point;
+import static iscteiul.ista.TestParcels.record;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Equivalence tests for {@link AdjacencyStrategy#SHARED_BOUNDARY}: on a cadastral-like coverage it
+ * must find exactly the pairs that {@link AdjacencyStrategy#PAIRWISE} (JTS {@code touches}) finds,
+ * and the graphs built with either strategy must have the same edges.
+ * <p>
+ * The coverage is a jittered grid of parcels with mixed ring orientations, extra vertices on some
+ * shared edges, corner-only contacts, a parcel overlapping another along a shared edge, a parcel
+ * filling another's hole, and records with an invalid, missing or isolated geometry.
+ */
+class SharedBoundaryAdjacencyTest {
+
+    private static final int K = 10;
+
+    private static List<PropertyRecord> records;
+
+    @BeforeAll
+    static void buildCoverage() {
+        TestParcels.JitteredGrid grid = new TestParcels.JitteredGrid(new Random(42), K);
+        double[][] xs = grid.xs;
+        double[][] ys = grid.ys;
+
+        records = new ArrayList<>();
+        int id = 1;
+        for (int x = 0; x < K; x++) {
+            for (int y = 0; y < K; y++) {
+                List<String> ring = new ArrayList<>();
+                ring.add(point(xs[x][y], ys[x][y]));
+                if (x % 3 == 0) {
+                    // Extra vertex on the bottom edge, shared with the cell below
+                    ring.add(point((xs[x][y] + xs[x + 1][y]) / 2, (ys[x][y] + ys[x + 1][y]) / 2));
+                }
+                ring.add(point(xs[x + 1][y], ys[x + 1][y]));
+                ring.add(point(xs[x + 1][y + 1], ys[x + 1][y + 1]));
+                if (x % 3 == 0) {
+                    ring.add(point((xs[x + 1][y + 1] + xs[x][y + 1]) / 2, (ys[x + 1][y + 1] + ys[x][y + 1]) / 2));
+                }
+                ring.add(point(xs[x][y + 1], ys[x][y + 1]));
+                ring.add(ring.get(0));
+                if ((x + y) % 2 == 1) {
+                    Collections.reverse(ring);  // clockwise shell
+                }
+                String wkt = (x + y) % 5 == 0
+                        ? "MULTIPOLYGON (((" + String.join(", ", ring) + ")))"
+                        : "POLYGON ((" + String.join(", ", ring) + "))";
+                records.add(record(id++, wkt, (x * K + y) % 7));
+            }
+        }
+
+        // Overlaps cell (4, 4) along its left edge, in the same direction
+        records.add(record(id++, "POLYGON ((" + point(xs[4][4], ys[4][4]) + ", "
+                + point((xs[4][4] + xs[5][4]) / 2, (ys[4][4] + ys[5][4]) / 2) + ", "
+                + point((xs[4][5] + xs[5][5]) / 2, (ys[4][5] + ys[5][5]) / 2) + ", "
+                + point(xs[4][5], ys[4][5]) + ", " + point(xs[4][4], ys[4][4]) + "))", 3));
+        // A parcel with a (counter-clockwise) hole, and the parcel filling it
+        records.add(record(id++, "POLYGON ((0 0, 100 0, 100 100, 0 100, 0 0), "
+                + "(40 40, 60 40, 60 60, 40 60, 40 40))", 1));
+        records.add(record(id++, "POLYGON ((40 40, 60 40, 60 60, 40 60, 40 40))", 2));
+        records.add(record(id++, "POLYGON ((500 500, 510 500, 510 510, 500 500))", 4));
+        records.add(record(id++, INVALID_WKT, 5));
+        records.add(record(id, null, 6));
+    }
+
+    private static Set<String> asSet(List<int[]> pairs) {
+        Set<String> set = new TreeSet<>();
+        for (int[] pair : pairs) {
+            assertTrue(pair[0] < pair[1], "Pairs are ordered");
+            set.add(pair[0] + "-" + pair[1]);
+        }
+        return set;
+    }
+
+    /**
+     * The hashing engine finds exactly the pairs JTS {@code touches} finds, including corner-only
+     * contacts, and rejects the parcel that overlaps its neighbour along a shared edge.
+     */
+    @Test
+    void testSamePairsAsTouches() {
+        List<int[]> expected = AdjacencyStrategy.PAIRWISE.adjacentPairs(records);
+        List<int[]> actual = AdjacencyStrategy.SHARED_BOUNDARY.adjacentPairs(records);
+
+        assertEquals(asSet(expected), asSet(actual), "Same touching pairs as pairwise touches");
+        assertEquals(expected.size(), actual.size(), "No duplicate pairs");
+        // Every grid cell touches its 4 edge neighbours and 4 corner neighbours
+        assertTrue(expected.size() > 2 * K * (K - 1) + 2 * (K - 1) * (K - 1), "Coverage is dense");
+        assertTrue(asSet(actual).contains("0-" + (K + 1)), "Corner-only contact found");
+        int overlapping = K * K;
+        assertFalse(asSet(actual).contains((4 * K + 4) + "-" + overlapping), "Overlapping parcel rejected");
+        assertTrue(asSet(actual).contains((K * K + 1) + "-" + (K * K + 2)), "Hole filler touches its host");
+    }
+
+    /**
+     * {@link Graph}, {@link PropertyGraph} and {@link OwnerGraph} have the same edges with either strategy.
+     */
+    @Test
+    void testGraphsAgree() {
+        Graph pairwise = new Graph(records);
+        Graph shared = new Graph(records, AdjacencyStrategy.SHARED_BOUNDARY);
+        for (PropertyRecord record : records) {
+            Set<Integer> expected = new TreeSet<>();
+            pairwise.getNeighbors(record.getObjectID()).forEach(n -> expected.add(n.getObjectID()));
+            Set<Integer> actual = new TreeSet<>();
+            shared.getNeighbors(record.getObjectID()).forEach(n -> actual.add(n.getObjectID()));
+            assertEquals(expected, actual, "Neighbours of " + record.getObjectID());
+        }
+
+        PropertyGraph propertyPairwise = new PropertyGraph();
+        propertyPairwise.buildGraph(records);
+        PropertyGraph propertyShared = new PropertyGraph();
+        propertyShared.buildGraph(records, AdjacencyStrategy.SHARED_BOUNDARY);
+        assertEquals(edgeSet(propertyPairwise.getGraph()), edgeSet(propertyShared.getGraph()));
+
+        OwnerGraph ownerPairwise = new OwnerGraph();
+        ownerPairwise.buildGraph(records);
+        OwnerGraph ownerShared = new OwnerGraph();
+        ownerShared.buildGraph(records, AdjacencyStrategy.SHARED_BOUNDARY);
+        assertEquals(ownerPairwise.getOwners(), ownerShared.getOwners());
+        for (Integer owner : ownerPairwise.getOwners()) {
+            assertEquals(ownerPairwise.getNeighbors(owner), ownerShared.getNeighbors(owner), "Owner " + owner);
+        }
+    }
+
+    private static Set<String> edgeSet(org.jgrapht.Graph<PropertyRecord, DefaultEdge> graph) {
+        Set<String> edges = new TreeSet<>();
+        for (DefaultEdge edge : graph.edgeSet()) {
+            int a = graph.getEdgeSource(edge).getObjectID();
+            int b = graph.getEdgeTarget(edge).getObjectID();
+            edges.add(Math.min(a, b) + "-" + Math.max(a, b));
+        }
+        return edges;
+    }
+}
@@ -0,0 +1,142 @@
+package iscteiul.ista;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.algorithm.distance.DiscreteHausdorffDistance;
+import org.locationtech.jts.geom.Geometry;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static iscteiul.ista.TestParcels.INVALID_WKT;
+import static iscteiul.ista.TestParcels.record;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link SimplifiedGeometryLevels}: the levels must stay within their tolerance of
+ * the full-resolution parcels, drop most vertices of wavy boundaries, and never rule out a pair of
+ * parcels that touch.
+ */
+class SimplifiedGeometryLevelsTest {
+
+    private static final int K = 4;
+    private static final double CELL = 100;
+    private static final double[] TOLERANCES = {0.5, 2.0, 10.0};
+
+    private static List<PropertyRecord> records;
+
+    /**
+     * A grid of parcels whose edges are wavy lines of 100 segments each; neighbours share their
+     * edges vertex for vertex, so they touch.
+     */
+    @BeforeAll
+    static void buildGrid() {
+        records = new ArrayList<>();
+        int id = 1;
+        for (int i = 0; i < K; i++) {
+            for (int j = 0; j < K; j++) {
+                List<String> ring = new ArrayList<>();
+                for (int k = 0; k < 100; k++) {
+                    ring.add(horizontal(i * CELL + k, j));          // bottom, left to right
+                }
+                for (int k = 0; k < 100; k++) {
+                    ring.add(vertical(i + 1, j * CELL + k));        // right, upwards
+                }
+                for (int k = 100; k > 0; k--) {
+                    ring.add(horizontal(i * CELL + k, j + 1));      // top, right to left
+                }
+                for (int k = 100; k >= 0; k--) {
+                    ring.add(vertical(i, j * CELL + k));            // left, downwards (closes the ring)
+                }
+                records.add(record(id++, "POLYGON ((" + String.join(", ", ring) + "))"));
+            }
+        }
+        records.add(record(id++, INVALID_WKT));
+        records.add(record(id, null));
+    }
+
+    private static double wave(double t) {
+        return t % CELL == 0 ? 0 : 0.4 * Math.sin(t * Math.PI / 5);  // exactly 0 at the corners
+    }
+
+    private static String horizontal(double x, int row) {
+        return x + " " + (row * CELL + wave(x));
+    }
+
+    private static String vertical(int column, double y) {
+        return (column * CELL + wave(y)) + " " + y;
+    }
+
+    /**
+     * Each level is valid, within its tolerance of the original and much smaller than it.
+     */
+    @Test
+    void testLevelsApproximateOriginals() {
+        SimplifiedGeometryLevels levels = SimplifiedGeometryLevels.build(records, TOLERANCES);
+        assertEquals(records.size(), levels.size());
+        assertEquals(TOLERANCES.length, levels.getLevelCount());
+
+        long fullVertices = 0;
+        for (int row = 0; row < K * K; row++) {
+            Geometry original = GeometryCache.shared().get(records.get(row));
+            fullVertices += original.getNumPoints();
+            for (int level = 0; level < levels.getLevelCount(); level++) {
+                Geometry simplified = levels.getGeometry(row, level);
+                assertTrue(simplified.isValid(), "Row " + row + " level " + level + " is valid");
+                assertTrue(DiscreteHausdorffDistance.distance(original, simplified) <= TOLERANCES[level] + 1e-9,
+                        "Row " + row + " level " + level + " is within its tolerance");
+                assertEquals(simplified.toText(), levels.getWkt(row, level));
+            }
+        }
+        assertTrue(levels.getVertexCount(1) * 10 < fullVertices, "Wavy edges are flattened at level 1");
+        assertTrue(levels.getVertexCount(2) <= levels.getVertexCount(1));
+        assertEquals(K * K + 1, levels.indexOf(K * K + 2));
+        assertEquals(-1, levels.indexOf(999));
+
+        for (int row = K * K; row < records.size(); row++) {
+            assertNull(levels.getGeometry(row, 0), "No geometry for row " + row);
+            assertNull(levels.getWkt(row, 2));
+            assertFalse(levels.mayIntersect(0, row, 0));
+        }
+    }
+
+    /**
+     * The pre-filter keeps every touching pair at every level and rules out distant pairs.
+     */
+    @Test
+    void testPreFilterIsConservative() {
+        SimplifiedGeometryLevels levels = SimplifiedGeometryLevels.build(records, TOLERANCES);
+        List<int[]> touching = AdjacencyStrategy.PAIRWISE.adjacentPairs(records);
+        assertEquals(2 * K * (K - 1) + 2 * (K - 1) * (K - 1), touching.size(), "Edge and corner neighbours");
+        for (int[] pair : touching) {
+            for (int level = 0; level < levels.getLevelCount(); level++) {
+                assertTrue(levels.mayIntersect(pair[0], pair[1], level),
+                        "Pair " + pair[0] + "-" + pair[1] + " kept at level " + level);
+            }
+        }
+        int farCorner = K * K - 1;
+        for (int level = 0; level < levels.getLevelCount(); level++) {
+            assertFalse(levels.mayIntersect(0, farCorner, level), "Opposite corners ruled out at level " + level);
+            assertFalse(levels.mayIntersect(0, 2, level), "Parcels one apart ruled out at level " + level);
+        }
+    }
+
+    /**
+     * {@link SimplifiedGeometryLevels#levelFor(double)} picks the coarsest acceptable level, and
+     * the tolerances are validated.
+     */
+    @Test
+    void testLevelSelectionAndTolerances() {
+        SimplifiedGeometryLevels levels = SimplifiedGeometryLevels.build(List.of(records.get(0)), TOLERANCES);
+        assertEquals(-1, levels.levelFor(0.1), "Full resolution below the finest tolerance");
+        assertEquals(0, levels.levelFor(0.5));
+        assertEquals(1, levels.levelFor(9.9));
+        assertEquals(2, levels.levelFor(1000));
+        assertEquals(2.0, levels.getTolerance(1));
+
+        assertEquals(3, SimplifiedGeometryLevels.build(records).getLevelCount(), "Default tolerances");
+        assertThrows(IllegalArgumentException.class, () -> SimplifiedGeometryLevels.build(records, new double[0]));
+        assertThrows(IllegalArgumentException.class, () -> SimplifiedGeometryLevels.build(records, 1.0, 1.0));
+        assertThrows(IllegalArgumentException.class, () -> SimplifiedGeometryLevels.build(records, 0.0, 1.0));
+    }
+}
@@ -0,0 +1,117 @@
+package iscteiul.ista;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import static iscteiul.ista.TestParcels.INVALID_WKT;
+import static iscteiul.ista.TestParcels.record;
+import static iscteiul.ista.TestParcels.triangle;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link SpatialQueries}: window and polygon queries must return exactly the parcels
+ * whose geometry intersects the search area, and limits, streams and visitors must stop early.
+ * <p>
+ * The parcels are random triangles, so many of them have an envelope that meets a search area
+ * their geometry misses.
+ */
+class SpatialQueriesTest {
+
+    private static final GeometryFactory FACTORY = new GeometryFactory();
+
+    private static final TestParcels.Dataset dataset = new TestParcels.Dataset();
+    private static SpatialQueries queries;
+
+    @BeforeAll
+    static void buildDataset() {
+        Random random = new Random(3);
+        for (int id = 1; id <= 2000; id++) {
+            double x = 300000 + random.nextDouble() * 2000;
+            double y = 3620000 + random.nextDouble() * 2000;
+            dataset.add(record(id, triangle(x, y, 5 + random.nextDouble() * 40, 5 + random.nextDouble() * 40)));
+        }
+        dataset.add(record(2001, INVALID_WKT));
+        dataset.add(record(2002, null));
+        dataset.add(null);
+        GeometryQuarantine.validate(dataset.records);
+        queries = SpatialQueries.build(dataset.records);
+    }
+
+    private static Set<Integer> bruteForce(Geometry area) {
+        return dataset.idsWhere(geometry -> geometry.intersects(area));
+    }
+
+    private static Set<Integer> ids(List<PropertyRecord> found) {
+        Set<Integer> ids = new TreeSet<>();
+        for (PropertyRecord record : found) {
+            assertTrue(ids.add(record.getObjectID()), "Parcel " + record.getObjectID() + " returned once");
+        }
+        return ids;
+    }
+
+    private static Envelope randomWindow(Random random) {
+        double x = 299900 + random.nextDouble() * 2100;
+        double y = 3619900 + random.nextDouble() * 2100;
+        return new Envelope(x, x + random.nextDouble() * 300, y, y + random.nextDouble() * 300);
+    }
+
+    /**
+     * Window and polygon queries match a linear scan over the full-resolution geometries.
+     */
+    @Test
+    void testQueriesMatchLinearScan() {
+        assertEquals(2000, queries.size(), "Invalid and missing geometries are not indexed");
+        Random random = new Random(11);
+        for (int q = 0; q < 200; q++) {
+            Envelope window = randomWindow(random);
+            Set<Integer> expected = bruteForce(FACTORY.toGeometry(window));
+            assertEquals(expected, ids(queries.inEnvelope(window)), "Window " + window);
+            assertEquals(expected, queries.streamInEnvelope(window).map(PropertyRecord::getObjectID)
+                    .collect(Collectors.toCollection(TreeSet::new)));
+            int[] ids = queries.idsInEnvelope(window, Integer.MAX_VALUE);
+            assertEquals(expected.size(), ids.length);
+            assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), ids, "IDs are sorted");
+
+            Coordinate centre = window.centre();
+            Geometry area = FACTORY.createPoint(centre).buffer(50 + random.nextDouble() * 150);
+            assertEquals(bruteForce(area), ids(queries.inPolygon(area)), "Polygon around " + centre);
+            assertEquals(bruteForce(area), queries.streamInPolygon(area).map(PropertyRecord::getObjectID)
+                    .collect(Collectors.toCollection(TreeSet::new)));
+        }
+        assertTrue(queries.inEnvelope(new Envelope(0, 10, 0, 10)).isEmpty());
+        assertTrue(queries.inEnvelope(new Envelope()).isEmpty());
+        assertTrue(queries.inPolygon(null).isEmpty());
+        assertTrue(queries.inPolygon(FACTORY.createPolygon()).isEmpty());
+    }
+
+    /**
+     * Limits, streams and visitors return only as many parcels as asked for.
+     */
+    @Test
+    void testLimitsAndEarlyStop() {
+        Envelope everything = new Envelope(299000, 303000, 3619000, 3623000);
+        assertEquals(2000, queries.inEnvelope(everything).size());
+        assertEquals(25, ids(queries.inEnvelope(everything, 25)).size());
+        assertEquals(7, queries.idsInEnvelope(everything, 7).length);
+        assertEquals(0, queries.inPolygon(FACTORY.toGeometry(everything), 0).size());
+        assertEquals(10, queries.streamInEnvelope(everything).limit(10).count());
+        assertThrows(IllegalArgumentException.class, () -> queries.inEnvelope(everything, -1));
+
+        int[] visited = {0};
+        assertFalse(queries.forEachInPolygon(FACTORY.toGeometry(everything), record -> ++visited[0] < 3));
+        assertEquals(3, visited[0], "The visitor stops the search");
+        visited[0] = 0;
+        assertTrue(queries.forEachInEnvelope(everything, record -> ++visited[0] > 0));
+        assertEquals(2000, visited[0]);
+    }
+}
@@ -0,0 +1,81 @@
+package iscteiul.ista;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link StringDictionary}: code assignment, lookups, null handling and
+ * concurrent interning.
+ */
+class StringDictionaryTest {
+
+    /**
+     * Codes are dense, stable and map back to canonical instances.
+     */
+    @Test
+    void testInternAndLookup() {
+        StringDictionary dictionary = new StringDictionary();
+
+        assertEquals(0, dictionary.intern("Funchal"));
+        assertEquals(1, dictionary.intern("Calheta"));
+        assertEquals(0, dictionary.intern(new String("Funchal")), "Equal values share a code");
+        assertEquals(2, dictionary.size());
+
+        assertEquals("Calheta", dictionary.valueOf(1));
+        assertEquals(1, dictionary.codeOf("Calheta"));
+        assertEquals(StringDictionary.NULL_CODE, dictionary.codeOf("Machico"), "codeOf does not add values");
+        assertEquals(2, dictionary.size());
+
+        String copy = new String("Funchal");
+        assertSame(dictionary.valueOf(0), dictionary.canonical(copy), "canonical returns the shared instance");
+        assertThrows(IndexOutOfBoundsException.class, () -> dictionary.valueOf(2));
+    }
+
+    /**
+     * {@code null} is always encoded as {@link StringDictionary#NULL_CODE}.
+     */
+    @Test
+    void testNull() {
+        StringDictionary dictionary = new StringDictionary();
+
+        assertEquals(StringDictionary.NULL_CODE, dictionary.intern(null));
+        assertEquals(StringDictionary.NULL_CODE, dictionary.codeOf(null));
+        assertNull(dictionary.valueOf(StringDictionary.NULL_CODE));
+        assertEquals(0, dictionary.size());
+    }
+
+    /**
+     * Concurrent interning gives every value exactly one code.
+     */
+    @Test
+    void testConcurrentIntern() throws InterruptedException {
+        StringDictionary dictionary = new StringDictionary();
+        Set<String> failures = ConcurrentHashMap.newKeySet();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    String value = "v" + i;
+                    int code = dictionary.intern(value);
+                    if (!value.equals(dictionary.valueOf(code))) {
+                        failures.add(value);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertTrue(failures.isEmpty(), "Codes must decode to their value: " + failures);
+        assertEquals(1000, dictionary.size(), "Each distinct value gets exactly one code");
+    }
+}
@@ -0,0 +1,147 @@
+package iscteiul.ista;
+
+import org.locationtech.jts.geom.Geometry;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.IntPredicate;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.Predicate;
+
+/**
+ * Parcel fixtures shared by the geometry tests: a record factory, WKT builders, the jittered grid
+ * of the adjacency tests, and a dataset of records with their parsed geometries for checking the
+ * spatial indexes against a linear scan.
+ */
+final class TestParcels {
+
+    /** The WKT used for a record whose geometry cannot be parsed. */
+    static final String INVALID_WKT = "NOT_A_VALID_WKT";
+
+    private TestParcels() {
+    }
+
+    /**
+     * @return a record with the given ID and geometry, owned by {@code id % 5}
+     */
+    static PropertyRecord record(int id, String wkt) {
+        return record(id, wkt, id % 5);
+    }
+
+    /**
+     * @return a record with the given ID, geometry and owner
+     */
+    static PropertyRecord record(int id, String wkt, int owner) {
+        return new PropertyRecord(id, id, id, 1.0, 1.0, wkt, owner, "Parish", "Municipality", "Island");
+    }
+
+    /**
+     * @return {@code "x y"}
+     */
+    static String point(double x, double y) {
+        return x + " " + y;
+    }
+
+    /**
+     * @return a right triangle with its right angle at {@code (x, y)}
+     */
+    static String triangle(double x, double y, double width, double height) {
+        return "POLYGON ((" + point(x, y) + ", " + point(x + width, y) + ", " + point(x, y + height) + ", "
+                + point(x, y) + "))";
+    }
+
+    /**
+     * @return an axis-aligned rectangle with its lower left corner at {@code (x, y)}
+     */
+    static String rectangle(double x, double y, double width, double height) {
+        return "POLYGON ((" + point(x, y) + ", " + point(x + width, y) + ", " + point(x + width, y + height) + ", "
+                + point(x, y + height) + ", " + point(x, y) + "))";
+    }
+
+    /**
+     * The corners of a {@code k} by {@code k} grid of 20-unit cells near (300000, 3620000), each
+     * moved by up to 4 units in x and y, so that the cells are irregular quadrilaterals that still
+     * share their edges with their neighbours.
+     */
+    static final class JitteredGrid {
+        final int k;
+        final double[][] xs;
+        final double[][] ys;
+
+        JitteredGrid(Random random, int k) {
+            this.k = k;
+            this.xs = new double[k + 1][k + 1];
+            this.ys = new double[k + 1][k + 1];
+            for (int x = 0; x <= k; x++) {
+                for (int y = 0; y <= k; y++) {
+                    xs[x][y] = 300000 + x * 20 + (random.nextDouble() - 0.5) * 8;
+                    ys[x][y] = 3620000 + y * 20 + (random.nextDouble() - 0.5) * 8;
+                }
+            }
+        }
+
+        /**
+         * @return the corner {@code (x, y)} as {@code "x y"}
+         */
+        String corner(int x, int y) {
+            return point(xs[x][y], ys[x][y]);
+        }
+
+        /**
+         * @return the cell whose lower left corner is {@code (x, y)}, counter-clockwise
+         */
+        String cell(int x, int y) {
+            return "POLYGON ((" + corner(x, y) + ", " + corner(x + 1, y) + ", " + corner(x + 1, y + 1) + ", "
+                    + corner(x, y + 1) + ", " + corner(x, y) + "))";
+        }
+    }
+
+    /**
+     * Records together with their parsed geometries ({@code null} for a missing record or an
+     * invalid geometry), row by row, as the expected side of the spatial index tests.
+     */
+    static final class Dataset {
+        final List<PropertyRecord> records = new ArrayList<>();
+        final List<Geometry> geometries = new ArrayList<>();
+
+        /**
+         * Adds a record (may be {@code null}) and its parsed geometry.
+         */
+        void add(PropertyRecord record) {
+            records.add(record);
+            geometries.add(record == null ? null : LazyGeometry.parse(record.getGeometry()));
+        }
+
+        /**
+         * @return the IDs of the parcels whose geometry passes {@code test}, by a linear scan
+         */
+        Set<Integer> idsWhere(Predicate<Geometry> test) {
+            Set<Integer> ids = new TreeSet<>();
+            for (int row = 0; row < records.size(); row++) {
+                if (geometries.get(row) != null && test.test(geometries.get(row))) {
+                    ids.add(records.get(row).getObjectID());
+                }
+            }
+            return ids;
+        }
+
+        /**
+         * @return the distances of the {@code k} nearest rows with a geometry that pass {@code keep}
+         *         and are within {@code maxDistance}, in increasing order, by a linear scan
+         */
+        List<Double> nearestDistances(IntToDoubleFunction distance, IntPredicate keep, int k, double maxDistance) {
+            List<Double> distances = new ArrayList<>();
+            for (int row = 0; row < records.size(); row++) {
+                if (geometries.get(row) != null && keep.test(row) && distance.applyAsDouble(row) <= maxDistance) {
+                    distances.add(distance.applyAsDouble(row));
+                }
+            }
+            distances.sort(Comparator.naturalOrder());
+            return distances.subList(0, Math.min(k, distances.size()));
+        }
+    }
+}